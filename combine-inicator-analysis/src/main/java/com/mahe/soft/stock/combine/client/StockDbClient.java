@@ -1,10 +1,22 @@
 package com.mahe.soft.stock.combine.client;
 
 import com.mahe.soft.stock.combine.model.StockPriceDto;
+import com.mahe.soft.stock.common.CandleSeries;
+import com.mahe.soft.stock.common.CandleSeriesCodec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -17,6 +29,9 @@ public class StockDbClient {
     @Value("${stock.db.url:http://localhost:8081}")
     private String stockDbUrl;
 
+    @Value("${stock.db.candles-gzip:false}")
+    private boolean candlesGzip;
+
     public List<StockPriceDto> getStockPrices(String symbol) {
         return getStockPrices(symbol, null, null);
     }
@@ -25,13 +40,11 @@ public class StockDbClient {
             java.time.LocalDate endDate) {
         return webClientBuilder
                 .baseUrl(stockDbUrl)
-                .codecs(configurer -> configurer
-                        .defaultCodecs()
-                        .maxInMemorySize(16 * 1024 * 1024)) // 16MB
                 .build()
                 .get()
                 .uri(uriBuilder -> {
-                    uriBuilder.path("/api/stocks/" + symbol);
+                    // NDJSON is decoded row by row, so no large in-memory buffer is needed
+                    uriBuilder.path("/api/stocks/" + symbol + "/stream");
                     if (startDate != null) {
                         uriBuilder.queryParam("startDate", startDate);
                     }
@@ -40,9 +53,133 @@ public class StockDbClient {
                     }
                     return uriBuilder.build();
                 })
+                .accept(MediaType.APPLICATION_NDJSON)
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<StockPriceDto>>() {
+                .bodyToFlux(StockPriceDto.class)
+                .collectList()
+                .block();
+    }
+
+    /**
+     * Fetches prices in the binary {@link CandleSeriesCodec} format and decodes
+     * them straight into primitive columns (no JSON, DTOs or BigDecimals).
+     */
+    public CandleSeries getCandleSeries(String symbol, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        return webClientBuilder
+                .baseUrl(stockDbUrl)
+                .build()
+                .get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path("/api/stocks/" + symbol);
+                    if (startDate != null) {
+                        uriBuilder.queryParam("startDate", startDate);
+                    }
+                    if (endDate != null) {
+                        uriBuilder.queryParam("endDate", endDate);
+                    }
+                    if (candlesGzip) {
+                        uriBuilder.queryParam("gzip", true);
+                    }
+                    return uriBuilder.build();
                 })
+                .accept(MediaType.parseMediaType(CandleSeriesCodec.MEDIA_TYPE))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join) // no in-memory size cap, unlike bodyToMono(byte[].class)
+                .map(StockDbClient::decode)
                 .block();
     }
+
+    /**
+     * Fetches several symbols in one request (one set-based query on the server).
+     * The result has an entry for every requested symbol, in request order;
+     * symbols without data map to an empty list.
+     */
+    public Map<String, List<StockPriceDto>> getStockPricesBatch(Collection<String> symbols,
+            java.time.LocalDate startDate, java.time.LocalDate endDate) {
+        Map<String, List<StockPriceDto>> result = new LinkedHashMap<>();
+        symbols.forEach(symbol -> result.put(symbol, new ArrayList<>()));
+        if (symbols.isEmpty()) {
+            return result;
+        }
+        // Rows arrive grouped by symbol, each group ordered by date
+        webClientBuilder
+                .baseUrl(stockDbUrl)
+                .build()
+                .post()
+                .uri("/api/stocks/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(batchRequest(symbols, startDate, endDate))
+                .retrieve()
+                .bodyToFlux(StockPriceDto.class)
+                .doOnNext(price -> result.computeIfAbsent(price.getSymbol(), k -> new ArrayList<>()).add(price))
+                .blockLast();
+        return result;
+    }
+
+    /**
+     * Binary variant of {@link #getStockPricesBatch}: one decoded series per
+     * requested symbol, in request order; symbols without data map to an empty
+     * series.
+     */
+    public Map<String, CandleSeries> getCandleSeriesBatch(Collection<String> symbols, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        Map<String, CandleSeries> result = new LinkedHashMap<>();
+        if (symbols.isEmpty()) {
+            return result;
+        }
+        List<CandleSeries> frames = webClientBuilder
+                .baseUrl(stockDbUrl)
+                .build()
+                .post()
+                .uri(uriBuilder -> {
+                    uriBuilder.path("/api/stocks/batch");
+                    if (candlesGzip) {
+                        uriBuilder.queryParam("gzip", true);
+                    }
+                    return uriBuilder.build();
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.parseMediaType(CandleSeriesCodec.MEDIA_TYPE))
+                .bodyValue(batchRequest(symbols, startDate, endDate))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join)
+                .map(StockDbClient::decodeAll)
+                .blockOptional()
+                .orElse(List.of());
+        Map<String, CandleSeries> bySymbol = new HashMap<>();
+        frames.forEach(series -> bySymbol.put(series.getSymbol(), series));
+        for (String symbol : symbols) {
+            result.put(symbol, bySymbol.getOrDefault(symbol, CandleSeries.builder(symbol, 0).build()));
+        }
+        return result;
+    }
+
+    private static Map<String, Object> batchRequest(Collection<String> symbols, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("symbols", symbols);
+        body.put("startDate", startDate);
+        body.put("endDate", endDate);
+        return body;
+    }
+
+    private static CandleSeries decode(DataBuffer payload) {
+        try (InputStream in = payload.asInputStream(true)) {
+            return CandleSeriesCodec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid " + CandleSeriesCodec.MEDIA_TYPE + " response", e);
+        }
+    }
+
+    private static List<CandleSeries> decodeAll(DataBuffer payload) {
+        try (InputStream in = payload.asInputStream(true)) {
+            return CandleSeriesCodec.readAll(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid " + CandleSeriesCodec.MEDIA_TYPE + " response", e);
+        }
+    }
 }
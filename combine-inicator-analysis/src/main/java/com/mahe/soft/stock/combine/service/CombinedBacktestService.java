@@ -1,19 +1,17 @@
 package com.mahe.soft.stock.combine.service;
 
 import com.mahe.soft.stock.combine.client.StockDbClient;
-import com.mahe.soft.stock.combine.model.Candle;
 import com.mahe.soft.stock.combine.model.CombinedBacktestRequest;
 import com.mahe.soft.stock.combine.model.CombinedBacktestResult;
-import com.mahe.soft.stock.combine.model.StockPriceDto;
 import com.mahe.soft.stock.combine.model.StrategyConfig;
 import com.mahe.soft.stock.combine.service.CombinedStrategyEngine.AnalysisResult;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -35,21 +33,12 @@ public class CombinedBacktestService {
             config = StrategyConfig.builder().build(); // Use defaults
 
         // 1. Fetch Data
-        List<StockPriceDto> prices = stockDbClient.getStockPrices(symbol);
-        if (prices.isEmpty())
+        CandleSeries series = stockDbClient.getCandleSeries(symbol, null, null);
+        if (series == null || series.isEmpty())
             throw new RuntimeException("No data found for " + symbol);
 
-        List<Candle> candles = prices.stream().map(p -> Candle.builder()
-                .timestamp(p.getTradeDate())
-                .open(p.getOpenPrice().doubleValue())
-                .high(p.getHighPrice().doubleValue())
-                .low(p.getLowPrice().doubleValue())
-                .close(p.getClosePrice().doubleValue())
-                .volume(p.getVolume())
-                .build()).collect(Collectors.toList());
-
         // 2. Run Strategy Analysis (Bulk)
-        AnalysisResult analysis = strategyEngine.runFullAnalysis(candles, config);
+        AnalysisResult analysis = strategyEngine.runFullAnalysis(series, config);
 
         // 3. Simulate Trading Loop
         double cash = initialCapital;
@@ -64,10 +53,14 @@ public class CombinedBacktestService {
 
         List<String[]> csvRows = new ArrayList<>();
 
-        for (int i = 0; i < candles.size(); i++) {
-            Candle c = candles.get(i);
+        double[] open = series.getOpen();
+        double[] high = series.getHigh();
+        double[] low = series.getLow();
+        double[] close = series.getClose();
+
+        for (int i = 0; i < series.size(); i++) {
             String signal = analysis.getSignals()[i];
-            double price = c.getClose();
+            double price = close[i];
 
             if ("BUY".equals(signal) && cash > price) {
                 double quantity = Math.floor(cash / price);
@@ -87,11 +80,11 @@ public class CombinedBacktestService {
             if(signal != null) {
                 // Add Row
                 csvRows.add(new String[]{
-                        c.getTimestamp().toString(),
-                        String.valueOf(c.getOpen()),
-                        String.valueOf(c.getHigh()),
-                        String.valueOf(c.getLow()),
-                        String.valueOf(c.getClose()),
+                        series.getDate(i).toString(),
+                        String.valueOf(open[i]),
+                        String.valueOf(high[i]),
+                        String.valueOf(low[i]),
+                        String.valueOf(close[i]),
                         String.format("%.2f", analysis.getSmaFast()[i]),
                         String.format("%.2f", analysis.getSmaSlow()[i]),
                         String.format("%.2f", analysis.getRsi()[i]),
@@ -103,8 +96,8 @@ public class CombinedBacktestService {
         }
 
         // 4. Calculate CAGR
-        LocalDate start = candles.get(0).getTimestamp();
-        LocalDate end = candles.get(candles.size() - 1).getTimestamp();
+        LocalDate start = series.getDate(0);
+        LocalDate end = series.getDate(series.size() - 1);
         double years = (double) ChronoUnit.DAYS.between(start, end) / 365.25;
 
         double totalReturn = (equity - initialCapital) / initialCapital;
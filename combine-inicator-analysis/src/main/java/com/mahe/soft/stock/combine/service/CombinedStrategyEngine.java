@@ -1,9 +1,8 @@
 package com.mahe.soft.stock.combine.service;
 
-import com.mahe.soft.stock.combine.model.Candle;
 import com.mahe.soft.stock.combine.model.StrategyConfig;
+import com.mahe.soft.stock.common.CandleSeries;
 import com.tictactec.ta.lib.MAType;
-import java.util.List;
 import lombok.Builder;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
@@ -32,9 +31,9 @@ public class CombinedStrategyEngine {
     /*
      * Runs analysis on the entire series at once (Vectorized-style).
      */
-    public AnalysisResult runFullAnalysis(List<Candle> candles, StrategyConfig config) {
-        int n = candles.size();
-        double[] close = candles.stream().mapToDouble(Candle::getClose).toArray();
+    public AnalysisResult runFullAnalysis(CandleSeries series, StrategyConfig config) {
+        int n = series.size();
+        double[] close = series.getClose();
 
         // Use defaults if null
         if (config == null)
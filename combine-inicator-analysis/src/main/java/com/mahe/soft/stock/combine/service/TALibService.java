@@ -2,7 +2,7 @@ package com.mahe.soft.stock.combine.service;
 
 import com.tictactec.ta.lib.Core;
 import com.tictactec.ta.lib.MAType;
-import com.tictactec.ta.lib.MInteger;
+import com.tictactec.ta.lib.RetCode;
 import java.util.Arrays;
 import org.springframework.stereotype.Service;
 
@@ -11,91 +11,111 @@ public class TALibService {
 
     private final Core lib = new Core();
 
-    private double[] alignResult(double[] out, MInteger begin, int inputLen) {
-        double[] aligned = new double[inputLen];
-        Arrays.fill(aligned, Double.NaN);
-        int outIdx = 0;
-        for (int i = begin.value; i < inputLen && outIdx < out.length; i++) {
-            aligned[i] = out[outIdx++];
+    // Writes TA-Lib's output (which starts at index 0) back in place, shifted right
+    // by outBegIdx and NaN-padded, so caller-supplied buffers line up with the input.
+    private double[] align(RetCode rc, double[] out, TALibWorkspace ws, int inputLen) {
+        if (out.length < inputLen) {
+            throw new IllegalArgumentException(
+                    "Output buffer too small: " + out.length + " < input length " + inputLen);
         }
-        return aligned;
+        int valid = rc == RetCode.Success ? Math.max(0, Math.min(ws.length.value, inputLen - ws.begin.value)) : 0;
+        int begin = valid > 0 ? ws.begin.value : 0;
+        if (valid > 0 && begin > 0) {
+            System.arraycopy(out, 0, out, begin, valid);
+        }
+        Arrays.fill(out, 0, begin, Double.NaN);
+        Arrays.fill(out, begin + valid, inputLen, Double.NaN);
+        return out;
     }
 
     public double[] ema(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.ema(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return ema(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] ema(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.ema(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] sma(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.sma(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return sma(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] sma(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.sma(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] rsi(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.rsi(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return rsi(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] rsi(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.rsi(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[][] bbands(double[] inReal, int timePeriod, double nbDevUp, double nbDevDn, MAType maType) {
         double[] outUpper = new double[inReal.length];
         double[] outMiddle = new double[inReal.length];
         double[] outLower = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.bbands(0, inReal.length - 1, inReal, timePeriod, nbDevUp, nbDevDn, maType, begin, length, outUpper,
-                outMiddle, outLower);
-        return new double[][] {
-                alignResult(outUpper, begin, inReal.length),
-                alignResult(outMiddle, begin, inReal.length),
-                alignResult(outLower, begin, inReal.length)
-        };
+        bbands(inReal, timePeriod, nbDevUp, nbDevDn, maType, outUpper, outMiddle, outLower, new TALibWorkspace());
+        return new double[][] { outUpper, outMiddle, outLower };
+    }
+
+    public void bbands(double[] inReal, int timePeriod, double nbDevUp, double nbDevDn, MAType maType,
+            double[] outUpper, double[] outMiddle, double[] outLower, TALibWorkspace ws) {
+        RetCode rc = lib.bbands(0, inReal.length - 1, inReal, timePeriod, nbDevUp, nbDevDn, maType, ws.begin,
+                ws.length, outUpper, outMiddle, outLower);
+        align(rc, outUpper, ws, inReal.length);
+        align(rc, outMiddle, ws, inReal.length);
+        align(rc, outLower, ws, inReal.length);
     }
 
     public double[][] macd(double[] inReal, int fastPeriod, int slowPeriod, int signalPeriod) {
         double[] outMacd = new double[inReal.length];
         double[] outMacdSignal = new double[inReal.length];
         double[] outMacdHist = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.macd(0, inReal.length - 1, inReal, fastPeriod, slowPeriod, signalPeriod, begin, length, outMacd,
-                outMacdSignal, outMacdHist);
-        return new double[][] {
-                alignResult(outMacd, begin, inReal.length),
-                alignResult(outMacdSignal, begin, inReal.length),
-                alignResult(outMacdHist, begin, inReal.length)
-        };
+        macd(inReal, fastPeriod, slowPeriod, signalPeriod, outMacd, outMacdSignal, outMacdHist, new TALibWorkspace());
+        return new double[][] { outMacd, outMacdSignal, outMacdHist };
+    }
+
+    public void macd(double[] inReal, int fastPeriod, int slowPeriod, int signalPeriod, double[] outMacd,
+            double[] outMacdSignal, double[] outMacdHist, TALibWorkspace ws) {
+        RetCode rc = lib.macd(0, inReal.length - 1, inReal, fastPeriod, slowPeriod, signalPeriod, ws.begin,
+                ws.length, outMacd, outMacdSignal, outMacdHist);
+        align(rc, outMacd, ws, inReal.length);
+        align(rc, outMacdSignal, ws, inReal.length);
+        align(rc, outMacdHist, ws, inReal.length);
     }
 
     public double[] adx(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.adx(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return adx(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] adx(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.adx(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] sar(double[] inHigh, double[] inLow, double acceleration, double maximum) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.sar(0, inHigh.length - 1, inHigh, inLow, acceleration, maximum, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return sar(inHigh, inLow, acceleration, maximum, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] sar(double[] inHigh, double[] inLow, double acceleration, double maximum, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.sar(0, inHigh.length - 1, inHigh, inLow, acceleration, maximum, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] atr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.atr(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return atr(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] atr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.atr(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 }
@@ -9,6 +9,7 @@ pluginManagement {
 
 rootProject.name = "technical-analysis"
 
+include("stock-common")
 include("stock-db-operations")
 include("stock-analysis")
 include("combine-inicator-analysis")
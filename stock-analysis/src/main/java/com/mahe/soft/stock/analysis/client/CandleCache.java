@@ -0,0 +1,249 @@
+package com.mahe.soft.stock.analysis.client;
+
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Client-side cache of full per-symbol histories in front of stock-db-operations.
+ *
+ * <ul>
+ * <li>Younger than {@code ttl}: served from memory.</li>
+ * <li>Up to {@code staleWhileRevalidate} past the TTL: served stale while a
+ * background refresh runs.</li>
+ * <li>Older, or never fetched: the caller waits for a refresh.</li>
+ * </ul>
+ *
+ * Refreshes are incremental (only bars after the last cached date are
+ * fetched) and single-flight: concurrent requests for a symbol share one
+ * in-flight fetch, and all symbols a caller needs go out as one batch request.
+ * Incremental refreshes never see corrections to bars already cached, so an
+ * entry whose last full load is {@code maxAge} old is refreshed in full.
+ */
+@Slf4j
+final class CandleCache {
+
+    /**
+     * Batch fetch; symbols without data may be absent from the result.
+     */
+    @FunctionalInterface
+    interface Fetcher {
+        Mono<List<CandleSeries>> fetch(Collection<String> symbols, LocalDate startDate, LocalDate endDate);
+    }
+
+    /**
+     * @param loadedAt time of the last full (not incremental) fetch
+     */
+    private record Entry(CandleSeries series, Instant fetchedAt, Instant loadedAt) {
+    }
+
+    private final Fetcher fetcher;
+    private final Duration ttl;
+    private final Duration staleWhileRevalidate;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<CandleSeries>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fetches = new LongAdder();
+
+    CandleCache(Fetcher fetcher, Duration ttl, Duration staleWhileRevalidate, Duration maxAge, int maxSymbols,
+            Clock clock) {
+        this.fetcher = fetcher;
+        this.ttl = ttl;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSymbols;
+            }
+        };
+    }
+
+    /**
+     * @return the full history of every requested symbol, in request order
+     *         (empty series for symbols without data).
+     */
+    Map<String, CandleSeries> get(Collection<String> symbols) {
+        Instant now = clock.instant();
+        Map<String, CandleSeries> result = new LinkedHashMap<>();
+        List<String> revalidate = new ArrayList<>();
+        List<String> required = new ArrayList<>();
+        for (String symbol : new LinkedHashSet<>(symbols)) {
+            Entry entry = entry(symbol);
+            Duration age = entry != null ? Duration.between(entry.fetchedAt(), now) : null;
+            if (age != null && age.compareTo(ttl) < 0) {
+                hits.increment();
+                result.put(symbol, entry.series());
+            } else if (age != null && age.compareTo(ttl.plus(staleWhileRevalidate)) < 0) {
+                staleHits.increment();
+                result.put(symbol, entry.series());
+                revalidate.add(symbol);
+            } else {
+                misses.increment();
+                result.put(symbol, null); // keeps request order
+                required.add(symbol);
+            }
+        }
+        if (!revalidate.isEmpty()) {
+            refresh(revalidate); // failures are logged and the stale entries kept
+        }
+        if (!required.isEmpty()) {
+            refresh(required).forEach((symbol, future) -> result.put(symbol, join(future)));
+        }
+        return result;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return batch requests sent to stock-db-operations.
+     */
+    long getFetches() {
+        return fetches.sum();
+    }
+
+    /**
+     * Starts one fetch for the symbols not already in flight and returns a
+     * future per requested symbol (shared with any concurrent caller).
+     */
+    private Map<String, CompletableFuture<CandleSeries>> refresh(List<String> symbols) {
+        Map<String, CompletableFuture<CandleSeries>> futures = new LinkedHashMap<>();
+        Map<String, CompletableFuture<CandleSeries>> owned = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            CompletableFuture<CandleSeries> created = new CompletableFuture<>();
+            CompletableFuture<CandleSeries> existing = inFlight.putIfAbsent(symbol, created);
+            futures.put(symbol, existing != null ? existing : created);
+            if (existing == null) {
+                owned.put(symbol, created);
+            }
+        }
+        if (owned.isEmpty()) {
+            return futures;
+        }
+
+        // Symbols with cached bars only need what came after their last date
+        Instant now = clock.instant();
+        Map<String, Entry> cached = new HashMap<>();
+        List<String> full = new ArrayList<>();
+        LocalDate from = null;
+        for (String symbol : owned.keySet()) {
+            Entry entry = entry(symbol);
+            if (entry == null || entry.series().isEmpty()
+                    || Duration.between(entry.loadedAt(), now).compareTo(maxAge) >= 0) {
+                full.add(symbol);
+                continue;
+            }
+            cached.put(symbol, entry);
+            LocalDate next = entry.series().getDate(entry.series().size() - 1).plusDays(1);
+            from = from == null || next.isBefore(from) ? next : from;
+        }
+        LocalDate to = LocalDate.now(clock).plusDays(1);
+
+        Mono.zip(fetch(full, null, null), fetch(cached.keySet(), from, to)).subscribe(fetched -> {
+            Map<String, CandleSeries> bySymbol = new HashMap<>();
+            fetched.getT1().forEach(series -> bySymbol.put(series.getSymbol(), series));
+            fetched.getT2().forEach(series -> bySymbol.put(series.getSymbol(), series));
+            Instant fetchedAt = clock.instant();
+            owned.forEach((symbol, future) -> {
+                Entry previous = cached.get(symbol);
+                CandleSeries series = append(symbol, previous != null ? previous.series() : null,
+                        bySymbol.get(symbol));
+                store(symbol, new Entry(series, fetchedAt, previous != null ? previous.loadedAt() : fetchedAt));
+                inFlight.remove(symbol, future);
+                future.complete(series);
+            });
+        }, error -> {
+            log.warn("Failed to refresh {} symbols from stock-db: {}", owned.size(), error.getMessage());
+            owned.forEach((symbol, future) -> {
+                inFlight.remove(symbol, future);
+                future.completeExceptionally(error);
+            });
+        });
+        return futures;
+    }
+
+    private Mono<List<CandleSeries>> fetch(Collection<String> symbols, LocalDate from, LocalDate to) {
+        if (symbols.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        fetches.increment();
+        return fetcher.fetch(symbols, from, to).defaultIfEmpty(List.of());
+    }
+
+    /**
+     * @return {@code cached} followed by the bars of {@code delta} dated after it.
+     */
+    static CandleSeries append(String symbol, CandleSeries cached, CandleSeries delta) {
+        if (cached == null) {
+            return delta != null ? delta : CandleSeries.builder(symbol, 0).build();
+        }
+        if (delta == null || delta.isEmpty()) {
+            return cached;
+        }
+        int last = cached.getEpochDays()[cached.size() - 1];
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, cached.size() + delta.size());
+        for (CandleSeries part : List.of(cached, delta)) {
+            for (int i = 0; i < part.size(); i++) {
+                if (part == cached || part.getEpochDays()[i] > last) {
+                    builder.add(part.getEpochDays()[i], part.getOpen()[i], part.getHigh()[i], part.getLow()[i],
+                            part.getClose()[i], part.getVolume()[i]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private Entry entry(String symbol) {
+        synchronized (entries) {
+            return entries.get(symbol);
+        }
+    }
+
+    private void store(String symbol, Entry entry) {
+        synchronized (entries) {
+            entries.put(symbol, entry);
+        }
+    }
+
+    private static CandleSeries join(CompletableFuture<CandleSeries> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,48 +1,202 @@
 package com.mahe.soft.stock.analysis.client;
 
 import com.mahe.soft.stock.analysis.dto.StockPriceDto;
+import com.mahe.soft.stock.common.CandleSeries;
+import com.mahe.soft.stock.common.CandleSeriesCodec;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+/**
+ * Client for stock-db-operations. Price reads go through a {@link CandleCache}
+ * (TTL, stale-while-revalidate, single-flight, incremental refresh) over one
+ * shared WebClient with a bounded connection pool.
+ */
 @Component
 @RequiredArgsConstructor
-public class StockDbClient {
+public class StockDbClient implements MeterBinder {
+
+    private static final String CACHE_NAME = "stock-db-candles";
 
     private final WebClient.Builder webClientBuilder;
 
     @Value("${stock.db.url:http://localhost:8081}")
     private String stockDbUrl;
 
+    @Value("${stock.db.candles-gzip:false}")
+    private boolean candlesGzip;
+
+    @Value("${stock.db.max-connections:50}")
+    private int maxConnections = 50;
+
+    @Value("${stock.db.cache.ttl:30s}")
+    private Duration cacheTtl = Duration.ofSeconds(30);
+
+    @Value("${stock.db.cache.stale-while-revalidate:10m}")
+    private Duration cacheStaleWhileRevalidate = Duration.ofMinutes(10);
+
+    @Value("${stock.db.cache.max-age:1h}")
+    private Duration cacheMaxAge = Duration.ofHours(1);
+
+    @Value("${stock.db.cache.max-symbols:5000}")
+    private int cacheMaxSymbols = 5000;
+
+    private WebClient webClient;
+    private CandleCache candleCache;
+
+    @PostConstruct
+    void init() {
+        ConnectionProvider pool = ConnectionProvider.builder("stock-db")
+                .maxConnections(maxConnections)
+                .build();
+        webClient = webClientBuilder.clone()
+                .baseUrl(stockDbUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(pool)))
+                .build();
+        candleCache = new CandleCache(this::fetchCandleSeries, cacheTtl, cacheStaleWhileRevalidate, cacheMaxAge,
+                cacheMaxSymbols, Clock.systemDefaultZone());
+    }
+
     public List<StockPriceDto> getStockPrices(String symbol) {
         return getStockPrices(symbol, null, null);
     }
 
     public List<StockPriceDto> getStockPrices(String symbol, java.time.LocalDate startDate,
             java.time.LocalDate endDate) {
-        return webClientBuilder
-                .baseUrl(stockDbUrl)
-                .codecs(configurer -> configurer
-                .defaultCodecs()
-                .maxInMemorySize(16 * 1024 * 1024)) // 16MB
-                .build()
-                .get()
+        return toDtos(getCandleSeries(symbol, startDate, endDate));
+    }
+
+    /**
+     * Prices as primitive columns, sliced from the cached full history (dates
+     * apply only when both are given, as on the server).
+     */
+    public CandleSeries getCandleSeries(String symbol, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        return slice(candleCache.get(List.of(symbol)).get(symbol), startDate, endDate);
+    }
+
+    /**
+     * Several symbols at once; cache misses are fetched in one batch request.
+     * The result has an entry for every requested symbol, in request order;
+     * symbols without data map to an empty list.
+     */
+    public Map<String, List<StockPriceDto>> getStockPricesBatch(Collection<String> symbols,
+            java.time.LocalDate startDate, java.time.LocalDate endDate) {
+        Map<String, List<StockPriceDto>> result = new LinkedHashMap<>();
+        getCandleSeriesBatch(symbols, startDate, endDate).forEach((symbol, series) -> result.put(symbol,
+                toDtos(series)));
+        return result;
+    }
+
+    /**
+     * Columnar variant of {@link #getStockPricesBatch}; symbols without data map
+     * to an empty series.
+     */
+    public Map<String, CandleSeries> getCandleSeriesBatch(Collection<String> symbols, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        Map<String, CandleSeries> result = new LinkedHashMap<>();
+        if (symbols.isEmpty()) {
+            return result;
+        }
+        candleCache.get(symbols).forEach((symbol, series) -> result.put(symbol, slice(series, startDate, endDate)));
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", candleCache, CandleCache::getHits).tag("cache", CACHE_NAME)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", candleCache, CandleCache::getStaleHits).tag("cache", CACHE_NAME)
+                .tag("result", "stale").register(registry);
+        FunctionCounter.builder("cache.gets", candleCache, CandleCache::getMisses).tag("cache", CACHE_NAME)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("stock.db.fetches", candleCache, CandleCache::getFetches)
+                .description("Batch price requests sent to stock-db-operations").register(registry);
+    }
+
+    /**
+     * Fetches prices in the binary {@link CandleSeriesCodec} format and decodes
+     * them straight into primitive columns (no JSON, DTOs or BigDecimals).
+     */
+    private Mono<List<CandleSeries>> fetchCandleSeries(Collection<String> symbols, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        return webClient
+                .post()
                 .uri(uriBuilder -> {
-                    uriBuilder.path("/api/stocks/" + symbol);
-                    if (startDate != null) {
-                        uriBuilder.queryParam("startDate", startDate);
-                    }
-                    if (endDate != null) {
-                        uriBuilder.queryParam("endDate", endDate);
+                    uriBuilder.path("/api/stocks/batch");
+                    if (candlesGzip) {
+                        uriBuilder.queryParam("gzip", true);
                     }
                     return uriBuilder.build();
                 })
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.parseMediaType(CandleSeriesCodec.MEDIA_TYPE))
+                .bodyValue(batchRequest(symbols, startDate, endDate))
                 .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<List<StockPriceDto>>() {
-                })
-                .block();
+                .bodyToFlux(DataBuffer.class)
+                .as(DataBufferUtils::join) // no in-memory size cap, unlike bodyToMono(byte[].class)
+                .map(StockDbClient::decodeAll);
+    }
+
+    private static CandleSeries slice(CandleSeries series, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        return startDate != null && endDate != null ? series.between(startDate, endDate) : series;
+    }
+
+    private static List<StockPriceDto> toDtos(CandleSeries series) {
+        List<StockPriceDto> prices = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            StockPriceDto dto = new StockPriceDto();
+            dto.setSymbol(series.getSymbol());
+            dto.setTradeDate(series.getDate(i));
+            dto.setOpenPrice(BigDecimal.valueOf(series.getOpen()[i]));
+            dto.setHighPrice(BigDecimal.valueOf(series.getHigh()[i]));
+            dto.setLowPrice(BigDecimal.valueOf(series.getLow()[i]));
+            dto.setClosePrice(BigDecimal.valueOf(series.getClose()[i]));
+            dto.setVolume((long) series.getVolume()[i]);
+            prices.add(dto);
+        }
+        return prices;
+    }
+
+    private static Map<String, Object> batchRequest(Collection<String> symbols, java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("symbols", symbols);
+        body.put("startDate", startDate);
+        body.put("endDate", endDate);
+        return body;
+    }
+
+    private static List<CandleSeries> decodeAll(DataBuffer payload) {
+        try (InputStream in = payload.asInputStream(true)) {
+            return CandleSeriesCodec.readAll(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid " + CandleSeriesCodec.MEDIA_TYPE + " response", e);
+        }
     }
 }
@@ -2,7 +2,7 @@ package com.mahe.soft.stock.analysis.service;
 
 import com.tictactec.ta.lib.Core;
 import com.tictactec.ta.lib.MAType;
-import com.tictactec.ta.lib.MInteger;
+import com.tictactec.ta.lib.RetCode;
 import java.util.Arrays;
 import org.springframework.stereotype.Service;
 
@@ -16,26 +16,44 @@ public class TALibService {
     private final Core lib = new Core();
 
     // =========================================================================
-    // HELPER: Align output to match input length (pad with NaNs at start)
+    // HELPER: Align output in place to match input length (pad with NaNs at start)
     // =========================================================================
-    private double[] alignResult(double[] out, MInteger begin, int inputLen) {
-        double[] aligned = new double[inputLen];
-        Arrays.fill(aligned, Double.NaN);
-        int outIdx = 0;
-        for (int i = begin.value; i < inputLen && outIdx < out.length; i++) {
-            aligned[i] = out[outIdx++];
+    // Every function has two forms: the original one allocating its result, and an
+    // "into buffer" overload writing into caller-supplied arrays (sized to the input)
+    // with a caller-supplied TALibWorkspace for TA-Lib's out-params.
+    // TA-Lib writes its output from index 0; we shift it right by outBegIdx.
+    private double[] align(RetCode rc, double[] out, TALibWorkspace ws, int inputLen) {
+        int valid = validCount(rc, out.length, ws, inputLen);
+        int begin = valid > 0 ? ws.begin.value : 0;
+        if (valid > 0 && begin > 0) {
+            System.arraycopy(out, 0, out, begin, valid);
         }
-        return aligned;
+        Arrays.fill(out, 0, begin, Double.NaN);
+        Arrays.fill(out, begin + valid, inputLen, Double.NaN);
+        return out;
     }
 
-    private int[] alignIntResult(int[] out, MInteger begin, int inputLen) {
-        int[] aligned = new int[inputLen];
-        // 0 usually means NO PATTERN, so default 0 is fine.
-        int outIdx = 0;
-        for (int i = begin.value; i < inputLen && outIdx < out.length; i++) {
-            aligned[i] = out[outIdx++];
+    private int[] alignInt(RetCode rc, int[] out, TALibWorkspace ws, int inputLen) {
+        int valid = validCount(rc, out.length, ws, inputLen);
+        int begin = valid > 0 ? ws.begin.value : 0;
+        if (valid > 0 && begin > 0) {
+            System.arraycopy(out, 0, out, begin, valid);
         }
-        return aligned;
+        // 0 usually means NO PATTERN, so 0 is the padding value.
+        Arrays.fill(out, 0, begin, 0);
+        Arrays.fill(out, begin + valid, inputLen, 0);
+        return out;
+    }
+
+    private int validCount(RetCode rc, int outLen, TALibWorkspace ws, int inputLen) {
+        if (outLen < inputLen) {
+            throw new IllegalArgumentException(
+                    "Output buffer too small: " + outLen + " < input length " + inputLen);
+        }
+        if (rc != RetCode.Success) {
+            return 0;
+        }
+        return Math.max(0, Math.min(ws.length.value, inputLen - ws.begin.value));
     }
 
     // =========================================================================
@@ -43,116 +61,135 @@ public class TALibService {
     // =========================================================================
 
     public double[] sma(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.sma(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return sma(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] sma(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.sma(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] ema(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.ema(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return ema(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] ema(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.ema(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] wma(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.wma(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return wma(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] wma(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.wma(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] dema(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.dema(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return dema(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] dema(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.dema(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] tema(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.tema(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return tema(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] tema(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.tema(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] trima(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.trima(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return trima(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] trima(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.trima(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] kama(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.kama(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return kama(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] kama(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.kama(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[][] mama(double[] inReal, double fastLimit, double slowLimit) {
         double[] outMama = new double[inReal.length];
         double[] outFama = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.mama(0, inReal.length - 1, inReal, fastLimit, slowLimit, begin, length, outMama, outFama);
-        return new double[][] { alignResult(outMama, begin, inReal.length),
-                alignResult(outFama, begin, inReal.length) };
+        mama(inReal, fastLimit, slowLimit, outMama, outFama, new TALibWorkspace());
+        return new double[][] { outMama, outFama };
+    }
+
+    public void mama(double[] inReal, double fastLimit, double slowLimit, double[] outMama, double[] outFama,
+            TALibWorkspace ws) {
+        RetCode rc = lib.mama(0, inReal.length - 1, inReal, fastLimit, slowLimit, ws.begin, ws.length, outMama,
+                outFama);
+        align(rc, outMama, ws, inReal.length);
+        align(rc, outFama, ws, inReal.length);
     }
 
     public double[] t3(double[] inReal, int timePeriod, double vFactor) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.t3(0, inReal.length - 1, inReal, timePeriod, vFactor, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return t3(inReal, timePeriod, vFactor, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] t3(double[] inReal, int timePeriod, double vFactor, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.t3(0, inReal.length - 1, inReal, timePeriod, vFactor, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[][] bbands(double[] inReal, int timePeriod, double nbDevUp, double nbDevDn, MAType maType) {
         double[] outUpper = new double[inReal.length];
         double[] outMiddle = new double[inReal.length];
         double[] outLower = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.bbands(0, inReal.length - 1, inReal, timePeriod, nbDevUp, nbDevDn, maType, begin, length, outUpper,
-                outMiddle, outLower);
-        return new double[][] {
-                alignResult(outUpper, begin, inReal.length),
-                alignResult(outMiddle, begin, inReal.length),
-                alignResult(outLower, begin, inReal.length)
-        };
+        bbands(inReal, timePeriod, nbDevUp, nbDevDn, maType, outUpper, outMiddle, outLower, new TALibWorkspace());
+        return new double[][] { outUpper, outMiddle, outLower };
+    }
+
+    public void bbands(double[] inReal, int timePeriod, double nbDevUp, double nbDevDn, MAType maType,
+            double[] outUpper, double[] outMiddle, double[] outLower, TALibWorkspace ws) {
+        RetCode rc = lib.bbands(0, inReal.length - 1, inReal, timePeriod, nbDevUp, nbDevDn, maType, ws.begin,
+                ws.length, outUpper, outMiddle, outLower);
+        align(rc, outUpper, ws, inReal.length);
+        align(rc, outMiddle, ws, inReal.length);
+        align(rc, outLower, ws, inReal.length);
     }
 
     public double[] htTrendline(double[] inReal) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.htTrendline(0, inReal.length - 1, inReal, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return htTrendline(inReal, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] htTrendline(double[] inReal, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.htTrendline(0, inReal.length - 1, inReal, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] midpoint(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.midPoint(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return midpoint(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] midpoint(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.midPoint(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] sar(double[] inHigh, double[] inLow, double acceleration, double maximum) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.sar(0, inHigh.length - 1, inHigh, inLow, acceleration, maximum, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return sar(inHigh, inLow, acceleration, maximum, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] sar(double[] inHigh, double[] inLow, double acceleration, double maximum, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.sar(0, inHigh.length - 1, inHigh, inLow, acceleration, maximum, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     // =========================================================================
@@ -160,104 +197,128 @@ public class TALibService {
     // =========================================================================
 
     public double[] rsi(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.rsi(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return rsi(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] rsi(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.rsi(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[][] macd(double[] inReal, int fastPeriod, int slowPeriod, int signalPeriod) {
         double[] outMacd = new double[inReal.length];
         double[] outMacdSignal = new double[inReal.length];
         double[] outMacdHist = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.macd(0, inReal.length - 1, inReal, fastPeriod, slowPeriod, signalPeriod, begin, length, outMacd,
-                outMacdSignal, outMacdHist);
-        return new double[][] {
-                alignResult(outMacd, begin, inReal.length),
-                alignResult(outMacdSignal, begin, inReal.length),
-                alignResult(outMacdHist, begin, inReal.length)
-        };
+        macd(inReal, fastPeriod, slowPeriod, signalPeriod, outMacd, outMacdSignal, outMacdHist, new TALibWorkspace());
+        return new double[][] { outMacd, outMacdSignal, outMacdHist };
+    }
+
+    public void macd(double[] inReal, int fastPeriod, int slowPeriod, int signalPeriod, double[] outMacd,
+            double[] outMacdSignal, double[] outMacdHist, TALibWorkspace ws) {
+        RetCode rc = lib.macd(0, inReal.length - 1, inReal, fastPeriod, slowPeriod, signalPeriod, ws.begin,
+                ws.length, outMacd, outMacdSignal, outMacdHist);
+        align(rc, outMacd, ws, inReal.length);
+        align(rc, outMacdSignal, ws, inReal.length);
+        align(rc, outMacdHist, ws, inReal.length);
     }
 
     public double[][] stoch(double[] inHigh, double[] inLow, double[] inClose,
             int fastK_Period, int slowK_Period, MAType slowK_MAType, int slowD_Period, MAType slowD_MAType) {
         double[] outSlowK = new double[inHigh.length];
         double[] outSlowD = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.stoch(0, inHigh.length - 1, inHigh, inLow, inClose, fastK_Period, slowK_Period, slowK_MAType, slowD_Period,
-                slowD_MAType, begin, length, outSlowK, outSlowD);
-        return new double[][] { alignResult(outSlowK, begin, inHigh.length),
-                alignResult(outSlowD, begin, inHigh.length) };
+        stoch(inHigh, inLow, inClose, fastK_Period, slowK_Period, slowK_MAType, slowD_Period, slowD_MAType, outSlowK,
+                outSlowD, new TALibWorkspace());
+        return new double[][] { outSlowK, outSlowD };
+    }
+
+    public void stoch(double[] inHigh, double[] inLow, double[] inClose,
+            int fastK_Period, int slowK_Period, MAType slowK_MAType, int slowD_Period, MAType slowD_MAType,
+            double[] outSlowK, double[] outSlowD, TALibWorkspace ws) {
+        RetCode rc = lib.stoch(0, inHigh.length - 1, inHigh, inLow, inClose, fastK_Period, slowK_Period, slowK_MAType,
+                slowD_Period, slowD_MAType, ws.begin, ws.length, outSlowK, outSlowD);
+        align(rc, outSlowK, ws, inHigh.length);
+        align(rc, outSlowD, ws, inHigh.length);
     }
 
     public double[] adx(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.adx(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return adx(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] adx(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.adx(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] cci(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cci(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return cci(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] cci(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cci(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] mfi(double[] inHigh, double[] inLow, double[] inClose, double[] inVolume, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.mfi(0, inHigh.length - 1, inHigh, inLow, inClose, inVolume, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return mfi(inHigh, inLow, inClose, inVolume, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] mfi(double[] inHigh, double[] inLow, double[] inClose, double[] inVolume, int timePeriod,
+            double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.mfi(0, inHigh.length - 1, inHigh, inLow, inClose, inVolume, timePeriod, ws.begin, ws.length,
+                out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] mom(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.mom(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return mom(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] mom(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.mom(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] roc(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.roc(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return roc(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] roc(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.roc(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] trix(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.trix(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return trix(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] trix(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.trix(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] willr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.willR(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return willr(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] willr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.willR(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] ultOsc(double[] inHigh, double[] inLow, double[] inClose, int timePeriod1, int timePeriod2,
             int timePeriod3) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.ultOsc(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod1, timePeriod2, timePeriod3, begin, length,
-                out);
-        return alignResult(out, begin, inHigh.length);
+        return ultOsc(inHigh, inLow, inClose, timePeriod1, timePeriod2, timePeriod3, new double[inHigh.length],
+                new TALibWorkspace());
+    }
+
+    public double[] ultOsc(double[] inHigh, double[] inLow, double[] inClose, int timePeriod1, int timePeriod2,
+            int timePeriod3, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.ultOsc(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod1, timePeriod2, timePeriod3,
+                ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     // =========================================================================
@@ -265,23 +326,32 @@ public class TALibService {
     // =========================================================================
 
     public double[] atr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.atr(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return atr(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] atr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.atr(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] natr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.natr(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return natr(inHigh, inLow, inClose, timePeriod, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] natr(double[] inHigh, double[] inLow, double[] inClose, int timePeriod, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.natr(0, inHigh.length - 1, inHigh, inLow, inClose, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] trange(double[] inHigh, double[] inLow, double[] inClose) {
-        throw new UnsupportedOperationException("TRANGE not supported in this TA-Lib version");
+        return trange(inHigh, inLow, inClose, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] trange(double[] inHigh, double[] inLow, double[] inClose, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.trueRange(0, inHigh.length - 1, inHigh, inLow, inClose, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     // =========================================================================
@@ -289,19 +359,22 @@ public class TALibService {
     // =========================================================================
 
     public double[] ad(double[] inHigh, double[] inLow, double[] inClose, double[] inVolume) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.ad(0, inHigh.length - 1, inHigh, inLow, inClose, inVolume, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return ad(inHigh, inLow, inClose, inVolume, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] ad(double[] inHigh, double[] inLow, double[] inClose, double[] inVolume, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.ad(0, inHigh.length - 1, inHigh, inLow, inClose, inVolume, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     public double[] obv(double[] inReal, double[] inVolume) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.obv(0, inReal.length - 1, inReal, inVolume, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return obv(inReal, inVolume, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] obv(double[] inReal, double[] inVolume, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.obv(0, inReal.length - 1, inReal, inVolume, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     // =========================================================================
@@ -309,19 +382,21 @@ public class TALibService {
     // =========================================================================
 
     public double[] htDcPeriod(double[] inReal) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.htDcPeriod(0, inReal.length - 1, inReal, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return htDcPeriod(inReal, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] htDcPeriod(double[] inReal, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.htDcPeriod(0, inReal.length - 1, inReal, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] htDcPhase(double[] inReal) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.htDcPhase(0, inReal.length - 1, inReal, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return htDcPhase(inReal, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] htDcPhase(double[] inReal, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.htDcPhase(0, inReal.length - 1, inReal, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     // =========================================================================
@@ -329,19 +404,22 @@ public class TALibService {
     // =========================================================================
 
     public double[] avgPrice(double[] inOpen, double[] inHigh, double[] inLow, double[] inClose) {
-        double[] out = new double[inOpen.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.avgPrice(0, inOpen.length - 1, inOpen, inHigh, inLow, inClose, begin, length, out);
-        return alignResult(out, begin, inOpen.length);
+        return avgPrice(inOpen, inHigh, inLow, inClose, new double[inOpen.length], new TALibWorkspace());
+    }
+
+    public double[] avgPrice(double[] inOpen, double[] inHigh, double[] inLow, double[] inClose, double[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.avgPrice(0, inOpen.length - 1, inOpen, inHigh, inLow, inClose, ws.begin, ws.length, out);
+        return align(rc, out, ws, inOpen.length);
     }
 
     public double[] medPrice(double[] inHigh, double[] inLow) {
-        double[] out = new double[inHigh.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.medPrice(0, inHigh.length - 1, inHigh, inLow, begin, length, out);
-        return alignResult(out, begin, inHigh.length);
+        return medPrice(inHigh, inLow, new double[inHigh.length], new TALibWorkspace());
+    }
+
+    public double[] medPrice(double[] inHigh, double[] inLow, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.medPrice(0, inHigh.length - 1, inHigh, inLow, ws.begin, ws.length, out);
+        return align(rc, out, ws, inHigh.length);
     }
 
     // =========================================================================
@@ -349,219 +427,269 @@ public class TALibService {
     // =========================================================================
 
     public int[] cdl2Crows(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl2Crows(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl2Crows(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl2Crows(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdl2Crows(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdl3BlackCrows(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl3BlackCrows(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl3BlackCrows(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl3BlackCrows(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdl3BlackCrows(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdl3Inside(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl3Inside(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl3Inside(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl3Inside(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdl3Inside(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdl3LineStrike(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl3LineStrike(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl3LineStrike(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl3LineStrike(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdl3LineStrike(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdl3Outside(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl3Outside(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl3Outside(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl3Outside(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdl3Outside(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdl3StarsInSouth(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl3StarsInSouth(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl3StarsInSouth(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl3StarsInSouth(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdl3StarsInSouth(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdl3WhiteSoldiers(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdl3WhiteSoldiers(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdl3WhiteSoldiers(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdl3WhiteSoldiers(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdl3WhiteSoldiers(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlAbandonedBaby(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlAbandonedBaby(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlAbandonedBaby(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlAbandonedBaby(double[] open, double[] high, double[] low, double[] close, double penetration,
+            int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlAbandonedBaby(0, open.length - 1, open, high, low, close, penetration, ws.begin,
+                ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlAdvanceBlock(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlAdvanceBlock(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlAdvanceBlock(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlAdvanceBlock(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlAdvanceBlock(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlBeltHold(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlBeltHold(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlBeltHold(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlBeltHold(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlBeltHold(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlBreakaway(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlBreakaway(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlBreakaway(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlBreakaway(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlBreakaway(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlClosingMarubozu(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlClosingMarubozu(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlClosingMarubozu(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlClosingMarubozu(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlClosingMarubozu(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlConcealBabysWall(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlConcealBabysWall(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlConcealBabysWall(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlConcealBabysWall(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlConcealBabysWall(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlCounterAttack(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlCounterAttack(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlCounterAttack(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlCounterAttack(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlCounterAttack(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlDarkCloudCover(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlDarkCloudCover(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlDarkCloudCover(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlDarkCloudCover(double[] open, double[] high, double[] low, double[] close, double penetration,
+            int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlDarkCloudCover(0, open.length - 1, open, high, low, close, penetration, ws.begin,
+                ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlDoji(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlDoji(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlDoji(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlDoji(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlDoji(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlDojiStar(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlDojiStar(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlDojiStar(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlDojiStar(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlDojiStar(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlDragonflyDoji(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlDragonflyDoji(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlDragonflyDoji(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlDragonflyDoji(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlDragonflyDoji(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlEngulfing(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlEngulfing(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlEngulfing(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlEngulfing(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlEngulfing(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlEveningDojiStar(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlEveningDojiStar(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlEveningDojiStar(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlEveningDojiStar(double[] open, double[] high, double[] low, double[] close, double penetration,
+            int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlEveningDojiStar(0, open.length - 1, open, high, low, close, penetration, ws.begin,
+                ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlEveningStar(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlEveningStar(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlEveningStar(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlEveningStar(double[] open, double[] high, double[] low, double[] close, double penetration,
+            int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlEveningStar(0, open.length - 1, open, high, low, close, penetration, ws.begin, ws.length,
+                out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlGapSideSideWhite(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlGapSideSideWhite(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlGapSideSideWhite(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlGapSideSideWhite(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlGapSideSideWhite(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlGravestoneDoji(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlGravestoneDoji(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlGravestoneDoji(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlGravestoneDoji(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlGravestoneDoji(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlHammer(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHammer(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHammer(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHammer(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlHammer(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlHangingMan(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHangingMan(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHangingMan(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHangingMan(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlHangingMan(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlHarami(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHarami(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHarami(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHarami(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlHarami(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlHaramiCross(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHaramiCross(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHaramiCross(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHaramiCross(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlHaramiCross(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     // public int[] cdlHighWave(double[] open, double[] high, double[] low, double[]
@@ -574,163 +702,198 @@ public class TALibService {
     // }
 
     public int[] cdlHikkake(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHikkake(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHikkake(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHikkake(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlHikkake(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlHikkakeMod(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHikkakeMod(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHikkakeMod(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHikkakeMod(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlHikkakeMod(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlHomingPigeon(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlHomingPigeon(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlHomingPigeon(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlHomingPigeon(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlHomingPigeon(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlIdentical3Crows(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlIdentical3Crows(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlIdentical3Crows(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlIdentical3Crows(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlIdentical3Crows(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlInNeck(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlInNeck(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlInNeck(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlInNeck(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlInNeck(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlInvertedHammer(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlInvertedHammer(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlInvertedHammer(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlInvertedHammer(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlInvertedHammer(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlKicking(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlKicking(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlKicking(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlKicking(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlKicking(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlKickingByLength(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlKickingByLength(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlKickingByLength(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlKickingByLength(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlKickingByLength(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlLadderBottom(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlLadderBottom(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlLadderBottom(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlLadderBottom(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlLadderBottom(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlLongLeggedDoji(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlLongLeggedDoji(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlLongLeggedDoji(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlLongLeggedDoji(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlLongLeggedDoji(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlLongLine(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlLongLine(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlLongLine(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlLongLine(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlLongLine(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlMarubozu(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlMarubozu(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlMarubozu(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlMarubozu(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlMarubozu(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlMatchingLow(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlMatchingLow(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlMatchingLow(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlMatchingLow(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlMatchingLow(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlMatHold(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlMatHold(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlMatHold(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlMatHold(double[] open, double[] high, double[] low, double[] close, double penetration, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlMatHold(0, open.length - 1, open, high, low, close, penetration, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlMorningDojiStar(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlMorningDojiStar(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlMorningDojiStar(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlMorningDojiStar(double[] open, double[] high, double[] low, double[] close, double penetration,
+            int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlMorningDojiStar(0, open.length - 1, open, high, low, close, penetration, ws.begin,
+                ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlMorningStar(double[] open, double[] high, double[] low, double[] close, double penetration) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlMorningStar(0, open.length - 1, open, high, low, close, penetration, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlMorningStar(open, high, low, close, penetration, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlMorningStar(double[] open, double[] high, double[] low, double[] close, double penetration,
+            int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlMorningStar(0, open.length - 1, open, high, low, close, penetration, ws.begin, ws.length,
+                out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlOnNeck(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlOnNeck(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlOnNeck(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlOnNeck(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlOnNeck(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlPiercing(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlPiercing(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlPiercing(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlPiercing(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlPiercing(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlRickshawMan(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlRickshawMan(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlRickshawMan(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlRickshawMan(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlRickshawMan(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlRiseFall3Methods(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlRiseFall3Methods(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlRiseFall3Methods(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlRiseFall3Methods(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlRiseFall3Methods(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     // public int[] cdlSeparatingLines(double[] open, double[] high, double[] low,
@@ -743,35 +906,43 @@ public class TALibService {
     // }
 
     public int[] cdlShootingStar(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlShootingStar(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlShootingStar(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlShootingStar(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlShootingStar(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlShortLine(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlShortLine(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlShortLine(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlShortLine(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlShortLine(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlSpinningTop(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlSpinningTop(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlSpinningTop(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlSpinningTop(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlSpinningTop(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlStalledPattern(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlStalledPattern(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlStalledPattern(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlStalledPattern(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlStalledPattern(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     // public int[] cdlStickSandwich(double[] open, double[] high, double[] low,
@@ -784,59 +955,71 @@ public class TALibService {
     // }
 
     public int[] cdlTakuri(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlTakuri(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlTakuri(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlTakuri(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlTakuri(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlTasukiGap(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlTasukiGap(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlTasukiGap(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlTasukiGap(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlTasukiGap(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlThrusting(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlThrusting(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlThrusting(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlThrusting(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlThrusting(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlTristar(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlTristar(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlTristar(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlTristar(double[] open, double[] high, double[] low, double[] close, int[] out, TALibWorkspace ws) {
+        RetCode rc = lib.cdlTristar(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlUnique3River(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlUnique3River(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlUnique3River(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlUnique3River(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlUnique3River(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlUpsideGap2Crows(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlUpsideGap2Crows(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlUpsideGap2Crows(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlUpsideGap2Crows(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlUpsideGap2Crows(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     public int[] cdlXSideGap3Methods(double[] open, double[] high, double[] low, double[] close) {
-        int[] out = new int[open.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.cdlXSideGap3Methods(0, open.length - 1, open, high, low, close, begin, length, out);
-        return alignIntResult(out, begin, open.length);
+        return cdlXSideGap3Methods(open, high, low, close, new int[open.length], new TALibWorkspace());
+    }
+
+    public int[] cdlXSideGap3Methods(double[] open, double[] high, double[] low, double[] close, int[] out,
+            TALibWorkspace ws) {
+        RetCode rc = lib.cdlXSideGap3Methods(0, open.length - 1, open, high, low, close, ws.begin, ws.length, out);
+        return alignInt(rc, out, ws, open.length);
     }
 
     // =========================================================================
@@ -844,34 +1027,38 @@ public class TALibService {
     // =========================================================================
 
     public double[] beta(double[] inReal0, double[] inReal1, int timePeriod) {
-        double[] out = new double[inReal0.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.beta(0, inReal0.length - 1, inReal0, inReal1, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal0.length);
+        return beta(inReal0, inReal1, timePeriod, new double[inReal0.length], new TALibWorkspace());
+    }
+
+    public double[] beta(double[] inReal0, double[] inReal1, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.beta(0, inReal0.length - 1, inReal0, inReal1, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal0.length);
     }
 
     public double[] correl(double[] inReal0, double[] inReal1, int timePeriod) {
-        double[] out = new double[inReal0.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.correl(0, inReal0.length - 1, inReal0, inReal1, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal0.length);
+        return correl(inReal0, inReal1, timePeriod, new double[inReal0.length], new TALibWorkspace());
+    }
+
+    public double[] correl(double[] inReal0, double[] inReal1, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.correl(0, inReal0.length - 1, inReal0, inReal1, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal0.length);
     }
 
     public double[] linearReg(double[] inReal, int timePeriod) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.linearReg(0, inReal.length - 1, inReal, timePeriod, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return linearReg(inReal, timePeriod, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] linearReg(double[] inReal, int timePeriod, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.linearReg(0, inReal.length - 1, inReal, timePeriod, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 
     public double[] stdDev(double[] inReal, int timePeriod, double nbDev) {
-        double[] out = new double[inReal.length];
-        MInteger begin = new MInteger();
-        MInteger length = new MInteger();
-        lib.stdDev(0, inReal.length - 1, inReal, timePeriod, nbDev, begin, length, out);
-        return alignResult(out, begin, inReal.length);
+        return stdDev(inReal, timePeriod, nbDev, new double[inReal.length], new TALibWorkspace());
+    }
+
+    public double[] stdDev(double[] inReal, int timePeriod, double nbDev, double[] out, TALibWorkspace ws) {
+        RetCode rc = lib.stdDev(0, inReal.length - 1, inReal, timePeriod, nbDev, ws.begin, ws.length, out);
+        return align(rc, out, ws, inReal.length);
     }
 }
@@ -0,0 +1,16 @@
+package com.mahe.soft.stock.analysis.service;
+
+import com.tictactec.ta.lib.MInteger;
+
+/**
+ * Scratch state for the into-buffer {@link TALibService} overloads: the
+ * {@code MInteger} out-params TA-Lib needs. The allocating overloads create a
+ * fresh workspace per call; a caller that runs many calls can pass its own.
+ *
+ * Not thread-safe: use one workspace per worker thread.
+ */
+public class TALibWorkspace {
+
+    final MInteger begin = new MInteger();
+    final MInteger length = new MInteger();
+}
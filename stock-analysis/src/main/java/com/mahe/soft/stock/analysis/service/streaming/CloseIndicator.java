@@ -0,0 +1,18 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+
+/**
+ * Base for indicators that only consume a single price series (close by
+ * default). {@link #update(double)} can be used directly to feed any other
+ * series, e.g. another indicator's output.
+ */
+public abstract class CloseIndicator implements StreamingIndicator {
+
+    public abstract void update(double value);
+
+    @Override
+    public void update(Candle candle) {
+        update(candle.getClose());
+    }
+}
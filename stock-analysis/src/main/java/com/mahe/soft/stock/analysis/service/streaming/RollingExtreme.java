@@ -0,0 +1,49 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Rolling highest/lowest over a fixed window using a monotonic deque backed
+ * by primitive ring buffers (amortized O(1) per update, no boxing).
+ */
+final class RollingExtreme {
+
+    private final int period;
+    private final boolean highest;
+    private final double[] values;
+    private final long[] indices;
+    private int head;
+    private int size;
+    private long count;
+
+    RollingExtreme(int period, boolean highest) {
+        this.period = period;
+        this.highest = highest;
+        this.values = new double[period];
+        this.indices = new long[period];
+    }
+
+    /**
+     * Adds the next value and returns the extreme of the last {@code period}
+     * values (including this one).
+     */
+    double update(double value) {
+        // Drop entries that fell out of the window
+        while (size > 0 && indices[head] <= count - period) {
+            head = (head + 1) % period;
+            size--;
+        }
+        // Drop entries dominated by the new value
+        while (size > 0) {
+            int tail = (head + size - 1) % period;
+            if (highest ? values[tail] <= value : values[tail] >= value) {
+                size--;
+            } else {
+                break;
+            }
+        }
+        int slot = (head + size) % period;
+        values[slot] = value;
+        indices[slot] = count++;
+        size++;
+        return values[head];
+    }
+}
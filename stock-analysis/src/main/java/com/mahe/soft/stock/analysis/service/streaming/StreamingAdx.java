@@ -0,0 +1,98 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+
+/**
+ * Streaming Wilder ADX. Mirrors TA-Lib's three phases (DM/TR accumulation,
+ * DX averaging, ADX smoothing) so it matches {@code TALibService.adx} from
+ * index {@code 2 * period - 1}.
+ */
+public class StreamingAdx implements StreamingIndicator {
+
+    private final int period;
+    private long count;
+    private double prevHigh;
+    private double prevLow;
+    private double prevClose;
+    private double prevPlusDM;
+    private double prevMinusDM;
+    private double prevTR;
+    private double sumDX;
+    private double value = Double.NaN;
+
+    public StreamingAdx(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public void update(Candle candle) {
+        if (count == 0) {
+            prevHigh = candle.getHigh();
+            prevLow = candle.getLow();
+            prevClose = candle.getClose();
+            count++;
+            return;
+        }
+
+        double diffP = candle.getHigh() - prevHigh;
+        prevHigh = candle.getHigh();
+        double diffM = prevLow - candle.getLow();
+        prevLow = candle.getLow();
+
+        if (count < period) {
+            // Phase 1: plain sums of +DM, -DM and TR
+            addDirectionalMovement(diffP, diffM);
+            prevTR += TaLibMath.trueRange(prevHigh, prevLow, prevClose);
+            prevClose = candle.getClose();
+            count++;
+            return;
+        }
+
+        prevMinusDM -= prevMinusDM / period;
+        prevPlusDM -= prevPlusDM / period;
+        addDirectionalMovement(diffP, diffM);
+        prevTR = prevTR - (prevTR / period) + TaLibMath.trueRange(prevHigh, prevLow, prevClose);
+        prevClose = candle.getClose();
+
+        double dx = currentDx();
+        if (count < 2L * period) {
+            // Phase 2: average the first 'period' DX values
+            if (!Double.isNaN(dx))
+                sumDX += dx;
+            if (count == 2L * period - 1)
+                value = sumDX / period;
+        } else if (!Double.isNaN(dx)) {
+            // Phase 3: Wilder smoothing
+            value = ((value * (period - 1)) + dx) / period;
+        }
+        count++;
+    }
+
+    private void addDirectionalMovement(double diffP, double diffM) {
+        if ((diffM > 0) && (diffP < diffM))
+            prevMinusDM += diffM;
+        else if ((diffP > 0) && (diffP > diffM))
+            prevPlusDM += diffP;
+    }
+
+    private double currentDx() {
+        if (TaLibMath.isZero(prevTR))
+            return Double.NaN;
+        double minusDI = 100.0 * (prevMinusDM / prevTR);
+        double plusDI = 100.0 * (prevPlusDM / prevTR);
+        double sumDI = minusDI + plusDI;
+        if (TaLibMath.isZero(sumDI))
+            return Double.NaN;
+        return 100.0 * (Math.abs(minusDI - plusDI) / sumDI);
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= 2L * period;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
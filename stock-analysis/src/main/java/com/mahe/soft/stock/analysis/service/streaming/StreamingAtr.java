@@ -0,0 +1,54 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+
+/**
+ * Streaming Wilder ATR. Matches {@code TALibService.atr} (first value at
+ * index {@code period}).
+ */
+public class StreamingAtr implements StreamingIndicator {
+
+    private final int period;
+    private long count;
+    private double prevClose;
+    private double trSum;
+    private double value = Double.NaN;
+
+    public StreamingAtr(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public void update(Candle candle) {
+        if (count == 0) {
+            prevClose = candle.getClose();
+            count++;
+            return;
+        }
+
+        double tr = TaLibMath.trueRange(candle.getHigh(), candle.getLow(), prevClose);
+        prevClose = candle.getClose();
+
+        if (count < period) {
+            trSum += tr;
+        } else if (count == period) {
+            trSum += tr;
+            value = trSum / period;
+        } else {
+            value *= period - 1;
+            value += tr;
+            value /= period;
+        }
+        count++;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count > period;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
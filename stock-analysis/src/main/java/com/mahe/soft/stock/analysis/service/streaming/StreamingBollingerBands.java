@@ -0,0 +1,88 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.tictactec.ta.lib.MAType;
+
+/**
+ * Streaming Bollinger Bands (SMA or EMA middle band, population standard
+ * deviation over the window). Matches {@code TALibService.bbands}.
+ */
+public class StreamingBollingerBands extends CloseIndicator {
+
+    private final int period;
+    private final double nbDevUp;
+    private final double nbDevDn;
+    private final CloseIndicator middleBand;
+    private final double[] window;
+    private long count;
+    private double sum;
+    private double sumSquares;
+
+    private double upper = Double.NaN;
+    private double middle = Double.NaN;
+    private double lower = Double.NaN;
+
+    public StreamingBollingerBands(int period, double nbDevUp, double nbDevDn, MAType maType) {
+        if (maType == MAType.Sma) {
+            this.middleBand = new StreamingSma(period);
+        } else if (maType == MAType.Ema) {
+            this.middleBand = new StreamingEma(period);
+        } else {
+            throw new IllegalArgumentException("Streaming BBANDS supports SMA and EMA only, got: " + maType);
+        }
+        this.period = period;
+        this.nbDevUp = nbDevUp;
+        this.nbDevDn = nbDevDn;
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(double value) {
+        middleBand.update(value);
+
+        int slot = (int) (count % period);
+        if (count >= period) {
+            double trailing = window[slot];
+            sum -= trailing;
+            sumSquares -= trailing * trailing;
+        }
+        window[slot] = value;
+        sum += value;
+        sumSquares += value * value;
+        count++;
+
+        if (count >= period) {
+            double mean = sum / period;
+            double variance = (sumSquares / period) - (mean * mean);
+            double stdDev = TaLibMath.isZeroOrNeg(variance) ? 0.0 : Math.sqrt(variance);
+
+            middle = middleBand.getValue();
+            upper = middle + (stdDev * nbDevUp);
+            lower = middle - (stdDev * nbDevDn);
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    /**
+     * @return the middle band.
+     */
+    @Override
+    public double getValue() {
+        return middle;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    public double getMiddle() {
+        return middle;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+}
@@ -0,0 +1,42 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Streaming EMA seeded with the SMA of the first {@code period} values, as
+ * TA-Lib does. Matches {@code TALibService.ema}.
+ */
+public class StreamingEma extends CloseIndicator {
+
+    private final int period;
+    private final double k;
+    private long count;
+    private double seedSum;
+    private double value = Double.NaN;
+
+    public StreamingEma(int period) {
+        this.period = period;
+        this.k = 2.0 / (period + 1);
+    }
+
+    @Override
+    public void update(double value) {
+        count++;
+        if (count < period) {
+            seedSum += value;
+        } else if (count == period) {
+            seedSum += value;
+            this.value = seedSum / period;
+        } else {
+            this.value = ((value - this.value) * k) + this.value;
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+import java.util.List;
+
+/**
+ * Incremental counterpart of a {@code TALibService} batch function.
+ * Keeps just enough state to produce the newest value in O(1) per candle,
+ * so a live/paper tick does not have to recompute the whole history.
+ */
+public interface StreamingIndicator {
+
+    /**
+     * Feeds the next (newest) candle.
+     */
+    void update(Candle candle);
+
+    /**
+     * @return true once enough candles have been seen to produce a value
+     *         (i.e. past the TA-Lib lookback).
+     */
+    boolean isReady();
+
+    /**
+     * @return the latest (primary) value, NaN until {@link #isReady()}.
+     */
+    double getValue();
+
+    /**
+     * Replays historical candles (oldest first) to warm up the state.
+     */
+    default void seed(List<Candle> history) {
+        for (Candle candle : history) {
+            update(candle);
+        }
+    }
+}
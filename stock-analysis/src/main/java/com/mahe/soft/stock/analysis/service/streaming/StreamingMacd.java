@@ -0,0 +1,108 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Streaming MACD. Matches {@code TALibService.macd}, including TA-Lib's
+ * alignment quirk: the fast EMA is seeded from the last {@code fast} values of
+ * the slow EMA's seed window so both start on the same bar.
+ */
+public class StreamingMacd extends CloseIndicator {
+
+    private final int fastPeriod;
+    private final int slowPeriod;
+    private final int signalPeriod;
+    private final double kFast;
+    private final double kSlow;
+    private final double kSignal;
+    private final double[] seedWindow;
+
+    private long count;
+    private double fastEma;
+    private double slowEma;
+
+    private long macdCount;
+    private double signalSeedSum;
+    private double signalEma;
+
+    private double macd = Double.NaN;
+    private double signal = Double.NaN;
+    private double histogram = Double.NaN;
+
+    public StreamingMacd(int fastPeriod, int slowPeriod, int signalPeriod) {
+        // TA-Lib swaps the periods if given in the wrong order
+        if (slowPeriod < fastPeriod) {
+            int tmp = slowPeriod;
+            slowPeriod = fastPeriod;
+            fastPeriod = tmp;
+        }
+        this.fastPeriod = fastPeriod;
+        this.slowPeriod = slowPeriod;
+        this.signalPeriod = signalPeriod;
+        this.kFast = 2.0 / (fastPeriod + 1);
+        this.kSlow = 2.0 / (slowPeriod + 1);
+        this.kSignal = 2.0 / (signalPeriod + 1);
+        this.seedWindow = new double[slowPeriod];
+    }
+
+    @Override
+    public void update(double value) {
+        if (count < slowPeriod) {
+            seedWindow[(int) count++] = value;
+            if (count == slowPeriod) {
+                slowEma = mean(0, slowPeriod);
+                fastEma = mean(slowPeriod - fastPeriod, fastPeriod);
+                pushMacd(fastEma - slowEma);
+            }
+            return;
+        }
+        count++;
+        slowEma = ((value - slowEma) * kSlow) + slowEma;
+        fastEma = ((value - fastEma) * kFast) + fastEma;
+        pushMacd(fastEma - slowEma);
+    }
+
+    private double mean(int from, int length) {
+        double sum = 0.0;
+        for (int i = from; i < from + length; i++) {
+            sum += seedWindow[i];
+        }
+        return sum / length;
+    }
+
+    private void pushMacd(double macdValue) {
+        macdCount++;
+        if (macdCount < signalPeriod) {
+            signalSeedSum += macdValue;
+            return;
+        }
+        if (macdCount == signalPeriod) {
+            signalSeedSum += macdValue;
+            signalEma = signalSeedSum / signalPeriod;
+        } else {
+            signalEma = ((macdValue - signalEma) * kSignal) + signalEma;
+        }
+        macd = macdValue;
+        signal = signalEma;
+        histogram = macdValue - signalEma;
+    }
+
+    @Override
+    public boolean isReady() {
+        return macdCount >= signalPeriod;
+    }
+
+    /**
+     * @return the MACD line (fast EMA - slow EMA).
+     */
+    @Override
+    public double getValue() {
+        return macd;
+    }
+
+    public double getSignal() {
+        return signal;
+    }
+
+    public double getHistogram() {
+        return histogram;
+    }
+}
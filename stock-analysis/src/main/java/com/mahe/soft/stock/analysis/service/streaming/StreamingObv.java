@@ -0,0 +1,38 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+
+/**
+ * Streaming On-Balance Volume. Like TA-Lib, the first value is the first
+ * candle's volume. Matches {@code TALibService.obv(close, volume)}.
+ */
+public class StreamingObv implements StreamingIndicator {
+
+    private long count;
+    private double prevClose;
+    private double value = Double.NaN;
+
+    @Override
+    public void update(Candle candle) {
+        double close = candle.getClose();
+        if (count == 0) {
+            value = candle.getVolume();
+        } else if (close > prevClose) {
+            value += candle.getVolume();
+        } else if (close < prevClose) {
+            value -= candle.getVolume();
+        }
+        prevClose = close;
+        count++;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count > 0;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
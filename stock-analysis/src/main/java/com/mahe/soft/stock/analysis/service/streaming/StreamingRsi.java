@@ -0,0 +1,70 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Streaming Wilder RSI. Matches {@code TALibService.rsi} (first value at
+ * index {@code period}).
+ */
+public class StreamingRsi extends CloseIndicator {
+
+    private final int period;
+    private long count;
+    private double prevValue;
+    private double prevGain;
+    private double prevLoss;
+    private double value = Double.NaN;
+
+    public StreamingRsi(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public void update(double value) {
+        if (count == 0) {
+            prevValue = value;
+            count++;
+            return;
+        }
+
+        double diff = value - prevValue;
+        prevValue = value;
+
+        if (count < period) {
+            accumulate(diff);
+        } else if (count == period) {
+            accumulate(diff);
+            prevLoss /= period;
+            prevGain /= period;
+            this.value = currentRsi();
+        } else {
+            prevLoss *= (period - 1);
+            prevGain *= (period - 1);
+            accumulate(diff);
+            prevLoss /= period;
+            prevGain /= period;
+            this.value = currentRsi();
+        }
+        count++;
+    }
+
+    private void accumulate(double diff) {
+        if (diff < 0)
+            prevLoss -= diff;
+        else
+            prevGain += diff;
+    }
+
+    private double currentRsi() {
+        double total = prevGain + prevLoss;
+        return TaLibMath.isZero(total) ? 0.0 : 100.0 * (prevGain / total);
+    }
+
+    @Override
+    public boolean isReady() {
+        return count > period;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
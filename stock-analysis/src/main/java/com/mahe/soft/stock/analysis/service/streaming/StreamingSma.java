@@ -0,0 +1,42 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Streaming SMA: running sum over a ring buffer. Matches {@code TALibService.sma}.
+ */
+public class StreamingSma extends CloseIndicator {
+
+    private final int period;
+    private final double[] window;
+    private long count;
+    private double sum;
+    private double value = Double.NaN;
+
+    public StreamingSma(int period) {
+        this.period = period;
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(double value) {
+        int slot = (int) (count % period);
+        if (count >= period) {
+            sum -= window[slot];
+        }
+        window[slot] = value;
+        sum += value;
+        count++;
+        if (count >= period) {
+            this.value = sum / period;
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,63 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+
+/**
+ * Streaming slow stochastic with SMA smoothing for both %K and %D (the TA-Lib
+ * default). Matches {@code TALibService.stoch} called with {@code MAType.Sma}.
+ */
+public class StreamingStochastic implements StreamingIndicator {
+
+    private final RollingExtreme highest;
+    private final RollingExtreme lowest;
+    private final int fastKPeriod;
+    private final StreamingSma slowK;
+    private final StreamingSma slowD;
+    private long count;
+
+    public StreamingStochastic(int fastKPeriod, int slowKPeriod, int slowDPeriod) {
+        this.fastKPeriod = fastKPeriod;
+        this.highest = new RollingExtreme(fastKPeriod, true);
+        this.lowest = new RollingExtreme(fastKPeriod, false);
+        this.slowK = new StreamingSma(slowKPeriod);
+        this.slowD = new StreamingSma(slowDPeriod);
+    }
+
+    @Override
+    public void update(Candle candle) {
+        double high = highest.update(candle.getHigh());
+        double low = lowest.update(candle.getLow());
+        count++;
+        if (count < fastKPeriod)
+            return;
+
+        double diff = (high - low) / 100.0;
+        double fastK = diff != 0.0 ? (candle.getClose() - low) / diff : 0.0;
+
+        slowK.update(fastK);
+        if (slowK.isReady()) {
+            slowD.update(slowK.getValue());
+        }
+    }
+
+    @Override
+    public boolean isReady() {
+        return slowD.isReady();
+    }
+
+    /**
+     * @return slow %K.
+     */
+    @Override
+    public double getValue() {
+        return getSlowK();
+    }
+
+    public double getSlowK() {
+        return isReady() ? slowK.getValue() : Double.NaN;
+    }
+
+    public double getSlowD() {
+        return slowD.getValue();
+    }
+}
@@ -0,0 +1,52 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Streaming WMA using TA-Lib's periodSum/periodSub trick, so each update is
+ * O(1) regardless of period. Matches {@code TALibService.wma}.
+ */
+public class StreamingWma extends CloseIndicator {
+
+    private final int period;
+    private final double divider;
+    private final double[] window;
+    private long count;
+    private double periodSum;
+    private double periodSub;
+    private double trailingValue;
+    private double value = Double.NaN;
+
+    public StreamingWma(int period) {
+        this.period = period;
+        this.divider = (period * (period + 1)) >> 1;
+        this.window = new double[period];
+    }
+
+    @Override
+    public void update(double value) {
+        window[(int) (count % period)] = value;
+
+        if (count < period - 1) {
+            // Warm-up: weights 1..period-1
+            periodSub += value;
+            periodSum += value * (count + 1);
+        } else {
+            periodSub += value;
+            periodSub -= trailingValue;
+            periodSum += value * period;
+            trailingValue = window[(int) ((count - period + 1) % period)];
+            this.value = periodSum / divider;
+            periodSum -= periodSub;
+        }
+        count++;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+/**
+ * Small helpers mirroring TA-Lib's internal macros so the streaming
+ * implementations round exactly like the batch functions.
+ */
+final class TaLibMath {
+
+    private TaLibMath() {
+    }
+
+    // TA_IS_ZERO
+    static boolean isZero(double v) {
+        return -0.00000001 < v && v < 0.00000001;
+    }
+
+    // TA_IS_ZERO_OR_NEG
+    static boolean isZeroOrNeg(double v) {
+        return v < 0.00000001;
+    }
+
+    // TRUE_RANGE(today high, today low, yesterday close)
+    static double trueRange(double high, double low, double prevClose) {
+        double greatest = high - low;
+        double val2 = Math.abs(prevClose - high);
+        if (val2 > greatest)
+            greatest = val2;
+        double val3 = Math.abs(low - prevClose);
+        if (val3 > greatest)
+            greatest = val3;
+        return greatest;
+    }
+}
@@ -4,8 +4,12 @@ import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.Trade;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
@@ -13,51 +17,105 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class BacktestEngine {
 
+    // Only read by simulate(), never handed out
+    private static final TradeSignal BUY = TradeSignal.buy(1.0);
+    private static final TradeSignal SELL = TradeSignal.sell(1.0);
+    private static final TradeSignal HOLD = TradeSignal.hold();
+
     /**
      * Runs a backtest for a given strategy and historical candles.
      * Assumes fixed position sizing (e.g., investing available capital or fixed
      * amount).
      */
     public BacktestResult runBacktest(TradingStrategy strategy, List<Candle> history, double initialCapital) {
+        return runBacktest(strategy, history, initialCapital, 0);
+    }
+
+    /**
+     * Same as {@link #runBacktest(TradingStrategy, List, double)}, additionally
+     * returning the equity curve.
+     *
+     * @param maxCurvePoints 0 for no curve; otherwise the curve is downsampled to
+     *                       at most this many points (Integer.MAX_VALUE for all)
+     */
+    public BacktestResult runBacktest(TradingStrategy strategy, List<Candle> history, double initialCapital,
+            int maxCurvePoints) {
         log.info("Starting backtest for strategy: {} on {} candles", strategy.getName(), history.size());
 
-        List<Trade> closedTrades = new ArrayList<>();
-        Trade currentTrade = null;
-        double cash = initialCapital;
+        // Strategies that support batch evaluation compute their indicators once
+        // over the whole series (O(N)). Otherwise we fall back to "stepping through
+        // time" by passing sub-lists, which re-runs every indicator per bar (O(N^2)).
+        TradeSignal[] signals = strategy.supportsSeriesEvaluation() ? strategy.evaluateSeries(history) : null;
+        IntFunction<TradeSignal> signalAt = signals != null
+                ? i -> signals[i]
+                : i -> strategy.evaluate(history.subList(0, i + 1));
+
+        // Symbol not in Candle, usually passed in context
+        return simulate(strategy.getName(), "TEST", history.size(), i -> history.get(i).getTimestamp(),
+                i -> history.get(i).getClose(), signalAt, initialCapital, maxCurvePoints);
+    }
+
+    /**
+     * Columnar variant: reads prices straight from the series' arrays and stamps
+     * trades with the series symbol.
+     */
+    public BacktestResult runBacktest(TradingStrategy strategy, CandleSeries series, double initialCapital,
+            int maxCurvePoints) {
+        if (!strategy.supportsSeriesEvaluation()) {
+            return runBacktest(strategy, Candle.fromSeries(series), initialCapital, maxCurvePoints);
+        }
+        log.info("Starting backtest for strategy: {} on {} candles", strategy.getName(), series.size());
 
-        // Equity curve for Drawdown / Sharpe
-        List<Double> equityCurve = new ArrayList<>();
-        equityCurve.add(initialCapital);
+        TradeSignal[] signals = strategy.evaluateSeries(series);
+        double[] close = series.getClose();
+        return simulate(strategy.getName(), series.getSymbol(), series.size(), series::getDate, i -> close[i],
+                i -> signals[i], initialCapital, maxCurvePoints);
+    }
 
-        // ATR for stops (optional, not implemented in generic engine yet, relying on
-        // strategy SELL)
+    /**
+     * Mask-driven variant for vectorized strategies (see
+     * {@code DslProgram#evaluate}): bit {@code i} of word {@code i / 64} of
+     * {@code entryMask} / {@code exitMask} is set when the entry / exit
+     * condition holds on bar {@code i}. Entry wins when both are set, as with
+     * per-bar signals. No signal objects are created.
+     */
+    public BacktestResult runBacktest(String strategyName, CandleSeries series, long[] entryMask, long[] exitMask,
+            double initialCapital, int maxCurvePoints) {
+        if (entryMask.length * 64L < series.size() || exitMask.length * 64L < series.size()) {
+            throw new IllegalArgumentException("Masks shorter than the series (" + series.size() + " bars)");
+        }
+        log.info("Starting backtest for strategy: {} on {} candles", strategyName, series.size());
 
-        // Iterate through history
-        // We need a minimum window for the strategy to work.
-        // We will simulate "stepping through time" by passing sub-lists or
-        // passing the full list but only allowing the strategy to see up to index 'i'.
-        // PASSING SUB-LISTS IS EXPENSIVE (O(N^2)).
-        // Optimization: The 'TradingStrategy.evaluate' usually just needs the whole
-        // list
-        // and treats the last one as 'current'.
-        // But for backtesting, we need to generate signal for EACH past candle.
-        // TA-Lib functions calculate for the whole array at once.
-        // calling evaluate(sublist) N times is slow but correct for "Simulation" style.
-        // For performance, strategies should ideally support "batch evaluation", but
-        // per prompt
-        // "evaluate(List<Candle>)" implies single point evaluation.
+        double[] close = series.getClose();
+        IntFunction<TradeSignal> signalAt = i -> (entryMask[i >>> 6] & (1L << i)) != 0 ? BUY
+                : (exitMask[i >>> 6] & (1L << i)) != 0 ? SELL : HOLD;
+        return simulate(strategyName, series.getSymbol(), series.size(), series::getDate, i -> close[i], signalAt,
+                initialCapital, maxCurvePoints);
+    }
 
+    private BacktestResult simulate(String strategyName, String symbol, int size, IntFunction<LocalDate> dateAt,
+            IntToDoubleFunction closeAt, IntFunction<TradeSignal> signalAt, double initialCapital,
+            int maxCurvePoints) {
+        List<Trade> closedTrades = new ArrayList<>();
+        Trade currentTrade = null;
+        double cash = initialCapital;
+
+        // Drawdown / Sharpe etc. are accumulated bar by bar; the curve itself is
+        // only kept when requested.
         // We will start from a reasonable index (e.g. 50) to allow indicators to warm
         // up.
         int warmupPeriod = 50;
+        MetricsAccumulator metrics = new MetricsAccumulator(initialCapital, maxCurvePoints > 0,
+                size - warmupPeriod);
+
+        // ATR for stops (optional, not implemented in generic engine yet, relying on
+        // strategy SELL)
 
-        for (int i = warmupPeriod; i < history.size(); i++) {
-            // Snapshot of history up to i
-            List<Candle> currentContext = history.subList(0, i + 1);
-            Candle currentCandle = history.get(i);
+        for (int i = warmupPeriod; i < size; i++) {
+            double close = closeAt.applyAsDouble(i);
 
             // Get Signal
-            TradeSignal signal = strategy.evaluate(currentContext);
+            TradeSignal signal = signalAt.apply(i);
 
             // Execute Logic (Long Only)
             if (currentTrade == null) {
@@ -65,7 +123,7 @@ public class BacktestEngine {
                     // Enter Trade
                     // Fixed position: Spend all cash? Or fixed amount?
                     // Let's implement "Compounding" - invest all current cash.
-                    double entryPrice = currentCandle.getClose(); // Simplified: Buy at Close
+                    double entryPrice = close; // Simplified: Buy at Close
                     int quantity = (int) (cash / entryPrice);
 
                     if (quantity > 0) {
@@ -73,124 +131,75 @@ public class BacktestEngine {
                         cash -= cost;
 
                         currentTrade = Trade.builder()
-                                .symbol("TEST") // Symbol not in Candle, usually passed in context
-                                .strategyName(strategy.getName())
+                                .symbol(symbol)
+                                .strategyName(strategyName)
                                 .type(Trade.Type.LONG)
-                                .entryDate(currentCandle.getTimestamp())
+                                .entryDate(dateAt.apply(i))
                                 .entryPrice(entryPrice)
                                 .quantity(quantity)
                                 .build();
 
-                        log.debug("BUY at {} price {}", currentCandle.getTimestamp(), entryPrice);
+                        log.debug("BUY at {} price {}", currentTrade.getEntryDate(), entryPrice);
                     }
                 }
             } else {
                 // We have an open position
                 if (signal.getType() == TradeSignal.Type.SELL) {
                     // Exit Trade
-                    double exitPrice = currentCandle.getClose();
+                    double exitPrice = close;
                     double revenue = currentTrade.getQuantity() * exitPrice;
                     cash += revenue;
 
-                    currentTrade.setExitDate(currentCandle.getTimestamp());
+                    currentTrade.setExitDate(dateAt.apply(i));
                     currentTrade.setExitPrice(exitPrice);
                     currentTrade.setPnl(revenue - (currentTrade.getQuantity() * currentTrade.getEntryPrice()));
                     currentTrade.setPnlPercent(
                             currentTrade.getPnl() / (currentTrade.getQuantity() * currentTrade.getEntryPrice()));
 
+                    log.debug("SELL at {} price {}", currentTrade.getExitDate(), exitPrice);
+
                     closedTrades.add(currentTrade);
+                    metrics.onTradeClosed(currentTrade);
                     currentTrade = null;
-
-                    log.debug("SELL at {} price {}", currentCandle.getTimestamp(), exitPrice);
                 }
             }
 
             // Update Equity Curve
             double currentEquity = cash;
             if (currentTrade != null) {
-                currentEquity += currentTrade.getQuantity() * currentCandle.getClose();
+                currentEquity += currentTrade.getQuantity() * close;
             }
-            equityCurve.add(currentEquity);
+            metrics.onBar(currentEquity, currentTrade != null);
         }
 
-        double finalEquity = equityCurve.get(equityCurve.size() - 1);
-
-        return calculateMetrics(closedTrades, equityCurve, initialCapital, finalEquity, strategy.getName());
+        return buildResult(closedTrades, metrics, initialCapital, strategyName, maxCurvePoints);
     }
 
-    private BacktestResult calculateMetrics(List<Trade> trades, List<Double> equityCurve, double initialCapital,
-            double finalCapital, String strategyName) {
-        int totalTrades = trades.size();
-        int winningTrades = 0;
-        int losingTrades = 0;
-        double totalGrossProfit = 0;
-        double totalGrossLoss = 0;
-
-        for (Trade t : trades) {
-            if (t.getPnl() > 0) {
-                winningTrades++;
-                totalGrossProfit += t.getPnl();
-            } else {
-                losingTrades++;
-                totalGrossLoss += Math.abs(t.getPnl());
-            }
-        }
-
-        double winRate = totalTrades > 0 ? (double) winningTrades / totalTrades : 0.0;
-        double profitFactor = totalGrossLoss > 0 ? totalGrossProfit / totalGrossLoss
-                : (totalGrossProfit > 0 ? Double.POSITIVE_INFINITY : 0.0);
-        double totalReturnPercent = ((finalCapital - initialCapital) / initialCapital) * 100;
-
-        // Max Drawdown
-        double maxDrawdown = 0.0;
-        double peak = -1.0;
-        for (double val : equityCurve) {
-            if (val > peak)
-                peak = val;
-            double drawdown = (peak - val) / peak;
-            if (drawdown > maxDrawdown)
-                maxDrawdown = drawdown;
-        }
-
-        // Sharpe Ratio (Simplified: using daily returns assuming steps are days)
-        double sharpe = calculateSharpeRatio(equityCurve);
-
+    BacktestResult buildResult(List<Trade> trades, MetricsAccumulator metrics, double initialCapital,
+            String strategyName, int maxCurvePoints) {
         return BacktestResult.builder()
                 .strategyName(strategyName)
                 .symbol("N/A") // passed separate usually
-                .totalReturnPercent(totalReturnPercent)
-                .winRate(winRate)
-                .maxDrawdownPercent(maxDrawdown * 100)
-                .sharpeRatio(sharpe)
-                .profitFactor(profitFactor)
-                .totalTrades(totalTrades)
-                .winningTrades(winningTrades)
-                .losingTrades(losingTrades)
+                .totalReturnPercent(metrics.getTotalReturnPercent())
+                .annualizedReturnPercent(metrics.getAnnualizedReturnPercent())
+                .winRate(metrics.getWinRate())
+                .maxDrawdownPercent(metrics.getMaxDrawdownPercent())
+                .sharpeRatio(metrics.getSharpeRatio())
+                .sortinoRatio(metrics.getSortinoRatio())
+                .calmarRatio(metrics.getCalmarRatio())
+                .profitFactor(metrics.getProfitFactor())
+                .exposurePercent(metrics.getExposurePercent())
+                .totalTrades(metrics.getTotalTrades())
+                .winningTrades(metrics.getWinningTrades())
+                .losingTrades(metrics.getLosingTrades())
+                .averageWin(metrics.getAverageWin())
+                .averageLoss(metrics.getAverageLoss())
+                .largestWin(metrics.getLargestWin())
+                .largestLoss(metrics.getLargestLoss())
                 .trades(trades)
                 .initialCapital(initialCapital)
-                .finalCapital(finalCapital)
+                .finalCapital(metrics.getFinalEquity())
+                .equityCurve(maxCurvePoints > 0 ? metrics.equityCurve(maxCurvePoints) : null)
                 .build();
     }
-
-    private double calculateSharpeRatio(List<Double> equityCurve) {
-        if (equityCurve.size() < 2)
-            return 0.0;
-
-        List<Double> returns = new ArrayList<>();
-        for (int i = 1; i < equityCurve.size(); i++) {
-            double prev = equityCurve.get(i - 1);
-            double curr = equityCurve.get(i);
-            returns.add((curr - prev) / prev);
-        }
-
-        double mean = returns.stream().mapToDouble(d -> d).average().orElse(0.0);
-        double variance = returns.stream().mapToDouble(d -> Math.pow(d - mean, 2)).average().orElse(0.0);
-        double stdDev = Math.sqrt(variance);
-
-        // annualized sharpe (assuming daily data, 252 trading days) - simplified
-        // Sharpe = (Mean Return - Risk Free) / StdDev. Risk Free = 0 for simplicity.
-        if (stdDev == 0)
-            return 0.0;
-        return (mean / stdDev) * Math.sqrt(252);
-    }
 }
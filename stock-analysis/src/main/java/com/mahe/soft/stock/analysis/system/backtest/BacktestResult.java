@@ -1,5 +1,6 @@
 package com.mahe.soft.stock.analysis.system.backtest;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.mahe.soft.stock.analysis.system.model.Trade;
 import java.util.List;
 import lombok.Builder;
@@ -13,16 +14,28 @@ public class BacktestResult {
 
     // Performance Metrics
     private double totalReturnPercent;
+    private double annualizedReturnPercent; // CAGR
     private double winRate; // 0.0 to 1.0
     private double maxDrawdownPercent;
     private double sharpeRatio;
+    private double sortinoRatio;
+    private double calmarRatio;
     private double profitFactor;
+    private double exposurePercent; // % of bars with an open position
 
     private int totalTrades;
     private int winningTrades;
     private int losingTrades;
+    private double averageWin;
+    private double averageLoss; // <= 0
+    private double largestWin;
+    private double largestLoss; // <= 0
 
     private List<Trade> trades;
     private double initialCapital;
     private double finalCapital;
+
+    // Only populated when requested (possibly downsampled), first point = initialCapital
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private double[] equityCurve;
 }
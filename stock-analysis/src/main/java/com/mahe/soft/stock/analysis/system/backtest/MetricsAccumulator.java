@@ -0,0 +1,226 @@
+package com.mahe.soft.stock.analysis.system.backtest;
+
+import com.mahe.soft.stock.analysis.system.model.Trade;
+import java.util.Arrays;
+
+/**
+ * Single-pass, allocation-free backtest statistics.
+ *
+ * Feed it one equity value per bar ({@link #onBar}) and every closed trade
+ * ({@link #onTradeClosed}); return mean/variance use Welford's algorithm, so
+ * nothing per-bar is retained unless the equity curve was explicitly requested.
+ * Ratios are annualized assuming daily bars (252 per year) and a zero risk-free
+ * rate.
+ */
+public final class MetricsAccumulator {
+
+    static final int TRADING_DAYS = 252;
+
+    private final double initialCapital;
+    private double lastEquity;
+
+    // Welford over per-bar returns
+    private long returnCount;
+    private double mean;
+    private double m2;
+    private double downsideSumSq;
+
+    private double peak;
+    private double maxDrawdown;
+
+    private long bars;
+    private long barsInMarket;
+
+    private int winningTrades;
+    private int losingTrades;
+    private double grossProfit;
+    private double grossLoss;
+    private double largestWin;
+    private double largestLoss;
+
+    // Optional curve, grown by doubling; null when not recording
+    private double[] curve;
+    private int curveSize;
+
+    /**
+     * @param initialCapital  starting equity (the first curve point)
+     * @param recordCurve     keep every equity value for {@link #equityCurve()}
+     * @param expectedBars    capacity hint for the recorded curve
+     */
+    public MetricsAccumulator(double initialCapital, boolean recordCurve, int expectedBars) {
+        this.initialCapital = initialCapital;
+        this.lastEquity = initialCapital;
+        this.peak = initialCapital;
+        if (recordCurve) {
+            this.curve = new double[Math.max(expectedBars, 0) + 1];
+            this.curve[curveSize++] = initialCapital;
+        }
+    }
+
+    public void onBar(double equity, boolean inMarket) {
+        bars++;
+        if (inMarket)
+            barsInMarket++;
+
+        if (lastEquity != 0) {
+            double r = (equity - lastEquity) / lastEquity;
+            returnCount++;
+            double delta = r - mean;
+            mean += delta / returnCount;
+            m2 += delta * (r - mean);
+            if (r < 0)
+                downsideSumSq += r * r;
+        }
+        lastEquity = equity;
+
+        if (equity > peak)
+            peak = equity;
+        if (peak > 0) {
+            double drawdown = (peak - equity) / peak;
+            if (drawdown > maxDrawdown)
+                maxDrawdown = drawdown;
+        }
+
+        if (curve != null) {
+            if (curveSize == curve.length)
+                curve = Arrays.copyOf(curve, curve.length * 2);
+            curve[curveSize++] = equity;
+        }
+    }
+
+    public void onTradeClosed(Trade trade) {
+        double pnl = trade.getPnl();
+        if (pnl > 0) {
+            winningTrades++;
+            grossProfit += pnl;
+            largestWin = Math.max(largestWin, pnl);
+        } else {
+            losingTrades++;
+            grossLoss += Math.abs(pnl);
+            largestLoss = Math.min(largestLoss, pnl);
+        }
+    }
+
+    public double getFinalEquity() {
+        return lastEquity;
+    }
+
+    public int getTotalTrades() {
+        return winningTrades + losingTrades;
+    }
+
+    public int getWinningTrades() {
+        return winningTrades;
+    }
+
+    public int getLosingTrades() {
+        return losingTrades;
+    }
+
+    public double getWinRate() {
+        int total = getTotalTrades();
+        return total > 0 ? (double) winningTrades / total : 0.0;
+    }
+
+    public double getProfitFactor() {
+        return grossLoss > 0 ? grossProfit / grossLoss : (grossProfit > 0 ? Double.POSITIVE_INFINITY : 0.0);
+    }
+
+    public double getAverageWin() {
+        return winningTrades > 0 ? grossProfit / winningTrades : 0.0;
+    }
+
+    public double getAverageLoss() {
+        return losingTrades > 0 ? -grossLoss / losingTrades : 0.0;
+    }
+
+    public double getLargestWin() {
+        return largestWin;
+    }
+
+    public double getLargestLoss() {
+        return largestLoss;
+    }
+
+    public double getTotalReturnPercent() {
+        return ((lastEquity - initialCapital) / initialCapital) * 100;
+    }
+
+    /**
+     * Compound annual growth rate, in percent.
+     */
+    public double getAnnualizedReturnPercent() {
+        if (bars == 0 || initialCapital <= 0 || lastEquity <= 0)
+            return 0.0;
+        return (Math.pow(lastEquity / initialCapital, (double) TRADING_DAYS / bars) - 1) * 100;
+    }
+
+    public double getMaxDrawdownPercent() {
+        return maxDrawdown * 100;
+    }
+
+    public double getSharpeRatio() {
+        if (returnCount == 0)
+            return 0.0;
+        double stdDev = Math.sqrt(m2 / returnCount);
+        if (stdDev == 0)
+            return 0.0;
+        return (mean / stdDev) * Math.sqrt(TRADING_DAYS);
+    }
+
+    /**
+     * Like Sharpe, but only penalizes downside volatility.
+     */
+    public double getSortinoRatio() {
+        if (returnCount == 0)
+            return 0.0;
+        double downsideDev = Math.sqrt(downsideSumSq / returnCount);
+        if (downsideDev == 0)
+            return 0.0;
+        return (mean / downsideDev) * Math.sqrt(TRADING_DAYS);
+    }
+
+    /**
+     * Annualized return divided by max drawdown.
+     */
+    public double getCalmarRatio() {
+        if (maxDrawdown == 0)
+            return 0.0;
+        return getAnnualizedReturnPercent() / getMaxDrawdownPercent();
+    }
+
+    /**
+     * Share of bars with an open position, in percent.
+     */
+    public double getExposurePercent() {
+        return bars > 0 ? (double) barsInMarket / bars * 100 : 0.0;
+    }
+
+    /**
+     * @return the full equity curve (initial capital first), or null if it was
+     *         not recorded.
+     */
+    public double[] equityCurve() {
+        return curve == null ? null : Arrays.copyOf(curve, curveSize);
+    }
+
+    /**
+     * @return at most {@code maxPoints} evenly spaced points of the curve, always
+     *         including the first and last; null if the curve was not recorded.
+     */
+    public double[] equityCurve(int maxPoints) {
+        if (curve == null)
+            return null;
+        if (curveSize <= maxPoints)
+            return equityCurve();
+        if (maxPoints < 2)
+            throw new IllegalArgumentException("maxPoints must be >= 2, got " + maxPoints);
+
+        double[] sampled = new double[maxPoints];
+        double step = (double) (curveSize - 1) / (maxPoints - 1);
+        for (int i = 0; i < maxPoints; i++) {
+            sampled[i] = curve[(int) Math.round(i * step)];
+        }
+        return sampled;
+    }
+}
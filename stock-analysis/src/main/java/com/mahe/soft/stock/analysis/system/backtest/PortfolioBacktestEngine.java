@@ -0,0 +1,179 @@
+package com.mahe.soft.stock.analysis.system.backtest;
+
+import com.mahe.soft.stock.analysis.system.model.Trade;
+import com.mahe.soft.stock.analysis.system.model.TradeSignal;
+import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Backtests many symbols against one shared cash pool.
+ *
+ * Each symbol keeps its own columnar series; a min-heap of per-symbol cursors
+ * merges them chronologically so a date only touches the symbols that actually
+ * traded on it (no dense symbol x date matrix). Signals are generated per
+ * symbol in parallel up front, then capital is allocated in a single
+ * sequential pass: exits first, then entries ranked by signal confidence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PortfolioBacktestEngine {
+
+    private static final int WARMUP_PERIOD = 50; // same as BacktestEngine
+
+    private final BacktestEngine backtestEngine;
+
+    /**
+     * @param universe           series per symbol, oldest first
+     * @param strategies         strategy per symbol (must cover every key of universe)
+     * @param initialCapital     shared starting cash
+     * @param maxPositionPercent max size of a new position, as % of current equity
+     */
+    public BacktestResult runBacktest(Map<String, CandleSeries> universe, Map<String, TradingStrategy> strategies,
+            double initialCapital, double maxPositionPercent) {
+        if (maxPositionPercent <= 0 || maxPositionPercent > 100) {
+            throw new IllegalArgumentException("maxPositionPercent must be in (0, 100]: " + maxPositionPercent);
+        }
+
+        String[] symbols = universe.keySet().toArray(String[]::new);
+        int n = symbols.length;
+        List<CandleSeries> series = new ArrayList<>(n);
+        TradingStrategy[] strategyOf = new TradingStrategy[n];
+        for (int k = 0; k < n; k++) {
+            series.add(universe.get(symbols[k]));
+            strategyOf[k] = strategies.get(symbols[k]);
+            if (strategyOf[k] == null) {
+                throw new IllegalArgumentException("No strategy for symbol: " + symbols[k]);
+            }
+        }
+        log.info("Starting portfolio backtest on {} symbols", n);
+
+        // 1. Signals: independent per symbol, so generate them in parallel
+        TradeSignal[][] signals = new TradeSignal[n][];
+        IntStream.range(0, n).parallel().forEach(k -> signals[k] = strategyOf[k].evaluateSeries(series.get(k)));
+
+        // 2. Chronological merge
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(
+                Math.max(1, n), Comparator.comparingInt((Cursor c) -> c.date).thenComparingInt(c -> c.symbol));
+        for (int k = 0; k < n; k++) {
+            if (!series.get(k).isEmpty()) {
+                queue.add(new Cursor(k, series.get(k).getEpochDays()[0]));
+            }
+        }
+
+        double cash = initialCapital;
+        double[] lastPrice = new double[n];
+        Trade[] open = new Trade[n];
+        List<Integer> openSymbols = new ArrayList<>();
+        List<Trade> closedTrades = new ArrayList<>();
+        MetricsAccumulator metrics = new MetricsAccumulator(initialCapital, false, 0);
+
+        List<Cursor> today = new ArrayList<>();
+        List<Cursor> entries = new ArrayList<>();
+
+        while (!queue.isEmpty()) {
+            int epochDay = queue.peek().date;
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            today.clear();
+            while (!queue.isEmpty() && queue.peek().date == epochDay) {
+                Cursor c = queue.poll();
+                lastPrice[c.symbol] = series.get(c.symbol).getClose()[c.bar];
+                today.add(c);
+            }
+
+            // 3a. Exits free up cash before any entry on the same date
+            entries.clear();
+            for (Cursor c : today) {
+                if (c.bar < WARMUP_PERIOD)
+                    continue;
+                TradeSignal signal = signals[c.symbol][c.bar];
+                if (open[c.symbol] != null && signal.getType() == TradeSignal.Type.SELL) {
+                    Trade trade = open[c.symbol];
+                    double exitPrice = lastPrice[c.symbol];
+                    double revenue = trade.getQuantity() * exitPrice;
+                    cash += revenue;
+
+                    trade.setExitDate(date);
+                    trade.setExitPrice(exitPrice);
+                    trade.setPnl(revenue - (trade.getQuantity() * trade.getEntryPrice()));
+                    trade.setPnlPercent(trade.getPnl() / (trade.getQuantity() * trade.getEntryPrice()));
+
+                    closedTrades.add(trade);
+                    metrics.onTradeClosed(trade);
+                    open[c.symbol] = null;
+                    openSymbols.remove(Integer.valueOf(c.symbol));
+                } else if (open[c.symbol] == null && signal.getType() == TradeSignal.Type.BUY) {
+                    entries.add(c);
+                }
+            }
+
+            // 3b. Entries, strongest signal first, sized against equity after exits
+            if (!entries.isEmpty()) {
+                entries.sort(Comparator.comparingDouble(
+                        (Cursor c) -> signals[c.symbol][c.bar].getConfidence()).reversed());
+                double maxPosition = equity(cash, openSymbols, open, lastPrice) * maxPositionPercent / 100;
+                for (Cursor c : entries) {
+                    double entryPrice = lastPrice[c.symbol];
+                    int quantity = (int) (Math.min(cash, maxPosition) / entryPrice);
+                    if (quantity <= 0)
+                        continue;
+
+                    cash -= quantity * entryPrice;
+                    open[c.symbol] = Trade.builder()
+                            .symbol(symbols[c.symbol])
+                            .strategyName(strategyOf[c.symbol].getName())
+                            .type(Trade.Type.LONG)
+                            .entryDate(date)
+                            .entryPrice(entryPrice)
+                            .quantity(quantity)
+                            .build();
+                    openSymbols.add(c.symbol);
+                }
+            }
+
+            metrics.onBar(equity(cash, openSymbols, open, lastPrice), !openSymbols.isEmpty());
+
+            // 4. Advance only the symbols that traded today
+            for (Cursor c : today) {
+                if (++c.bar < series.get(c.symbol).size()) {
+                    c.date = series.get(c.symbol).getEpochDays()[c.bar];
+                    queue.add(c);
+                }
+            }
+        }
+
+        BacktestResult result = backtestEngine.buildResult(closedTrades, metrics, initialCapital,
+                "Portfolio (" + n + " symbols)", 0);
+        result.setSymbol("PORTFOLIO");
+        return result;
+    }
+
+    private static double equity(double cash, List<Integer> openSymbols, Trade[] open, double[] lastPrice) {
+        double equity = cash;
+        for (int k : openSymbols) {
+            equity += open[k].getQuantity() * lastPrice[k];
+        }
+        return equity;
+    }
+
+    private static final class Cursor {
+        final int symbol;
+        int bar;
+        int date; // epoch day
+
+        Cursor(int symbol, int date) {
+            this.symbol = symbol;
+            this.date = date;
+        }
+    }
+}
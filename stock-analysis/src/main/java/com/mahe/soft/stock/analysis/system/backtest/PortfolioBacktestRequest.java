@@ -0,0 +1,22 @@
+package com.mahe.soft.stock.analysis.system.backtest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+
+@Data
+public class PortfolioBacktestRequest {
+    private List<String> symbols = new ArrayList<>();
+    private String strategyName;
+
+    // Optional per-symbol strategy (symbol -> strategy bean name)
+    private Map<String, String> strategyOverrides = new HashMap<>();
+
+    private double capital = 100000;
+    private double maxPositionPercent = 10; // of current equity, per new position
+    private LocalDate from;
+    private LocalDate to;
+}
@@ -1,17 +1,23 @@
 package com.mahe.soft.stock.analysis.system.controller;
 
 import com.mahe.soft.stock.analysis.client.StockDbClient;
-import com.mahe.soft.stock.analysis.dto.StockPriceDto;
 import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
 import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
-import com.mahe.soft.stock.analysis.system.mapper.CandleMapper;
-import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.analysis.system.backtest.PortfolioBacktestEngine;
+import com.mahe.soft.stock.analysis.system.backtest.PortfolioBacktestRequest;
+import com.mahe.soft.stock.analysis.system.optimizer.OptimizationRequest;
+import com.mahe.soft.stock.analysis.system.optimizer.OptimizationResult;
+import com.mahe.soft.stock.analysis.system.optimizer.StrategyOptimizer;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,31 +29,99 @@ public class ProAnalysisController {
 
     private final StockDbClient stockDbClient;
     private final BacktestEngine backtestEngine;
-    private final CandleMapper candleMapper;
-    private final Map<String, TradingStrategy> strategies; // Spring injects all beans of type TradingStrategy
-
+    private final PortfolioBacktestEngine portfolioBacktestEngine;
+    private final StrategyOptimizer strategyOptimizer;
+    private final StrategyRegistry strategies; // bean strategies plus registered DSL strategies
+
+    /**
+     * 400 if a registered DSL strategy is over its budget for this series, 503
+     * if it runs out of time.
+     */
     @PostMapping("/backtest")
-    public ResponseEntity<BacktestResult> runBacktest(
+    public ResponseEntity<?> runBacktest(
             @RequestParam String symbol,
             @RequestParam String strategyName,
             @RequestParam(defaultValue = "10000") double capital,
             @RequestParam(required = false) LocalDate from,
-            @RequestParam(required = false) LocalDate to) {
+            @RequestParam(required = false) LocalDate to,
+            @RequestParam(defaultValue = "0") int curvePoints) { // 0 = no equity curve in the response
 
         TradingStrategy strategy = strategies.get(strategyName);
         if (strategy == null) {
             throw new IllegalArgumentException("Strategy not found: " + strategyName);
         }
 
-        List<StockPriceDto> prices = stockDbClient.getStockPrices(symbol, from, to);
-        List<Candle> candles = candleMapper.toCandles(prices);
+        CandleSeries series = stockDbClient.getCandleSeries(symbol, from, to);
 
-        BacktestResult result = backtestEngine.runBacktest(strategy, candles, capital);
-        result.setSymbol(symbol);
+        try {
+            BacktestResult result = backtestEngine.runBacktest(strategy, series, capital, curvePoints);
+            result.setSymbol(symbol);
 
-        return ResponseEntity.ok(result);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CancellationException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
     }
 
+    /**
+     * Budget failures of registered DSL strategies map as for
+     * {@code /backtest}.
+     */
+    @PostMapping("/backtest/portfolio")
+    public ResponseEntity<?> runPortfolioBacktest(@RequestBody PortfolioBacktestRequest request) {
+        Map<String, TradingStrategy> strategyBySymbol = new LinkedHashMap<>();
+
+        for (String symbol : request.getSymbols()) {
+            String strategyName = request.getStrategyOverrides().getOrDefault(symbol, request.getStrategyName());
+            TradingStrategy strategy = strategies.get(strategyName);
+            if (strategy == null) {
+                throw new IllegalArgumentException("Strategy not found: " + strategyName);
+            }
+            strategyBySymbol.put(symbol, strategy);
+        }
+
+        // One round trip for the whole universe
+        Map<String, CandleSeries> universe = stockDbClient.getCandleSeriesBatch(request.getSymbols(),
+                request.getFrom(), request.getTo());
+
+        try {
+            BacktestResult result = portfolioBacktestEngine.runBacktest(universe, strategyBySymbol,
+                    request.getCapital(), request.getMaxPositionPercent());
+
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CancellationException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * 400 for an unknown strategy or parameter, or a grid that is empty or too
+     * large.
+     */
+    @PostMapping("/optimize")
+    public ResponseEntity<?> optimize(@RequestBody OptimizationRequest request) {
+        // Candles are fetched once and shared by every combination
+        CandleSeries series = stockDbClient.getCandleSeries(request.getSymbol(), request.getFrom(), request.getTo());
+
+        try {
+            OptimizationResult result = strategyOptimizer.optimize(request.getStrategyName(), series,
+                    request.getParameters(), request.getMetric(), request.getCapital(), request.getTopN());
+            result.setSymbol(request.getSymbol());
+
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Budget failures of registered DSL strategies map as for
+     * {@code /backtest}.
+     */
     @GetMapping("/backtest/csv")
     public ResponseEntity<String> runBacktestCsv(
             @RequestParam String symbol,
@@ -59,10 +133,16 @@ public class ProAnalysisController {
             return ResponseEntity.badRequest().body("Strategy not found");
         }
 
-        List<StockPriceDto> prices = stockDbClient.getStockPrices(symbol, null, null);
-        List<Candle> candles = candleMapper.toCandles(prices);
+        CandleSeries series = stockDbClient.getCandleSeries(symbol, null, null);
 
-        BacktestResult result = backtestEngine.runBacktest(strategy, candles, capital);
+        BacktestResult result;
+        try {
+            result = backtestEngine.runBacktest(strategy, series, capital, 0);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CancellationException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
 
         StringBuilder csv = new StringBuilder();
         csv.append("Symbol,Strategy,Total Trades,Win Rate,Total Return %,Sharpe Ratio,Profit Factor\n");
@@ -0,0 +1,15 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Data;
+
+@Data
+public class DslBatchBacktestRequest {
+    private List<String> symbols = new ArrayList<>();
+    private double capital = 10000; // per symbol; each symbol is an independent backtest
+    private LocalDate from;
+    private LocalDate to;
+    private int curvePoints; // 0 = no equity curve in the response
+}
@@ -0,0 +1,66 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Execution limits for caller-supplied DSL scripts. A run is admitted only if
+ * the compiled program's cost estimate fits: its lookback
+ * ({@code stock.dsl.max-lookback}), the series length
+ * ({@code stock.dsl.max-bars}) and the heap its evaluation allocates across
+ * the series evaluated at once ({@code stock.dsl.max-memory-mb}). Admitted
+ * runs get a {@link DslExecution} with the {@code stock.dsl.timeout} deadline.
+ */
+@Component
+public class DslBudget {
+
+    @Value("${stock.dsl.max-bars:200000}")
+    private int maxBars = 200_000;
+
+    @Value("${stock.dsl.max-lookback:1000}")
+    private int maxLookback = 1000;
+
+    @Value("${stock.dsl.max-memory-mb:256}")
+    private long maxMemoryMb = 256;
+
+    @Value("${stock.dsl.timeout:10s}")
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * Checks what is known before any data is loaded.
+     *
+     * @throws IllegalArgumentException if the program's lookback exceeds the
+     *                                  limit
+     */
+    public void checkProgram(DslProgram program) {
+        if (program.getLookback() > maxLookback) {
+            throw new IllegalArgumentException("Strategy needs " + program.getLookback()
+                    + " bars of indicator lookback, limit is " + maxLookback);
+        }
+    }
+
+    /**
+     * @param bars       length of the longest series
+     * @param concurrent series evaluated at the same time
+     * @throws IllegalArgumentException if the run is over budget
+     */
+    public void checkRun(DslProgram program, int bars, int concurrent) {
+        checkProgram(program);
+        if (bars > maxBars) {
+            throw new IllegalArgumentException("Series has " + bars + " bars, limit is " + maxBars);
+        }
+        long bytes = program.estimateBytes(bars) * Math.max(1, concurrent);
+        if (bytes > maxMemoryMb << 20) {
+            throw new IllegalArgumentException("Estimated memory " + (bytes >> 20) + " MB exceeds the limit of "
+                    + maxMemoryMb + " MB");
+        }
+    }
+
+    /**
+     * @return the execution handle for an admitted run, timing out from now
+     */
+    public DslExecution start() {
+        return DslExecution.withTimeout(timeout);
+    }
+}
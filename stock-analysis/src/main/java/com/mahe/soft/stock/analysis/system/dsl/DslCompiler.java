@@ -0,0 +1,210 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry.IndicatorFunction;
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry.PriceInput;
+import com.mahe.soft.stock.analysis.system.dsl.model.BinaryExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.DslCondition;
+import com.mahe.soft.stock.analysis.system.dsl.model.DslExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.DslStrategyDefinition;
+import com.mahe.soft.stock.analysis.system.dsl.model.IndicatorExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.OffsetExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.UnaryExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.ValueExpression;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Parses and compiles DSL scripts into {@link DslProgram}s, resolving
+ * indicator names through the {@link IndicatorRegistry} and checking that
+ * rules are conditions and operands numbers. Compiled programs are cached by
+ * the SHA-256 of the script text (LRU, {@code stock.dsl.cache-size} entries),
+ * so re-running a script skips parsing and compilation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DslCompiler {
+
+    private final DslParser dslParser;
+    private final IndicatorRegistry indicatorRegistry;
+
+    @Value("${stock.dsl.cache-size:256}")
+    private int cacheSize = 256;
+
+    private final Map<String, DslProgram> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DslProgram> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @throws IllegalArgumentException if the script does not parse, names an
+     *                                  unknown indicator or output, or mixes
+     *                                  conditions and numbers
+     */
+    public DslProgram compile(String script) {
+        String key = hash(script);
+        synchronized (cache) {
+            DslProgram cached = cache.get(key);
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        DslProgram program = compile(dslParser.parse(script));
+        synchronized (cache) {
+            cache.put(key, program);
+        }
+        log.debug("Compiled DSL strategy {} with indicators {}", program.getName(), program.getIndicators());
+        return program;
+    }
+
+    /**
+     * Compiles an already parsed definition (not cached).
+     */
+    public DslProgram compile(DslStrategyDefinition definition) {
+        Compilation compilation = new Compilation();
+        DslProgram.Condition entry = compilation.conditions(definition.getEntryConditions());
+        DslProgram.Condition exit = compilation.conditions(definition.getExitConditions());
+        return new DslProgram(definition.getName(), entry, exit, compilation.indicators);
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * State of one compilation: the indicator slots allocated so far.
+     */
+    private final class Compilation {
+        private final List<DslProgram.IndicatorCall> indicators = new ArrayList<>();
+
+        /**
+         * Folds the rule lines left to right: each one is combined with
+         * everything before it by its own AND/OR.
+         */
+        DslProgram.Condition conditions(List<DslCondition> conditions) {
+            DslProgram.Condition result = null;
+            for (DslCondition condition : conditions) {
+                DslProgram.Condition node = condition(condition.getExpression());
+                if (result == null) {
+                    result = node;
+                } else if ("OR".equalsIgnoreCase(condition.getLogicalOperator())) {
+                    result = new DslProgram.Or(result, node);
+                } else {
+                    result = new DslProgram.And(result, node);
+                }
+            }
+            return result != null ? result : DslProgram.Condition.NEVER;
+        }
+
+        DslProgram.Condition condition(DslExpression expression) {
+            if (expression instanceof BinaryExpression binary) {
+                String operator = binary.getOperator();
+                switch (operator) {
+                    case "AND":
+                        return new DslProgram.And(condition(binary.getLeft()), condition(binary.getRight()));
+                    case "OR":
+                        return new DslProgram.Or(condition(binary.getLeft()), condition(binary.getRight()));
+                    case "CROSSES_ABOVE":
+                    case "CROSSES_BELOW":
+                        return new DslProgram.Cross(series(binary.getLeft()), series(binary.getRight()),
+                                operator.equals("CROSSES_ABOVE"));
+                    default:
+                        DslProgram.Comparison comparison = DslProgram.Comparison.of(operator);
+                        if (comparison != null) {
+                            return new DslProgram.Compare(series(binary.getLeft()), comparison,
+                                    series(binary.getRight()));
+                        }
+                }
+            } else if (expression instanceof UnaryExpression unary && unary.getOperator().equals("NOT")) {
+                return new DslProgram.Not(condition(unary.getOperand()));
+            }
+            throw new IllegalArgumentException("Expected a condition, found a number: " + expression);
+        }
+
+        DslProgram.Series series(DslExpression expression) {
+            if (expression instanceof ValueExpression value) {
+                return new DslProgram.Constant(value.getValue());
+            }
+            if (expression instanceof IndicatorExpression indicator) {
+                return indicator(indicator);
+            }
+            if (expression instanceof UnaryExpression unary && unary.getOperator().equals("-")) {
+                DslProgram.Series operand = series(unary.getOperand());
+                return operand instanceof DslProgram.Constant constant ? new DslProgram.Constant(-constant.value())
+                        : new DslProgram.Negate(operand);
+            }
+            if (expression instanceof OffsetExpression offset) {
+                DslProgram.Series operand = series(offset.getOperand());
+                return offset.getBars() == 0 || operand instanceof DslProgram.Constant ? operand
+                        : new DslProgram.Offset(operand, offset.getBars());
+            }
+            if (expression instanceof BinaryExpression binary) {
+                DslProgram.Arithmetic operator = DslProgram.Arithmetic.of(binary.getOperator());
+                if (operator != null) {
+                    DslProgram.Series left = series(binary.getLeft());
+                    DslProgram.Series right = series(binary.getRight());
+                    if (left instanceof DslProgram.Constant l && right instanceof DslProgram.Constant r) {
+                        return new DslProgram.Constant(operator.apply(l.value(), r.value()));
+                    }
+                    return new DslProgram.BinaryArithmetic(left, operator, right);
+                }
+            }
+            throw new IllegalArgumentException("Expected a number, found a condition: " + expression);
+        }
+
+        private DslProgram.Series indicator(IndicatorExpression expression) {
+            String name = expression.getName();
+            if (expression.getParams().isEmpty() && expression.getOutput() == null) {
+                for (PriceInput input : PriceInput.values()) {
+                    if (input.name().equalsIgnoreCase(name)) {
+                        return new DslProgram.Price(input);
+                    }
+                }
+            }
+            IndicatorFunction function = indicatorRegistry.find(name);
+            if (function == null) {
+                throw new IllegalArgumentException("Unknown indicator: " + name);
+            }
+            function.bindArguments(expression.getParams()); // validates count and types
+            int output = function.outputIndex(expression.getOutput());
+            DslProgram.IndicatorCall call = new DslProgram.IndicatorCall(function,
+                    List.copyOf(expression.getParams()));
+            int slot = indicators.indexOf(call);
+            if (slot < 0) {
+                slot = indicators.size();
+                indicators.add(call);
+            }
+            return new DslProgram.IndicatorOutput(slot, output);
+        }
+    }
+
+    private static String hash(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 is mandatory on every JVM
+        }
+    }
+}
@@ -1,15 +1,13 @@
 package com.mahe.soft.stock.analysis.system.dsl;
 
 import com.mahe.soft.stock.analysis.client.StockDbClient;
-import com.mahe.soft.stock.analysis.dto.StockPriceDto;
-import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
 import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
-import com.mahe.soft.stock.analysis.system.dsl.model.DslStrategyDefinition;
-import com.mahe.soft.stock.analysis.system.mapper.CandleMapper;
-import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,31 +16,88 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class DslController {
 
-    private final DslParser dslParser;
+    private final DslCompiler dslCompiler;
+    private final DslStrategyService dslStrategyService;
+    private final DslBudget dslBudget;
     private final BacktestEngine backtestEngine;
     private final StockDbClient stockDbClient;
-    private final CandleMapper candleMapper;
-    private final TALibService taLibService;
 
+    /**
+     * Runs an ad-hoc script within the {@link DslBudget}: 400 if it does not
+     * compile or is over budget, 503 if it runs out of time.
+     */
     @PostMapping("/backtest")
-    public ResponseEntity<BacktestResult> backtestDsl(
+    public ResponseEntity<?> backtestDsl(
             @RequestParam String symbol,
             @RequestBody String dslScript) {
+        try {
+            // 1. Parsing + compilation (cached by script hash); the lookback is known before any data is loaded
+            DslProgram program = dslCompiler.compile(dslScript);
+            dslBudget.checkProgram(program);
+            DslStrategy strategy = new DslStrategy(program);
 
-        // 1. Parsing
-        DslStrategyDefinition def = dslParser.parse(dslScript);
+            // 2. Data Fetching, then the bar and memory budget
+            CandleSeries series = stockDbClient.getCandleSeries(symbol, null, null);
+            dslBudget.checkRun(program, series.size(), 1);
 
-        // 2. Compilation (Runtime Strategy)
-        DslStrategy strategy = new DslStrategy(def, taLibService);
+            // 3. Execution: indicators and conditions are evaluated once over the whole series
+            DslProgram.Masks masks = strategy.evaluateMasks(series, dslBudget.start());
+            BacktestResult result = backtestEngine.runBacktest(strategy.getName(), series, masks.entry(),
+                    masks.exit(), 10000, 0);
+            result.setSymbol(symbol);
 
-        // 3. Data Fetching
-        List<StockPriceDto> prices = stockDbClient.getStockPrices(symbol);
-        List<Candle> candles = candleMapper.toCandles(prices);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CancellationException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
 
-        // 4. Execution
-        BacktestResult result = backtestEngine.runBacktest(strategy, candles, 10000);
-        result.setSymbol(symbol);
+    /**
+     * Compiles and registers a script; afterwards its id works as a
+     * {@code strategyName} in the analysis, paper and live APIs.
+     */
+    @PostMapping("/strategies")
+    public ResponseEntity<?> registerStrategy(
+            @RequestParam(required = false) String id,
+            @RequestBody String dslScript) {
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(dslStrategyService.register(id, dslScript));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/strategies")
+    public ResponseEntity<List<RegisteredDslStrategy>> listStrategies() {
+        return ResponseEntity.ok(dslStrategyService.list());
+    }
+
+    @GetMapping("/strategies/{id}")
+    public ResponseEntity<RegisteredDslStrategy> getStrategy(@PathVariable String id) {
+        RegisteredDslStrategy strategy = dslStrategyService.get(id);
+        return strategy != null ? ResponseEntity.ok(strategy) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/strategies/{id}")
+    public ResponseEntity<Void> unregisterStrategy(@PathVariable String id) {
+        return dslStrategyService.unregister(id) ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
 
-        return ResponseEntity.ok(result);
+    /**
+     * Backtests a registered strategy on each symbol independently, in parallel.
+     */
+    @PostMapping("/strategies/{id}/backtest")
+    public ResponseEntity<?> backtestStrategy(@PathVariable String id, @RequestBody DslBatchBacktestRequest request) {
+        try {
+            List<BacktestResult> results = dslStrategyService.backtest(id, request);
+            return results != null ? ResponseEntity.ok(results) : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (CancellationException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation for one DSL run: a wall-clock deadline plus a
+ * cancel flag, polled by {@link DslProgram} at each checkpoint. Shared by all
+ * symbols of a batch run, so cancelling it stops every one of them.
+ */
+public final class DslExecution {
+
+    private final Duration timeout;
+    private final long deadlineNanos;
+    private volatile boolean cancelled;
+
+    private DslExecution(Duration timeout) {
+        this.timeout = timeout;
+        this.deadlineNanos = timeout != null ? System.nanoTime() + timeout.toNanos() : 0;
+    }
+
+    /**
+     * @return an execution that times out {@code timeout} from now
+     */
+    public static DslExecution withTimeout(Duration timeout) {
+        return new DslExecution(timeout);
+    }
+
+    /**
+     * @return an execution without a deadline (still cancellable)
+     */
+    public static DslExecution unbounded() {
+        return new DslExecution(null);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException if cancelled or past the deadline
+     */
+    public void check() {
+        if (cancelled) {
+            throw new CancellationException("DSL evaluation cancelled");
+        }
+        if (timeout != null && System.nanoTime() - deadlineNanos > 0) {
+            cancelled = true;
+            throw new CancellationException("DSL evaluation exceeded its " + timeout.toMillis() + " ms time budget");
+        }
+    }
+}
@@ -1,21 +1,47 @@
 package com.mahe.soft.stock.analysis.system.dsl;
 
+import com.mahe.soft.stock.analysis.system.dsl.DslTokenizer.Kind;
+import com.mahe.soft.stock.analysis.system.dsl.DslTokenizer.Token;
 import com.mahe.soft.stock.analysis.system.dsl.model.*;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.Map;
 import org.springframework.stereotype.Service;
 
+/**
+ * Parses strategy scripts:
+ *
+ * <pre>
+ * STRATEGY Name
+ * ENTRY:
+ *   EMA(20) CROSSES_ABOVE EMA(50)
+ *   AND (RSI(14) &lt; 30 OR CLOSE &lt; BBANDS(20,2,2,0).lower)
+ * EXIT:
+ *   MACD(12,26,9).hist &lt; MACD(12,26,9).hist[1] * 0.5
+ * </pre>
+ *
+ * Each rule line is one boolean expression, parsed by precedence climbing.
+ * From loosest to tightest: {@code OR}, {@code AND}, {@code NOT},
+ * comparisons and crossovers, {@code + -}, {@code * /}, unary minus, then
+ * postfix output selectors ({@code .signal}) and bar offsets ({@code [1]}).
+ * A leading {@code AND} / {@code OR} combines the line with the lines before
+ * it. Names are not checked here; see {@link DslCompiler}.
+ */
 @Service
 public class DslParser {
 
-    // Regex for parsing: EMA(14) > 50 or RSI(14) < 30
-    // Group 1: Left, Group 2: Op, Group 3: Right
-    // Simplified: Don't handle nested parens perfectly, assume simple structure.
-    private static final Pattern CONDITION_PATTERN = Pattern.compile("(.+?)\\s*(>|<|>=|<=|==)\\s*(.+)");
-    private static final Pattern INDICATOR_PATTERN = Pattern.compile("([A-Z_]+)\\(([^)]+)\\)");
+    private static final int OR = 1;
+    private static final int AND = 2;
+    private static final int COMPARISON = 3;
+    private static final int SUM = 4;
+    private static final int PRODUCT = 5;
+
+    private static final Map<String, Integer> BINARY_PRECEDENCE = Map.ofEntries(
+            Map.entry("OR", OR), Map.entry("AND", AND),
+            Map.entry(">", COMPARISON), Map.entry("<", COMPARISON), Map.entry(">=", COMPARISON),
+            Map.entry("<=", COMPARISON), Map.entry("==", COMPARISON), Map.entry("!=", COMPARISON),
+            Map.entry("CROSSES_ABOVE", COMPARISON), Map.entry("CROSSES_BELOW", COMPARISON),
+            Map.entry("+", SUM), Map.entry("-", SUM), Map.entry("*", PRODUCT), Map.entry("/", PRODUCT));
 
     public DslStrategyDefinition parse(String script) {
         DslStrategyDefinition def = new DslStrategyDefinition();
@@ -48,52 +74,180 @@ public class DslParser {
         return def;
     }
 
+    /**
+     * Parses a single expression (no leading AND/OR), e.g. for tests and tools.
+     */
+    public DslExpression parseExpression(String expression) {
+        return new LineParser(expression).parseLine();
+    }
+
     private void parseCondition(String line, List<DslCondition> conditions) {
-        // Check for logical operator prefix (AND/OR) - distinct from internal logic,
-        // usually lines are implicitly AND, but prompt showed "AND RSI..."
-        String logicalOp = "AND"; // Default
-        if (line.startsWith("AND ")) {
-            logicalOp = "AND";
+        // Lines are implicitly AND-ed with the ones before; "OR ..." overrides
+        String logicalOp = "AND";
+        String upper = line.toUpperCase();
+        if (upper.startsWith("AND ")) {
             line = line.substring(4).trim();
-        } else if (line.startsWith("OR ")) {
+        } else if (upper.startsWith("OR ")) {
             logicalOp = "OR";
             line = line.substring(3).trim();
         }
 
-        Matcher m = CONDITION_PATTERN.matcher(line);
-        if (m.find()) {
-            String leftStr = m.group(1).trim();
-            String op = m.group(2).trim();
-            String rightStr = m.group(3).trim();
-
-            DslCondition cond = new DslCondition();
-            cond.setLeft(parseExpression(leftStr));
-            cond.setOperator(op);
-            cond.setRight(parseExpression(rightStr));
-            cond.setLogicalOperator(logicalOp);
-
-            conditions.add(cond);
-        } else {
-            throw new IllegalArgumentException("Invalid condition syntax: " + line);
-        }
+        DslCondition cond = new DslCondition();
+        cond.setExpression(parseExpression(line));
+        cond.setLogicalOperator(logicalOp);
+        conditions.add(cond);
     }
 
-    private DslExpression parseExpression(String expr) {
-        Matcher m = INDICATOR_PATTERN.matcher(expr);
-        if (m.matches()) {
-            String name = m.group(1);
-            String paramsStr = m.group(2);
-            List<Double> params = Arrays.stream(paramsStr.split(","))
-                    .map(String::trim)
-                    .map(Double::parseDouble)
-                    .collect(Collectors.toList());
-            return new IndicatorExpression(name, params);
-        } else {
+    /**
+     * Recursive-descent state for one line.
+     */
+    private static final class LineParser {
+        private final String line;
+        private final List<Token> tokens;
+        private int pos;
+
+        LineParser(String line) {
+            this.line = line;
+            this.tokens = DslTokenizer.tokenize(line);
+        }
+
+        DslExpression parseLine() {
+            DslExpression expression = parseBinary(OR);
+            if (peek().kind() != Kind.END) {
+                throw error("Unexpected " + peek(), peek());
+            }
+            return expression;
+        }
+
+        /**
+         * Precedence climbing: parses operands and every binary operator binding
+         * at least as tightly as {@code minPrecedence}, left-associative.
+         */
+        private DslExpression parseBinary(int minPrecedence) {
+            DslExpression left = parseUnary();
+            while (true) {
+                Token token = peek();
+                String operator = token.kind() == Kind.NUMBER ? null : token.text().toUpperCase();
+                Integer precedence = operator != null ? BINARY_PRECEDENCE.get(operator) : null;
+                if (precedence == null || precedence < minPrecedence) {
+                    return left;
+                }
+                pos++;
+                left = new BinaryExpression(operator, left, parseBinary(precedence + 1));
+            }
+        }
+
+        private DslExpression parseUnary() {
+            if (peek().is("NOT")) {
+                pos++;
+                // Binds looser than comparisons: NOT RSI(14) > 70 negates the comparison
+                return new UnaryExpression("NOT", parseBinary(COMPARISON));
+            }
+            if (peek().is("-")) {
+                pos++;
+                DslExpression operand = parseUnary();
+                return operand instanceof ValueExpression value ? new ValueExpression(-value.getValue())
+                        : new UnaryExpression("-", operand);
+            }
+            return parsePostfix(parsePrimary());
+        }
+
+        private DslExpression parsePrimary() {
+            Token token = next();
+            if (token.kind() == Kind.NUMBER) {
+                return new ValueExpression(number(token));
+            }
+            if (token.is("(")) {
+                DslExpression inner = parseBinary(OR);
+                expect(")");
+                return inner;
+            }
+            if (token.kind() == Kind.IDENTIFIER && !BINARY_PRECEDENCE.containsKey(token.text().toUpperCase())) {
+                List<Double> params = new ArrayList<>();
+                if (peek().is("(")) {
+                    pos++;
+                    if (!peek().is(")")) {
+                        do {
+                            params.add(signedNumber());
+                        } while (accept(","));
+                    }
+                    expect(")");
+                }
+                return new IndicatorExpression(token.text().toUpperCase(), params);
+            }
+            throw error("Unexpected " + token, token);
+        }
+
+        private DslExpression parsePostfix(DslExpression expression) {
+            while (true) {
+                if (accept(".")) {
+                    Token selector = next();
+                    if (selector.kind() != Kind.IDENTIFIER) {
+                        throw error("Expected an output name after '.', found " + selector, selector);
+                    }
+                    if (!(expression instanceof IndicatorExpression indicator) || indicator.getOutput() != null) {
+                        throw error("Output selector ." + selector.text() + " must follow an indicator call", selector);
+                    }
+                    indicator.setOutput(selector.text().toLowerCase());
+                } else if (accept("[")) {
+                    Token offset = next();
+                    double bars = offset.kind() == Kind.NUMBER ? number(offset) : -1;
+                    if (bars < 0 || bars != Math.rint(bars)) {
+                        throw error("Bar offset must be a non-negative integer, found " + offset, offset);
+                    }
+                    expect("]");
+                    expression = new OffsetExpression(expression, (int) bars);
+                } else {
+                    return expression;
+                }
+            }
+        }
+
+        private double signedNumber() {
+            boolean negative = accept("-");
+            Token token = next();
+            if (token.kind() != Kind.NUMBER) {
+                throw error("Indicator arguments must be numbers, found " + token, token);
+            }
+            return negative ? -number(token) : number(token);
+        }
+
+        private double number(Token token) {
             try {
-                return new ValueExpression(Double.parseDouble(expr));
+                return Double.parseDouble(token.text());
             } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Unknown expression format: " + expr);
+                throw error("Invalid number '" + token.text() + "'", token);
+            }
+        }
+
+        private Token peek() {
+            return tokens.get(pos);
+        }
+
+        private Token next() {
+            Token token = tokens.get(pos);
+            if (token.kind() != Kind.END) {
+                pos++;
+            }
+            return token;
+        }
+
+        private boolean accept(String symbol) {
+            if (peek().is(symbol)) {
+                pos++;
+                return true;
             }
+            return false;
+        }
+
+        private void expect(String symbol) {
+            if (!accept(symbol)) {
+                throw error("Expected '" + symbol + "', found " + peek(), peek());
+            }
+        }
+
+        private IllegalArgumentException error(String message, Token at) {
+            return new IllegalArgumentException(message + " at column " + at.column() + " in: " + line);
         }
     }
 }
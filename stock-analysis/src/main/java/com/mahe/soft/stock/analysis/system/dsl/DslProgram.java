@@ -0,0 +1,624 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry.IndicatorFunction;
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry.PriceInput;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Executable form of a parsed DSL strategy, built once by {@link DslCompiler}.
+ *
+ * Operators and indicators are resolved to nodes at compile time. Every
+ * distinct indicator call (function and arguments) gets one slot, however many
+ * conditions use it. {@link #evaluate} computes the slots once per price
+ * series, then evaluates the expression tree over all bars at once: numeric
+ * nodes yield whole columns, and each condition yields a packed bit mask (bit
+ * {@code i} of word {@code i / 64} set when it holds on bar {@code i}) that
+ * AND/OR/NOT combine a word at a time. A comparison is false wherever an
+ * operand is NaN (indicator warm-up, offsets before the first bar), and NOT
+ * keeps those bars false rather than inverting them. A program holds no price
+ * data, so one instance can be shared by concurrent backtests.
+ *
+ * The tree also yields a cost estimate before anything runs: the lookback
+ * (warm-up bars) of its deepest indicator or offset, and the bytes an
+ * evaluation allocates for a given series length (see {@link DslBudget}).
+ * Evaluation checks its {@link DslExecution} between indicators and at every
+ * node, so a timed-out or cancelled run stops at the next checkpoint.
+ */
+public final class DslProgram {
+
+    private final String name;
+    private final Condition entry;
+    private final Condition exit;
+    private final List<IndicatorCall> indicators;
+    private final int lookback;
+    private final int columnsPerBar;
+    private final int masks;
+
+    DslProgram(String name, Condition entry, Condition exit, List<IndicatorCall> indicators) {
+        this.name = name;
+        this.entry = entry;
+        this.exit = exit;
+        this.indicators = List.copyOf(indicators);
+
+        Estimate estimate = new Estimate(new int[indicators.size()]);
+        int columns = PriceInput.values().length;
+        for (int slot = 0; slot < indicators.size(); slot++) {
+            estimate.slotLookback[slot] = indicators.get(slot).lookback();
+            columns += indicators.get(slot).function().outputs().size();
+        }
+        entry.estimate(estimate, 0);
+        exit.estimate(estimate, 0);
+        this.lookback = estimate.lookback;
+        this.columnsPerBar = columns + estimate.columns;
+        this.masks = estimate.masks;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the distinct indicator calls, in slot order
+     */
+    public List<IndicatorCall> getIndicators() {
+        return indicators;
+    }
+
+    /**
+     * @return bars consumed before every condition can be true: the largest
+     *         indicator lookback plus the offsets and crossovers above it
+     */
+    public int getLookback() {
+        return lookback;
+    }
+
+    /**
+     * @return upper bound of the heap one evaluation over {@code bars} bars
+     *         allocates: price columns, indicator outputs, intermediate
+     *         columns and masks
+     */
+    public long estimateBytes(int bars) {
+        return (long) columnsPerBar * bars * Double.BYTES + (long) masks * newMask(bars).length * Long.BYTES;
+    }
+
+    public Masks evaluate(CandleSeries series) {
+        return evaluate(series, DslExecution.unbounded());
+    }
+
+    public Masks evaluate(CandleSeries series, DslExecution execution) {
+        return evaluate(series.getOpen(), series.getHigh(), series.getLow(), series.getClose(), series.getVolume(),
+                execution);
+    }
+
+    public Masks evaluate(double[] open, double[] high, double[] low, double[] close, double[] volume) {
+        return evaluate(open, high, low, close, volume, DslExecution.unbounded());
+    }
+
+    /**
+     * Evaluates entry and exit over every bar; all columns have the same length.
+     *
+     * @throws java.util.concurrent.CancellationException if {@code execution}
+     *                                                    times out or is
+     *                                                    cancelled
+     */
+    public Masks evaluate(double[] open, double[] high, double[] low, double[] close, double[] volume,
+            DslExecution execution) {
+        double[][] prices = new double[PriceInput.values().length][];
+        prices[PriceInput.OPEN.ordinal()] = open;
+        prices[PriceInput.HIGH.ordinal()] = high;
+        prices[PriceInput.LOW.ordinal()] = low;
+        prices[PriceInput.CLOSE.ordinal()] = close;
+        prices[PriceInput.VOLUME.ordinal()] = volume;
+        double[][][] slots = new double[indicators.size()][][];
+        for (int slot = 0; slot < slots.length; slot++) {
+            execution.check();
+            slots[slot] = indicators.get(slot).compute(prices);
+        }
+        Frame frame = new Frame(close.length, prices, slots, execution);
+        return new Masks(entry.mask(frame), exit.mask(frame), close.length);
+    }
+
+    /**
+     * Entry and exit masks of one series.
+     */
+    public record Masks(long[] entry, long[] exit, int bars) {
+        public boolean entryAt(int bar) {
+            return isSet(entry, bar);
+        }
+
+        public boolean exitAt(int bar) {
+            return isSet(exit, bar);
+        }
+    }
+
+    /**
+     * One indicator slot; equal calls share a slot.
+     */
+    public record IndicatorCall(IndicatorFunction function, List<Double> arguments) {
+        double[][] compute(double[][] prices) {
+            return function.compute(prices, function.bindArguments(arguments));
+        }
+
+        int lookback() {
+            return function.lookback(function.bindArguments(arguments));
+        }
+
+        @Override
+        public String toString() {
+            return function.name() + arguments.stream()
+                    .map(a -> a == Math.rint(a) ? String.valueOf(a.longValue()) : String.valueOf(a))
+                    .collect(Collectors.joining(",", "(", ")"));
+        }
+    }
+
+    static long[] newMask(int bars) {
+        return new long[(bars + 63) >>> 6];
+    }
+
+    static boolean isSet(long[] mask, int bar) {
+        return (mask[bar >>> 6] & (1L << bar)) != 0;
+    }
+
+    /**
+     * Clears bar {@code i + shift} of {@code mask} wherever {@code values[i]}
+     * is NaN.
+     */
+    static void clearNaN(double[] values, long[] mask, int shift) {
+        for (int i = 0; i + shift < values.length; i++) {
+            if (Double.isNaN(values[i])) {
+                int bar = i + shift;
+                mask[bar >>> 6] &= ~(1L << bar);
+            }
+        }
+    }
+
+    /**
+     * Inputs of one evaluation: price columns by {@link PriceInput#ordinal()}
+     * and each slot's outputs.
+     */
+    record Frame(int bars, double[][] prices, double[][][] slots, DslExecution execution) {
+        void check() {
+            execution.check();
+        }
+    }
+
+    /**
+     * Cost accumulated over the tree; {@code offset} in the nodes'
+     * {@code estimate} is the number of bars the enclosing offsets and
+     * crossovers look back.
+     */
+    static final class Estimate {
+        private final int[] slotLookback;
+        private int lookback;
+        private int columns;
+        private int masks;
+
+        Estimate(int[] slotLookback) {
+            this.slotLookback = slotLookback;
+        }
+
+        void reach(int bars) {
+            lookback = Math.max(lookback, bars);
+        }
+    }
+
+    // ---------------------------------------------------------------- numbers
+
+    /**
+     * A numeric column; the returned array may be shared and is read-only.
+     */
+    interface Series {
+        double[] values(Frame frame);
+
+        void estimate(Estimate estimate, int offset);
+    }
+
+    record Constant(double value) implements Series {
+        @Override
+        public double[] values(Frame frame) {
+            double[] values = new double[frame.bars()];
+            Arrays.fill(values, value);
+            return values;
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            estimate.columns++;
+        }
+    }
+
+    record Price(PriceInput input) implements Series {
+        @Override
+        public double[] values(Frame frame) {
+            return frame.prices()[input.ordinal()];
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            estimate.reach(offset);
+        }
+    }
+
+    record IndicatorOutput(int slot, int output) implements Series {
+        @Override
+        public double[] values(Frame frame) {
+            return frame.slots()[slot][output];
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            estimate.reach(offset + estimate.slotLookback[slot]);
+        }
+    }
+
+    record Negate(Series operand) implements Series {
+        @Override
+        public double[] values(Frame frame) {
+            frame.check();
+            double[] in = operand.values(frame);
+            double[] out = new double[in.length];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = -in[i];
+            }
+            return out;
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            operand.estimate(estimate, offset);
+            estimate.columns++;
+        }
+    }
+
+    enum Arithmetic {
+        ADD, SUBTRACT, MULTIPLY, DIVIDE;
+
+        static Arithmetic of(String operator) {
+            return switch (operator) {
+                case "+" -> ADD;
+                case "-" -> SUBTRACT;
+                case "*" -> MULTIPLY;
+                case "/" -> DIVIDE;
+                default -> null;
+            };
+        }
+
+        double apply(double left, double right) {
+            return switch (this) {
+                case ADD -> left + right;
+                case SUBTRACT -> left - right;
+                case MULTIPLY -> left * right;
+                case DIVIDE -> left / right;
+            };
+        }
+    }
+
+    record BinaryArithmetic(Series left, Arithmetic operator, Series right) implements Series {
+        @Override
+        public double[] values(Frame frame) {
+            frame.check();
+            double[] l = left.values(frame);
+            double[] r = right.values(frame);
+            double[] out = new double[frame.bars()];
+            // One tight loop per operator
+            switch (operator) {
+                case ADD -> {
+                    for (int i = 0; i < out.length; i++) {
+                        out[i] = l[i] + r[i];
+                    }
+                }
+                case SUBTRACT -> {
+                    for (int i = 0; i < out.length; i++) {
+                        out[i] = l[i] - r[i];
+                    }
+                }
+                case MULTIPLY -> {
+                    for (int i = 0; i < out.length; i++) {
+                        out[i] = l[i] * r[i];
+                    }
+                }
+                case DIVIDE -> {
+                    for (int i = 0; i < out.length; i++) {
+                        out[i] = l[i] / r[i];
+                    }
+                }
+            }
+            return out;
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            left.estimate(estimate, offset);
+            right.estimate(estimate, offset);
+            estimate.columns++;
+        }
+    }
+
+    /**
+     * {@code operand[bars]}; NaN before the first full lookback.
+     */
+    record Offset(Series operand, int bars) implements Series {
+        @Override
+        public double[] values(Frame frame) {
+            frame.check();
+            double[] in = operand.values(frame);
+            double[] out = new double[in.length];
+            int shift = Math.min(bars, in.length);
+            Arrays.fill(out, 0, shift, Double.NaN);
+            System.arraycopy(in, 0, out, shift, in.length - shift);
+            return out;
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            operand.estimate(estimate, offset + bars);
+            estimate.columns++;
+        }
+    }
+
+    // ------------------------------------------------------------- conditions
+
+    enum Comparison {
+        GT {
+            @Override
+            boolean test(double left, double right) {
+                return left > right;
+            }
+        },
+        LT {
+            @Override
+            boolean test(double left, double right) {
+                return left < right;
+            }
+        },
+        GE {
+            @Override
+            boolean test(double left, double right) {
+                return left >= right;
+            }
+        },
+        LE {
+            @Override
+            boolean test(double left, double right) {
+                return left <= right;
+            }
+        },
+        EQ {
+            @Override
+            boolean test(double left, double right) {
+                return Math.abs(left - right) < 0.0001;
+            }
+        },
+        NE {
+            @Override
+            boolean test(double left, double right) {
+                return Math.abs(left - right) >= 0.0001;
+            }
+        };
+
+        abstract boolean test(double left, double right);
+
+        /**
+         * @return the comparison, or {@code null} if {@code operator} is not one
+         */
+        static Comparison of(String operator) {
+            return switch (operator) {
+                case ">" -> GT;
+                case "<" -> LT;
+                case ">=" -> GE;
+                case "<=" -> LE;
+                case "==" -> EQ;
+                case "!=" -> NE;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * A boolean column as a packed mask; the returned array is owned by the
+     * caller.
+     */
+    interface Condition {
+        Condition NEVER = new Never();
+
+        long[] mask(Frame frame);
+
+        /**
+         * Clears the bars of {@code mask} on which a column this condition
+         * reads is NaN.
+         */
+        void clearUndefined(Frame frame, long[] mask);
+
+        void estimate(Estimate estimate, int offset);
+    }
+
+    record Never() implements Condition {
+        @Override
+        public long[] mask(Frame frame) {
+            return newMask(frame.bars());
+        }
+
+        @Override
+        public void clearUndefined(Frame frame, long[] mask) {
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            estimate.masks++;
+        }
+    }
+
+    record Compare(Series left, Comparison comparison, Series right) implements Condition {
+        @Override
+        public long[] mask(Frame frame) {
+            frame.check();
+            long[] mask = newMask(frame.bars());
+            // Constants stay scalars: "RSI(14) < 30" reads one column
+            if (right instanceof Constant constant) {
+                double[] l = left.values(frame);
+                double r = constant.value();
+                for (int i = 0; i < frame.bars(); i++) {
+                    if (comparison.test(l[i], r)) {
+                        mask[i >>> 6] |= 1L << i;
+                    }
+                }
+                return mask;
+            }
+            double[] l = left.values(frame);
+            double[] r = right.values(frame);
+            for (int i = 0; i < frame.bars(); i++) {
+                if (comparison.test(l[i], r[i])) {
+                    mask[i >>> 6] |= 1L << i;
+                }
+            }
+            return mask;
+        }
+
+        @Override
+        public void clearUndefined(Frame frame, long[] mask) {
+            clearNaN(left.values(frame), mask, 0);
+            if (!(right instanceof Constant)) {
+                clearNaN(right.values(frame), mask, 0);
+            }
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            left.estimate(estimate, offset);
+            if (!(right instanceof Constant)) {
+                right.estimate(estimate, offset);
+            }
+            estimate.masks++;
+        }
+    }
+
+    /**
+     * {@code left CROSSES_ABOVE right}: above on this bar, at or below on the
+     * previous one ({@code CROSSES_BELOW} mirrored).
+     */
+    record Cross(Series left, Series right, boolean above) implements Condition {
+        @Override
+        public long[] mask(Frame frame) {
+            frame.check();
+            double[] l = left.values(frame);
+            double[] r = right.values(frame);
+            long[] mask = newMask(frame.bars());
+            for (int i = 1; i < frame.bars(); i++) {
+                boolean crossed = above ? l[i] > r[i] && l[i - 1] <= r[i - 1]
+                        : l[i] < r[i] && l[i - 1] >= r[i - 1];
+                if (crossed) {
+                    mask[i >>> 6] |= 1L << i;
+                }
+            }
+            return mask;
+        }
+
+        @Override
+        public void clearUndefined(Frame frame, long[] mask) {
+            double[] l = left.values(frame);
+            double[] r = right.values(frame);
+            clearNaN(l, mask, 0);
+            clearNaN(r, mask, 0);
+            clearNaN(l, mask, 1);
+            clearNaN(r, mask, 1);
+            if (frame.bars() > 0) {
+                mask[0] &= ~1L; // no previous bar
+            }
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            // Also reads the previous bar
+            left.estimate(estimate, offset + 1);
+            right.estimate(estimate, offset + 1);
+            estimate.masks++;
+        }
+    }
+
+    record And(Condition left, Condition right) implements Condition {
+        @Override
+        public long[] mask(Frame frame) {
+            frame.check();
+            long[] mask = left.mask(frame);
+            long[] other = right.mask(frame);
+            for (int w = 0; w < mask.length; w++) {
+                mask[w] &= other[w];
+            }
+            return mask;
+        }
+
+        @Override
+        public void clearUndefined(Frame frame, long[] mask) {
+            left.clearUndefined(frame, mask);
+            right.clearUndefined(frame, mask);
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            left.estimate(estimate, offset);
+            right.estimate(estimate, offset);
+        }
+    }
+
+    record Or(Condition left, Condition right) implements Condition {
+        @Override
+        public long[] mask(Frame frame) {
+            frame.check();
+            long[] mask = left.mask(frame);
+            long[] other = right.mask(frame);
+            for (int w = 0; w < mask.length; w++) {
+                mask[w] |= other[w];
+            }
+            return mask;
+        }
+
+        @Override
+        public void clearUndefined(Frame frame, long[] mask) {
+            left.clearUndefined(frame, mask);
+            right.clearUndefined(frame, mask);
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            left.estimate(estimate, offset);
+            right.estimate(estimate, offset);
+        }
+    }
+
+    /**
+     * True where the operand is false on a bar all of its columns are defined
+     * for, so {@code NOT EMA(50) > EMA(200)} stays false through the warm-up.
+     */
+    record Not(Condition operand) implements Condition {
+        @Override
+        public long[] mask(Frame frame) {
+            frame.check();
+            long[] mask = operand.mask(frame);
+            for (int w = 0; w < mask.length; w++) {
+                mask[w] = ~mask[w];
+            }
+            int tail = frame.bars() & 63;
+            if (tail != 0) {
+                mask[mask.length - 1] &= (1L << tail) - 1; // no bits past the last bar
+            }
+            operand.clearUndefined(frame, mask);
+            return mask;
+        }
+
+        @Override
+        public void clearUndefined(Frame frame, long[] mask) {
+            operand.clearUndefined(frame, mask);
+        }
+
+        @Override
+        public void estimate(Estimate estimate, int offset) {
+            int columns = estimate.columns;
+            operand.estimate(estimate, offset);
+            // clearUndefined() rebuilds the operand's intermediate columns
+            estimate.columns += estimate.columns - columns;
+        }
+    }
+}
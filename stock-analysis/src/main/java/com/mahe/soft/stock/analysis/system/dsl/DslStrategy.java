@@ -1,24 +1,49 @@
 package com.mahe.soft.stock.analysis.system.dsl;
 
-import com.mahe.soft.stock.analysis.service.TALibService;
-import com.mahe.soft.stock.analysis.system.dsl.model.*;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
-import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.BaseStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 
-@Slf4j
-@RequiredArgsConstructor
-public class DslStrategy implements TradingStrategy {
+/**
+ * Runs a compiled {@link DslProgram}: a bar whose entry conditions hold is a
+ * BUY, otherwise one whose exit conditions hold is a SELL.
+ *
+ * With a {@link DslBudget}, every evaluation through the
+ * {@link com.mahe.soft.stock.analysis.system.strategy.TradingStrategy} methods
+ * is checked against the bar and memory limits and runs under the budget's
+ * deadline, so registered scripts are bounded in every engine that looks them
+ * up by name.
+ */
+public class DslStrategy extends BaseStrategy {
+
+    private final String name;
+    private final DslProgram program;
+    private final DslBudget budget; // null: callers budget each run themselves
+
+    public DslStrategy(DslProgram program) {
+        this(program.getName(), program, null);
+    }
 
-    private final DslStrategyDefinition definition;
-    private final TALibService taLibService;
+    /**
+     * @param name   reported name, e.g. the id a registered strategy is looked
+     *               up by
+     * @param budget limits applied to each evaluation, or {@code null} for none
+     */
+    public DslStrategy(String name, DslProgram program, DslBudget budget) {
+        this.name = name;
+        this.program = program;
+        this.budget = budget;
+    }
 
     @Override
     public String getName() {
-        return definition.getName();
+        return name;
+    }
+
+    public DslProgram getProgram() {
+        return program;
     }
 
     @Override
@@ -26,100 +51,73 @@ public class DslStrategy implements TradingStrategy {
         if (candles.isEmpty())
             return TradeSignal.hold();
 
-        // Evaluate Entry
-        if (evaluateConditions(definition.getEntryConditions(), candles)) {
-            return TradeSignal.buy(1.0);
-        }
-
-        // Evaluate Exit
-        if (evaluateConditions(definition.getExitConditions(), candles)) {
-            return TradeSignal.sell(1.0);
-        }
+        return signalAt(masks(candles), candles.size() - 1);
+    }
 
-        return TradeSignal.hold();
+    @Override
+    public TradeSignal[] evaluateSeries(List<Candle> candles) {
+        return signals(masks(candles));
     }
 
-    private boolean evaluateConditions(List<DslCondition> conditions, List<Candle> candles) {
-        if (conditions.isEmpty())
-            return false;
+    @Override
+    public TradeSignal[] evaluateSeries(CandleSeries series) {
+        return signals(evaluateMasks(series));
+    }
 
-        boolean result = true; // Base for AND
+    @Override
+    public boolean supportsSeriesEvaluation() {
+        return true;
+    }
 
-        // First condition sets the base
-        result = evaluateSingleCondition(conditions.get(0), candles);
+    /**
+     * @return entry and exit masks over the whole series, for
+     *         {@link com.mahe.soft.stock.analysis.system.backtest.BacktestEngine}'s
+     *         mask-driven backtest
+     * @throws IllegalArgumentException if the series is over budget
+     * @throws java.util.concurrent.CancellationException if the run times out
+     */
+    public DslProgram.Masks evaluateMasks(CandleSeries series) {
+        return program.evaluate(series, admit(series.size()));
+    }
 
-        for (int i = 1; i < conditions.size(); i++) {
-            DslCondition cond = conditions.get(i);
-            boolean currentVal = evaluateSingleCondition(cond, candles);
+    /**
+     * As {@link #evaluateMasks(CandleSeries)} for a run the caller has already
+     * admitted, stopping at the next checkpoint once {@code execution} times
+     * out or is cancelled.
+     */
+    public DslProgram.Masks evaluateMasks(CandleSeries series, DslExecution execution) {
+        return program.evaluate(series, execution);
+    }
 
-            if ("OR".equalsIgnoreCase(cond.getLogicalOperator())) {
-                result = result || currentVal;
-            } else {
-                result = result && currentVal;
-            }
-        }
-        return result;
+    private DslProgram.Masks masks(List<Candle> candles) {
+        DslExecution execution = admit(candles.size());
+        return program.evaluate(getOpenPrices(candles), getHighPrices(candles), getLowPrices(candles),
+                getClosePrices(candles), candles.stream().mapToDouble(Candle::getVolume).toArray(), execution);
     }
 
-    private boolean evaluateSingleCondition(DslCondition cond, List<Candle> candles) {
-        double leftVal = resolveExpression(cond.getLeft(), candles);
-        double rightVal = resolveExpression(cond.getRight(), candles);
-
-        switch (cond.getOperator()) {
-            case ">":
-                return leftVal > rightVal;
-            case "<":
-                return leftVal < rightVal;
-            case ">=":
-                return leftVal >= rightVal;
-            case "<=":
-                return leftVal <= rightVal;
-            case "==":
-                return Math.abs(leftVal - rightVal) < 0.0001;
-            default:
-                return false;
+    private DslExecution admit(int bars) {
+        if (budget == null) {
+            return DslExecution.unbounded();
         }
+        budget.checkRun(program, bars, 1);
+        return budget.start();
     }
 
-    private double resolveExpression(DslExpression expr, List<Candle> candles) {
-        if (expr instanceof ValueExpression) {
-            return ((ValueExpression) expr).getValue();
-        } else if (expr instanceof IndicatorExpression) {
-            return calculateIndicator((IndicatorExpression) expr, candles);
+    private TradeSignal[] signals(DslProgram.Masks masks) {
+        TradeSignal[] signals = new TradeSignal[masks.bars()];
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = signalAt(masks, i);
         }
-        return 0.0;
+        return signals;
     }
 
-    private double calculateIndicator(IndicatorExpression ind, List<Candle> candles) {
-        // Extract data needed for indicators
-        double[] close = candles.stream().mapToDouble(Candle::getClose).toArray();
-        int idx = close.length - 1;
-
-        switch (ind.getName()) {
-            case "EMA":
-                int period = ind.getParams().get(0).intValue();
-                if (close.length < period + 1)
-                    return Double.NaN;
-                double[] ema = taLibService.ema(close, period);
-                return ema[idx];
-
-            case "RSI":
-                int rsiPeriod = ind.getParams().get(0).intValue();
-                if (close.length < rsiPeriod + 1)
-                    return Double.NaN;
-                double[] rsi = taLibService.rsi(close, rsiPeriod);
-                return rsi[idx];
-
-            case "SMA":
-                int smaPeriod = ind.getParams().get(0).intValue();
-                double[] sma = taLibService.sma(close, smaPeriod);
-                return sma[idx];
-
-            // Add more as needed
-
-            default:
-                log.warn("Unknown indicator: {}", ind.getName());
-                return Double.NaN;
+    private static TradeSignal signalAt(DslProgram.Masks masks, int bar) {
+        if (masks.entryAt(bar)) {
+            return TradeSignal.buy(1.0);
         }
+        if (masks.exitAt(bar)) {
+            return TradeSignal.sell(1.0);
+        }
+        return TradeSignal.hold();
     }
 }
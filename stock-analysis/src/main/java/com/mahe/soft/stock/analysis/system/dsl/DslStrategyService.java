@@ -0,0 +1,156 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import com.mahe.soft.stock.analysis.client.StockDbClient;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Registered DSL strategies. A script is parsed and compiled once, at
+ * registration; the resulting {@link DslStrategy} is published in the
+ * {@link StrategyRegistry} under its id, so the analysis, paper and live
+ * engines can use it by name. Registrations live in memory only.
+ *
+ * Scripts over the {@link DslBudget} lookback limit are rejected at
+ * registration; every later evaluation, whichever engine runs it, is checked
+ * against the bar and memory limits and gets the budget's deadline. Batch
+ * backtests are checked once for all their symbols and share one deadline.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DslStrategyService {
+
+    private final DslCompiler dslCompiler;
+    private final StrategyRegistry strategyRegistry;
+    private final StockDbClient stockDbClient;
+    private final BacktestEngine backtestEngine;
+    private final DslBudget dslBudget;
+
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    private record Registration(RegisteredDslStrategy info, DslStrategy strategy) {
+    }
+
+    /**
+     * Compiles {@code script} and registers it, replacing any strategy
+     * previously registered under the same id.
+     *
+     * @param id strategy id; defaults to the script's {@code STRATEGY} name
+     * @throws IllegalArgumentException if the script does not compile, is
+     *                                  over budget, has no id, or the id is a
+     *                                  bean strategy's name
+     */
+    public RegisteredDslStrategy register(String id, String script) {
+        DslProgram program = dslCompiler.compile(script);
+        dslBudget.checkProgram(program);
+        String strategyId = id != null && !id.isBlank() ? id.trim() : program.getName();
+        if (strategyId == null || strategyId.isBlank()) {
+            throw new IllegalArgumentException("Strategy id required: pass an id or start the script with STRATEGY");
+        }
+        DslStrategy strategy = new DslStrategy(strategyId, program, dslBudget);
+        RegisteredDslStrategy info = RegisteredDslStrategy.builder()
+                .id(strategyId)
+                .script(script)
+                .indicators(program.getIndicators().stream().map(Object::toString).toList())
+                .registeredAt(Instant.now())
+                .build();
+        synchronized (registrations) {
+            strategyRegistry.register(strategyId, strategy);
+            registrations.put(strategyId, new Registration(info, strategy));
+        }
+        log.info("Registered DSL strategy {} with indicators {}", strategyId, info.getIndicators());
+        return info;
+    }
+
+    public RegisteredDslStrategy get(String id) {
+        Registration registration = registrations.get(id);
+        return registration != null ? registration.info() : null;
+    }
+
+    public List<RegisteredDslStrategy> list() {
+        return registrations.values().stream()
+                .map(Registration::info)
+                .sorted(Comparator.comparing(RegisteredDslStrategy::getId))
+                .toList();
+    }
+
+    /**
+     * @return {@code false} if no strategy is registered under {@code id}
+     */
+    public boolean unregister(String id) {
+        synchronized (registrations) {
+            if (registrations.remove(id) == null) {
+                return false;
+            }
+            strategyRegistry.unregister(id);
+        }
+        log.info("Unregistered DSL strategy {}", id);
+        return true;
+    }
+
+    /**
+     * Backtests a registered strategy on every symbol independently: the
+     * candles come back in one batch request, then the symbols are evaluated
+     * in parallel. Symbols without data are omitted.
+     *
+     * @return one result per symbol, in request order, or {@code null} if no
+     *         strategy is registered under {@code id}
+     * @throws IllegalArgumentException if the run is over budget
+     * @throws java.util.concurrent.CancellationException if it times out
+     */
+    public List<BacktestResult> backtest(String id, DslBatchBacktestRequest request) {
+        Registration registration = registrations.get(id);
+        if (registration == null) {
+            return null;
+        }
+        if (request.getSymbols() == null || request.getSymbols().isEmpty()) {
+            throw new IllegalArgumentException("At least one symbol is required");
+        }
+        DslStrategy strategy = registration.strategy();
+
+        Map<String, CandleSeries> universe = stockDbClient.getCandleSeriesBatch(request.getSymbols(),
+                request.getFrom(), request.getTo());
+        List<String> symbols = new ArrayList<>(universe.size());
+        List<CandleSeries> series = new ArrayList<>(universe.size());
+        universe.forEach((symbol, s) -> {
+            if (s != null && !s.isEmpty()) {
+                symbols.add(symbol);
+                series.add(s);
+            }
+        });
+
+        int longest = series.stream().mapToInt(CandleSeries::size).max().orElse(0);
+        int concurrent = Math.min(series.size(), ForkJoinPool.getCommonPoolParallelism() + 1); // + caller thread
+        dslBudget.checkRun(strategy.getProgram(), longest, concurrent);
+        DslExecution execution = dslBudget.start();
+
+        // Independent per symbol; the compiled program is shared read-only
+        BacktestResult[] results = new BacktestResult[series.size()];
+        IntStream.range(0, results.length).parallel().forEach(k -> {
+            try {
+                DslProgram.Masks masks = strategy.evaluateMasks(series.get(k), execution);
+                BacktestResult result = backtestEngine.runBacktest(strategy.getName(), series.get(k),
+                        masks.entry(), masks.exit(), request.getCapital(), request.getCurvePoints());
+                result.setSymbol(symbols.get(k));
+                results[k] = result;
+            } catch (RuntimeException e) {
+                execution.cancel(); // the run has failed; stop the other symbols
+                throw e;
+            }
+        });
+        return List.of(results);
+    }
+}
@@ -0,0 +1,66 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits one rule line into tokens: numbers, identifiers (names, keywords),
+ * operators and punctuation. Keywords are recognized by the parser.
+ */
+final class DslTokenizer {
+
+    enum Kind {
+        NUMBER, IDENTIFIER, OPERATOR, END
+    }
+
+    record Token(Kind kind, String text, int column) {
+        boolean is(String symbol) {
+            return kind != Kind.NUMBER && text.equalsIgnoreCase(symbol);
+        }
+
+        @Override
+        public String toString() {
+            return kind == Kind.END ? "end of line" : "'" + text + "'";
+        }
+    }
+
+    private static final String SINGLE_CHAR_OPERATORS = "+-*/()[],.<>";
+
+    private DslTokenizer() {
+    }
+
+    static List<Token> tokenize(String line) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < line.length()
+                    && Character.isDigit(line.charAt(i + 1)))) {
+                while (i < line.length() && (Character.isDigit(line.charAt(i)) || line.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.NUMBER, line.substring(start, i), start + 1));
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < line.length() && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(Kind.IDENTIFIER, line.substring(start, i), start + 1));
+            } else if (line.startsWith(">=", i) || line.startsWith("<=", i) || line.startsWith("==", i)
+                    || line.startsWith("!=", i)) {
+                i += 2;
+                tokens.add(new Token(Kind.OPERATOR, line.substring(start, i), start + 1));
+            } else if (SINGLE_CHAR_OPERATORS.indexOf(c) >= 0) {
+                i++;
+                tokens.add(new Token(Kind.OPERATOR, String.valueOf(c), start + 1));
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at column " + (start + 1)
+                        + " in: " + line);
+            }
+        }
+        tokens.add(new Token(Kind.END, "", line.length() + 1));
+        return tokens;
+    }
+}
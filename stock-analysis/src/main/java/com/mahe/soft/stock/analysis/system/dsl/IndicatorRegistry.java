@@ -0,0 +1,313 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.service.TALibWorkspace;
+import com.tictactec.ta.lib.Core;
+import com.tictactec.ta.lib.MAType;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Every TA-Lib function of {@link TALibService} that scripts can call, found
+ * once at startup by reflection and bound as a {@link MethodHandle}.
+ *
+ * A function is registered under its method name in upper case
+ * ({@code ema} → {@code EMA}, {@code cdlEngulfing} → {@code CDLENGULFING});
+ * lookups ignore case and underscores, so {@code HT_TRENDLINE} works too.
+ * Array parameters are price inputs, matched to open/high/low/close/volume by
+ * name ({@code inReal} is the close). The remaining {@code int},
+ * {@code double} and {@link MAType} (given as its ordinal) parameters are the
+ * script arguments. Multi-output functions name their outputs after the
+ * {@code out*} parameters of their buffer overload ({@code MACD(...).signal}).
+ * Each function is also bound to TA-Lib's matching {@code Core.*Lookback}
+ * method, so the warm-up a call needs is known before it runs.
+ */
+@Component
+@Slf4j
+public class IndicatorRegistry {
+
+    /**
+     * Price column a function input reads.
+     */
+    public enum PriceInput {
+        OPEN, HIGH, LOW, CLOSE, VOLUME
+    }
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType LOOKBACK_TYPE = MethodType.methodType(int.class, Object[].class);
+
+    private final Map<String, IndicatorFunction> functions = new TreeMap<>();
+
+    public IndicatorRegistry(TALibService taLibService) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        Core core = new Core();
+        for (Method method : TALibService.class.getMethods()) {
+            if (method.getDeclaringClass() != TALibService.class || Modifier.isStatic(method.getModifiers())
+                    || !isSeriesResult(method.getReturnType()) || hasParameter(method, TALibWorkspace.class)) {
+                continue;
+            }
+            IndicatorFunction function;
+            try {
+                function = describe(method, lookup.unreflect(method).bindTo(taLibService), lookup, core);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot bind " + method, e);
+            }
+            if (function == null) {
+                continue;
+            }
+            IndicatorFunction previous = functions.put(normalize(function.name()), function);
+            if (previous != null) {
+                throw new IllegalStateException("Ambiguous indicator name " + function.name());
+            }
+        }
+        log.info("Registered {} indicator functions for the DSL", functions.size());
+    }
+
+    /**
+     * @return the function, or {@code null} if there is none by that name
+     */
+    public IndicatorFunction find(String name) {
+        return functions.get(normalize(name));
+    }
+
+    public Collection<IndicatorFunction> getFunctions() {
+        return Collections.unmodifiableCollection(functions.values());
+    }
+
+    /**
+     * A callable TA-Lib function.
+     *
+     * @param outputs         output names; a single unnamed output for
+     *                        single-series functions
+     * @param lookbackInvoker TA-Lib's lookback for the arguments, or
+     *                        {@code null} if Core has none with this signature
+     */
+    public record IndicatorFunction(String name, List<PriceInput> inputs, List<String> parameterNames,
+            List<Class<?>> parameterTypes, List<String> outputs, MethodHandle invoker,
+            MethodHandle lookbackInvoker) {
+
+        /**
+         * Converts script arguments to the method's parameter types.
+         *
+         * @throws IllegalArgumentException on a wrong count or a non-integral
+         *                                  period
+         */
+        Object[] bindArguments(List<Double> arguments) {
+            if (arguments.size() != parameterTypes.size()) {
+                throw new IllegalArgumentException(name + " expects " + parameterTypes.size() + " argument(s) "
+                        + parameterNames + ", got " + arguments.size());
+            }
+            Object[] bound = new Object[arguments.size()];
+            for (int i = 0; i < bound.length; i++) {
+                double value = arguments.get(i);
+                Class<?> type = parameterTypes.get(i);
+                if (type == double.class) {
+                    bound[i] = value;
+                } else if (value != Math.rint(value)) {
+                    throw new IllegalArgumentException(name + ": " + parameterNames.get(i) + " must be an integer");
+                } else if (type == int.class) {
+                    bound[i] = (int) value;
+                } else {
+                    MAType[] types = MAType.values();
+                    if (value < 0 || value >= types.length) {
+                        throw new IllegalArgumentException(name + ": " + parameterNames.get(i)
+                                + " must be an MA type 0.." + (types.length - 1));
+                    }
+                    bound[i] = types[(int) value];
+                }
+            }
+            return bound;
+        }
+
+        /**
+         * @param prices    price columns indexed by {@link PriceInput#ordinal()}
+         * @param arguments from {@link #bindArguments}
+         * @return one full-length series per output
+         */
+        double[][] compute(double[][] prices, Object[] arguments) {
+            Object[] call = new Object[inputs.size() + arguments.length];
+            for (int i = 0; i < inputs.size(); i++) {
+                call[i] = prices[inputs.get(i).ordinal()];
+            }
+            System.arraycopy(arguments, 0, call, inputs.size(), arguments.length);
+            Object result;
+            try {
+                result = invoker.invokeExact(call);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(name + " failed", e);
+            }
+            if (result instanceof double[][] columns) {
+                return columns;
+            }
+            if (result instanceof int[] pattern) {
+                double[] values = new double[pattern.length];
+                for (int i = 0; i < pattern.length; i++) {
+                    values[i] = pattern[i];
+                }
+                return new double[][] { values };
+            }
+            return new double[][] { (double[]) result };
+        }
+
+        /**
+         * @param arguments from {@link #bindArguments}
+         * @return bars consumed before the first output value; without a TA-Lib
+         *         lookback, the largest integer argument
+         */
+        int lookback(Object[] arguments) {
+            if (lookbackInvoker != null) {
+                try {
+                    return Math.max(0, (int) lookbackInvoker.invokeExact(arguments));
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(name + " lookback failed", e);
+                }
+            }
+            int lookback = 0;
+            for (Object argument : arguments) {
+                if (argument instanceof Integer period) {
+                    lookback = Math.max(lookback, period);
+                }
+            }
+            return lookback;
+        }
+
+        /**
+         * @return the output index for a selector ({@code null} = first output)
+         */
+        int outputIndex(String selector) {
+            if (selector == null) {
+                return 0;
+            }
+            int index = outputs.indexOf(selector.toLowerCase(Locale.ROOT));
+            if (index < 0) {
+                throw new IllegalArgumentException(name + " has no output '" + selector + "'"
+                        + (outputs.size() > 1 ? ", expected one of " + outputs : ""));
+            }
+            return index;
+        }
+    }
+
+    private static IndicatorFunction describe(Method method, MethodHandle handle, MethodHandles.Lookup lookup,
+            Core core) {
+        String name = method.getName().toUpperCase(Locale.ROOT);
+        List<PriceInput> inputs = new ArrayList<>();
+        List<String> parameterNames = new ArrayList<>();
+        List<Class<?>> parameterTypes = new ArrayList<>();
+        for (Parameter parameter : method.getParameters()) {
+            Class<?> type = parameter.getType();
+            if (type == double[].class) {
+                PriceInput input = priceInput(parameter);
+                if (input == null || inputs.contains(input) || !parameterTypes.isEmpty()) {
+                    // e.g. BETA/CORREL take two arbitrary series, which scripts cannot supply
+                    log.debug("Skipping {}: inputs cannot be mapped to price columns", method);
+                    return null;
+                }
+                inputs.add(input);
+            } else if (type == int.class || type == double.class || type == MAType.class) {
+                parameterNames.add(parameter.getName());
+                parameterTypes.add(type);
+            } else {
+                log.debug("Skipping {}: unsupported parameter type {}", method, type.getSimpleName());
+                return null;
+            }
+        }
+        MethodHandle invoker = handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+        return new IndicatorFunction(name, List.copyOf(inputs), List.copyOf(parameterNames),
+                List.copyOf(parameterTypes), outputNames(method), invoker,
+                lookback(method, parameterTypes, lookup, core));
+    }
+
+    /**
+     * Binds {@code Core.<name>Lookback} taking the script arguments' types.
+     */
+    private static MethodHandle lookback(Method method, List<Class<?>> parameterTypes, MethodHandles.Lookup lookup,
+            Core core) {
+        try {
+            MethodHandle lookback = lookup.findVirtual(Core.class, method.getName() + "Lookback",
+                    MethodType.methodType(int.class, parameterTypes)).bindTo(core);
+            return lookback.asSpreader(Object[].class, parameterTypes.size()).asType(LOOKBACK_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            log.debug("No TA-Lib lookback for {}; estimating from its periods", method.getName());
+            return null;
+        }
+    }
+
+    private static PriceInput priceInput(Parameter parameter) {
+        if (!parameter.isNamePresent()) {
+            return null;
+        }
+        String name = parameter.getName().toLowerCase(Locale.ROOT);
+        for (PriceInput input : PriceInput.values()) {
+            if (name.contains(input.name().toLowerCase(Locale.ROOT))) {
+                return input;
+            }
+        }
+        return name.equals("inreal") || name.equals("inreal0") ? PriceInput.CLOSE : null;
+    }
+
+    /**
+     * Output names of a {@code double[][]} function, taken from the
+     * {@code out*} parameters of its buffer overload with the function name
+     * dropped ({@code outMacdSignal} → {@code signal}, {@code outMacd} →
+     * {@code macd}).
+     */
+    private static List<String> outputNames(Method method) {
+        if (method.getReturnType() != double[][].class) {
+            return List.of("value");
+        }
+        String prefix = method.getName().toLowerCase(Locale.ROOT);
+        for (Method overload : TALibService.class.getMethods()) {
+            if (!overload.getName().equals(method.getName()) || !hasParameter(overload, TALibWorkspace.class)) {
+                continue;
+            }
+            List<String> names = new ArrayList<>();
+            for (Parameter parameter : overload.getParameters()) {
+                String name = parameter.getName();
+                if (parameter.isNamePresent() && parameter.getType() == double[].class && name.startsWith("out")) {
+                    String output = name.substring(3).toLowerCase(Locale.ROOT);
+                    names.add(output.startsWith(prefix) && output.length() > prefix.length()
+                            ? output.substring(prefix.length()) : output);
+                }
+            }
+            if (!names.isEmpty()) {
+                return List.copyOf(names);
+            }
+        }
+        log.debug("No output names for {}; only its first output is reachable", method);
+        return List.of("value");
+    }
+
+    private static boolean isSeriesResult(Class<?> type) {
+        return type == double[].class || type == double[][].class || type == int[].class;
+    }
+
+    private static boolean hasParameter(Method method, Class<?> type) {
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (parameterType == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,19 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import java.time.Instant;
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * A DSL strategy registered under an id, usable by that name wherever bean
+ * strategies are.
+ */
+@Data
+@Builder
+public class RegisteredDslStrategy {
+    private String id;
+    private String script;
+    private List<String> indicators;
+    private Instant registeredAt;
+}
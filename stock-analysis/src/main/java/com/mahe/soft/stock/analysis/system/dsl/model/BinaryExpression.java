@@ -0,0 +1,17 @@
+package com.mahe.soft.stock.analysis.system.dsl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * {@code left operator right}: arithmetic ({@code + - * /}), comparison
+ * ({@code > < >= <= == !=}), crossover ({@code CROSSES_ABOVE},
+ * {@code CROSSES_BELOW}) or logic ({@code AND}, {@code OR}).
+ */
+@Data
+@AllArgsConstructor
+public class BinaryExpression implements DslExpression {
+    private String operator;
+    private DslExpression left;
+    private DslExpression right;
+}
@@ -2,10 +2,30 @@ package com.mahe.soft.stock.analysis.system.dsl.model;
 
 import lombok.Data;
 
+/**
+ * One rule line: a boolean expression, combined with the lines before it by
+ * its leading {@code AND} / {@code OR}.
+ */
 @Data
 public class DslCondition {
-    private DslExpression left;
-    private String operator; // ">", "<", ">=", "<=", "=="
-    private DslExpression right;
+    private DslExpression expression;
     private String logicalOperator; // "AND", "OR"
+
+    /**
+     * @return the left operand if the rule is a single binary expression
+     */
+    public DslExpression getLeft() {
+        return expression instanceof BinaryExpression binary ? binary.getLeft() : null;
+    }
+
+    /**
+     * @return the top-level operator if the rule is a single binary expression
+     */
+    public String getOperator() {
+        return expression instanceof BinaryExpression binary ? binary.getOperator() : null;
+    }
+
+    public DslExpression getRight() {
+        return expression instanceof BinaryExpression binary ? binary.getRight() : null;
+    }
 }
@@ -4,9 +4,19 @@ import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+/**
+ * An indicator call such as {@code EMA(20)} or {@code MACD(12,26,9).signal},
+ * or a price series ({@code CLOSE}, {@code VOLUME}, ...) when it has no
+ * parentheses.
+ */
 @Data
 @AllArgsConstructor
 public class IndicatorExpression implements DslExpression {
     private String name; // EMA, RSI
     private List<Double> params; // 14, 21 etc.
+    private String output; // selector of a multi-output function (MACD(...).signal), or null
+
+    public IndicatorExpression(String name, List<Double> params) {
+        this(name, params, null);
+    }
 }
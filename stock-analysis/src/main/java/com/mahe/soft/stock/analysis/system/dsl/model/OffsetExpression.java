@@ -0,0 +1,14 @@
+package com.mahe.soft.stock.analysis.system.dsl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * {@code operand[bars]}: the operand's value {@code bars} bars ago.
+ */
+@Data
+@AllArgsConstructor
+public class OffsetExpression implements DslExpression {
+    private DslExpression operand;
+    private int bars;
+}
@@ -0,0 +1,14 @@
+package com.mahe.soft.stock.analysis.system.dsl.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * {@code -operand} or {@code NOT operand}.
+ */
+@Data
+@AllArgsConstructor
+public class UnaryExpression implements DslExpression {
+    private String operator;
+    private DslExpression operand;
+}
@@ -6,6 +6,7 @@ import com.mahe.soft.stock.analysis.system.mapper.CandleMapper;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.paper.PaperOrder;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
 import java.util.List;
 import java.util.Map;
@@ -23,13 +24,13 @@ public class LiveTradingEngine {
     private final BrokerService brokerService;
     private final StockDbClient stockDbClient; // Or use Broker's data feed? Let's use internal DB for strategy analysis
     private final CandleMapper candleMapper;
-    private final Map<String, TradingStrategy> strategies;
+    private final StrategyRegistry strategies;
 
     // Active Live Strategies: Symbol -> StrategyName
     private final Map<String, String> activeLiveSessions = new ConcurrentHashMap<>();
 
     public void startLiveTrading(String symbol, String strategyName) {
-        if (!strategies.containsKey(strategyName)) {
+        if (!strategies.contains(strategyName)) {
             throw new IllegalArgumentException("Strategy not found");
         }
         activeLiveSessions.put(symbol, strategyName);
@@ -54,6 +55,10 @@ public class LiveTradingEngine {
                 List<Candle> candles = candleMapper.toCandles(prices);
 
                 TradingStrategy strategy = strategies.get(strategyName);
+                if (strategy == null) {
+                    log.warn("Strategy {} for {} is no longer registered", strategyName, symbol);
+                    return;
+                }
                 TradeSignal signal = strategy.evaluate(candles);
 
                 if (signal.getType() == TradeSignal.Type.BUY) {
@@ -2,6 +2,7 @@ package com.mahe.soft.stock.analysis.system.mapper;
 
 import com.mahe.soft.stock.analysis.dto.StockPriceDto;
 import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.stereotype.Component;
@@ -25,4 +26,20 @@ public class CandleMapper {
                 .map(this::toCandle)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Converts straight into primitive columns, without a Candle per bar.
+     */
+    public CandleSeries toSeries(String symbol, List<StockPriceDto> dtos) {
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, dtos.size());
+        for (StockPriceDto dto : dtos) {
+            builder.add(dto.getTradeDate(),
+                    dto.getOpenPrice().doubleValue(),
+                    dto.getHighPrice().doubleValue(),
+                    dto.getLowPrice().doubleValue(),
+                    dto.getClosePrice().doubleValue(),
+                    dto.getVolume().doubleValue());
+        }
+        return builder.build();
+    }
 }
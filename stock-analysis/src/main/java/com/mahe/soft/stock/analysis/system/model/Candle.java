@@ -1,6 +1,9 @@
 package com.mahe.soft.stock.analysis.system.model;
 
+import com.mahe.soft.stock.common.CandleSeries;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Builder;
 import lombok.Data;
 
@@ -13,4 +16,22 @@ public class Candle {
     private double low;
     private double close;
     private double volume;
+
+    /**
+     * Row view of a columnar series, for code that still works on candle lists.
+     */
+    public static List<Candle> fromSeries(CandleSeries series) {
+        List<Candle> candles = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            candles.add(Candle.builder()
+                    .timestamp(series.getDate(i))
+                    .open(series.getOpen()[i])
+                    .high(series.getHigh()[i])
+                    .low(series.getLow()[i])
+                    .close(series.getClose()[i])
+                    .volume(series.getVolume()[i])
+                    .build());
+        }
+        return candles;
+    }
 }
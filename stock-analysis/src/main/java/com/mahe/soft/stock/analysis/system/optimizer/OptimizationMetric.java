@@ -0,0 +1,22 @@
+package com.mahe.soft.stock.analysis.system.optimizer;
+
+import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
+
+/**
+ * Metric used to rank parameter combinations (higher is better).
+ */
+public enum OptimizationMetric {
+    SHARPE,
+    RETURN,
+    PROFIT_FACTOR;
+
+    public double of(BacktestResult result) {
+        double value = switch (this) {
+            case SHARPE -> result.getSharpeRatio();
+            case RETURN -> result.getTotalReturnPercent();
+            case PROFIT_FACTOR -> result.getProfitFactor();
+        };
+        // NaN would sort first under a descending Double.compare
+        return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+    }
+}
@@ -0,0 +1,21 @@
+package com.mahe.soft.stock.analysis.system.optimizer;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+
+@Data
+public class OptimizationRequest {
+    private String symbol;
+    private String strategyName;
+    private double capital = 10000;
+    private LocalDate from;
+    private LocalDate to;
+    private OptimizationMetric metric = OptimizationMetric.SHARPE;
+    private int topN = 20;
+
+    // e.g. {"fast": [8, 13, 21], "slow": [34, 55, 89]}
+    private Map<String, List<Integer>> parameters = new LinkedHashMap<>();
+}
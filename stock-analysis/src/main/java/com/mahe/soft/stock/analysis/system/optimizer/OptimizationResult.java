@@ -0,0 +1,20 @@
+package com.mahe.soft.stock.analysis.system.optimizer;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class OptimizationResult {
+    private String strategyName;
+    private String symbol;
+    private OptimizationMetric metric;
+
+    private int combinationsTested;
+    private int combinationsSkipped; // rejected by the strategy, e.g. fast >= slow
+    private long elapsedMillis;
+
+    // Best first
+    private List<OptimizationRun> results;
+}
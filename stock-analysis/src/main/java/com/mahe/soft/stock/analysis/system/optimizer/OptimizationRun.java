@@ -0,0 +1,24 @@
+package com.mahe.soft.stock.analysis.system.optimizer;
+
+import java.util.Map;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Summary of one parameter combination. Trade lists are dropped so large
+ * sweeps stay cheap to hold and serialize.
+ */
+@Data
+@Builder
+public class OptimizationRun {
+    private Map<String, Integer> parameters;
+    private double score;
+
+    private double totalReturnPercent;
+    private double sharpeRatio;
+    private double profitFactor;
+    private double maxDrawdownPercent;
+    private double winRate;
+    private int totalTrades;
+    private double finalCapital;
+}
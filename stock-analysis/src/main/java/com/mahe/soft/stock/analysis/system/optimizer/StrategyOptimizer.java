@@ -0,0 +1,157 @@
+package com.mahe.soft.stock.analysis.system.optimizer;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
+import com.mahe.soft.stock.analysis.system.strategy.IndicatorCache;
+import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.TunableStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Grid-search optimizer: backtests every parameter combination of a
+ * {@link TunableStrategy} in parallel and ranks them by the chosen metric.
+ *
+ * The candle series is shared read-only by all workers, and an
+ * {@link IndicatorCache} makes combinations that share a period (e.g. every
+ * fast EMA paired with slow=55) reuse the same indicator array.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StrategyOptimizer {
+
+    static final int MAX_COMBINATIONS = 10_000;
+
+    private final BacktestEngine backtestEngine;
+    private final TALibService taLibService;
+    private final Map<String, TradingStrategy> strategies;
+
+    // Work-stealing pool sized to the machine; kept separate from the common pool
+    // so long sweeps don't starve parallel streams elsewhere in the app.
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    public OptimizationResult optimize(String strategyName, CandleSeries series, Map<String, List<Integer>> grid,
+            OptimizationMetric metric, double capital, int topN) {
+        TradingStrategy strategy = strategies.get(strategyName);
+        if (strategy == null) {
+            throw new IllegalArgumentException("Strategy not found: " + strategyName);
+        }
+        if (!(strategy instanceof TunableStrategy tunable)) {
+            throw new IllegalArgumentException("Strategy has no tunable parameters: " + strategyName);
+        }
+
+        // Fail fast on typos; per-combination validation errors are only skipped
+        Map<String, Integer> defaults = tunable.getParameters();
+        for (String name : grid.keySet()) {
+            if (!defaults.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown parameter '" + name + "', expected one of "
+                        + defaults.keySet());
+            }
+        }
+
+        List<Map<String, Integer>> combinations = expand(grid);
+        log.info("Optimizing {} over {} combinations on {} candles", strategyName, combinations.size(),
+                series.size());
+        long start = System.currentTimeMillis();
+
+        IndicatorCache cache = new IndicatorCache(taLibService, series);
+
+        List<ForkJoinTask<OptimizationRun>> tasks = new ArrayList<>(combinations.size());
+        for (Map<String, Integer> params : combinations) {
+            tasks.add(pool.submit(() -> run(tunable, params, cache, series, metric, capital)));
+        }
+
+        List<OptimizationRun> runs = new ArrayList<>(tasks.size());
+        for (ForkJoinTask<OptimizationRun> task : tasks) {
+            runs.add(task.join());
+        }
+
+        List<OptimizationRun> ranked = runs.stream()
+                .filter(Objects::nonNull)
+                .sorted(Comparator.comparingDouble(OptimizationRun::getScore).reversed())
+                .toList();
+
+        return OptimizationResult.builder()
+                .strategyName(strategyName)
+                .metric(metric)
+                .combinationsTested(ranked.size())
+                .combinationsSkipped(combinations.size() - ranked.size())
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .results(ranked.subList(0, Math.min(Math.max(topN, 0), ranked.size())))
+                .build();
+    }
+
+    private OptimizationRun run(TunableStrategy base, Map<String, Integer> params, IndicatorCache cache,
+            CandleSeries series, OptimizationMetric metric, double capital) {
+        TunableStrategy strategy;
+        try {
+            strategy = base.withParameters(params, cache);
+        } catch (IllegalArgumentException e) {
+            log.debug("Skipping {}: {}", params, e.getMessage());
+            return null;
+        }
+
+        BacktestResult result = backtestEngine.runBacktest(strategy, series, capital, 0);
+        return OptimizationRun.builder()
+                .parameters(strategy.getParameters())
+                .score(metric.of(result))
+                .totalReturnPercent(result.getTotalReturnPercent())
+                .sharpeRatio(result.getSharpeRatio())
+                .profitFactor(result.getProfitFactor())
+                .maxDrawdownPercent(result.getMaxDrawdownPercent())
+                .winRate(result.getWinRate())
+                .totalTrades(result.getTotalTrades())
+                .finalCapital(result.getFinalCapital())
+                .build();
+    }
+
+    /**
+     * Cartesian product of the grid, in key order. An empty grid yields a single
+     * empty combination (i.e. the strategy defaults).
+     */
+    static List<Map<String, Integer>> expand(Map<String, List<Integer>> grid) {
+        long total = 1;
+        for (Map.Entry<String, List<Integer>> entry : grid.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                throw new IllegalArgumentException("No values given for parameter '" + entry.getKey() + "'");
+            }
+            total *= entry.getValue().size();
+            if (total > MAX_COMBINATIONS) {
+                throw new IllegalArgumentException("Grid exceeds " + MAX_COMBINATIONS + " combinations");
+            }
+        }
+
+        List<Map<String, Integer>> combinations = new ArrayList<>((int) total);
+        combinations.add(new LinkedHashMap<>());
+        for (Map.Entry<String, List<Integer>> entry : grid.entrySet()) {
+            List<Map<String, Integer>> next = new ArrayList<>((int) total);
+            for (Map<String, Integer> partial : combinations) {
+                for (Integer value : entry.getValue()) {
+                    Map<String, Integer> combination = new LinkedHashMap<>(partial);
+                    combination.put(entry.getKey(), value);
+                    next.add(combination);
+                }
+            }
+            combinations = next;
+        }
+        return combinations;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -5,11 +5,14 @@ import com.mahe.soft.stock.analysis.dto.StockPriceDto;
 import com.mahe.soft.stock.analysis.system.mapper.CandleMapper;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import lombok.Data;
@@ -25,7 +28,7 @@ public class PaperTradingEngine {
 
     private final StockDbClient stockDbClient;
     private final CandleMapper candleMapper;
-    private final Map<String, TradingStrategy> strategies;
+    private final StrategyRegistry strategies;
 
     // In-memory session store: SessionID -> AccountState
     private final Map<String, PaperSimulationSession> activeSessions = new ConcurrentHashMap<>();
@@ -41,7 +44,7 @@ public class PaperTradingEngine {
 
     public String startSimulation(String symbol, String strategyName, double initialCapital) {
 
-        if (!strategies.containsKey(strategyName)) {
+        if (!strategies.contains(strategyName)) {
             throw new IllegalArgumentException("Strategy not found: " + strategyName);
         }
 
@@ -88,13 +91,28 @@ public class PaperTradingEngine {
      */
     @Scheduled(fixedRate = 60000) // Every minute
     public void runSimulationTick() {
-        activeSessions.values().stream().filter(PaperSimulationSession::isActive).forEach(this::processSession);
+        List<PaperSimulationSession> sessions = activeSessions.values().stream()
+                .filter(PaperSimulationSession::isActive)
+                .toList();
+        if (sessions.isEmpty())
+            return;
+
+        // 1. Fetch Latest Data for every active symbol in one batch request
+        Set<String> symbols = new LinkedHashSet<>();
+        sessions.forEach(session -> symbols.add(session.getSymbol()));
+        Map<String, List<StockPriceDto>> pricesBySymbol;
+        try {
+            pricesBySymbol = stockDbClient.getStockPricesBatch(symbols, null, null);
+        } catch (Exception e) {
+            log.error("Error fetching prices for {} paper sessions", sessions.size(), e);
+            return;
+        }
+        sessions.forEach(session -> processSession(session,
+                pricesBySymbol.getOrDefault(session.getSymbol(), List.of())));
     }
 
-    private void processSession(PaperSimulationSession session) {
+    private void processSession(PaperSimulationSession session, List<StockPriceDto> prices) {
         try {
-            // 1. Fetch Latest Data
-            List<StockPriceDto> prices = stockDbClient.getStockPrices(session.getSymbol());
             if (prices.isEmpty())
                 return;
 
@@ -106,6 +124,12 @@ public class PaperTradingEngine {
 
             // 2. Evaluate Strategy
             TradingStrategy strategy = strategies.get(session.getStrategyName());
+            if (strategy == null) {
+                // A registered strategy was removed while the session was running
+                log.warn("Strategy {} of session {} is no longer registered", session.getStrategyName(),
+                        session.getId());
+                return;
+            }
             TradeSignal signal = strategy.evaluate(candles);
 
             // 3. Execute Orders based on Signal
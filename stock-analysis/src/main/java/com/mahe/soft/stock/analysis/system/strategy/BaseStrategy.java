@@ -2,6 +2,8 @@ package com.mahe.soft.stock.analysis.system.strategy;
 
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public abstract class BaseStrategy implements TradingStrategy {
 
@@ -20,4 +22,22 @@ public abstract class BaseStrategy implements TradingStrategy {
     protected double[] getOpenPrices(List<Candle> candles) {
         return candles.stream().mapToDouble(Candle::getOpen).toArray();
     }
+
+    /**
+     * Rejects parameter names a {@link TunableStrategy} does not know, so typos in
+     * an optimizer grid fail fast instead of silently testing the defaults.
+     */
+    protected static void requireKnownParameters(Map<String, Integer> parameters, Set<String> known) {
+        for (String name : parameters.keySet()) {
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown parameter '" + name + "', expected one of " + known);
+            }
+        }
+    }
+
+    protected static void requirePeriod(String name, int value) {
+        if (value < 2) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must be >= 2, got " + value);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package com.mahe.soft.stock.analysis.system.strategy;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoizes TA-Lib series for one fixed candle history so that many strategy
+ * instances (e.g. every combination of a parameter sweep) share any indicator
+ * computed with the same period. Thread-safe; returned arrays are shared and
+ * must be treated as read-only.
+ */
+public class IndicatorCache {
+
+    private final TALibService taLibService;
+    private final double[] close;
+    private final Map<String, Object> results = new ConcurrentHashMap<>();
+
+    public IndicatorCache(TALibService taLibService, CandleSeries series) {
+        this.taLibService = taLibService;
+        this.close = series.getClose();
+    }
+
+    /**
+     * @return true if this cache was built for exactly this close column.
+     */
+    public boolean covers(double[] closePrices) {
+        return closePrices == close;
+    }
+
+    public double[] ema(int period) {
+        return (double[]) results.computeIfAbsent("EMA:" + period, k -> taLibService.ema(close, period));
+    }
+
+    public double[] rsi(int period) {
+        return (double[]) results.computeIfAbsent("RSI:" + period, k -> taLibService.rsi(close, period));
+    }
+
+    public double[][] macd(int fast, int slow, int signal) {
+        return (double[][]) results.computeIfAbsent("MACD:" + fast + ":" + slow + ":" + signal,
+                k -> taLibService.macd(close, fast, slow, signal));
+    }
+}
@@ -0,0 +1,64 @@
+package com.mahe.soft.stock.analysis.system.strategy;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Strategies by name: every {@link TradingStrategy} bean (under its bean name)
+ * plus strategies registered at runtime, such as compiled DSL scripts. Lookups
+ * go through here so that runtime strategies work wherever bean strategies do.
+ */
+@Component
+@Slf4j
+public class StrategyRegistry {
+
+    private final Map<String, TradingStrategy> beans;
+    private final Map<String, TradingStrategy> registered = new ConcurrentHashMap<>();
+
+    public StrategyRegistry(Map<String, TradingStrategy> beans) {
+        this.beans = Map.copyOf(beans);
+    }
+
+    /**
+     * @return the strategy, or {@code null} if no strategy has this name
+     */
+    public TradingStrategy get(String name) {
+        TradingStrategy bean = beans.get(name);
+        return bean != null ? bean : registered.get(name);
+    }
+
+    public boolean contains(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Registers or replaces a runtime strategy.
+     *
+     * @throws IllegalArgumentException if {@code name} is a bean strategy
+     */
+    public void register(String name, TradingStrategy strategy) {
+        if (beans.containsKey(name)) {
+            throw new IllegalArgumentException("Strategy name is reserved: " + name);
+        }
+        if (registered.put(name, strategy) != null) {
+            log.info("Replaced strategy {}", name);
+        }
+    }
+
+    /**
+     * @return {@code true} if a runtime strategy was removed
+     */
+    public boolean unregister(String name) {
+        return registered.remove(name) != null;
+    }
+
+    public Set<String> getNames() {
+        Set<String> names = new TreeSet<>(beans.keySet());
+        names.addAll(registered.keySet());
+        return names;
+    }
+}
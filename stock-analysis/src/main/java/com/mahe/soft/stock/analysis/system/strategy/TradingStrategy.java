@@ -2,6 +2,7 @@ package com.mahe.soft.stock.analysis.system.strategy;
 
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.util.List;
 
 public interface TradingStrategy {
@@ -16,4 +17,39 @@ public interface TradingStrategy {
      * @return TradeSignal (BUY, SELL, HOLD) with confidence.
      */
     TradeSignal evaluate(List<Candle> candles);
+
+    /**
+     * Batch evaluation: generates a signal for *every* candle in one pass.
+     * Element {@code i} must equal {@code evaluate(candles.subList(0, i + 1))}.
+     *
+     * The default falls back to per-bar evaluation (O(N^2)); strategies that can
+     * compute their indicators once over the whole series should override this
+     * and {@link #supportsSeriesEvaluation()}.
+     *
+     * @param candles Full history, oldest first.
+     * @return One signal per candle, same length as the input.
+     */
+    default TradeSignal[] evaluateSeries(List<Candle> candles) {
+        TradeSignal[] signals = new TradeSignal[candles.size()];
+        for (int i = 0; i < candles.size(); i++) {
+            signals[i] = evaluate(candles.subList(0, i + 1));
+        }
+        return signals;
+    }
+
+    /**
+     * Columnar variant of {@link #evaluateSeries(List)}. The default converts to
+     * candles; strategies should override it to read the series' arrays directly.
+     */
+    default TradeSignal[] evaluateSeries(CandleSeries series) {
+        return evaluateSeries(Candle.fromSeries(series));
+    }
+
+    /**
+     * @return true if {@link #evaluateSeries(List)} is a real single-pass
+     *         implementation the backtest engine should prefer.
+     */
+    default boolean supportsSeriesEvaluation() {
+        return false;
+    }
 }
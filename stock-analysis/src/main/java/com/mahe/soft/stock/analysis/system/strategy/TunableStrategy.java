@@ -0,0 +1,26 @@
+package com.mahe.soft.stock.analysis.system.strategy;
+
+import java.util.Map;
+
+/**
+ * A strategy whose periods/thresholds can be overridden, e.g. by the
+ * parameter-sweep optimizer.
+ */
+public interface TunableStrategy extends TradingStrategy {
+
+    /**
+     * @return current parameter values keyed by name (e.g. "fast" -> 21).
+     */
+    Map<String, Integer> getParameters();
+
+    /**
+     * Creates a new instance with the given parameters overridden (missing ones
+     * keep their current value). The Spring bean itself is never modified.
+     *
+     * @param parameters     overrides keyed by the names from {@link #getParameters()}
+     * @param indicatorCache optional shared cache for the series being tested;
+     *                       may be null
+     * @throws IllegalArgumentException for unknown names or invalid combinations
+     */
+    TunableStrategy withParameters(Map<String, Integer> parameters, IndicatorCache indicatorCache);
+}
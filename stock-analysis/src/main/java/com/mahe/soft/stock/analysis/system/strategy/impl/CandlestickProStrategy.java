@@ -4,6 +4,7 @@ import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.strategy.BaseStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -13,6 +14,7 @@ import org.springframework.stereotype.Component;
 public class CandlestickProStrategy extends BaseStrategy {
 
     private final TALibService taLibService;
+    private static final int MIN_CANDLES = 5;
 
     @Override
     public String getName() {
@@ -21,7 +23,7 @@ public class CandlestickProStrategy extends BaseStrategy {
 
     @Override
     public TradeSignal evaluate(List<Candle> candles) {
-        if (candles.size() < 5)
+        if (candles.size() < MIN_CANDLES)
             return TradeSignal.hold();
 
         double[] open = getOpenPrices(candles);
@@ -33,8 +35,38 @@ public class CandlestickProStrategy extends BaseStrategy {
         int[] morningStar = taLibService.cdlMorningStar(open, high, low, close, 0.5);
         int[] hammer = taLibService.cdlHammer(open, high, low, close);
 
-        int i = candles.size() - 1;
+        return signalAt(candles.size() - 1, engulfing, morningStar, hammer);
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(List<Candle> candles) {
+        return signals(getOpenPrices(candles), getHighPrices(candles), getLowPrices(candles),
+                getClosePrices(candles));
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(CandleSeries series) {
+        return signals(series.getOpen(), series.getHigh(), series.getLow(), series.getClose());
+    }
+
+    @Override
+    public boolean supportsSeriesEvaluation() {
+        return true;
+    }
+
+    private TradeSignal[] signals(double[] open, double[] high, double[] low, double[] close) {
+        TradeSignal[] signals = new TradeSignal[close.length];
+        int[] engulfing = taLibService.cdlEngulfing(open, high, low, close);
+        int[] morningStar = taLibService.cdlMorningStar(open, high, low, close, 0.5);
+        int[] hammer = taLibService.cdlHammer(open, high, low, close);
+
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = i < MIN_CANDLES - 1 ? TradeSignal.hold() : signalAt(i, engulfing, morningStar, hammer);
+        }
+        return signals;
+    }
 
+    private TradeSignal signalAt(int i, int[] engulfing, int[] morningStar, int[] hammer) {
         if (engulfing[i] > 0 || morningStar[i] > 0 || hammer[i] > 0) {
             return TradeSignal.buy(0.7);
         }
@@ -4,7 +4,13 @@ import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.strategy.BaseStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.IndicatorCache;
+import com.mahe.soft.stock.analysis.system.strategy.TunableStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -12,27 +18,81 @@ import org.springframework.stereotype.Component;
 @Component("EmaCrossoverPro")
 @RequiredArgsConstructor
 @Slf4j
-public class EmaCrossoverProStrategy extends BaseStrategy {
+public class EmaCrossoverProStrategy extends BaseStrategy implements TunableStrategy {
 
     private final TALibService taLibService;
-    private static final int FAST = 21;
-    private static final int SLOW = 55;
+    private int fast = 21;
+    private int slow = 55;
+    private IndicatorCache indicatorCache;
 
     @Override
     public String getName() {
-        return "EMA Crossover Pro (21/55)";
+        return "EMA Crossover Pro (" + fast + "/" + slow + ")";
+    }
+
+    @Override
+    public Map<String, Integer> getParameters() {
+        Map<String, Integer> params = new LinkedHashMap<>();
+        params.put("fast", fast);
+        params.put("slow", slow);
+        return params;
+    }
+
+    @Override
+    public EmaCrossoverProStrategy withParameters(Map<String, Integer> parameters, IndicatorCache indicatorCache) {
+        requireKnownParameters(parameters, Set.of("fast", "slow"));
+        EmaCrossoverProStrategy copy = new EmaCrossoverProStrategy(taLibService);
+        copy.fast = parameters.getOrDefault("fast", fast);
+        copy.slow = parameters.getOrDefault("slow", slow);
+        requirePeriod("fast", copy.fast);
+        requirePeriod("slow", copy.slow);
+        if (copy.fast >= copy.slow) {
+            throw new IllegalArgumentException("fast (" + copy.fast + ") must be < slow (" + copy.slow + ")");
+        }
+        copy.indicatorCache = indicatorCache;
+        return copy;
     }
 
     @Override
     public TradeSignal evaluate(List<Candle> candles) {
-        if (candles.size() < SLOW + 1)
+        if (candles.size() < slow + 1)
             return TradeSignal.hold();
 
         double[] close = getClosePrices(candles);
-        double[] emaFast = taLibService.ema(close, FAST);
-        double[] emaSlow = taLibService.ema(close, SLOW);
+        double[] emaFast = taLibService.ema(close, fast);
+        double[] emaSlow = taLibService.ema(close, slow);
+
+        return signalAt(candles.size() - 1, emaFast, emaSlow);
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(List<Candle> candles) {
+        return signals(getClosePrices(candles));
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(CandleSeries series) {
+        return signals(series.getClose());
+    }
+
+    @Override
+    public boolean supportsSeriesEvaluation() {
+        return true;
+    }
+
+    private TradeSignal[] signals(double[] close) {
+        TradeSignal[] signals = new TradeSignal[close.length];
+        boolean cached = indicatorCache != null && indicatorCache.covers(close);
+        double[] emaFast = cached ? indicatorCache.ema(fast) : taLibService.ema(close, fast);
+        double[] emaSlow = cached ? indicatorCache.ema(slow) : taLibService.ema(close, slow);
+
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = i < slow ? TradeSignal.hold() : signalAt(i, emaFast, emaSlow);
+        }
+        return signals;
+    }
 
-        int i = candles.size() - 1;
+    private TradeSignal signalAt(int i, double[] emaFast, double[] emaSlow) {
         int prev = i - 1;
 
         if (Double.isNaN(emaFast[prev]) || Double.isNaN(emaSlow[prev]))
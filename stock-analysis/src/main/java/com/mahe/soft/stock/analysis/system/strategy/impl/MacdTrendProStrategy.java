@@ -4,34 +4,98 @@ import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.strategy.BaseStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.IndicatorCache;
+import com.mahe.soft.stock.analysis.system.strategy.TunableStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component("MacdTrendPro")
 @RequiredArgsConstructor
-public class MacdTrendProStrategy extends BaseStrategy {
+public class MacdTrendProStrategy extends BaseStrategy implements TunableStrategy {
 
     private final TALibService taLibService;
-    private static final int FAST = 12;
-    private static final int SLOW = 26;
-    private static final int SIGNAL = 9;
+    private int fast = 12;
+    private int slow = 26;
+    private int signal = 9;
+    private IndicatorCache indicatorCache;
 
     @Override
     public String getName() {
         return "MACD Trend Pro";
     }
 
+    @Override
+    public Map<String, Integer> getParameters() {
+        Map<String, Integer> params = new LinkedHashMap<>();
+        params.put("fast", fast);
+        params.put("slow", slow);
+        params.put("signal", signal);
+        return params;
+    }
+
+    @Override
+    public MacdTrendProStrategy withParameters(Map<String, Integer> parameters, IndicatorCache indicatorCache) {
+        requireKnownParameters(parameters, Set.of("fast", "slow", "signal"));
+        MacdTrendProStrategy copy = new MacdTrendProStrategy(taLibService);
+        copy.fast = parameters.getOrDefault("fast", fast);
+        copy.slow = parameters.getOrDefault("slow", slow);
+        copy.signal = parameters.getOrDefault("signal", signal);
+        requirePeriod("fast", copy.fast);
+        requirePeriod("slow", copy.slow);
+        if (copy.signal < 1) {
+            throw new IllegalArgumentException("Parameter 'signal' must be >= 1, got " + copy.signal);
+        }
+        if (copy.fast >= copy.slow) {
+            throw new IllegalArgumentException("fast (" + copy.fast + ") must be < slow (" + copy.slow + ")");
+        }
+        copy.indicatorCache = indicatorCache;
+        return copy;
+    }
+
     @Override
     public TradeSignal evaluate(List<Candle> candles) {
-        if (candles.size() < SLOW + SIGNAL)
+        if (candles.size() < slow + signal)
             return TradeSignal.hold();
 
         double[] close = getClosePrices(candles);
-        double[][] macd = taLibService.macd(close, FAST, SLOW, SIGNAL);
-        double[] hist = macd[2];
+        double[][] macd = taLibService.macd(close, fast, slow, signal);
+
+        return signalAt(candles.size() - 1, macd[2]);
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(List<Candle> candles) {
+        return signals(getClosePrices(candles));
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(CandleSeries series) {
+        return signals(series.getClose());
+    }
+
+    @Override
+    public boolean supportsSeriesEvaluation() {
+        return true;
+    }
+
+    private TradeSignal[] signals(double[] close) {
+        TradeSignal[] signals = new TradeSignal[close.length];
+        double[] hist = indicatorCache != null && indicatorCache.covers(close)
+                ? indicatorCache.macd(fast, slow, signal)[2]
+                : taLibService.macd(close, fast, slow, signal)[2];
+
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = i < slow + signal - 1 ? TradeSignal.hold() : signalAt(i, hist);
+        }
+        return signals;
+    }
 
-        int i = candles.size() - 1;
+    private TradeSignal signalAt(int i, double[] hist) {
         int prev = i - 1;
 
         if (Double.isNaN(hist[prev]))
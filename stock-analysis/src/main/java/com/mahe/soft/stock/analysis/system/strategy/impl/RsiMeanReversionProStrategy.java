@@ -4,40 +4,104 @@ import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.strategy.BaseStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.IndicatorCache;
+import com.mahe.soft.stock.analysis.system.strategy.TunableStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component("RsiMeanReversionPro")
 @RequiredArgsConstructor
-public class RsiMeanReversionProStrategy extends BaseStrategy {
+public class RsiMeanReversionProStrategy extends BaseStrategy implements TunableStrategy {
 
     private final TALibService taLibService;
-    private static final int RSI_PERIOD = 14;
+    private int period = 14;
+    private int oversold = 30;
+    private int overbought = 70;
+    private IndicatorCache indicatorCache;
 
     @Override
     public String getName() {
         return "RSI Mean Reversion Pro";
     }
 
+    @Override
+    public Map<String, Integer> getParameters() {
+        Map<String, Integer> params = new LinkedHashMap<>();
+        params.put("period", period);
+        params.put("oversold", oversold);
+        params.put("overbought", overbought);
+        return params;
+    }
+
+    @Override
+    public RsiMeanReversionProStrategy withParameters(Map<String, Integer> parameters,
+            IndicatorCache indicatorCache) {
+        requireKnownParameters(parameters, Set.of("period", "oversold", "overbought"));
+        RsiMeanReversionProStrategy copy = new RsiMeanReversionProStrategy(taLibService);
+        copy.period = parameters.getOrDefault("period", period);
+        copy.oversold = parameters.getOrDefault("oversold", oversold);
+        copy.overbought = parameters.getOrDefault("overbought", overbought);
+        requirePeriod("period", copy.period);
+        if (copy.oversold < 0 || copy.overbought > 100 || copy.oversold >= copy.overbought) {
+            throw new IllegalArgumentException("Require 0 <= oversold < overbought <= 100, got "
+                    + copy.oversold + "/" + copy.overbought);
+        }
+        copy.indicatorCache = indicatorCache;
+        return copy;
+    }
+
     @Override
     public TradeSignal evaluate(List<Candle> candles) {
-        if (candles.size() < RSI_PERIOD + 1)
+        if (candles.size() < period + 1)
             return TradeSignal.hold();
 
         double[] close = getClosePrices(candles);
-        double[] rsi = taLibService.rsi(close, RSI_PERIOD);
+        double[] rsi = taLibService.rsi(close, period);
+
+        return signalAt(candles.size() - 1, rsi);
+    }
 
-        int i = candles.size() - 1;
+    @Override
+    public TradeSignal[] evaluateSeries(List<Candle> candles) {
+        return signals(getClosePrices(candles));
+    }
+
+    @Override
+    public TradeSignal[] evaluateSeries(CandleSeries series) {
+        return signals(series.getClose());
+    }
+
+    @Override
+    public boolean supportsSeriesEvaluation() {
+        return true;
+    }
+
+    private TradeSignal[] signals(double[] close) {
+        TradeSignal[] signals = new TradeSignal[close.length];
+        double[] rsi = indicatorCache != null && indicatorCache.covers(close)
+                ? indicatorCache.rsi(period)
+                : taLibService.rsi(close, period);
+
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = i < period ? TradeSignal.hold() : signalAt(i, rsi);
+        }
+        return signals;
+    }
 
+    private TradeSignal signalAt(int i, double[] rsi) {
         if (Double.isNaN(rsi[i]))
             return TradeSignal.hold();
 
-        if (rsi[i] < 30) {
+        if (rsi[i] < oversold) {
             return TradeSignal.buy(0.8);
         }
 
-        if (rsi[i] > 70) {
+        if (rsi[i] > overbought) {
             return TradeSignal.sell(0.8);
         }
 
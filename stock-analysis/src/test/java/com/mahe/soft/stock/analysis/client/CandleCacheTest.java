@@ -0,0 +1,191 @@
+package com.mahe.soft.stock.analysis.client;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class CandleCacheTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-10T12:00:00Z"));
+    private final List<Request> requests = new ArrayList<>();
+
+    private record Request(List<String> symbols, LocalDate startDate, LocalDate endDate) {
+    }
+
+    @Test
+    void testGet_FreshEntryIsNotRefetched() {
+        CandleCache cache = cache((symbols, from, to) -> Mono.just(List.of(series("AAPL", DAY, 2))));
+
+        CandleSeries first = cache.get(List.of("AAPL")).get("AAPL");
+        clock.advance(Duration.ofSeconds(29));
+        CandleSeries second = cache.get(List.of("AAPL")).get("AAPL");
+
+        assertSame(first, second);
+        assertEquals(1, requests.size());
+        assertNull(requests.get(0).startDate());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testGet_StaleEntryServedWhileIncrementalRefreshRuns() {
+        Sinks.One<List<CandleSeries>> pending = Sinks.one();
+        CandleCache cache = cache((symbols, from, to) -> requests.size() == 1
+                ? Mono.just(List.of(series("AAPL", DAY, 2)))
+                : pending.asMono());
+        CandleSeries initial = cache.get(List.of("AAPL")).get("AAPL");
+
+        clock.advance(Duration.ofMinutes(1));
+        assertSame(initial, cache.get(List.of("AAPL")).get("AAPL"));
+        // Only bars after the last cached date are requested
+        assertEquals(DAY.plusDays(2), requests.get(1).startDate());
+
+        pending.tryEmitValue(List.of(series("AAPL", DAY.plusDays(1), 3)));
+        CandleSeries refreshed = cache.get(List.of("AAPL")).get("AAPL");
+        assertEquals(4, refreshed.size());
+        assertArrayEquals(new double[] { 0, 1, 2, 3 }, refreshed.getClose());
+        assertEquals(1, cache.getStaleHits());
+    }
+
+    @Test
+    void testGet_CorrectedHistoryVisibleAfterMaxAge() {
+        // stock-db corrects the first bar after the initial load
+        CandleCache cache = cache((symbols, from, to) -> {
+            if (requests.size() == 1) {
+                return Mono.just(List.of(series("AAPL", DAY, 2)));
+            }
+            CandleSeries corrected = CandleSeries.builder("AAPL", 3)
+                    .add(DAY, 1, 1, 1, 42, 100)
+                    .add(DAY.plusDays(1), 1, 1, 1, 1, 100)
+                    .add(DAY.plusDays(2), 1, 1, 1, 2, 100)
+                    .build();
+            return Mono.just(List.of(from == null ? corrected : corrected.between(from, to)));
+        });
+        cache.get(List.of("AAPL"));
+
+        // Incremental refreshes only append
+        for (int i = 0; i < 50; i++) {
+            clock.advance(Duration.ofMinutes(1));
+            cache.get(List.of("AAPL"));
+        }
+        assertEquals(0, cache.get(List.of("AAPL")).get("AAPL").getClose()[0]);
+
+        clock.advance(Duration.ofMinutes(15));
+        cache.get(List.of("AAPL")); // stale: full reload in the background
+        CandleSeries reloaded = cache.get(List.of("AAPL")).get("AAPL");
+        assertNull(requests.get(requests.size() - 1).startDate());
+        assertArrayEquals(new double[] { 42, 1, 2 }, reloaded.getClose());
+    }
+
+    @Test
+    void testGet_ConcurrentMissesShareOneFetch() throws Exception {
+        CompletableFuture<List<CandleSeries>> response = new CompletableFuture<>();
+        CandleCache cache = cache((symbols, from, to) -> Mono.fromFuture(response));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CandleSeries>> callers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                callers.add(pool.submit(() -> cache.get(List.of("MSFT")).get("MSFT")));
+            }
+            while (cache.getMisses() < 8) {
+                Thread.onSpinWait();
+            }
+            response.complete(List.of(series("MSFT", DAY, 5)));
+            CandleSeries first = callers.get(0).get();
+            for (Future<CandleSeries> caller : callers) {
+                assertSame(first, caller.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, cache.getFetches());
+    }
+
+    @Test
+    void testGet_BatchesMissesAndFillsEmptySeries() {
+        CandleCache cache = cache((symbols, from, to) -> Mono.just(List.of(series("AAPL", DAY, 1))));
+
+        Map<String, CandleSeries> result = cache.get(List.of("NVDA", "AAPL"));
+
+        assertEquals(List.of("NVDA", "AAPL"), List.copyOf(result.keySet()));
+        assertTrue(result.get("NVDA").isEmpty());
+        assertEquals(1, result.get("AAPL").size());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    void testGet_FailedFetchPropagatesAndIsRetried() {
+        CandleCache cache = cache((symbols, from, to) -> requests.size() == 1
+                ? Mono.error(new IllegalStateException("stock-db down"))
+                : Mono.just(List.of(series("AAPL", DAY, 1))));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(List.of("AAPL")));
+        assertEquals(1, cache.get(List.of("AAPL")).get("AAPL").size());
+    }
+
+    private CandleCache cache(CandleCache.Fetcher fetcher) {
+        return new CandleCache((symbols, from, to) -> {
+            requests.add(new Request(List.copyOf((Collection<String>) symbols), from, to));
+            return fetcher.fetch(symbols, from, to);
+        }, Duration.ofSeconds(30), Duration.ofMinutes(10), Duration.ofHours(1), 100, clock);
+    }
+
+    private static CandleSeries series(String symbol, LocalDate first, int bars) {
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, bars);
+        int offset = (int) (first.toEpochDay() - DAY.toEpochDay());
+        for (int i = 0; i < bars; i++) {
+            builder.add(first.plusDays(i), 1, 1, 1, offset + i, 100);
+        }
+        return builder.build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public java.time.ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.mahe.soft.stock.analysis.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
 import org.junit.jupiter.api.Test;
 
 class TALibServiceTest {
@@ -31,4 +32,44 @@ class TALibServiceTest {
         assertTrue(Double.isNaN(result[13]));
         assertFalse(Double.isNaN(result[14]));
     }
+
+    @Test
+    void testTrange() {
+        double[] high = {11, 12, 15, 13};
+        double[] low = {9, 10, 12, 8};
+        double[] close = {10, 11, 14, 9};
+        double[] result = taLibService.trange(high, low, close);
+
+        assertEquals(4, result.length);
+        assertTrue(Double.isNaN(result[0]));
+        assertEquals(2.0, result[1], 0.001); // high - low
+        assertEquals(4.0, result[2], 0.001); // high - previous close
+        assertEquals(6.0, result[3], 0.001); // previous close - low
+    }
+
+    @Test
+    void testIntoBuffer_MatchesAllocatingVersion() {
+        double[] data = new double[100];
+        for (int i = 0; i < data.length; i++) data[i] = 100 + Math.sin(i / 5.0) * 10;
+
+        TALibWorkspace ws = new TALibWorkspace();
+        double[] out = new double[data.length];
+        Arrays.fill(out, 12345.0); // stale contents must be overwritten
+
+        assertSame(out, taLibService.ema(data, 10, out, ws));
+        assertArrayEquals(taLibService.ema(data, 10), out);
+
+        // Same buffer, different period: shorter NaN prefix must not leave stale values
+        taLibService.rsi(data, 14, out, ws);
+        assertArrayEquals(taLibService.rsi(data, 14), out);
+
+        double[][] macd = taLibService.macd(data, 12, 26, 9);
+        double[] m = new double[data.length];
+        double[] s = new double[data.length];
+        double[] h = new double[data.length];
+        taLibService.macd(data, 12, 26, 9, m, s, h, ws);
+        assertArrayEquals(macd[0], m);
+        assertArrayEquals(macd[1], s);
+        assertArrayEquals(macd[2], h);
+    }
 }
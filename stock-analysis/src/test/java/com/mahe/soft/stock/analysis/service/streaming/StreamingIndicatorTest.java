@@ -0,0 +1,117 @@
+package com.mahe.soft.stock.analysis.service.streaming;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.analysis.system.model.CandleFixtures;
+import com.tictactec.ta.lib.MAType;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression test: every streaming indicator must reproduce the TA-Lib batch
+ * output bar-by-bar.
+ */
+class StreamingIndicatorTest {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private final TALibService taLib = new TALibService();
+    private final List<Candle> candles = CandleFixtures.randomWalkCandles(600);
+    private final double[] high = candles.stream().mapToDouble(Candle::getHigh).toArray();
+    private final double[] low = candles.stream().mapToDouble(Candle::getLow).toArray();
+    private final double[] close = candles.stream().mapToDouble(Candle::getClose).toArray();
+    private final double[] volume = candles.stream().mapToDouble(Candle::getVolume).toArray();
+
+    @Test
+    void testSma() {
+        assertMatches(taLib.sma(close, 20), new StreamingSma(20), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testEma() {
+        assertMatches(taLib.ema(close, 21), new StreamingEma(21), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testWma() {
+        assertMatches(taLib.wma(close, 10), new StreamingWma(10), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testRsi() {
+        assertMatches(taLib.rsi(close, 14), new StreamingRsi(14), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testMacd() {
+        double[][] macd = taLib.macd(close, 12, 26, 9);
+        assertMatches(macd[0], new StreamingMacd(12, 26, 9), StreamingMacd::getValue);
+        assertMatches(macd[1], new StreamingMacd(12, 26, 9), StreamingMacd::getSignal);
+        assertMatches(macd[2], new StreamingMacd(12, 26, 9), StreamingMacd::getHistogram);
+    }
+
+    @Test
+    void testBbands() {
+        for (MAType maType : new MAType[] { MAType.Sma, MAType.Ema }) {
+            double[][] bb = taLib.bbands(close, 20, 2.0, 1.5, maType);
+            assertMatches(bb[0], new StreamingBollingerBands(20, 2.0, 1.5, maType),
+                    StreamingBollingerBands::getUpper);
+            assertMatches(bb[1], new StreamingBollingerBands(20, 2.0, 1.5, maType),
+                    StreamingBollingerBands::getMiddle);
+            assertMatches(bb[2], new StreamingBollingerBands(20, 2.0, 1.5, maType),
+                    StreamingBollingerBands::getLower);
+        }
+    }
+
+    @Test
+    void testAtr() {
+        assertMatches(taLib.atr(high, low, close, 14), new StreamingAtr(14), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testStoch() {
+        double[][] stoch = taLib.stoch(high, low, close, 14, 3, MAType.Sma, 3, MAType.Sma);
+        assertMatches(stoch[0], new StreamingStochastic(14, 3, 3), StreamingStochastic::getSlowK);
+        assertMatches(stoch[1], new StreamingStochastic(14, 3, 3), StreamingStochastic::getSlowD);
+    }
+
+    @Test
+    void testAdx() {
+        assertMatches(taLib.adx(high, low, close, 14), new StreamingAdx(14), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testObv() {
+        assertMatches(taLib.obv(close, volume), new StreamingObv(), StreamingIndicator::getValue);
+    }
+
+    @Test
+    void testSeedThenUpdate() {
+        double[] expected = taLib.rsi(close, 14);
+
+        StreamingRsi rsi = new StreamingRsi(14);
+        rsi.seed(candles.subList(0, 500));
+        assertEquals(expected[499], rsi.getValue(), TOLERANCE);
+
+        rsi.update(candles.get(500));
+        assertEquals(expected[500], rsi.getValue(), TOLERANCE);
+    }
+
+    private <T extends StreamingIndicator> void assertMatches(double[] batch, T indicator,
+            ToDoubleFunction<T> output) {
+        for (int i = 0; i < candles.size(); i++) {
+            indicator.update(candles.get(i));
+            double actual = output.applyAsDouble(indicator);
+            if (Double.isNaN(batch[i])) {
+                assertTrue(Double.isNaN(actual), "expected NaN at bar " + i + " but got " + actual);
+                assertFalse(indicator.isReady(), "ready too early at bar " + i);
+            } else {
+                assertTrue(indicator.isReady(), "not ready at bar " + i);
+                assertEquals(batch[i], actual, TOLERANCE * Math.max(1.0, Math.abs(batch[i])), "bar " + i);
+            }
+        }
+    }
+}
@@ -4,9 +4,16 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.analysis.system.model.CandleFixtures;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.CandlestickProStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.EmaCrossoverProStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.MacdTrendProStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.RsiMeanReversionProStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -64,5 +71,66 @@ class BacktestEngineTest {
         // Buy @ 150 (index 50 close), Sell @ 160 (index 60 close)
         // Profit approx 10 per share.
         assertTrue(result.getTotalReturnPercent() > 0);
+
+        // Held for bars 50..59 of the 50 traded bars
+        assertEquals(20.0, result.getExposurePercent(), 1e-9);
+        assertNull(result.getEquityCurve());
+    }
+
+    @Test
+    void testSeriesEvaluation_MatchesPerBarEvaluation() {
+        TALibService taLib = new TALibService();
+        List<Candle> history = CandleFixtures.randomWalkCandles(400);
+
+        List<TradingStrategy> batchStrategies = List.of(
+                new EmaCrossoverProStrategy(taLib),
+                new MacdTrendProStrategy(taLib),
+                new RsiMeanReversionProStrategy(taLib),
+                new CandlestickProStrategy(taLib));
+
+        for (TradingStrategy batch : batchStrategies) {
+            assertTrue(batch.supportsSeriesEvaluation());
+
+            TradeSignal[] signals = batch.evaluateSeries(history);
+            assertEquals(history.size(), signals.length);
+            for (int i = 0; i < history.size(); i++) {
+                TradeSignal expected = batch.evaluate(history.subList(0, i + 1));
+                assertEquals(expected, signals[i], batch.getName() + " differs at bar " + i);
+            }
+
+            BacktestResult fast = backtestEngine.runBacktest(batch, history, 10000);
+            BacktestResult slow = backtestEngine.runBacktest(perBarOnly(batch), history, 10000);
+            assertEquals(slow.getTotalTrades(), fast.getTotalTrades());
+            assertEquals(slow.getFinalCapital(), fast.getFinalCapital());
+            assertEquals(slow.getSharpeRatio(), fast.getSharpeRatio());
+
+            // Columnar path must produce the same signals and result
+            CandleSeries series = toSeries(history);
+            assertArrayEquals(signals, batch.evaluateSeries(series));
+            BacktestResult columnar = backtestEngine.runBacktest(batch, series, 10000, 0);
+            assertEquals(fast.getFinalCapital(), columnar.getFinalCapital());
+            assertEquals(fast.getTotalTrades(), columnar.getTotalTrades());
+        }
+    }
+
+    private static TradingStrategy perBarOnly(TradingStrategy delegate) {
+        return new TradingStrategy() {
+            @Override
+            public String getName() {
+                return delegate.getName();
+            }
+
+            @Override
+            public TradeSignal evaluate(List<Candle> candles) {
+                return delegate.evaluate(candles);
+            }
+        };
+    }
+
+    private static CandleSeries toSeries(List<Candle> candles) {
+        CandleSeries.Builder builder = CandleSeries.builder("TEST", candles.size());
+        candles.forEach(c -> builder.add(c.getTimestamp(), c.getOpen(), c.getHigh(), c.getLow(), c.getClose(),
+                c.getVolume()));
+        return builder.build();
     }
 }
@@ -0,0 +1,89 @@
+package com.mahe.soft.stock.analysis.system.backtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.analysis.system.model.Trade;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MetricsAccumulatorTest {
+
+    @Test
+    void testStreamingMetrics_MatchTwoPassComputation() {
+        Random random = new Random(11);
+        double[] curve = new double[1001];
+        curve[0] = 10000;
+        for (int i = 1; i < curve.length; i++) {
+            curve[i] = curve[i - 1] * (1 + random.nextGaussian() * 0.01);
+        }
+
+        MetricsAccumulator metrics = new MetricsAccumulator(curve[0], true, 10);
+        for (int i = 1; i < curve.length; i++) {
+            metrics.onBar(curve[i], i % 2 == 0);
+        }
+
+        // Reference: two-pass mean/variance over the materialized returns
+        double[] returns = new double[curve.length - 1];
+        for (int i = 1; i < curve.length; i++) {
+            returns[i - 1] = (curve[i] - curve[i - 1]) / curve[i - 1];
+        }
+        double mean = 0;
+        for (double r : returns)
+            mean += r;
+        mean /= returns.length;
+        double variance = 0;
+        double downside = 0;
+        for (double r : returns) {
+            variance += (r - mean) * (r - mean);
+            downside += r < 0 ? r * r : 0;
+        }
+        variance /= returns.length;
+        downside /= returns.length;
+
+        double peak = curve[0];
+        double maxDrawdown = 0;
+        for (double v : curve) {
+            peak = Math.max(peak, v);
+            maxDrawdown = Math.max(maxDrawdown, (peak - v) / peak);
+        }
+
+        assertEquals(mean / Math.sqrt(variance) * Math.sqrt(252), metrics.getSharpeRatio(), 1e-9);
+        assertEquals(mean / Math.sqrt(downside) * Math.sqrt(252), metrics.getSortinoRatio(), 1e-9);
+        assertEquals(maxDrawdown * 100, metrics.getMaxDrawdownPercent(), 1e-9);
+        assertEquals(50.0, metrics.getExposurePercent(), 1e-9);
+        assertEquals(metrics.getAnnualizedReturnPercent() / metrics.getMaxDrawdownPercent(),
+                metrics.getCalmarRatio(), 1e-12);
+        assertArrayEquals(curve, metrics.equityCurve());
+    }
+
+    @Test
+    void testTradeStats() {
+        MetricsAccumulator metrics = new MetricsAccumulator(1000, false, 0);
+        metrics.onTradeClosed(Trade.builder().pnl(100).build());
+        metrics.onTradeClosed(Trade.builder().pnl(300).build());
+        metrics.onTradeClosed(Trade.builder().pnl(-200).build());
+
+        assertEquals(3, metrics.getTotalTrades());
+        assertEquals(2.0 / 3, metrics.getWinRate(), 1e-12);
+        assertEquals(2.0, metrics.getProfitFactor(), 1e-12);
+        assertEquals(200, metrics.getAverageWin(), 1e-12);
+        assertEquals(-200, metrics.getAverageLoss(), 1e-12);
+        assertEquals(300, metrics.getLargestWin(), 1e-12);
+        assertEquals(-200, metrics.getLargestLoss(), 1e-12);
+        assertNull(metrics.equityCurve());
+    }
+
+    @Test
+    void testDownsampledCurve_KeepsEndpoints() {
+        MetricsAccumulator metrics = new MetricsAccumulator(100, true, 0);
+        for (int i = 1; i <= 99; i++) {
+            metrics.onBar(100 + i, true);
+        }
+
+        double[] sampled = metrics.equityCurve(10);
+        assertEquals(10, sampled.length);
+        assertEquals(100, sampled[0]);
+        assertEquals(199, sampled[9]);
+        assertEquals(100, metrics.equityCurve(1000).length);
+    }
+}
@@ -0,0 +1,107 @@
+package com.mahe.soft.stock.analysis.system.backtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.analysis.system.model.Trade;
+import com.mahe.soft.stock.analysis.system.model.TradeSignal;
+import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PortfolioBacktestEngineTest {
+
+    private final BacktestEngine backtestEngine = new BacktestEngine();
+    private final PortfolioBacktestEngine portfolioEngine = new PortfolioBacktestEngine(backtestEngine);
+
+    @Test
+    void testSingleSymbol_MatchesBacktestEngine() {
+        List<Candle> history = candles(LocalDate.of(2024, 1, 1), 100, 100, 1);
+        TradingStrategy strategy = scripted(Map.of(60, TradeSignal.buy(1.0), 80, TradeSignal.sell(1.0)));
+
+        BacktestResult single = backtestEngine.runBacktest(strategy, history, 10000);
+        BacktestResult portfolio = portfolioEngine.runBacktest(Map.of("AAPL", series("AAPL", history)),
+                Map.of("AAPL", strategy), 10000, 100);
+
+        assertEquals(single.getTotalTrades(), portfolio.getTotalTrades());
+        assertEquals(single.getFinalCapital(), portfolio.getFinalCapital(), 1e-9);
+        assertEquals("AAPL", portfolio.getTrades().get(0).getSymbol());
+        assertEquals("PORTFOLIO", portfolio.getSymbol());
+    }
+
+    @Test
+    void testSharedCash_AndUnalignedCalendars() {
+        // MSFT starts 10 days later, so its bar 60 lands on AAPL's bar 70 (2024-03-11)
+        List<Candle> aapl = candles(LocalDate.of(2024, 1, 1), 100, 10, 0);
+        List<Candle> msft = candles(LocalDate.of(2024, 1, 11), 100, 20, 0);
+
+        Map<String, CandleSeries> universe = new LinkedHashMap<>();
+        universe.put("AAPL", series("AAPL", aapl));
+        universe.put("MSFT", series("MSFT", msft));
+        Map<String, TradingStrategy> strategies = Map.of(
+                "AAPL", scripted(Map.of(60, TradeSignal.buy(0.5), 90, TradeSignal.sell(0.5))),
+                "MSFT", scripted(Map.of(60, TradeSignal.buy(0.9), 70, TradeSignal.sell(0.9))));
+
+        BacktestResult result = portfolioEngine.runBacktest(universe, strategies, 10000, 60);
+
+        assertEquals(2, result.getTotalTrades());
+        Trade msftTrade = result.getTrades().get(0);
+        Trade aaplTrade = result.getTrades().get(1);
+        assertEquals("MSFT", msftTrade.getSymbol());
+        assertEquals(LocalDate.of(2024, 3, 11), msftTrade.getEntryDate());
+        // AAPL took 60% of equity first; MSFT only gets the remaining 40% of cash
+        assertEquals(600, aaplTrade.getQuantity());
+        assertEquals(200, msftTrade.getQuantity());
+        assertEquals(10000, result.getFinalCapital(), 1e-9);
+    }
+
+    @Test
+    void testRejectsMissingStrategy() {
+        Map<String, CandleSeries> universe = Map.of("AAPL",
+                series("AAPL", candles(LocalDate.of(2024, 1, 1), 10, 10, 0)));
+        assertThrows(IllegalArgumentException.class,
+                () -> portfolioEngine.runBacktest(universe, Map.of(), 10000, 10));
+    }
+
+    private static TradingStrategy scripted(Map<Integer, TradeSignal> script) {
+        return new TradingStrategy() {
+            @Override
+            public String getName() {
+                return "Scripted";
+            }
+
+            @Override
+            public TradeSignal evaluate(List<Candle> candles) {
+                return script.getOrDefault(candles.size() - 1, TradeSignal.hold());
+            }
+        };
+    }
+
+    private static CandleSeries series(String symbol, List<Candle> candles) {
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, candles.size());
+        candles.forEach(c -> builder.add(c.getTimestamp(), c.getOpen(), c.getHigh(), c.getLow(), c.getClose(),
+                c.getVolume()));
+        return builder.build();
+    }
+
+    private static List<Candle> candles(LocalDate start, int size, double price, double step) {
+        List<Candle> history = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            double close = price + i * step;
+            history.add(Candle.builder()
+                    .timestamp(start.plusDays(i))
+                    .open(close)
+                    .high(close)
+                    .low(close)
+                    .close(close)
+                    .volume(1000)
+                    .build());
+        }
+        return history;
+    }
+}
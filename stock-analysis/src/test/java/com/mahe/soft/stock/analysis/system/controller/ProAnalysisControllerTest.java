@@ -2,23 +2,44 @@ package com.mahe.soft.stock.analysis.system.controller;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.mahe.soft.stock.analysis.client.StockDbClient;
+import com.mahe.soft.stock.analysis.service.TALibService;
 import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
 import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
-import com.mahe.soft.stock.analysis.system.mapper.CandleMapper;
+import com.mahe.soft.stock.analysis.system.backtest.PortfolioBacktestEngine;
+import com.mahe.soft.stock.analysis.system.dsl.DslBudget;
+import com.mahe.soft.stock.analysis.system.dsl.DslCompiler;
+import com.mahe.soft.stock.analysis.system.dsl.DslParser;
+import com.mahe.soft.stock.analysis.system.dsl.DslStrategy;
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry;
+import com.mahe.soft.stock.analysis.system.optimizer.OptimizationMetric;
+import com.mahe.soft.stock.analysis.system.optimizer.OptimizationResult;
+import com.mahe.soft.stock.analysis.system.optimizer.StrategyOptimizer;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
-import java.util.Collections;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.LocalDate;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 @WebMvcTest(ProAnalysisController.class)
@@ -34,22 +55,138 @@ class ProAnalysisControllerTest {
     private BacktestEngine backtestEngine;
 
     @MockitoBean
-    private CandleMapper candleMapper;
+    private PortfolioBacktestEngine portfolioBacktestEngine;
+
+
+    @MockitoBean
+    private StrategyOptimizer strategyOptimizer;
 
     @MockitoBean
-    private Map<String, TradingStrategy> strategies;
+    private StrategyRegistry strategies;
 
     @Test
     void testRunBacktest() throws Exception {
         TradingStrategy mockStrategy = mock(TradingStrategy.class);
         when(strategies.get("RSI")).thenReturn(mockStrategy);
-        when(stockDbClient.getStockPrices(anyString(), any(), any())).thenReturn(Collections.emptyList());
-        when(candleMapper.toCandles(any())).thenReturn(Collections.emptyList());
-        when(backtestEngine.runBacktest(any(), any(), anyDouble())).thenReturn(BacktestResult.builder().build());
+        when(stockDbClient.getCandleSeries(anyString(), any(), any()))
+                .thenReturn(CandleSeries.builder("AAPL", 0).build());
+        when(backtestEngine.runBacktest(any(), any(CandleSeries.class), anyDouble(), anyInt()))
+                .thenReturn(BacktestResult.builder().build());
 
         mockMvc.perform(post("/api/v2/analysis/backtest")
                         .param("symbol", "AAPL")
                         .param("strategyName", "RSI"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void testRunBacktest_RegisteredDslStrategyIsBudgeted() throws Exception {
+        stubBudgetedDslStrategy();
+
+        mockMvc.perform(post("/api/v2/analysis/backtest")
+                        .param("symbol", "AAPL")
+                        .param("strategyName", "swing"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Series has 150 bars, limit is 100"));
+    }
+
+    @Test
+    void testRunBacktestCsv_RegisteredDslStrategyIsBudgeted() throws Exception {
+        stubBudgetedDslStrategy();
+
+        mockMvc.perform(get("/api/v2/analysis/backtest/csv")
+                        .param("symbol", "AAPL")
+                        .param("strategyName", "swing"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Series has 150 bars, limit is 100"));
+    }
+
+    @Test
+    void testRunBacktestCsv_TimeoutIsServiceUnavailable() throws Exception {
+        when(strategies.get("RSI")).thenReturn(mock(TradingStrategy.class));
+        when(stockDbClient.getCandleSeries(anyString(), any(), any()))
+                .thenReturn(CandleSeries.builder("AAPL", 0).build());
+        when(backtestEngine.runBacktest(any(), any(CandleSeries.class), anyDouble(), anyInt()))
+                .thenThrow(new CancellationException("DSL evaluation timed out"));
+
+        mockMvc.perform(get("/api/v2/analysis/backtest/csv")
+                        .param("symbol", "AAPL")
+                        .param("strategyName", "RSI"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string("DSL evaluation timed out"));
+    }
+
+    @Test
+    void testOptimize() throws Exception {
+        when(stockDbClient.getCandleSeries(anyString(), any(), any()))
+                .thenReturn(CandleSeries.builder("AAPL", 0).build());
+        when(strategyOptimizer.optimize(eq("EmaCrossoverPro"), any(), any(), eq(OptimizationMetric.RETURN),
+                anyDouble(), anyInt()))
+                .thenReturn(OptimizationResult.builder().combinationsTested(4).build());
+
+        mockMvc.perform(post("/api/v2/analysis/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"symbol": "AAPL", "strategyName": "EmaCrossoverPro", "metric": "RETURN",
+                                 "parameters": {"fast": [8, 13], "slow": [34, 55]}}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbol").value("AAPL"))
+                .andExpect(jsonPath("$.combinationsTested").value(4));
+    }
+
+    @Test
+    void testOptimize_InvalidGridIsBadRequest() throws Exception {
+        when(stockDbClient.getCandleSeries(anyString(), any(), any()))
+                .thenReturn(CandleSeries.builder("AAPL", 0).build());
+        when(strategyOptimizer.optimize(eq("EmaCrossoverPro"), any(), any(), any(), anyDouble(), anyInt()))
+                .thenThrow(new IllegalArgumentException("Unknown parameter 'period'"));
+
+        mockMvc.perform(post("/api/v2/analysis/optimize")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"symbol": "AAPL", "strategyName": "EmaCrossoverPro",
+                                 "parameters": {"period": [8, 13]}}
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown parameter 'period'"));
+    }
+
+    @Test
+    void testRunPortfolioBacktest() throws Exception {
+        TradingStrategy mockStrategy = mock(TradingStrategy.class);
+        when(strategies.get("RSI")).thenReturn(mockStrategy);
+        when(stockDbClient.getCandleSeriesBatch(any(), any(), any())).thenReturn(Map.of());
+        when(portfolioBacktestEngine.runBacktest(any(), any(), anyDouble(), anyDouble()))
+                .thenReturn(BacktestResult.builder().symbol("PORTFOLIO").build());
+
+        mockMvc.perform(post("/api/v2/analysis/backtest/portfolio")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"symbols": ["AAPL", "MSFT"], "strategyName": "RSI"}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbol").value("PORTFOLIO"));
+        verify(stockDbClient, never()).getCandleSeries(anyString(), any(), any());
+    }
+
+    /**
+     * Registers "swing", a DSL strategy limited to 100 bars, and a 150-bar
+     * series; the mocked engine delegates to a real one so the budget applies.
+     */
+    private void stubBudgetedDslStrategy() {
+        DslBudget budget = new DslBudget();
+        ReflectionTestUtils.setField(budget, "maxBars", 100);
+        DslCompiler compiler = new DslCompiler(new DslParser(), new IndicatorRegistry(new TALibService()));
+        when(strategies.get("swing")).thenReturn(new DslStrategy("swing",
+                compiler.compile("ENTRY:\n  RSI(14) < 40\nEXIT:\n  RSI(14) > 60"), budget));
+        CandleSeries.Builder series = CandleSeries.builder("AAPL", 150);
+        for (int i = 0; i < 150; i++) {
+            series.add(LocalDate.of(2024, 1, 1).plusDays(i), 100, 101, 99, 100 + i % 7, 1000);
+        }
+        when(stockDbClient.getCandleSeries(anyString(), any(), any())).thenReturn(series.build());
+        when(backtestEngine.runBacktest(any(), any(CandleSeries.class), anyDouble(), anyInt()))
+                .thenAnswer(inv -> new BacktestEngine().runBacktest(inv.<TradingStrategy>getArgument(0),
+                        inv.<CandleSeries>getArgument(1), inv.getArgument(2), inv.<Integer>getArgument(3)));
+    }
 }
@@ -0,0 +1,191 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
+import com.mahe.soft.stock.analysis.system.model.Candle;
+import com.mahe.soft.stock.analysis.system.model.CandleFixtures;
+import com.mahe.soft.stock.analysis.system.model.TradeSignal;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.Test;
+
+class DslCompilerTest {
+
+    private static final String SCRIPT = "STRATEGY Combo\n" +
+            "ENTRY:\n" +
+            "  RSI(14) < 40\n" +
+            "  AND EMA(10) > EMA(30)\n" +
+            "  OR SMA(5) < 95\n" +
+            "EXIT:\n" +
+            "  RSI(14) > 60";
+
+    private final DslCompiler compiler = new DslCompiler(new DslParser(),
+            new IndicatorRegistry(new TALibService()));
+
+    @Test
+    void testCompile_SharesIndicatorSlots() {
+        DslProgram program = compiler.compile(SCRIPT);
+
+        assertEquals("Combo", program.getName());
+        // RSI(14) appears in entry and exit but is computed once
+        assertEquals(List.of("RSI(14)", "EMA(10)", "EMA(30)", "SMA(5)"),
+                program.getIndicators().stream().map(Object::toString).toList());
+    }
+
+    @Test
+    void testCompile_CachesByScript() {
+        DslProgram first = compiler.compile(SCRIPT);
+        DslProgram second = compiler.compile(SCRIPT);
+
+        assertSame(first, second);
+        assertEquals(1, compiler.getMisses());
+        assertEquals(1, compiler.getHits());
+        assertNotSame(first, compiler.compile(SCRIPT + "\n"));
+    }
+
+    @Test
+    void testCompile_RejectsUnknownIndicator() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile("STRATEGY X\nENTRY:\n  FOO(3) > 1"));
+        assertEquals("Unknown indicator: FOO", ex.getMessage());
+    }
+
+    @Test
+    void testCompile_RejectsBadArgumentsAndTypes() {
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("STRATEGY X\nENTRY:\n  RSI(14, 2) > 1"));
+        assertThrows(IllegalArgumentException.class, () -> compiler.compile("STRATEGY X\nENTRY:\n  RSI(14)"));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile("STRATEGY X\nENTRY:\n  (CLOSE > 1) + 2 > 3"));
+        assertThrows(IllegalArgumentException.class,
+                () -> compiler.compile("STRATEGY X\nENTRY:\n  MACD(12,26,9).upper > 0"));
+    }
+
+    @Test
+    void testEvaluate_ArithmeticOffsetsSelectorsAndCrosses() {
+        CandleSeries series = CandleFixtures.wave("WAVE", 300, 0);
+        double[] close = series.getClose();
+        double[][] macd = new TALibService().macd(close, 12, 26, 9);
+
+        DslProgram.Masks rising = compiler.compile("STRATEGY R\nENTRY:\n  CLOSE > CLOSE[1] + 0.5 * 2 - 1\n"
+                + "EXIT:\n  NOT (HIGH - LOW == 2)").evaluate(series);
+        DslProgram.Masks crosses = compiler.compile("STRATEGY C\nENTRY:\n  MACD(12,26,9) CROSSES_ABOVE "
+                + "MACD(12,26,9).signal\nEXIT:\n  MACD(12,26,9).macd CROSSES_BELOW MACD(12,26,9).signal")
+                .evaluate(series);
+
+        int entries = 0;
+        for (int i = 0; i < series.size(); i++) {
+            assertEquals(i > 0 && close[i] > close[i - 1], rising.entryAt(i), "bar " + i);
+            assertFalse(rising.exitAt(i));
+            boolean above = i > 0 && macd[0][i] > macd[1][i] && macd[0][i - 1] <= macd[1][i - 1];
+            boolean below = i > 0 && macd[0][i] < macd[1][i] && macd[0][i - 1] >= macd[1][i - 1];
+            assertEquals(above, crosses.entryAt(i), "bar " + i);
+            assertEquals(below, crosses.exitAt(i), "bar " + i);
+            entries += above ? 1 : 0;
+        }
+        assertTrue(entries > 0);
+    }
+
+    @Test
+    void testEvaluate_NotStaysFalseDuringWarmUp() {
+        // Slow cycle: the averages cross both ways
+        CandleSeries.Builder builder = CandleSeries.builder("CYCLE", 600);
+        for (int i = 0; i < 600; i++) {
+            double price = 100 + 10 * Math.sin(i / 30.0);
+            builder.add((int) LocalDate.of(2000, 1, 1).plusDays(i).toEpochDay(), price, price + 1, price - 1, price,
+                    1000);
+        }
+        CandleSeries series = builder.build();
+        double[] close = series.getClose();
+        TALibService taLib = new TALibService();
+        double[] fast = taLib.ema(close, 50);
+        double[] slow = taLib.ema(close, 200);
+
+        DslProgram program = compiler.compile("STRATEGY N\nENTRY:\n  NOT EMA(50) > EMA(200)\n"
+                + "EXIT:\n  NOT (CLOSE < 0 OR EMA(200) CROSSES_ABOVE EMA(50))");
+        DslProgram.Masks masks = program.evaluate(series);
+
+        assertTrue(program.getLookback() > 50);
+        int entries = 0;
+        for (int i = 0; i < series.size(); i++) {
+            boolean defined = !Double.isNaN(fast[i]) && !Double.isNaN(slow[i]);
+            assertEquals(defined && !(fast[i] > slow[i]), masks.entryAt(i), "bar " + i);
+            if (i < program.getLookback()) {
+                assertFalse(masks.exitAt(i), "bar " + i);
+            }
+            entries += masks.entryAt(i) ? 1 : 0;
+        }
+        assertTrue(entries > 0);
+        assertTrue(masks.exitAt(program.getLookback()));
+    }
+
+    @Test
+    void testCostEstimate_FromCompiledTree() {
+        DslProgram program = compiler.compile("STRATEGY L\nENTRY:\n  EMA(20)[3] CROSSES_ABOVE MACD(12,26,9).signal\n"
+                + "EXIT:\n  RSI(14) > 70");
+
+        // MACD(12,26,9): 25 + 8 bars of TA-Lib lookback, +1 for the crossover's previous bar
+        assertEquals(34, program.getLookback());
+        // 5 price columns, EMA + 3 MACD + RSI outputs, 1 offset column; 2 condition masks
+        assertEquals(11L * 1000 * Double.BYTES + 2L * 16 * Long.BYTES, program.estimateBytes(1000));
+    }
+
+    @Test
+    void testEvaluate_StopsWhenCancelled() {
+        DslProgram program = compiler.compile(SCRIPT);
+        DslExecution execution = DslExecution.unbounded();
+        execution.cancel();
+
+        assertThrows(CancellationException.class, () -> program.evaluate(CandleFixtures.wave("WAVE", 100, 0), execution));
+        assertThrows(CancellationException.class,
+                () -> program.evaluate(CandleFixtures.wave("WAVE", 100, 0), DslExecution.withTimeout(Duration.ZERO)));
+        assertEquals(100, program.evaluate(CandleFixtures.wave("WAVE", 100, 0), DslExecution.withTimeout(Duration.ofMinutes(1))).bars());
+    }
+
+    @Test
+    void testSeriesEvaluation_MatchesPerBarEvaluation() {
+        List<Candle> candles = Candle.fromSeries(CandleFixtures.wave("WAVE", 160, 0));
+        DslStrategy strategy = new DslStrategy(compiler.compile(SCRIPT));
+
+        TradeSignal[] series = strategy.evaluateSeries(candles);
+
+        int buys = 0;
+        for (int i = 0; i < candles.size(); i++) {
+            TradeSignal perBar = strategy.evaluate(candles.subList(0, i + 1));
+            assertEquals(perBar.getType(), series[i].getType(), "bar " + i);
+            buys += series[i].getType() == TradeSignal.Type.BUY ? 1 : 0;
+        }
+        assertTrue(buys > 0);
+    }
+
+    @Test
+    void testMasks_SpanWordBoundariesAndDriveTheEngine() {
+        CandleSeries series = CandleFixtures.wave("WAVE", 1000, 0);
+        DslStrategy strategy = new DslStrategy(compiler.compile(SCRIPT));
+
+        DslProgram.Masks masks = strategy.evaluateMasks(series);
+        TradeSignal[] signals = strategy.evaluateSeries(series);
+
+        assertEquals(16, masks.entry().length);
+        for (int i = 0; i < series.size(); i++) {
+            TradeSignal.Type expected = masks.entryAt(i) ? TradeSignal.Type.BUY
+                    : masks.exitAt(i) ? TradeSignal.Type.SELL : TradeSignal.Type.HOLD;
+            assertEquals(expected, signals[i].getType(), "bar " + i);
+        }
+        // Bits past the last bar stay clear
+        assertEquals(0, masks.entry()[15] >>> (1000 - 15 * 64));
+
+        BacktestEngine engine = new BacktestEngine();
+        BacktestResult bySignals = engine.runBacktest(strategy, series, 10000, 0);
+        BacktestResult byMasks = engine.runBacktest(strategy.getName(), series, masks.entry(), masks.exit(),
+                10000, 0);
+        assertTrue(byMasks.getTotalTrades() > 0);
+        assertEquals(bySignals.getTotalTrades(), byMasks.getTotalTrades());
+        assertEquals(bySignals.getFinalCapital(), byMasks.getFinalCapital(), 1e-9);
+    }
+}
@@ -2,9 +2,13 @@ package com.mahe.soft.stock.analysis.system.dsl;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.mahe.soft.stock.analysis.system.dsl.model.BinaryExpression;
 import com.mahe.soft.stock.analysis.system.dsl.model.DslStrategyDefinition;
 import com.mahe.soft.stock.analysis.system.dsl.model.IndicatorExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.OffsetExpression;
+import com.mahe.soft.stock.analysis.system.dsl.model.UnaryExpression;
 import com.mahe.soft.stock.analysis.system.dsl.model.ValueExpression;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 class DslParserTest {
@@ -46,4 +50,52 @@ class DslParserTest {
 
         assertEquals("AND", def.getEntryConditions().get(1).getLogicalOperator());
     }
+
+    @Test
+    void testParseExpression_Precedence() {
+        // a OR b AND c > 1 + 2 * 3  ==  a OR (b AND (c > (1 + (2 * 3))))
+        var or = (BinaryExpression) parser.parseExpression("A OR B AND C > 1 + 2 * 3");
+        assertEquals("OR", or.getOperator());
+        var and = (BinaryExpression) or.getRight();
+        assertEquals("AND", and.getOperator());
+        var gt = (BinaryExpression) and.getRight();
+        assertEquals(">", gt.getOperator());
+        var plus = (BinaryExpression) gt.getRight();
+        assertEquals("+", plus.getOperator());
+        assertEquals("*", ((BinaryExpression) plus.getRight()).getOperator());
+
+        var grouped = (BinaryExpression) parser.parseExpression("(1 + 2) * 3");
+        assertEquals("*", grouped.getOperator());
+        assertEquals("+", ((BinaryExpression) grouped.getLeft()).getOperator());
+    }
+
+    @Test
+    void testParseExpression_SelectorsOffsetsAndCrosses() {
+        var cross = (BinaryExpression) parser.parseExpression("ema(20)[1] crosses_above MACD(12,26,9).Signal");
+        assertEquals("CROSSES_ABOVE", cross.getOperator());
+
+        var offset = (OffsetExpression) cross.getLeft();
+        assertEquals(1, offset.getBars());
+        assertEquals(new IndicatorExpression("EMA", List.of(20.0)), offset.getOperand());
+
+        var macd = (IndicatorExpression) cross.getRight();
+        assertEquals("MACD", macd.getName());
+        assertEquals(List.of(12.0, 26.0, 9.0), macd.getParams());
+        assertEquals("signal", macd.getOutput());
+
+        var not = (UnaryExpression) parser.parseExpression("NOT CLOSE > -2");
+        assertEquals("NOT", not.getOperator());
+        assertEquals(-2.0, ((ValueExpression) ((BinaryExpression) not.getOperand()).getRight()).getValue());
+    }
+
+    @Test
+    void testParseExpression_ReportsColumn() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> parser.parseExpression("RSI(14) < (30"));
+        assertTrue(ex.getMessage().contains("column 14"), ex.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parseExpression("CLOSE[1.5] > 1"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseExpression("(CLOSE > 1).value"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parseExpression("CLOSE > 1 1"));
+    }
 }
@@ -0,0 +1,136 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mahe.soft.stock.analysis.client.StockDbClient;
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
+import com.mahe.soft.stock.analysis.system.model.CandleFixtures;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
+import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class DslStrategyServiceTest {
+
+    private static final String SCRIPT = "STRATEGY Swing\n" +
+            "ENTRY:\n" +
+            "  RSI(14) < 40\n" +
+            "EXIT:\n" +
+            "  RSI(14) > 60";
+
+    @Mock
+    private StockDbClient stockDbClient;
+
+    private StrategyRegistry registry;
+    private DslBudget budget;
+    private DslStrategyService service;
+
+    @BeforeEach
+    void setUp() {
+        registry = new StrategyRegistry(Map.of("RsiStrategy", mock(TradingStrategy.class)));
+        DslCompiler compiler = new DslCompiler(new DslParser(), new IndicatorRegistry(new TALibService()));
+        budget = new DslBudget();
+        service = new DslStrategyService(compiler, registry, stockDbClient, new BacktestEngine(), budget);
+    }
+
+    @Test
+    void testRegister_PublishesStrategyByName() {
+        RegisteredDslStrategy info = service.register(null, SCRIPT);
+
+        assertEquals("Swing", info.getId());
+        assertEquals(List.of("RSI(14)"), info.getIndicators());
+        TradingStrategy strategy = registry.get("Swing");
+        assertInstanceOf(DslStrategy.class, strategy);
+        assertEquals("Swing", strategy.getName());
+
+        service.register("swing-v2", SCRIPT);
+        assertEquals("swing-v2", registry.get("swing-v2").getName());
+        assertEquals(2, service.list().size());
+
+        assertTrue(service.unregister("Swing"));
+        assertNull(registry.get("Swing"));
+        assertFalse(service.unregister("Swing"));
+    }
+
+    @Test
+    void testRegister_RejectsInvalidScriptsAndBeanNames() {
+        assertThrows(IllegalArgumentException.class, () -> service.register(null, "STRATEGY X\nENTRY:\n  FOO(1) > 2"));
+        assertThrows(IllegalArgumentException.class, () -> service.register(null, "ENTRY:\n  RSI(14) > 2"));
+        assertThrows(IllegalArgumentException.class, () -> service.register("RsiStrategy", SCRIPT));
+        assertTrue(service.list().isEmpty());
+        assertNotNull(registry.get("RsiStrategy"));
+    }
+
+    @Test
+    void testBacktest_RunsEverySymbolWithData() {
+        service.register(null, SCRIPT);
+        Map<String, CandleSeries> universe = new LinkedHashMap<>();
+        universe.put("AAA", CandleFixtures.wave("AAA", 400, 0));
+        universe.put("NONE", CandleSeries.builder("NONE", 0).build());
+        universe.put("BBB", CandleFixtures.wave("BBB", 400, 2));
+        when(stockDbClient.getCandleSeriesBatch(eq(List.of("AAA", "NONE", "BBB")), any(), any()))
+                .thenReturn(universe);
+
+        DslBatchBacktestRequest request = new DslBatchBacktestRequest();
+        request.setSymbols(List.of("AAA", "NONE", "BBB"));
+        List<BacktestResult> results = service.backtest("Swing", request);
+
+        assertEquals(List.of("AAA", "BBB"), results.stream().map(BacktestResult::getSymbol).toList());
+        BacktestResult single = new BacktestEngine().runBacktest(registry.get("Swing"), universe.get("BBB"),
+                10000, 0);
+        assertEquals(single.getTotalTrades(), results.get(1).getTotalTrades());
+        assertEquals(single.getFinalCapital(), results.get(1).getFinalCapital(), 1e-9);
+
+        assertNull(service.backtest("Unknown", request));
+    }
+
+    @Test
+    void testBudget_RejectsOversizedRunsBeforeExecution() {
+        IllegalArgumentException lookback = assertThrows(IllegalArgumentException.class,
+                () -> service.register("slow", "STRATEGY Slow\nENTRY:\n  SMA(5000) > CLOSE"));
+        assertTrue(lookback.getMessage().contains("lookback"), lookback.getMessage());
+        assertNull(registry.get("slow"));
+
+        service.register(null, SCRIPT);
+        DslBatchBacktestRequest request = new DslBatchBacktestRequest();
+        request.setSymbols(List.of("AAA"));
+        when(stockDbClient.getCandleSeriesBatch(any(), any(), any())).thenReturn(Map.of("AAA", CandleFixtures.wave("AAA", 400, 0)));
+
+        ReflectionTestUtils.setField(budget, "maxBars", 300);
+        assertThrows(IllegalArgumentException.class, () -> service.backtest("Swing", request));
+
+        ReflectionTestUtils.setField(budget, "maxBars", 1000);
+        ReflectionTestUtils.setField(budget, "maxMemoryMb", 0L);
+        IllegalArgumentException memory = assertThrows(IllegalArgumentException.class,
+                () -> service.backtest("Swing", request));
+        assertTrue(memory.getMessage().contains("memory"), memory.getMessage());
+    }
+
+    @Test
+    void testBudget_TimesOutCooperatively() {
+        service.register(null, SCRIPT);
+        DslBatchBacktestRequest request = new DslBatchBacktestRequest();
+        request.setSymbols(List.of("AAA"));
+        when(stockDbClient.getCandleSeriesBatch(any(), any(), any())).thenReturn(Map.of("AAA", CandleFixtures.wave("AAA", 400, 0)));
+        ReflectionTestUtils.setField(budget, "timeout", Duration.ZERO);
+
+        assertThrows(CancellationException.class, () -> service.backtest("Swing", request));
+    }
+}
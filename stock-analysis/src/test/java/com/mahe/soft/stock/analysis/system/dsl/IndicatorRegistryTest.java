@@ -0,0 +1,86 @@
+package com.mahe.soft.stock.analysis.system.dsl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry.IndicatorFunction;
+import com.mahe.soft.stock.analysis.system.dsl.IndicatorRegistry.PriceInput;
+import com.mahe.soft.stock.analysis.system.model.CandleFixtures;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IndicatorRegistryTest {
+
+    private final TALibService taLib = new TALibService();
+    private final IndicatorRegistry registry = new IndicatorRegistry(taLib);
+
+    @Test
+    void testRegistry_ExposesTaLibFunctions() {
+        assertTrue(registry.getFunctions().size() > 80, "functions: " + registry.getFunctions().size());
+        assertNotNull(registry.find("ht_trendline"));
+        assertNotNull(registry.find("HTTRENDLINE"));
+        assertNull(registry.find("BETA")); // needs a second arbitrary series
+
+        IndicatorFunction macd = registry.find("MACD");
+        assertEquals(List.of(PriceInput.CLOSE), macd.inputs());
+        assertEquals(List.of("macd", "signal", "hist"), macd.outputs());
+        assertEquals(2, macd.outputIndex("Hist"));
+        assertThrows(IllegalArgumentException.class, () -> macd.outputIndex("upper"));
+
+        IndicatorFunction atr = registry.find("ATR");
+        assertEquals(List.of(PriceInput.HIGH, PriceInput.LOW, PriceInput.CLOSE), atr.inputs());
+        assertEquals(List.of("value"), atr.outputs());
+    }
+
+    @Test
+    void testCompute_MatchesDirectCall() {
+        double[] close = new double[120];
+        for (int i = 0; i < close.length; i++) {
+            close[i] = 100 + 5 * Math.sin(i / 4.0);
+        }
+        double[][] prices = new double[PriceInput.values().length][];
+        prices[PriceInput.CLOSE.ordinal()] = close;
+
+        IndicatorFunction rsi = registry.find("RSI");
+        assertArrayEquals(taLib.rsi(close, 14), rsi.compute(prices, rsi.bindArguments(List.of(14.0)))[0]);
+
+        IndicatorFunction bbands = registry.find("BBANDS");
+        double[][] bands = bbands.compute(prices, bbands.bindArguments(List.of(20.0, 2.0, 2.0, 0.0)));
+        assertEquals(3, bands.length);
+        assertTrue(bands[0][119] > bands[1][119] && bands[1][119] > bands[2][119]);
+    }
+
+    @Test
+    void testCompute_EveryRegisteredFunctionRuns() {
+        CandleSeries series = CandleFixtures.randomWalk(200);
+        double[][] prices = new double[PriceInput.values().length][];
+        prices[PriceInput.OPEN.ordinal()] = series.getOpen();
+        prices[PriceInput.HIGH.ordinal()] = series.getHigh();
+        prices[PriceInput.LOW.ordinal()] = series.getLow();
+        prices[PriceInput.CLOSE.ordinal()] = series.getClose();
+        prices[PriceInput.VOLUME.ordinal()] = series.getVolume();
+
+        for (IndicatorFunction function : registry.getFunctions()) {
+            List<Double> arguments = new ArrayList<>();
+            for (Class<?> type : function.parameterTypes()) {
+                arguments.add(type == double.class ? 0.5 : type == int.class ? 5.0 : 0.0);
+            }
+            double[][] outputs = function.compute(prices, function.bindArguments(arguments));
+            assertTrue(outputs.length >= function.outputs().size(), function.name());
+            for (double[] output : outputs) {
+                assertEquals(series.size(), output.length, function.name());
+            }
+        }
+    }
+
+    @Test
+    void testBindArguments_Validates() {
+        IndicatorFunction rsi = registry.find("RSI");
+        assertThrows(IllegalArgumentException.class, () -> rsi.bindArguments(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> rsi.bindArguments(List.of(14.5)));
+        IndicatorFunction bbands = registry.find("BBANDS");
+        assertThrows(IllegalArgumentException.class, () -> bbands.bindArguments(List.of(20.0, 2.0, 2.0, 99.0)));
+    }
+}
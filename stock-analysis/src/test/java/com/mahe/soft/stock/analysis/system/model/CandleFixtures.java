@@ -0,0 +1,54 @@
+package com.mahe.soft.stock.analysis.system.model;
+
+import com.mahe.soft.stock.common.CandleSeries;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic price histories shared by the indicator, backtest and
+ * optimizer tests.
+ */
+public final class CandleFixtures {
+
+    private CandleFixtures() {
+    }
+
+    /**
+     * @return a seeded daily random walk from 100, starting 2020-01-01
+     */
+    public static CandleSeries randomWalk(int size) {
+        Random random = new Random(42);
+        CandleSeries.Builder history = CandleSeries.builder("TEST", size);
+        double price = 100;
+        for (int i = 0; i < size; i++) {
+            double open = price;
+            price = Math.max(1, price + random.nextGaussian() * 2);
+            history.add(LocalDate.of(2020, 1, 1).plusDays(i), open,
+                    Math.max(open, price) + random.nextDouble(),
+                    Math.min(open, price) - random.nextDouble(),
+                    price, 1000 + random.nextInt(5000));
+        }
+        return history.build();
+    }
+
+    /**
+     * @return a trending daily sine wave (period about 38 bars) from
+     *         2000-01-01, shifted by {@code phase} radians
+     */
+    public static CandleSeries wave(String symbol, int bars, double phase) {
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, bars);
+        for (int i = 0; i < bars; i++) {
+            double close = 100 + 10 * Math.sin(i / 6.0 + phase) + i * 0.05;
+            builder.add(LocalDate.of(2000, 1, 1).plusDays(i), close, close + 1, close - 1, close, 1000);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return {@link #randomWalk(int)} as candles
+     */
+    public static List<Candle> randomWalkCandles(int size) {
+        return Candle.fromSeries(randomWalk(size));
+    }
+}
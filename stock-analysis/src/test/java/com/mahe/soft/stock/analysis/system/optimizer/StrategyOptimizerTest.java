@@ -0,0 +1,102 @@
+package com.mahe.soft.stock.analysis.system.optimizer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.analysis.service.TALibService;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestEngine;
+import com.mahe.soft.stock.analysis.system.backtest.BacktestResult;
+import com.mahe.soft.stock.analysis.system.model.CandleFixtures;
+import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.CandlestickProStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.EmaCrossoverProStrategy;
+import com.mahe.soft.stock.analysis.system.strategy.impl.RsiMeanReversionProStrategy;
+import com.mahe.soft.stock.common.CandleSeries;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StrategyOptimizerTest {
+
+    private final TALibService taLibService = new TALibService();
+    private final BacktestEngine backtestEngine = new BacktestEngine();
+    private StrategyOptimizer optimizer;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, TradingStrategy> strategies = Map.of(
+                "EmaCrossoverPro", new EmaCrossoverProStrategy(taLibService),
+                "RsiMeanReversionPro", new RsiMeanReversionProStrategy(taLibService),
+                "CandlestickPro", new CandlestickProStrategy(taLibService));
+        optimizer = new StrategyOptimizer(backtestEngine, taLibService, strategies);
+    }
+
+    @AfterEach
+    void tearDown() {
+        optimizer.shutdown();
+    }
+
+    @Test
+    void testOptimize_RanksAllValidCombinations() {
+        CandleSeries history = CandleFixtures.randomWalk(500);
+        Map<String, List<Integer>> grid = new LinkedHashMap<>();
+        grid.put("fast", List.of(5, 10, 20, 60));
+        grid.put("slow", List.of(30, 50));
+
+        OptimizationResult result = optimizer.optimize("EmaCrossoverPro", history, grid,
+                OptimizationMetric.RETURN, 10000, 100);
+
+        // fast=60 is rejected for both slow values
+        assertEquals(6, result.getCombinationsTested());
+        assertEquals(2, result.getCombinationsSkipped());
+        assertEquals(6, result.getResults().size());
+
+        List<OptimizationRun> runs = result.getResults();
+        for (int i = 1; i < runs.size(); i++) {
+            assertTrue(runs.get(i - 1).getScore() >= runs.get(i).getScore());
+        }
+
+        // Shared cache must not change the outcome vs. a standalone run
+        OptimizationRun best = runs.get(0);
+        EmaCrossoverProStrategy standalone = new EmaCrossoverProStrategy(taLibService)
+                .withParameters(best.getParameters(), null);
+        BacktestResult direct = backtestEngine.runBacktest(standalone, history, 10000, 0);
+        assertEquals(direct.getTotalReturnPercent(), best.getTotalReturnPercent());
+        assertEquals(direct.getTotalTrades(), best.getTotalTrades());
+    }
+
+    @Test
+    void testOptimize_TopNLimitsResults() {
+        OptimizationResult result = optimizer.optimize("RsiMeanReversionPro", CandleFixtures.randomWalk(300),
+                Map.of("period", List.of(7, 14, 21)), OptimizationMetric.SHARPE, 10000, 2);
+
+        assertEquals(3, result.getCombinationsTested());
+        assertEquals(2, result.getResults().size());
+    }
+
+    @Test
+    void testOptimize_RejectsBadInput() {
+        CandleSeries history = CandleFixtures.randomWalk(100);
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize("CandlestickPro", history,
+                Map.of(), OptimizationMetric.SHARPE, 10000, 10));
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize("Unknown", history,
+                Map.of(), OptimizationMetric.SHARPE, 10000, 10));
+        assertThrows(IllegalArgumentException.class, () -> optimizer.optimize("EmaCrossoverPro", history,
+                Map.of("fats", List.of(10)), OptimizationMetric.SHARPE, 10000, 10));
+    }
+
+    @Test
+    void testExpand_CartesianProduct() {
+        Map<String, List<Integer>> grid = new LinkedHashMap<>();
+        grid.put("a", List.of(1, 2));
+        grid.put("b", List.of(3, 4, 5));
+
+        List<Map<String, Integer>> combos = StrategyOptimizer.expand(grid);
+        assertEquals(6, combos.size());
+        assertEquals(Map.of("a", 1, "b", 3), combos.get(0));
+        assertEquals(Map.of("a", 2, "b", 5), combos.get(5));
+        assertEquals(1, StrategyOptimizer.expand(Map.of()).size());
+    }
+}
@@ -10,10 +10,12 @@ import com.mahe.soft.stock.analysis.dto.StockPriceDto;
 import com.mahe.soft.stock.analysis.system.mapper.CandleMapper;
 import com.mahe.soft.stock.analysis.system.model.Candle;
 import com.mahe.soft.stock.analysis.system.model.TradeSignal;
+import com.mahe.soft.stock.analysis.system.strategy.StrategyRegistry;
 import com.mahe.soft.stock.analysis.system.strategy.TradingStrategy;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -35,7 +37,7 @@ class PaperTradingEngineTest {
     @BeforeEach
     void setUp() {
         Map<String, TradingStrategy> strategies = Collections.singletonMap("TestStrategy", strategy);
-        engine = new PaperTradingEngine(stockDbClient, candleMapper, strategies);
+        engine = new PaperTradingEngine(stockDbClient, candleMapper, new StrategyRegistry(strategies));
     }
 
     @Test
@@ -49,7 +51,7 @@ class PaperTradingEngineTest {
         priceDto.setClosePrice(new java.math.BigDecimal("100.0"));
 
         List<StockPriceDto> prices = Collections.singletonList(priceDto);
-        when(stockDbClient.getStockPrices("AAPL")).thenReturn(prices);
+        when(stockDbClient.getStockPricesBatch(Set.of("AAPL"), null, null)).thenReturn(Map.of("AAPL", prices));
 
         Candle candle = Candle.builder().close(100.0).build();
         when(candleMapper.toCandles(prices)).thenReturn(Collections.singletonList(candle));
@@ -0,0 +1,13 @@
+// Plain library shared by the services (no Spring Boot fat jar / main class).
+tasks.named("bootJar") {
+    enabled = false
+}
+
+tasks.named<Jar>("jar") {
+    enabled = true
+}
+
+dependencies {
+    testImplementation(libs.spring.boot.starter.test)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
@@ -0,0 +1,194 @@
+package com.mahe.soft.stock.common;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Columnar OHLCV history for one symbol, oldest first.
+ *
+ * Build it once per fetch and hand the primitive columns straight to TA-Lib,
+ * strategies and backtest engines instead of creating one object per bar and
+ * re-extracting {@code double[]} columns on every call. The column arrays are
+ * exposed without copying and must be treated as read-only.
+ */
+public final class CandleSeries {
+
+    private final String symbol;
+    private final int[] epochDays;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+
+    public CandleSeries(String symbol, int[] epochDays, double[] open, double[] high, double[] low, double[] close,
+            double[] volume) {
+        int n = epochDays.length;
+        if (open.length != n || high.length != n || low.length != n || close.length != n || volume.length != n) {
+            throw new IllegalArgumentException("All columns must have the same length (" + n + ")");
+        }
+        this.symbol = symbol;
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    public static Builder builder(String symbol, int expectedSize) {
+        return new Builder(symbol, expectedSize);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public boolean isEmpty() {
+        return epochDays.length == 0;
+    }
+
+    /**
+     * @return trade dates as {@link LocalDate#toEpochDay()} values.
+     */
+    public int[] getEpochDays() {
+        return epochDays;
+    }
+
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    public double[] getOpen() {
+        return open;
+    }
+
+    public double[] getHigh() {
+        return high;
+    }
+
+    public double[] getLow() {
+        return low;
+    }
+
+    public double[] getClose() {
+        return close;
+    }
+
+    public double[] getVolume() {
+        return volume;
+    }
+
+    /**
+     * @return a copy of bars {@code [from, to)}.
+     */
+    public CandleSeries slice(int from, int to) {
+        return new CandleSeries(symbol,
+                Arrays.copyOfRange(epochDays, from, to),
+                Arrays.copyOfRange(open, from, to),
+                Arrays.copyOfRange(high, from, to),
+                Arrays.copyOfRange(low, from, to),
+                Arrays.copyOfRange(close, from, to),
+                Arrays.copyOfRange(volume, from, to));
+    }
+
+    /**
+     * @return a copy of the bars dated {@code from..to} inclusive (binary search
+     *         on the date column), or this series if it lies entirely inside.
+     */
+    public CandleSeries between(LocalDate from, LocalDate to) {
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = lowerBound((int) to.toEpochDay() + 1);
+        if (lo == 0 && hi == epochDays.length) {
+            return this;
+        }
+        return slice(lo, Math.max(lo, hi));
+    }
+
+    private int lowerBound(int epochDay) {
+        int i = Arrays.binarySearch(epochDays, epochDay);
+        if (i < 0) {
+            return -i - 1;
+        }
+        while (i > 0 && epochDays[i - 1] == epochDay) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Appends bars into growable primitive columns; {@link #build()} trims them to
+     * size. Not thread-safe.
+     */
+    public static final class Builder {
+        private final String symbol;
+        private int size;
+        private int[] epochDays;
+        private double[] open;
+        private double[] high;
+        private double[] low;
+        private double[] close;
+        private double[] volume;
+
+        private Builder(String symbol, int expectedSize) {
+            int capacity = Math.max(expectedSize, 16);
+            this.symbol = symbol;
+            this.epochDays = new int[capacity];
+            this.open = new double[capacity];
+            this.high = new double[capacity];
+            this.low = new double[capacity];
+            this.close = new double[capacity];
+            this.volume = new double[capacity];
+        }
+
+        public Builder add(LocalDate date, double o, double h, double l, double c, double v) {
+            return add((int) date.toEpochDay(), o, h, l, c, v);
+        }
+
+        public Builder add(int epochDay, double o, double h, double l, double c, double v) {
+            if (size == epochDays.length) {
+                grow();
+            }
+            epochDays[size] = epochDay;
+            open[size] = o;
+            high[size] = h;
+            low[size] = l;
+            close[size] = c;
+            volume[size] = v;
+            size++;
+            return this;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public CandleSeries build() {
+            return new CandleSeries(symbol,
+                    Arrays.copyOf(epochDays, size),
+                    Arrays.copyOf(open, size),
+                    Arrays.copyOf(high, size),
+                    Arrays.copyOf(low, size),
+                    Arrays.copyOf(close, size),
+                    Arrays.copyOf(volume, size));
+        }
+
+        private void grow() {
+            int capacity = epochDays.length * 2;
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.mahe.soft.stock.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary wire format for {@link CandleSeries} ({@value #MEDIA_TYPE}).
+ *
+ * <pre>
+ * header  "CNDL" | version u8 | flags u8 | symbol length u16 | symbol UTF-8
+ * body    count i32 | epochDay i32[count] | open, high, low, close, volume f64[count]
+ * </pre>
+ *
+ * All numbers are little-endian. With {@link #FLAG_GZIP} the body is replaced
+ * by its gzip-compressed bytes, prefixed with their length (i32), so frames can
+ * be concatenated (see {@link #readAll(InputStream)}). A bar costs 44 bytes
+ * uncompressed against roughly 150 as JSON, and decoding is a bulk copy into
+ * the column arrays.
+ */
+public final class CandleSeriesCodec {
+
+    public static final String MEDIA_TYPE = "application/x-candles";
+    public static final int FLAG_GZIP = 1;
+
+    private static final byte[] MAGIC = { 'C', 'N', 'D', 'L' };
+    private static final byte VERSION = 1;
+    private static final int BYTES_PER_BAR = Integer.BYTES + 5 * Double.BYTES;
+    // Largest count whose body (count + bars) still fits in one array
+    private static final int MAX_BARS = (Integer.MAX_VALUE - Integer.BYTES) / BYTES_PER_BAR;
+
+    private CandleSeriesCodec() {
+    }
+
+    public static void write(CandleSeries series, OutputStream out, boolean gzip) throws IOException {
+        byte[] symbol = series.getSymbol() == null ? new byte[0] : series.getSymbol().getBytes(StandardCharsets.UTF_8);
+        if (symbol.length > 0xFFFF) {
+            throw new IllegalArgumentException("Symbol too long");
+        }
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4 + symbol.length).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).put(VERSION).put((byte) (gzip ? FLAG_GZIP : 0)).putShort((short) symbol.length).put(symbol);
+        out.write(header.array());
+
+        int n = series.size();
+        if (n > MAX_BARS) {
+            throw new IllegalArgumentException("Series too large: " + n + " bars, limit is " + MAX_BARS);
+        }
+        ByteBuffer body = ByteBuffer.allocate(Integer.BYTES + n * BYTES_PER_BAR).order(ByteOrder.LITTLE_ENDIAN);
+        body.putInt(n);
+        body.asIntBuffer().put(series.getEpochDays());
+        body.position(body.position() + n * Integer.BYTES);
+        for (double[] column : new double[][] { series.getOpen(), series.getHigh(), series.getLow(),
+                series.getClose(), series.getVolume() }) {
+            body.asDoubleBuffer().put(column);
+            body.position(body.position() + n * Double.BYTES);
+        }
+
+        if (gzip) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.capacity() / 2);
+            try (GZIPOutputStream zip = new GZIPOutputStream(compressed, 8192)) {
+                zip.write(body.array());
+            }
+            out.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(compressed.size()).array());
+            compressed.writeTo(out);
+        } else {
+            out.write(body.array());
+        }
+        out.flush();
+    }
+
+    public static byte[] encode(CandleSeries series, boolean gzip) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + series.size() * BYTES_PER_BAR);
+        try {
+            write(series, out, gzip);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by ByteArrayOutputStream
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads one series; the stream is left positioned after it.
+     */
+    public static CandleSeries read(InputStream in) throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(in.readNBytes(MAGIC.length + 4)).order(ByteOrder.LITTLE_ENDIAN);
+        if (header.remaining() < MAGIC.length + 4) {
+            throw new IOException("Truncated candle header");
+        }
+        for (byte b : MAGIC) {
+            if (header.get() != b) {
+                throw new IOException("Not a " + MEDIA_TYPE + " payload");
+            }
+        }
+        byte version = header.get();
+        int flags = header.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported candle format version " + version);
+        }
+        int symbolLength = Short.toUnsignedInt(header.getShort());
+        String symbol = new String(readFully(in, symbolLength), StandardCharsets.UTF_8);
+
+        InputStream bodyIn = in;
+        if ((flags & FLAG_GZIP) != 0) {
+            int compressedLength = readInt(in);
+            if (compressedLength < 0) {
+                throw new IOException("Negative compressed length");
+            }
+            // Bounded so the inflater cannot read into the next frame
+            bodyIn = new GZIPInputStream(new ByteArrayInputStream(readFully(in, compressedLength)), 8192);
+        }
+        int n = readInt(bodyIn);
+        if (n < 0) {
+            throw new IOException("Negative candle count");
+        }
+        if (n > MAX_BARS) {
+            throw new IOException("Candle count " + n + " too large, limit is " + MAX_BARS);
+        }
+        ByteBuffer body = ByteBuffer.wrap(readFully(bodyIn, n * BYTES_PER_BAR)).order(ByteOrder.LITTLE_ENDIAN);
+
+        int[] epochDays = new int[n];
+        body.asIntBuffer().get(epochDays);
+        body.position(n * Integer.BYTES);
+        double[][] columns = new double[5][n];
+        for (double[] column : columns) {
+            body.asDoubleBuffer().get(column);
+            body.position(body.position() + n * Double.BYTES);
+        }
+        return new CandleSeries(symbol.isEmpty() ? null : symbol, epochDays, columns[0], columns[1], columns[2],
+                columns[3], columns[4]);
+    }
+
+    /**
+     * Reads concatenated frames until end of stream.
+     */
+    public static List<CandleSeries> readAll(InputStream in) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(in, 1);
+        List<CandleSeries> all = new ArrayList<>();
+        int next;
+        while ((next = pushback.read()) >= 0) {
+            pushback.unread(next);
+            all.add(read(pushback));
+        }
+        return all;
+    }
+
+    public static CandleSeries decode(byte[] payload) {
+        try {
+            return read(new ByteArrayInputStream(payload));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid " + MEDIA_TYPE + " payload: " + e.getMessage(), e);
+        }
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        return ByteBuffer.wrap(readFully(in, Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Truncated candle payload");
+        }
+        return bytes;
+    }
+}
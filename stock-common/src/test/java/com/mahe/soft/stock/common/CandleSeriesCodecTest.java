@@ -0,0 +1,106 @@
+package com.mahe.soft.stock.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class CandleSeriesCodecTest {
+
+    @Test
+    void testRoundTrip() {
+        CandleSeries series = sample(250);
+
+        for (boolean gzip : new boolean[] { false, true }) {
+            CandleSeries decoded = CandleSeriesCodec.decode(CandleSeriesCodec.encode(series, gzip));
+
+            assertEquals("AAPL", decoded.getSymbol());
+            assertArrayEquals(series.getEpochDays(), decoded.getEpochDays());
+            assertArrayEquals(series.getOpen(), decoded.getOpen());
+            assertArrayEquals(series.getHigh(), decoded.getHigh());
+            assertArrayEquals(series.getLow(), decoded.getLow());
+            assertArrayEquals(series.getClose(), decoded.getClose());
+            assertArrayEquals(series.getVolume(), decoded.getVolume());
+        }
+    }
+
+    @Test
+    void testPayloadSize() {
+        byte[] plain = CandleSeriesCodec.encode(sample(1000), false);
+        byte[] gzip = CandleSeriesCodec.encode(sample(1000), true);
+
+        // 12-byte header incl. "AAPL", 4-byte count, 44 bytes per bar
+        assertEquals(12 + 4 + 1000 * 44, plain.length);
+        assertTrue(gzip.length < plain.length);
+    }
+
+    @Test
+    void testReadLeavesStreamAfterSeries() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CandleSeriesCodec.write(sample(3), out, false);
+        CandleSeriesCodec.write(CandleSeries.builder("MSFT", 0).build(), out, false);
+
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(3, CandleSeriesCodec.read(in).size());
+        CandleSeries empty = CandleSeriesCodec.read(in);
+        assertEquals("MSFT", empty.getSymbol());
+        assertTrue(empty.isEmpty());
+    }
+
+    @Test
+    void testReadAll_ConcatenatedGzipFrames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CandleSeriesCodec.write(sample(40), out, true);
+        CandleSeriesCodec.write(CandleSeries.builder("MSFT", 0).build(), out, true);
+        CandleSeriesCodec.write(sample(5), out, false);
+
+        java.util.List<CandleSeries> all = CandleSeriesCodec.readAll(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(3, all.size());
+        assertEquals(40, all.get(0).size());
+        assertEquals("MSFT", all.get(1).getSymbol());
+        assertEquals(5, all.get(2).size());
+        assertArrayEquals(sample(40).getClose(), all.get(0).getClose());
+    }
+
+    @Test
+    void testRejectsGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> CandleSeriesCodec.decode("[{}]".getBytes()));
+        byte[] truncated = CandleSeriesCodec.encode(sample(10), false);
+        assertThrows(IllegalArgumentException.class,
+                () -> CandleSeriesCodec.decode(java.util.Arrays.copyOf(truncated, truncated.length - 1)));
+    }
+
+    @Test
+    void testRejectsCountTooLargeForOneBody() {
+        byte[] payload = CandleSeriesCodec.encode(sample(0), false);
+        // Count is the last 4 bytes of an empty plain frame; n * 44 would overflow int
+        ByteBuffer.wrap(payload, payload.length - 4, 4).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.MAX_VALUE);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CandleSeriesCodec.decode(payload));
+        assertTrue(e.getMessage().contains("too large"), e.getMessage());
+    }
+
+    @Test
+    void testRejectsUnknownVersion() {
+        byte[] payload = CandleSeriesCodec.encode(sample(3), false);
+        assertEquals(1, payload[4]);
+        payload[4] = 2;
+        assertThrows(IllegalArgumentException.class, () -> CandleSeriesCodec.decode(payload));
+    }
+
+    private static CandleSeries sample(int bars) {
+        CandleSeries.Builder builder = CandleSeries.builder("AAPL", bars);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < bars; i++) {
+            builder.add(start.plusDays(i), 100 + i * 0.25, 101 + i * 0.25, 99 + i * 0.25, 100.5 + i * 0.25,
+                    1_000_000 + i);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,63 @@
+package com.mahe.soft.stock.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class CandleSeriesTest {
+
+    @Test
+    void testBuilder_GrowsAndTrims() {
+        CandleSeries.Builder builder = CandleSeries.builder("AAPL", 1);
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 40; i++) {
+            builder.add(start.plusDays(i), i, i + 2, i - 1, i + 1, 1000 + i);
+        }
+
+        CandleSeries series = builder.build();
+        assertEquals("AAPL", series.getSymbol());
+        assertEquals(40, series.size());
+        assertEquals(40, series.getClose().length);
+        assertEquals(start.plusDays(39), series.getDate(39));
+        assertEquals(40.0, series.getClose()[39]);
+        assertEquals(1039.0, series.getVolume()[39]);
+    }
+
+    @Test
+    void testSlice() {
+        CandleSeries series = CandleSeries.builder("MSFT", 4)
+                .add(LocalDate.of(2024, 1, 1), 1, 1, 1, 1, 1)
+                .add(LocalDate.of(2024, 1, 2), 2, 2, 2, 2, 2)
+                .add(LocalDate.of(2024, 1, 3), 3, 3, 3, 3, 3)
+                .build();
+
+        CandleSeries tail = series.slice(1, 3);
+        assertEquals(2, tail.size());
+        assertEquals(LocalDate.of(2024, 1, 2), tail.getDate(0));
+        assertArrayEquals(new double[] { 2, 3 }, tail.getClose());
+    }
+
+    @Test
+    void testBetween() {
+        CandleSeries series = CandleSeries.builder("MSFT", 4)
+                .add(LocalDate.of(2024, 1, 2), 2, 2, 2, 2, 2)
+                .add(LocalDate.of(2024, 1, 3), 3, 3, 3, 3, 3)
+                .add(LocalDate.of(2024, 1, 5), 5, 5, 5, 5, 5)
+                .build();
+
+        assertArrayEquals(new double[] { 3, 5 },
+                series.between(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 9)).getClose());
+        assertArrayEquals(new double[] { 2 },
+                series.between(LocalDate.of(2023, 12, 1), LocalDate.of(2024, 1, 2)).getClose());
+        assertEquals(0, series.between(LocalDate.of(2024, 1, 4), LocalDate.of(2024, 1, 4)).size());
+        assertEquals(0, series.between(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 1)).size());
+        assertSame(series, series.between(LocalDate.of(2020, 1, 1), LocalDate.of(2030, 1, 1)));
+    }
+
+    @Test
+    void testRejectsRaggedColumns() {
+        assertThrows(IllegalArgumentException.class, () -> new CandleSeries("X", new int[2], new double[2],
+                new double[2], new double[2], new double[1], new double[2]));
+    }
+}
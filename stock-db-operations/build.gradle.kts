@@ -3,6 +3,7 @@ plugins {
 }
 
 dependencies {
+    implementation(project(":stock-common"))
     implementation("org.springframework.boot:spring-boot-starter")
     implementation(libs.spring.boot.starter.web)
     implementation(libs.spring.boot.starter.webflux)
@@ -1,5 +1,11 @@
 package com.mahe.soft.stock.db.controller;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mahe.soft.stock.common.CandleSeries;
+import com.mahe.soft.stock.common.CandleSeriesCodec;
+import com.mahe.soft.stock.db.dto.StockPriceBatchRequest;
 import com.mahe.soft.stock.db.entity.StockPrice;
 import com.mahe.soft.stock.db.service.StockService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -7,14 +13,19 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/stocks")
@@ -22,7 +33,10 @@ import org.springframework.web.multipart.MultipartFile;
 @Tag(name = "Stock Operations", description = "Endpoints for managing stock price data")
 public class StockController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final StockService stockService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{symbol}")
     @Operation(summary = "Get Stock Prices", description = "Retrieve stock prices for a given symbol, optionally filtered by date range")
@@ -33,6 +47,63 @@ public class StockController {
         return ResponseEntity.ok(stockService.getStockPrices(symbol, startDate, endDate));
     }
 
+    @GetMapping(value = "/{symbol}", produces = CandleSeriesCodec.MEDIA_TYPE)
+    @Operation(summary = "Get Stock Prices (binary)", description = "Same data as the JSON variant as packed "
+            + "epoch-day and double columns (Accept: " + CandleSeriesCodec.MEDIA_TYPE + "); see CandleSeriesCodec.")
+    public ResponseEntity<byte[]> getCandleSeries(
+            @Parameter(description = "Stock Symbol (e.g., AAPL)") @PathVariable String symbol,
+            @Parameter(description = "Start Date (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End Date (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @Parameter(description = "Gzip the column data") @RequestParam(defaultValue = "false") boolean gzip) {
+        CandleSeries series = stockService.getCandleSeries(symbol, startDate, endDate);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CandleSeriesCodec.MEDIA_TYPE))
+                .body(CandleSeriesCodec.encode(series, gzip));
+    }
+
+    @GetMapping(value = "/{symbol}/stream", produces = NDJSON)
+    @Operation(summary = "Stream Stock Prices", description = "Same data as GET /{symbol}, written incrementally as "
+            + "newline-delimited JSON (one price per line). Server heap use does not grow with the history length.")
+    public ResponseEntity<StreamingResponseBody> streamStockPrices(
+            @Parameter(description = "Stock Symbol (e.g., AAPL)") @PathVariable String symbol,
+            @Parameter(description = "Start Date (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End Date (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        StreamingResponseBody body = ndjson(sink -> stockService.streamStockPrices(symbol, startDate, endDate, sink));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @PostMapping(value = "/batch", produces = NDJSON)
+    @Operation(summary = "Batch Stock Prices", description = "Prices for many symbols from one set-based query, as "
+            + "newline-delimited JSON ordered by symbol then date, so each symbol's rows form one contiguous group. "
+            + "Symbols without data are omitted.")
+    public ResponseEntity<StreamingResponseBody> getStockPricesBatch(@RequestBody StockPriceBatchRequest request) {
+        if (request.getSymbols() == null || request.getSymbols().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = ndjson(sink -> stockService.streamStockPricesBatch(request.getSymbols(),
+                request.getStartDate(), request.getEndDate(), sink));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @PostMapping(value = "/batch", produces = CandleSeriesCodec.MEDIA_TYPE)
+    @Operation(summary = "Batch Stock Prices (binary)", description = "Binary variant of the batch endpoint: one "
+            + CandleSeriesCodec.MEDIA_TYPE + " frame per symbol with data, back to back, in symbol order.")
+    public ResponseEntity<StreamingResponseBody> getCandleSeriesBatch(@RequestBody StockPriceBatchRequest request,
+            @Parameter(description = "Gzip the column data") @RequestParam(defaultValue = "false") boolean gzip) {
+        if (request.getSymbols() == null || request.getSymbols().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = out -> stockService.streamCandleSeriesBatch(request.getSymbols(),
+                request.getStartDate(), request.getEndDate(), series -> {
+                    try {
+                        CandleSeriesCodec.write(series, out, gzip);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(CandleSeriesCodec.MEDIA_TYPE)).body(body);
+    }
+
     @PostMapping("/upload")
     @Operation(summary = "Upload CSV", description = "Upload a CSV file containing stock data. Supports specific formats.")
     @ApiResponse(responseCode = "201", description = "File uploaded and data saved successfully")
@@ -58,4 +129,28 @@ public class StockController {
         stockService.deleteBySymbol(symbol);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Writes the prices produced by {@code query} as NDJSON through a single
+     * generator, flushing after the first row to cut time-to-first-byte.
+     */
+    private StreamingResponseBody ndjson(Consumer<Consumer<StockPrice>> query) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out, JsonEncoding.UTF8)) {
+                generator.setRootValueSeparator(null);
+                long[] written = { 0 };
+                query.accept(price -> {
+                    try {
+                        generator.writeObject(price);
+                        generator.writeRaw('\n');
+                        if (++written[0] == 1) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+    }
 }
@@ -0,0 +1,51 @@
+package com.mahe.soft.stock.db.controller;
+
+import com.mahe.soft.stock.db.entity.SymbolSummary;
+import com.mahe.soft.stock.db.service.SymbolSummaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/symbols")
+@RequiredArgsConstructor
+@Tag(name = "Symbol Universe", description = "Per-symbol summaries for cheap universe selection")
+public class SymbolController {
+
+    private final SymbolSummaryService summaryService;
+
+    @GetMapping
+    @Operation(summary = "Select Universe", description = "Symbols whose summary matches all given filters, ordered "
+            + "by symbol. Served from the symbol_summary table, never from a scan of stock_prices.")
+    public ResponseEntity<List<SymbolSummary>> getUniverse(
+            @Parameter(description = "Minimum latest close") @RequestParam(required = false) BigDecimal minClose,
+            @Parameter(description = "Maximum latest close") @RequestParam(required = false) BigDecimal maxClose,
+            @Parameter(description = "Minimum average daily volume") @RequestParam(required = false) Double minAvgVolume,
+            @Parameter(description = "Minimum number of trading days stored") @RequestParam(required = false) Long minRows,
+            @Parameter(description = "Last trade on or after (YYYY-MM-DD)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate activeSince) {
+        return ResponseEntity.ok(summaryService.findUniverse(minClose, maxClose, minAvgVolume, minRows, activeSince));
+    }
+
+    @GetMapping("/{symbol}")
+    @Operation(summary = "Get Symbol Summary", description = "First/last trade date, row count, latest close, "
+            + "average volume and all-time high/low of one symbol")
+    public ResponseEntity<SymbolSummary> getSummary(
+            @Parameter(description = "Stock Symbol (e.g., AAPL)") @PathVariable String symbol) {
+        SymbolSummary summary = summaryService.getSummary(symbol);
+        return summary != null ? ResponseEntity.ok(summary) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild Summaries", description = "Recomputes every summary with one aggregate scan of "
+            + "stock_prices (normally maintained incrementally by ingest)")
+    public ResponseEntity<String> rebuild() {
+        return ResponseEntity.ok("Rebuilt summaries for " + summaryService.rebuild() + " symbols.");
+    }
+}
@@ -0,0 +1,21 @@
+package com.mahe.soft.stock.db.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Body of {@code POST /api/stocks/batch}. Dates are optional; as with the
+ * single-symbol endpoint, both must be set to restrict the range.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockPriceBatchRequest {
+    private List<String> symbols = new ArrayList<>();
+    private LocalDate startDate;
+    private LocalDate endDate;
+}
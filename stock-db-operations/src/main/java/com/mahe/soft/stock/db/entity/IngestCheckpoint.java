@@ -0,0 +1,31 @@
+package com.mahe.soft.stock.db.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A source (CSV file, archive entry or file range) whose rows an
+ * {@link IngestJob} has fully committed; resumed runs skip it.
+ */
+@Entity
+@Table(name = "ingest_checkpoints")
+@IdClass(IngestCheckpointId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestCheckpoint {
+
+    @Id
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @Id
+    @Column(name = "source", nullable = false, length = 512)
+    private String source;
+
+    @Column(name = "completed_at", nullable = false)
+    private Instant completedAt;
+}
@@ -0,0 +1,14 @@
+package com.mahe.soft.stock.db.entity;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestCheckpointId implements Serializable {
+    private String jobId;
+    private String source;
+}
@@ -0,0 +1,79 @@
+package com.mahe.soft.stock.db.entity;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A background bulk ingest run. Counters are stored when the run ends; while
+ * it runs, the status endpoint reads them live from the pipeline.
+ */
+@Entity
+@Table(name = "ingest_jobs")
+@Data
+@NoArgsConstructor
+public class IngestJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "root_path", nullable = false, length = 1024)
+    private String rootPath;
+
+    @Column(nullable = false)
+    private boolean incremental;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "files_total")
+    private int filesTotal;
+
+    // Sources skipped on resume because an earlier attempt committed them
+    @Column(name = "files_resumed")
+    private int filesResumed;
+
+    @Column(name = "files_done")
+    private int filesDone;
+
+    @Column(name = "files_failed")
+    private int filesFailed;
+
+    @Column(name = "rows_parsed")
+    private long rowsParsed;
+
+    @Column(name = "rows_written")
+    private long rowsWritten;
+
+    @Column(name = "rows_skipped")
+    private long rowsSkipped;
+
+    @Column(name = "batches_failed")
+    private long batchesFailed;
+
+    @Column(name = "elapsed_millis")
+    private long elapsedMillis;
+
+    @Column(length = 2000)
+    private String error;
+}
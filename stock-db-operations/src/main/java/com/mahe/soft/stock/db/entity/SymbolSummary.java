@@ -0,0 +1,54 @@
+package com.mahe.soft.stock.db.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per symbol, maintained alongside {@code stock_prices} by
+ * {@link com.mahe.soft.stock.db.service.SymbolSummaryService} so universe
+ * selection never scans the price table.
+ */
+@Entity
+@Table(name = "symbol_summary", indexes = {
+        @Index(name = "idx_symbol_summary_latest_close", columnList = "latest_close"),
+        @Index(name = "idx_symbol_summary_last_trade_date", columnList = "last_trade_date") })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SymbolSummary {
+
+    @Id
+    @Column(nullable = false, length = 20)
+    private String symbol;
+
+    @Column(name = "first_trade_date", nullable = false)
+    private LocalDate firstTradeDate;
+
+    @Column(name = "last_trade_date", nullable = false)
+    private LocalDate lastTradeDate;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "latest_close", precision = 19, scale = 4)
+    private BigDecimal latestClose;
+
+    @JsonIgnore
+    @Column(name = "volume_sum", nullable = false)
+    private long volumeSum;
+
+    @Column(name = "all_time_high", precision = 19, scale = 4)
+    private BigDecimal allTimeHigh;
+
+    @Column(name = "all_time_low", precision = 19, scale = 4)
+    private BigDecimal allTimeLow;
+
+    public double getAvgVolume() {
+        return rowCount > 0 ? (double) volumeSum / rowCount : 0.0;
+    }
+}
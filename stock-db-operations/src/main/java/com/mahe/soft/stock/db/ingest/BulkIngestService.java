@@ -1,72 +1,223 @@
 package com.mahe.soft.stock.db.ingest;
 
 import com.mahe.soft.stock.db.service.StockService;
+import com.mahe.soft.stock.db.service.SymbolSummaryService;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 
+/**
+ * Loads the CSVs in a root folder and inside its zip archives through an
+ * {@link IngestPipeline}: parser and writer stages run on their own worker
+ * pools, connected by bounded queues. Entries are streamed straight out of the
+ * archives unless {@code stock.ingest.extract-to-disk} is set; large root-level
+ * CSVs are memory-mapped and parsed in parallel byte ranges.
+ *
+ * In incremental mode ({@code stock.ingest.incremental} or the request flag)
+ * each symbol's last stored trade date from {@code symbol_summary} is its
+ * watermark, and only newer bars are written (see {@link Watermarks}).
+ */
 @Service
 @RequiredArgsConstructor
 @Log4j2
 public class BulkIngestService {
 
     private final StockService stockService;
+    private final StockPriceBulkWriter bulkWriter;
+    private final SymbolSummaryService summaryService;
+
+    @Value("${stock.ingest.parser-threads:2}")
+    private int parserThreads = 2;
+
+    @Value("${stock.ingest.writer-threads:2}")
+    private int writerThreads = 2;
+
+    @Value("${stock.ingest.queue-capacity:8}")
+    private int queueCapacity = 8;
+
+    @Value("${stock.ingest.chunk-size:5000}")
+    private int batchSize = 5000;
+
+    @Value("${stock.ingest.split-threshold-mb:256}")
+    private long splitThresholdMb = 256;
+
+    @Value("${stock.ingest.split-range-size:64MB}")
+    private DataSize splitRangeSize = DataSize.ofMegabytes(64);
+
+    @Value("${stock.ingest.extract-to-disk:false}")
+    private boolean extractToDisk;
+
+    @Value("${stock.ingest.incremental:false}")
+    private boolean incremental;
 
     public String processBulkIngestion(String rootPathStr) {
+        return processBulkIngestion(rootPathStr, incremental);
+    }
+
+    /**
+     * @param incrementalRun write only bars newer than each symbol's stored data
+     */
+    public String processBulkIngestion(String rootPathStr, boolean incrementalRun) {
         Path rootPath = Paths.get(rootPathStr);
         if (!Files.exists(rootPath) || !Files.isDirectory(rootPath)) {
             return "Root path does not exist or is not a directory: " + rootPathStr;
         }
 
-        Path unzipDir = rootPath.resolve("unzip");
+        IngestStats stats;
         try {
-            Files.createDirectories(unzipDir);
+            stats = ingest(rootPath, incrementalRun, IngestRun.NONE);
         } catch (IOException e) {
-            log.error("Failed to create unzip directory", e);
-            return "Failed to create unzip directory: " + e.getMessage();
+            log.error("Error during bulk ingestion", e);
+            return "Error during ingestion: " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "Ingestion interrupted";
         }
 
-        int processedFiles = 0;
-        int totalRecords = 0;
-
-        try (Stream<Path> stream = Files.walk(rootPath, 1)) { // Shallow walk to find zips in root
-            // 1. Find and Unzip
-            stream.filter(path -> path.toString().endsWith(".zip"))
-                    .forEach(zipPath -> unzipFile(zipPath, unzipDir));
-
-            // 2. Scan unzip folder and ingest
-            try (Stream<Path> extractedStream = Files.walk(unzipDir)) {
-                File[] files = extractedStream.filter(Files::isRegularFile).map(Path::toFile).toArray(File[]::new);
-
-                for (File file : files) {
-                    // Basic check for csv-like content or extension, but user requirement "unzip
-                    // all files and store... create ingestion process"
-                    // Assuming all extracted files are CSVs
-                    try (Reader reader = new BufferedReader(
-                            new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
-                        log.info("Processing file: {}", file.getName());
-                        int count = stockService.saveFromReader(reader);
-                        totalRecords += count;
-                        processedFiles++;
-                    } catch (Exception e) {
-                        log.error("Failed to process file: {}", file.getName(), e);
-                    }
+        log.info("Bulk ingest finished: {}", stats);
+        return String.format("Completed. Processed %d files with total %d records. "
+                + "Written %d rows (%d failed batches), skipped %d already stored; "
+                + "parse %.0f rows/s, write %.0f rows/s, %d ms.",
+                stats.getFilesParsed(), stats.getRowsParsed(), stats.getRowsWritten(), stats.getBatchesFailed(),
+                stats.getRowsSkipped(), stats.getParseRowsPerSecond(), stats.getWriteRowsPerSecond(),
+                stats.getElapsedMillis());
+    }
+
+    /**
+     * Runs one ingest of {@code rootPath}, skipping sources {@code run} reports as
+     * already completed.
+     */
+    IngestStats ingest(Path rootPath, boolean incrementalRun, IngestRun run) throws IOException, InterruptedException {
+        Watermarks watermarks = null;
+        if (incrementalRun) {
+            watermarks = new Watermarks(summaryService.getWatermarks());
+            log.info("Incremental ingest against watermarks of {} symbols", watermarks.size());
+        }
+        return extractToDisk ? ingestExtracted(rootPath, watermarks, run) : ingestStreamed(rootPath, watermarks, run);
+    }
+
+    /**
+     * Parses every entry of every root-level zip straight from
+     * {@link ZipFile#getInputStream(ZipEntry)}; nothing is written to disk.
+     * {@link ZipFile} allows concurrent entry streams, so parser workers can read
+     * different entries of the same archive in parallel.
+     */
+    private IngestStats ingestStreamed(Path rootPath, Watermarks watermarks, IngestRun run)
+            throws IOException, InterruptedException {
+        List<ZipFile> archives = new ArrayList<>();
+        try {
+            List<IngestPipeline.Source> sources = rootCsvSources(rootPath);
+            for (Path zipPath : findZips(rootPath)) {
+                ZipFile zipFile;
+                try {
+                    zipFile = new ZipFile(zipPath.toFile());
+                } catch (IOException e) {
+                    log.error("Failed to open: " + zipPath, e);
+                    continue;
                 }
+                archives.add(zipFile);
+                zipFile.stream()
+                        .filter(entry -> !entry.isDirectory())
+                        .forEach(entry -> sources.add(IngestPipeline.Source.of(
+                                zipPath.getFileName() + "!" + entry.getName(), () -> zipFile.getInputStream(entry))));
             }
+            return runPipeline(sources, watermarks, run);
+        } finally {
+            for (ZipFile zipFile : archives) {
+                zipFile.close();
+            }
+        }
+    }
 
+    /**
+     * Legacy mode ({@code stock.ingest.extract-to-disk=true}): unzips into
+     * {@code <root>/unzip} and ingests the extracted files, which are kept for
+     * inspection.
+     */
+    private IngestStats ingestExtracted(Path rootPath, Watermarks watermarks, IngestRun run)
+            throws IOException, InterruptedException {
+        Path unzipDir = rootPath.resolve("unzip");
+        try {
+            Files.createDirectories(unzipDir);
         } catch (IOException e) {
-            log.error("Error during bulk ingestion", e);
-            return "Error during ingestion: " + e.getMessage();
+            throw new IOException("Failed to create unzip directory: " + e.getMessage(), e);
+        }
+        for (Path zipPath : findZips(rootPath)) {
+            unzipFile(zipPath, unzipDir);
+        }
+
+        // All extracted files are assumed to be CSVs
+        List<IngestPipeline.Source> sources = rootCsvSources(rootPath);
+        try (Stream<Path> extractedStream = Files.walk(unzipDir)) {
+            for (Path file : extractedStream.filter(Files::isRegularFile).toList()) {
+                sources.addAll(fileSources(file, unzipDir.relativize(file).toString()));
+            }
+        }
+        return runPipeline(sources, watermarks, run);
+    }
+
+    /**
+     * Files of at least {@code stock.ingest.split-threshold-mb} in the daily price
+     * layout are memory-mapped and split into ranges of
+     * {@code stock.ingest.split-range-size}, which the parser threads share;
+     * anything else is read as a single stream.
+     */
+    private List<IngestPipeline.Source> fileSources(Path file, String name) throws IOException {
+        if (Files.size(file) >= splitThresholdMb * 1024L * 1024L) {
+            List<IngestPipeline.Source> ranges = MappedCsvSplitter.split(file, splitRangeSize.toBytes());
+            if (ranges != null) {
+                return ranges;
+            }
+        }
+        return List.of(IngestPipeline.Source.of(name, () -> Files.newInputStream(file)));
+    }
+
+    private static List<Path> findZips(Path rootPath) throws IOException {
+        return findInRoot(rootPath, ".zip");
+    }
+
+    private List<IngestPipeline.Source> rootCsvSources(Path rootPath) throws IOException {
+        List<IngestPipeline.Source> sources = new ArrayList<>();
+        for (Path csv : findInRoot(rootPath, ".csv")) {
+            sources.addAll(fileSources(csv, csv.getFileName().toString()));
         }
+        return sources;
+    }
+
+    private static List<Path> findInRoot(Path rootPath, String suffix) throws IOException {
+        try (Stream<Path> stream = Files.walk(rootPath, 1)) { // Shallow walk of the root only
+            return stream.filter(Files::isRegularFile).filter(path -> path.toString().endsWith(suffix)).toList();
+        }
+    }
 
-        return String.format("Completed. Processed %d files with total %d records.", processedFiles, totalRecords);
+    private IngestStats runPipeline(List<IngestPipeline.Source> sources, Watermarks watermarks, IngestRun run)
+            throws InterruptedException {
+        int total = sources.size();
+        sources.removeIf(source -> {
+            if (!run.isCompleted(source.name())) {
+                return false;
+            }
+            source.skipped();
+            return true;
+        });
+        if (sources.size() < total) {
+            log.info("Resuming: {} of {} sources already committed", total - sources.size(), total);
+        }
+        IngestPipeline pipeline = new IngestPipeline(stockService, bulkWriter, parserThreads, writerThreads,
+                queueCapacity, batchSize, watermarks)
+                .onSourceCompleted(source -> run.sourceCompleted(source.name()));
+        run.started(pipeline, sources.size(), total - sources.size());
+        return pipeline.run(sources);
     }
 
     private void unzipFile(Path zipPath, Path destDir) {
@@ -0,0 +1,495 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Specialised parser for the fixed {@code Symbol,Date,Open,High,Low,Close,Volume}
+ * layout (comma or tab separated, as in {@code results/sample.csv}).
+ *
+ * Works on raw bytes: fields are located by offset, prices become
+ * {@code BigDecimal.valueOf(unscaled, scale)}, dates are decoded with a packed
+ * month-name table, and symbols and dates are reused from small caches, so a
+ * row allocates nothing but the entity and its values. Quoting is not
+ * supported. Anything the fast path does not recognise falls back to the same
+ * String-based parsing {@code StockService} uses, so results are identical.
+ *
+ * Use {@link #detect(BufferedInputStream)} to decide between this parser and
+ * the generic commons-csv path. Instances are stateful; use one per input.
+ */
+@Log4j2
+public final class DailyPriceCsvParser {
+
+    private static final String[] COLUMNS = { "symbol", "date", "open", "high", "low", "close", "volume" };
+    private static final int FIELDS = COLUMNS.length;
+    private static final int MAX_HEADER_BYTES = 4096;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SYMBOL_CACHE_SIZE = 1024; // power of two
+    private static final int MAX_FAST_DIGITS = 18;
+
+    private static final int[] MONTHS = {
+            pack('j', 'a', 'n'), pack('f', 'e', 'b'), pack('m', 'a', 'r'), pack('a', 'p', 'r'),
+            pack('m', 'a', 'y'), pack('j', 'u', 'n'), pack('j', 'u', 'l'), pack('a', 'u', 'g'),
+            pack('s', 'e', 'p'), pack('o', 'c', 't'), pack('n', 'o', 'v'), pack('d', 'e', 'c') };
+
+    // Same accepted formats as the commons-csv path; only used for dates the fast path rejects
+    private static final DateTimeFormatter FALLBACK_DATE = new DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern("[d-MMM-yyyy][d-MMM-yy][yyyy-MM-dd]")
+            .toFormatter(Locale.ENGLISH);
+
+    private final byte delimiter;
+
+    private final int[] fieldStart = new int[FIELDS];
+    private final int[] fieldEnd = new int[FIELDS];
+
+    private final byte[][] symbolKeys = new byte[SYMBOL_CACHE_SIZE][];
+    private final String[] symbols = new String[SYMBOL_CACHE_SIZE];
+
+    private final byte[] lastDateBytes = new byte[32];
+    private int lastDateLength = -1;
+    private LocalDate lastDate;
+
+    private boolean headerSkipped;
+    private long lineNumber;
+    private int rows;
+    private ObjLongConsumer<String> malformedRows = DailyPriceCsvParser::logMalformedRow;
+
+    DailyPriceCsvParser(byte delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * @return a fresh parser for the same layout that treats its input as rows
+     *         only (no header line), e.g. for a byte range in the middle of a file.
+     */
+    public DailyPriceCsvParser forBody() {
+        DailyPriceCsvParser body = new DailyPriceCsvParser(delimiter);
+        body.headerSkipped = true;
+        return body;
+    }
+
+    /**
+     * Replaces the default handling of malformed rows (log and skip). The
+     * handler receives the 1-based line number within this parser's input and
+     * the raw line.
+     */
+    public DailyPriceCsvParser onMalformedRow(ObjLongConsumer<String> handler) {
+        this.malformedRows = handler;
+        return this;
+    }
+
+    /**
+     * @return lines consumed so far, including header and blank lines.
+     */
+    public long getLineCount() {
+        return lineNumber;
+    }
+
+    static void logMalformedRow(String line, long lineNumber) {
+        log.error("Error parsing line {} in bulk import: {}", lineNumber, line);
+    }
+
+    /**
+     * Peeks at the header line of {@code in} (mark/reset, nothing is consumed).
+     *
+     * @return a parser if the header is exactly the daily price layout, otherwise
+     *         {@code null}
+     */
+    public static DailyPriceCsvParser detect(BufferedInputStream in) throws IOException {
+        in.mark(MAX_HEADER_BYTES);
+        byte[] header = new byte[MAX_HEADER_BYTES];
+        int length = 0;
+        int b;
+        while (length < header.length && (b = in.read()) >= 0 && b != '\n') {
+            header[length++] = (byte) b;
+        }
+        in.reset();
+        return forHeader(new String(header, 0, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return a parser for {@code headerLine}, or {@code null} if the columns are
+     *         not Symbol, Date (or trade_date), Open, High, Low, Close, Volume in
+     *         that order.
+     */
+    static DailyPriceCsvParser forHeader(String headerLine) {
+        String header = headerLine.strip();
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        if (header.indexOf('"') >= 0) {
+            return null;
+        }
+        // Same heuristic as the commons-csv path
+        long commas = header.chars().filter(ch -> ch == ',').count();
+        long tabs = header.chars().filter(ch -> ch == '\t').count();
+        char delimiter = commas > tabs ? ',' : '\t';
+
+        String[] names = header.split(String.valueOf(delimiter), -1);
+        if (names.length != FIELDS) {
+            return null;
+        }
+        for (int i = 0; i < FIELDS; i++) {
+            String name = names[i].strip();
+            boolean match = name.equalsIgnoreCase(COLUMNS[i]) || (i == 1 && name.equalsIgnoreCase("trade_date"));
+            if (!match) {
+                return null;
+            }
+        }
+        return new DailyPriceCsvParser((byte) delimiter);
+    }
+
+    /**
+     * Parses {@code in} from the header line on, handing each valid row to
+     * {@code sink}. Malformed rows are logged and skipped.
+     *
+     * @return number of rows passed to the sink
+     */
+    public int parse(InputStream in, Consumer<StockPrice> sink) throws IOException {
+        byte[] buf = new byte[BUFFER_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(buf);
+        int filled = 0;
+        int n;
+        while ((n = in.read(buf, filled, buf.length - filled)) >= 0) {
+            filled += n;
+            int consumed = parseLines(view, 0, filled, sink);
+            System.arraycopy(buf, consumed, buf, 0, filled - consumed);
+            filled -= consumed;
+            if (filled == buf.length) {
+                // A single line longer than the buffer
+                buf = Arrays.copyOf(buf, buf.length * 2);
+                view = ByteBuffer.wrap(buf);
+            }
+        }
+        if (filled > 0) {
+            parseLine(view, 0, filled, sink);
+        }
+        return rows;
+    }
+
+    /**
+     * Parses all rows in {@code data} from its position to its limit (e.g. a
+     * memory-mapped file). The buffer's position is not changed.
+     *
+     * @return number of rows passed to the sink
+     */
+    public int parse(ByteBuffer data, Consumer<StockPrice> sink) {
+        int consumed = parseLines(data, data.position(), data.limit(), sink);
+        if (consumed < data.limit()) {
+            parseLine(data, consumed, data.limit(), sink);
+        }
+        return rows;
+    }
+
+    /**
+     * Parses every complete ({@code \n}-terminated) line in {@code [from, to)}.
+     *
+     * @return offset just past the last complete line
+     */
+    private int parseLines(ByteBuffer b, int from, int to, Consumer<StockPrice> sink) {
+        int lineStart = from;
+        for (int i = from; i < to; i++) {
+            if (b.get(i) == '\n') {
+                parseLine(b, lineStart, i, sink);
+                lineStart = i + 1;
+            }
+        }
+        return lineStart;
+    }
+
+    private void parseLine(ByteBuffer b, int start, int end, Consumer<StockPrice> sink) {
+        lineNumber++;
+        if (end > start && b.get(end - 1) == '\r') {
+            end--;
+        }
+        if (!headerSkipped) {
+            headerSkipped = true;
+            return;
+        }
+        if (isBlank(b, start, end)) {
+            return;
+        }
+
+        StockPrice row = toRow(b, start, end);
+        if (row == null) {
+            malformedRows.accept(text(b, start, end), lineNumber);
+            return;
+        }
+        sink.accept(row);
+        rows++;
+    }
+
+    private StockPrice toRow(ByteBuffer b, int start, int end) {
+        int field = 0;
+        fieldStart[0] = start;
+        for (int i = start; i < end; i++) {
+            if (b.get(i) == delimiter) {
+                if (field == FIELDS - 1) {
+                    return null;
+                }
+                fieldEnd[field++] = i;
+                fieldStart[field] = i + 1;
+            }
+        }
+        if (field != FIELDS - 1) {
+            return null;
+        }
+        fieldEnd[field] = end;
+        for (int f = 0; f < FIELDS; f++) {
+            trim(b, f);
+        }
+
+        String symbol = symbol(b, fieldStart[0], fieldEnd[0]);
+        LocalDate date = date(b, fieldStart[1], fieldEnd[1]);
+        BigDecimal open = decimal(b, fieldStart[2], fieldEnd[2]);
+        BigDecimal high = decimal(b, fieldStart[3], fieldEnd[3]);
+        BigDecimal low = decimal(b, fieldStart[4], fieldEnd[4]);
+        BigDecimal close = decimal(b, fieldStart[5], fieldEnd[5]);
+        Long volume = volume(b, fieldStart[6], fieldEnd[6]);
+        if (symbol == null || date == null || open == null || high == null || low == null || close == null
+                || volume == null) {
+            return null;
+        }
+        return new StockPrice(symbol, date, open, high, low, close, volume);
+    }
+
+    private String symbol(ByteBuffer b, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return null;
+        }
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ b.get(i)) * 0x01000193;
+        }
+        int slot = hash & (SYMBOL_CACHE_SIZE - 1);
+        byte[] key = symbolKeys[slot];
+        if (key != null && equalsBytes(b, start, end, key, key.length)) {
+            return symbols[slot];
+        }
+        key = new byte[length];
+        b.get(start, key);
+        symbolKeys[slot] = key;
+        symbols[slot] = new String(key, StandardCharsets.UTF_8);
+        return symbols[slot];
+    }
+
+    private LocalDate date(ByteBuffer b, int start, int end) {
+        int length = end - start;
+        // Files are usually grouped by date: reuse the previous value
+        if (length == lastDateLength && equalsBytes(b, start, end, lastDateBytes, lastDateLength)) {
+            return lastDate;
+        }
+        LocalDate date = fastDate(b, start, end);
+        if (date == null) {
+            try {
+                date = LocalDate.parse(text(b, start, end), FALLBACK_DATE);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        if (length <= lastDateBytes.length) {
+            b.get(start, lastDateBytes, 0, length);
+            lastDateLength = length;
+            lastDate = date;
+        }
+        return date;
+    }
+
+    /**
+     * yyyy-MM-dd, d-MMM-yy or d-MMM-yyyy; {@code null} for anything else.
+     */
+    private static LocalDate fastDate(ByteBuffer b, int start, int end) {
+        int length = end - start;
+        try {
+            if (length == 10 && b.get(start + 4) == '-' && b.get(start + 7) == '-') {
+                int year = digits(b, start, start + 4);
+                int month = digits(b, start + 5, start + 7);
+                int day = digits(b, start + 8, start + 10);
+                return year < 0 || month < 0 || day < 0 ? null : LocalDate.of(year, month, day);
+            }
+            int dash = b.get(start + 1) == '-' ? start + 1 : b.get(start + 2) == '-' ? start + 2 : -1;
+            if (dash < 0 || dash + 4 >= end || b.get(dash + 4) != '-') {
+                return null;
+            }
+            int day = digits(b, start, dash);
+            int month = month(b.get(dash + 1), b.get(dash + 2), b.get(dash + 3));
+            int yearDigits = end - (dash + 5);
+            if (yearDigits != 2 && yearDigits != 4) {
+                return null;
+            }
+            int year = digits(b, dash + 5, end);
+            if (day < 0 || month < 0 || year < 0) {
+                return null;
+            }
+            // Two-digit years resolve to 2000-2099, as with DateTimeFormatter's "yy"
+            return LocalDate.of(yearDigits == 2 ? 2000 + year : year, month, day);
+        } catch (RuntimeException e) {
+            // IndexOutOfBounds on short input or DateTimeException on invalid values
+            return null;
+        }
+    }
+
+    private static int month(byte c0, byte c1, byte c2) {
+        int key = pack(c0 | 0x20, c1 | 0x20, c2 | 0x20);
+        for (int m = 0; m < MONTHS.length; m++) {
+            if (MONTHS[m] == key) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses an optionally signed plain decimal from its digits. Values with
+     * more than 18 digits or in another notation (e.g. exponent) go through
+     * {@code new BigDecimal(String)}.
+     */
+    private static BigDecimal decimal(ByteBuffer b, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (b.get(i) == '-' || b.get(i) == '+')) {
+            negative = b.get(i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte c = b.get(i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (seenPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                return slowDecimal(b, start, end);
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        if (digits > MAX_FAST_DIGITS) {
+            return slowDecimal(b, start, end);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static BigDecimal slowDecimal(ByteBuffer b, int start, int end) {
+        try {
+            return new BigDecimal(text(b, start, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long volume(ByteBuffer b, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (b.get(i) == '-' || b.get(i) == '+')) {
+            negative = b.get(i) == '-';
+            i++;
+        }
+        if (i == end || end - i > MAX_FAST_DIGITS) {
+            return slowLong(b, start, end);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            byte c = b.get(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static Long slowLong(ByteBuffer b, int start, int end) {
+        try {
+            return Long.parseLong(text(b, start, end));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int digits(ByteBuffer b, int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte c = b.get(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void trim(ByteBuffer b, int field) {
+        int s = fieldStart[field];
+        int e = fieldEnd[field];
+        while (s < e && isSpace(b.get(s))) {
+            s++;
+        }
+        while (e > s && isSpace(b.get(e - 1))) {
+            e--;
+        }
+        fieldStart[field] = s;
+        fieldEnd[field] = e;
+    }
+
+    private static boolean isBlank(ByteBuffer b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isSpace(b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private static boolean equalsBytes(ByteBuffer b, int start, int end, byte[] key, int keyLength) {
+        if (end - start != keyLength) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (b.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(ByteBuffer b, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        b.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int pack(int c0, int c1, int c2) {
+        return (c0 << 16) | (c1 << 8) | c2;
+    }
+}
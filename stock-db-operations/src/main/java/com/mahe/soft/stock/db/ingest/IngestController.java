@@ -2,9 +2,15 @@ package com.mahe.soft.stock.db.ingest;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -16,16 +22,57 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Bulk Ingestion", description = "Endpoints for bulk data ingestion")
 public class IngestController {
 
-    private final BulkIngestService bulkIngestService;
+    private final IngestJobService ingestJobService;
+
+    @Value("${stock.ingest.incremental:false}")
+    private boolean incrementalDefault;
 
     @PostMapping("/bulk-upload")
-    @Operation(summary = "Trigger Bulk Upload", description = "Scan root directory, unzip files, and ingest csv data.")
-    public ResponseEntity<String> triggerBulkUpload(
-            @Parameter(description = "Root folder path. Default: C:\\Users\\pemba\\git\\stock-data") @RequestParam(required = false, defaultValue = "C:\\Users\\pemba\\git\\stock-data") String rootPath) {
-
-        // Running in a separate thread might be better for long running tasks, but
-        // keeping it synchronous for simplicity as requested "create ingestion process"
-        String result = bulkIngestService.processBulkIngestion(rootPath);
-        return ResponseEntity.ok(result);
+    @Operation(summary = "Trigger Bulk Upload", description = "Queue a background job that scans the root directory and ingests the csv data inside its zip archives. Poll GET /ingest-jobs/{id} for progress.")
+    @ApiResponse(responseCode = "202", description = "Job queued")
+    @ApiResponse(responseCode = "400", description = "Root path does not exist")
+    public ResponseEntity<?> triggerBulkUpload(
+            @Parameter(description = "Root folder path. Default: C:\\Users\\pemba\\git\\stock-data") @RequestParam(required = false, defaultValue = "C:\\Users\\pemba\\git\\stock-data") String rootPath,
+            @Parameter(description = "Write only bars newer than each symbol's stored data (default: stock.ingest.incremental)") @RequestParam(required = false) Boolean incremental) {
+        try {
+            IngestJobStatus job = ingestJobService.submit(rootPath,
+                    incremental != null ? incremental : incrementalDefault);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/ingest-jobs")
+    @Operation(summary = "List Ingest Jobs", description = "The 50 most recent ingest jobs, newest first")
+    public ResponseEntity<List<IngestJobStatus>> listJobs() {
+        return ResponseEntity.ok(ingestJobService.list());
+    }
+
+    @GetMapping("/ingest-jobs/{id}")
+    @Operation(summary = "Ingest Job Status", description = "Sources done, rows per second, failures and ETA of a job")
+    public ResponseEntity<IngestJobStatus> getJob(@Parameter(description = "Job id") @PathVariable String id) {
+        IngestJobStatus job = ingestJobService.status(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/ingest-jobs/{id}/cancel")
+    @Operation(summary = "Cancel Ingest Job", description = "Stop a queued or running job; committed sources are kept")
+    public ResponseEntity<IngestJobStatus> cancelJob(@Parameter(description = "Job id") @PathVariable String id) {
+        IngestJobStatus job = ingestJobService.cancel(id);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/ingest-jobs/{id}/resume")
+    @Operation(summary = "Resume Ingest Job", description = "Re-run a finished job, skipping the sources it already committed")
+    @ApiResponse(responseCode = "409", description = "Job is still queued or running")
+    public ResponseEntity<?> resumeJob(@Parameter(description = "Job id") @PathVariable String id) {
+        try {
+            IngestJobStatus job = ingestJobService.resume(id);
+            return job != null ? ResponseEntity.status(HttpStatus.ACCEPTED).body(job)
+                    : ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
     }
 }
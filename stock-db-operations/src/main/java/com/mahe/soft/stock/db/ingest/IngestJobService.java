@@ -0,0 +1,318 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.IngestCheckpoint;
+import com.mahe.soft.stock.db.entity.IngestJob;
+import com.mahe.soft.stock.db.repository.IngestCheckpointRepository;
+import com.mahe.soft.stock.db.repository.IngestJobRepository;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs bulk ingests as background jobs, one at a time (the pipeline already
+ * uses its own parser and writer pools).
+ *
+ * Each source whose rows are all committed is checkpointed in
+ * {@code ingest_checkpoints}. A resumed job, or one left {@code RUNNING} or
+ * {@code QUEUED} by a restart, re-scans its root folder and skips the
+ * checkpointed sources. Cancelling interrupts the pipeline; batches already
+ * committed stay, so a cancelled job can be resumed too.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class IngestJobService {
+
+    private final BulkIngestService bulkIngestService;
+    private final IngestJobRepository jobRepository;
+    private final IngestCheckpointRepository checkpointRepository;
+
+    @Value("${stock.ingest.resume-on-startup:true}")
+    private boolean resumeOnStartup = true;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ingest-job");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, RunningJob> running = new ConcurrentHashMap<>();
+
+    /**
+     * Live state of a queued or running job.
+     */
+    private static final class RunningJob {
+        private volatile Future<?> future;
+        private volatile boolean started;
+        private volatile boolean cancelled;
+        private volatile IngestPipeline pipeline;
+        private volatile int sourcesQueued;
+        private volatile int sourcesResumed;
+        private final AtomicInteger sourcesDone = new AtomicInteger();
+    }
+
+    /**
+     * Queues an ingest of {@code rootPath}.
+     *
+     * @throws IllegalArgumentException if the folder does not exist
+     */
+    public IngestJobStatus submit(String rootPath, boolean incremental) {
+        if (!Files.isDirectory(Paths.get(rootPath))) {
+            throw new IllegalArgumentException("Root path does not exist or is not a directory: " + rootPath);
+        }
+        IngestJob job = new IngestJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setRootPath(rootPath);
+        job.setIncremental(incremental);
+        job.setStatus(IngestJob.Status.QUEUED);
+        job.setCreatedAt(Instant.now());
+        jobRepository.save(job);
+        schedule(job.getId());
+        log.info("Queued ingest job {} for {}", job.getId(), rootPath);
+        return toStatus(job);
+    }
+
+    /**
+     * @return the job's progress, or {@code null} if there is no such job
+     */
+    public IngestJobStatus status(String id) {
+        return jobRepository.findById(id).map(this::toStatus).orElse(null);
+    }
+
+    public List<IngestJobStatus> list() {
+        return jobRepository.findTop50ByOrderByCreatedAtDesc().stream().map(this::toStatus).toList();
+    }
+
+    /**
+     * Cancels a queued or running job; a running one stops after its in-flight
+     * batches.
+     *
+     * @return the job's status, or {@code null} if there is no such job
+     */
+    public IngestJobStatus cancel(String id) {
+        IngestJob job = jobRepository.findById(id).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        RunningJob handle = running.get(id);
+        boolean started = false;
+        if (handle != null) {
+            handle.cancelled = true;
+            // execute() sets started before it checks cancelled, so at least one side sees the other
+            started = handle.started;
+            if (!started) {
+                // execute() will return without touching the job, so release the handle and mark it here
+                running.remove(id, handle);
+            }
+            if (handle.future != null) {
+                handle.future.cancel(started);
+            }
+        }
+        if (handle != null ? !started : job.getStatus() == IngestJob.Status.QUEUED) {
+            job.setStatus(IngestJob.Status.CANCELLED);
+            job.setFinishedAt(Instant.now());
+            jobRepository.save(job);
+        }
+        log.info("Cancel requested for ingest job {}", id);
+        return toStatus(job);
+    }
+
+    /**
+     * Re-queues a finished job; sources it already committed are skipped.
+     *
+     * @return the job's status, or {@code null} if there is no such job
+     * @throws IllegalStateException if the job is still queued or running
+     */
+    public IngestJobStatus resume(String id) {
+        IngestJob job = jobRepository.findById(id).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        if (!job.getStatus().isFinished() || running.containsKey(id)) {
+            throw new IllegalStateException("Ingest job " + id + " is " + job.getStatus());
+        }
+        job.setStatus(IngestJob.Status.QUEUED);
+        job.setFinishedAt(null);
+        job.setError(null);
+        jobRepository.save(job);
+        schedule(id);
+        return toStatus(job);
+    }
+
+    /**
+     * Re-queues jobs interrupted by a shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!resumeOnStartup) {
+            return;
+        }
+        try {
+            for (IngestJob job : jobRepository.findByStatusInOrderByCreatedAtAsc(
+                    List.of(IngestJob.Status.RUNNING, IngestJob.Status.QUEUED))) {
+                log.info("Resuming ingest job {} ({})", job.getId(), job.getStatus());
+                schedule(job.getId());
+            }
+        } catch (Exception e) {
+            log.error("Failed to resume interrupted ingest jobs", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Jobs stay RUNNING in the table and are resumed on the next start
+        executor.shutdownNow();
+    }
+
+    private void schedule(String id) {
+        RunningJob handle = new RunningJob();
+        running.put(id, handle);
+        handle.future = executor.submit(() -> execute(id, handle));
+    }
+
+    private void execute(String id, RunningJob handle) {
+        try {
+            handle.started = true;
+            IngestJob job = jobRepository.findById(id).orElse(null);
+            if (job == null || job.getStatus().isFinished()) {
+                return;
+            }
+            if (handle.cancelled) {
+                // Cancelled before any work started
+                job.setStatus(IngestJob.Status.CANCELLED);
+                job.setFinishedAt(Instant.now());
+                jobRepository.save(job);
+                return;
+            }
+            job.setStatus(IngestJob.Status.RUNNING);
+            job.setStartedAt(Instant.now());
+            jobRepository.save(job);
+
+            Set<String> completed = ConcurrentHashMap.newKeySet();
+            completed.addAll(checkpointRepository.findSourcesByJobId(id));
+            IngestRun run = new IngestRun() {
+                @Override
+                public boolean isCompleted(String source) {
+                    return completed.contains(source);
+                }
+
+                @Override
+                public void sourceCompleted(String source) {
+                    checkpointRepository.save(new IngestCheckpoint(id, source, Instant.now()));
+                    handle.sourcesDone.incrementAndGet();
+                }
+
+                @Override
+                public void started(IngestPipeline pipeline, int sourcesQueued, int sourcesResumed) {
+                    handle.sourcesQueued = sourcesQueued;
+                    handle.sourcesResumed = sourcesResumed;
+                    handle.pipeline = pipeline;
+                }
+            };
+
+            try {
+                IngestStats stats = bulkIngestService.ingest(Paths.get(job.getRootPath()), job.isIncremental(), run);
+                finish(job, handle, stats, handle.cancelled ? IngestJob.Status.CANCELLED : IngestJob.Status.COMPLETED,
+                        null);
+            } catch (InterruptedException e) {
+                finish(job, handle, snapshot(handle), IngestJob.Status.CANCELLED, null);
+            } catch (Exception e) {
+                log.error("Ingest job {} failed", id, e);
+                finish(job, handle, snapshot(handle),
+                        handle.cancelled ? IngestJob.Status.CANCELLED : IngestJob.Status.FAILED, e.toString());
+            }
+        } finally {
+            running.remove(id, handle);
+        }
+    }
+
+    private void finish(IngestJob job, RunningJob handle, IngestStats stats, IngestJob.Status status, String error) {
+        job.setStatus(status);
+        job.setFinishedAt(Instant.now());
+        job.setFilesTotal(handle.sourcesResumed + handle.sourcesQueued);
+        job.setFilesResumed(handle.sourcesResumed);
+        job.setFilesDone(handle.sourcesResumed + handle.sourcesDone.get());
+        if (stats != null) {
+            job.setFilesFailed(stats.getFilesFailed());
+            job.setBatchesFailed(stats.getBatchesFailed());
+            job.setRowsParsed(job.getRowsParsed() + stats.getRowsParsed());
+            job.setRowsWritten(job.getRowsWritten() + stats.getRowsWritten());
+            job.setRowsSkipped(job.getRowsSkipped() + stats.getRowsSkipped());
+            job.setElapsedMillis(job.getElapsedMillis() + stats.getElapsedMillis());
+        }
+        job.setError(error != null && error.length() > 2000 ? error.substring(0, 2000) : error);
+        jobRepository.save(job);
+        log.info("Ingest job {} {}: {} of {} sources, {} rows written", job.getId(), status, job.getFilesDone(),
+                job.getFilesTotal(), job.getRowsWritten());
+    }
+
+    private static IngestStats snapshot(RunningJob handle) {
+        IngestPipeline pipeline = handle.pipeline;
+        return pipeline != null ? pipeline.snapshot() : null;
+    }
+
+    private IngestJobStatus toStatus(IngestJob job) {
+        IngestJobStatus.IngestJobStatusBuilder status = IngestJobStatus.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .rootPath(job.getRootPath())
+                .incremental(job.isIncremental())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError());
+
+        RunningJob handle = running.get(job.getId());
+        IngestStats live = handle != null && job.getStatus() == IngestJob.Status.RUNNING ? snapshot(handle) : null;
+        if (live == null) {
+            return status
+                    .filesTotal(job.getFilesTotal())
+                    .filesResumed(job.getFilesResumed())
+                    .filesDone(job.getFilesDone())
+                    .filesFailed(job.getFilesFailed())
+                    .rowsParsed(job.getRowsParsed())
+                    .rowsWritten(job.getRowsWritten())
+                    .rowsSkipped(job.getRowsSkipped())
+                    .batchesFailed(job.getBatchesFailed())
+                    .elapsedMillis(job.getElapsedMillis())
+                    .rowsPerSecond(perSecond(job.getRowsWritten(), job.getElapsedMillis()))
+                    .build();
+        }
+
+        int done = handle.sourcesDone.get();
+        int remaining = handle.sourcesQueued - done - live.getFilesFailed();
+        Long eta = done > 0 ? Math.max(0, live.getElapsedMillis() * remaining / done / 1000) : null;
+        return status
+                .filesTotal(handle.sourcesResumed + handle.sourcesQueued)
+                .filesResumed(handle.sourcesResumed)
+                .filesDone(handle.sourcesResumed + done)
+                .filesFailed(live.getFilesFailed())
+                .rowsParsed(job.getRowsParsed() + live.getRowsParsed())
+                .rowsWritten(job.getRowsWritten() + live.getRowsWritten())
+                .rowsSkipped(job.getRowsSkipped() + live.getRowsSkipped())
+                .batchesFailed(live.getBatchesFailed())
+                .elapsedMillis(job.getElapsedMillis() + live.getElapsedMillis())
+                .rowsPerSecond(perSecond(live.getRowsWritten(), live.getElapsedMillis()))
+                .etaSeconds(eta)
+                .build();
+    }
+
+    private static double perSecond(long rows, long millis) {
+        return millis > 0 ? rows * 1000.0 / millis : 0.0;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.IngestJob;
+import java.time.Instant;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress of a background ingest job. While the job runs, the counters are read
+ * live from its pipeline; row counters and elapsed time cover all attempts of a
+ * resumed job, failure counters only the latest attempt.
+ */
+@Data
+@Builder
+public class IngestJobStatus {
+    private String id;
+    private IngestJob.Status status;
+    private String rootPath;
+    private boolean incremental;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+    // Sources: CSV files, archive entries or ranges of split files
+    private int filesTotal;
+    private int filesResumed;
+    private int filesDone;
+    private int filesFailed;
+    private long rowsParsed;
+    private long rowsWritten;
+    private long rowsSkipped;
+    private long batchesFailed;
+    private double rowsPerSecond;
+    private long elapsedMillis;
+    // Remaining sources at this attempt's per-source pace; null until one completes
+    private Long etaSeconds;
+    private String error;
+}
@@ -0,0 +1,391 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.service.StockService;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Three-stage ingest: sources -> CSV parser workers -> batch writer workers.
+ *
+ * Stages are connected by bounded queues, so a slow database blocks the
+ * parsers and a slow parser blocks the feeder (backpressure). At most
+ * {@code (queueCapacity + parsers + writers) * batchSize} rows are in memory
+ * at any time, independent of input size. One instance per run.
+ *
+ * With {@link Watermarks} (incremental mode) the parser stage drops rows that
+ * are already stored before they are batched, so only new bars reach the
+ * writers.
+ *
+ * A source counts as completed once it has been parsed and every batch it
+ * produced has been committed; {@link Listener#sourceCompleted} is then called
+ * (used for resume checkpoints). Counters can be read while the run is in
+ * progress via {@link #snapshot()}.
+ */
+@Log4j2
+class IngestPipeline {
+
+    /**
+     * One unit of parser work: a whole CSV (a file on disk, a zip entry, ...) or
+     * a byte range of a split file. Called on a parser thread.
+     */
+    interface Source {
+        String name();
+
+        /**
+         * Hands every valid row to {@code sink}.
+         *
+         * @return number of rows passed to the sink
+         */
+        int parse(StockService stockService, Consumer<StockPrice> sink) throws IOException;
+
+        /**
+         * @return files finished by this source once it has been parsed; a
+         *         split file reports 1 from its last range only.
+         */
+        default int filesCompleted() {
+            return 1;
+        }
+
+        /**
+         * Called instead of {@link #parse} when a resumed run skips this source
+         * because an earlier run committed it.
+         */
+        default void skipped() {
+        }
+
+        /**
+         * A whole CSV read through {@link StockService#parseCsv(InputStream, Consumer)}.
+         */
+        static Source of(String name, StreamOpener opener) {
+            return new Source() {
+                @Override
+                public String name() {
+                    return name;
+                }
+
+                @Override
+                public int parse(StockService stockService, Consumer<StockPrice> sink) throws IOException {
+                    try (InputStream in = opener.open()) {
+                        return stockService.parseCsv(in, sink);
+                    }
+                }
+            };
+        }
+    }
+
+    @FunctionalInterface
+    interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Listener {
+        /**
+         * Called once per source whose rows are all committed, on a worker thread.
+         */
+        void sourceCompleted(Source source);
+    }
+
+    // Sentinels, compared by identity; never parsed or written
+    private static final Source END_OF_SOURCES = new Source() {
+        @Override
+        public String name() {
+            return "<end>";
+        }
+
+        @Override
+        public int parse(StockService stockService, Consumer<StockPrice> sink) {
+            return 0;
+        }
+    };
+    private static final Batch END_OF_BATCHES = new Batch(List.of(), null);
+
+    private final StockService stockService;
+    private final StockPriceBulkWriter bulkWriter;
+    private final int parserThreads;
+    private final int writerThreads;
+    private final int batchSize;
+    private final Watermarks watermarks;
+    private Listener listener = source -> {
+    };
+
+    private final BlockingQueue<Source> sourceQueue;
+    private final BlockingQueue<Batch> batchQueue;
+
+    private volatile long startNanos = System.nanoTime();
+    private final AtomicInteger filesQueued = new AtomicInteger();
+
+    private final AtomicInteger filesParsed = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private final LongAdder rowsParsed = new LongAdder();
+    private final LongAdder rowsSkipped = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder batchesFailed = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+
+    IngestPipeline(StockService stockService, StockPriceBulkWriter bulkWriter, int parserThreads,
+            int writerThreads, int queueCapacity, int batchSize) {
+        this(stockService, bulkWriter, parserThreads, writerThreads, queueCapacity, batchSize, null);
+    }
+
+    /**
+     * @param watermarks rows to skip, or {@code null} to write everything
+     */
+    IngestPipeline(StockService stockService, StockPriceBulkWriter bulkWriter, int parserThreads,
+            int writerThreads, int queueCapacity, int batchSize, Watermarks watermarks) {
+        if (parserThreads < 1 || writerThreads < 1 || queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Pipeline sizes must be >= 1");
+        }
+        this.stockService = stockService;
+        this.bulkWriter = bulkWriter;
+        this.parserThreads = parserThreads;
+        this.writerThreads = writerThreads;
+        this.batchSize = batchSize;
+        this.watermarks = watermarks;
+        this.sourceQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    IngestPipeline onSourceCompleted(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Runs all sources through the pipeline and blocks until every batch has been
+     * written (or failed).
+     */
+    IngestStats run(Iterable<? extends Source> sources) throws InterruptedException {
+        startNanos = System.nanoTime();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, named("ingest-parser-"));
+        ExecutorService writers = Executors.newFixedThreadPool(writerThreads, named("ingest-writer-"));
+        try {
+            List<Future<?>> writerTasks = new ArrayList<>();
+            for (int i = 0; i < writerThreads; i++) {
+                writerTasks.add(writers.submit(this::writeLoop));
+            }
+            List<Future<?>> parserTasks = new ArrayList<>();
+            for (int i = 0; i < parserThreads; i++) {
+                parserTasks.add(parsers.submit(this::parseLoop));
+            }
+
+            // Stage 1 runs on the caller: blocks while parsers are saturated
+            for (Source source : sources) {
+                sourceQueue.put(source);
+                filesQueued.incrementAndGet();
+            }
+            for (int i = 0; i < parserThreads; i++) {
+                sourceQueue.put(END_OF_SOURCES);
+            }
+            await(parserTasks);
+
+            for (int i = 0; i < writerThreads; i++) {
+                batchQueue.put(END_OF_BATCHES);
+            }
+            await(writerTasks);
+            recomputeSummaries();
+            return snapshot();
+        } finally {
+            parsers.shutdownNow();
+            writers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return counters so far; safe to call from any thread during {@link #run}.
+     */
+    IngestStats snapshot() {
+        return IngestStats.builder()
+                .filesQueued(filesQueued.get())
+                .filesParsed(filesParsed.get())
+                .filesFailed(filesFailed.get())
+                .rowsParsed(rowsParsed.sum())
+                .rowsSkipped(rowsSkipped.sum())
+                .rowsWritten(rowsWritten.sum())
+                .batchesWritten(batchesWritten.sum())
+                .batchesFailed(batchesFailed.sum())
+                .parseRowsPerSecond(perSecond(rowsParsed.sum(), parseNanos.sum()))
+                .writeRowsPerSecond(perSecond(rowsWritten.sum(), writeNanos.sum()))
+                .elapsedMillis((System.nanoTime() - startNanos) / 1_000_000)
+                .build();
+    }
+
+    private Void parseLoop() throws InterruptedException {
+        while (true) {
+            Source source = sourceQueue.take();
+            if (source == END_OF_SOURCES) {
+                return null;
+            }
+            long t0 = System.nanoTime();
+            SourceProgress progress = new SourceProgress(source);
+            BatchingSink sink = new BatchingSink(progress);
+            boolean parsed = false;
+            try {
+                int count = source.parse(stockService, sink);
+                sink.flush();
+                rowsParsed.add(count);
+                filesParsed.addAndGet(source.filesCompleted());
+                parsed = true;
+                log.info("Parsed {} rows from {}", count, source.name());
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Interrupted while parsing " + source.name());
+                }
+                filesFailed.incrementAndGet();
+                log.error("Failed to process file: {}", source.name(), e);
+            } finally {
+                parseNanos.add(System.nanoTime() - t0);
+                progress.finished(parsed);
+            }
+        }
+    }
+
+    /**
+     * Writers leave the summaries of overlapped symbols marked; recompute them
+     * once all writer transactions have finished.
+     */
+    private void recomputeSummaries() {
+        try {
+            bulkWriter.recomputeStaleSummaries();
+        } catch (Exception e) {
+            // Rows stay marked, so the next ingest or a rebuild repairs them
+            log.error("Failed to recompute overlapped symbol summaries", e);
+        }
+    }
+
+    private Void writeLoop() throws InterruptedException {
+        while (true) {
+            Batch batch = batchQueue.take();
+            if (batch == END_OF_BATCHES) {
+                return null;
+            }
+            long t0 = System.nanoTime();
+            boolean written = false;
+            try {
+                bulkWriter.write(batch.rows(), false);
+                rowsWritten.add(batch.rows().size());
+                batchesWritten.increment();
+                written = true;
+            } catch (Exception e) {
+                batchesFailed.increment();
+                log.error("Failed to write batch of {} rows from {}", batch.rows().size(),
+                        batch.progress().source.name(), e);
+            } finally {
+                writeNanos.add(System.nanoTime() - t0);
+                batch.progress().finished(written);
+            }
+        }
+    }
+
+    /**
+     * Collects parsed rows into batches and hands full ones to the writers,
+     * blocking when the batch queue is full. Rows rejected by the watermarks are
+     * counted and dropped here.
+     */
+    private final class BatchingSink implements Consumer<StockPrice> {
+        private final SourceProgress progress;
+        private List<StockPrice> batch = new ArrayList<>(batchSize);
+
+        BatchingSink(SourceProgress progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(StockPrice row) {
+            if (watermarks != null && !watermarks.accept(row)) {
+                rowsSkipped.increment();
+                return;
+            }
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            progress.batchQueued();
+            try {
+                batchQueue.put(new Batch(batch, progress));
+            } catch (InterruptedException e) {
+                progress.finished(false);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing batch", e);
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private record Batch(List<StockPrice> rows, SourceProgress progress) {
+    }
+
+    /**
+     * Outstanding work of one source: its parse plus each queued batch. The
+     * source completes when all of them have finished and none failed.
+     */
+    private final class SourceProgress {
+        private final Source source;
+        private final AtomicInteger pending = new AtomicInteger(1); // the parse itself
+        private volatile boolean failed;
+
+        SourceProgress(Source source) {
+            this.source = source;
+        }
+
+        void batchQueued() {
+            pending.incrementAndGet();
+        }
+
+        void finished(boolean ok) {
+            if (!ok) {
+                failed = true;
+            }
+            if (pending.decrementAndGet() == 0 && !failed) {
+                try {
+                    listener.sourceCompleted(source);
+                } catch (Exception e) {
+                    log.error("Completion listener failed for {}", source.name(), e);
+                }
+            }
+        }
+    }
+
+    private static void await(List<Future<?>> tasks) throws InterruptedException {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (java.util.concurrent.ExecutionException e) {
+                throw new IllegalStateException("Ingest worker failed", e.getCause());
+            }
+        }
+    }
+
+    private static double perSecond(long rows, long nanos) {
+        return nanos > 0 ? rows / (nanos / 1e9) : 0.0;
+    }
+
+    private static java.util.concurrent.ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package com.mahe.soft.stock.db.ingest;
+
+/**
+ * Hooks a caller passes into {@link BulkIngestService#ingest}: resume
+ * checkpoints and access to the running pipeline. Source names are stable
+ * across runs ({@code archive.zip!entry.csv}, {@code file.csv},
+ * {@code file.csv#2/4} for ranges).
+ */
+interface IngestRun {
+
+    IngestRun NONE = new IngestRun() {
+    };
+
+    /**
+     * @return true if an earlier attempt already committed {@code source}.
+     */
+    default boolean isCompleted(String source) {
+        return false;
+    }
+
+    /**
+     * Called on a pipeline worker once all rows of {@code source} are committed.
+     */
+    default void sourceCompleted(String source) {
+    }
+
+    /**
+     * Called before the pipeline starts consuming sources.
+     */
+    default void started(IngestPipeline pipeline, int sourcesQueued, int sourcesResumed) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.mahe.soft.stock.db.ingest;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Per-stage counters for one bulk ingest run. Throughput figures are rows per
+ * second of busy time, i.e. per worker of that stage.
+ */
+@Data
+@Builder
+public class IngestStats {
+    private int filesQueued;
+    private int filesParsed;
+    private int filesFailed;
+    private long rowsParsed;
+    // Incremental mode: rows at or below their symbol's watermark, or repeated within the run
+    private long rowsSkipped;
+    private long rowsWritten;
+    private long batchesWritten;
+    private long batchesFailed;
+    private double parseRowsPerSecond;
+    private double writeRowsPerSecond;
+    private long elapsedMillis;
+}
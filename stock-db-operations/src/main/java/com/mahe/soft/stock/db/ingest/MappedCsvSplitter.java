@@ -0,0 +1,249 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.service.StockService;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Splits a large daily price CSV into newline-aligned byte ranges of a
+ * memory-mapped file so the pipeline's parser workers can parse them in
+ * parallel with {@link DailyPriceCsvParser}.
+ *
+ * The number of ranges depends only on the file size and the range size, so
+ * range names ({@code file#i/n}) are stable across runs and a resumed job
+ * matches the checkpoints of an earlier one whatever its thread count.
+ *
+ * Each range counts its own lines and buffers its (rare) malformed rows; when
+ * the last range finishes they are logged in file order with file-absolute
+ * line numbers, so counts and error reports match a sequential parse. Ranges
+ * skipped on a resume count as finished; their lines are counted only if a
+ * later range has malformed rows to number.
+ */
+@Log4j2
+final class MappedCsvSplitter {
+
+    // A single MappedByteBuffer is int-indexed
+    static final long MAX_RANGE_BYTES = 1L << 30;
+    private static final int SCAN_BYTES = 4096;
+
+    private MappedCsvSplitter() {
+    }
+
+    /**
+     * @param rangeBytes target range size; capped at {@link #MAX_RANGE_BYTES}
+     * @return one source per range, or {@code null} if the file does not use the
+     *         daily price layout (callers then parse it sequentially).
+     */
+    static List<IngestPipeline.Source> split(Path file, long rangeBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            String header = readHeader(channel);
+            DailyPriceCsvParser parser = header == null ? null : DailyPriceCsvParser.forHeader(header);
+            if (parser == null) {
+                return null;
+            }
+
+            long perRange = Math.max(1, Math.min(rangeBytes, MAX_RANGE_BYTES));
+            long[] bounds = boundaries(channel, size, (int) Math.max(1, (size + perRange - 1) / perRange));
+            SplitFile splitFile = new SplitFile(file.getFileName().toString(), bounds.length - 1);
+            List<IngestPipeline.Source> sources = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                // Mappings stay valid after the channel is closed
+                long length = bounds[i + 1] - bounds[i];
+                MappedByteBuffer range = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i], length);
+                splitFile.ranges[i] = range;
+                sources.add(new RangeSource(splitFile, i, range, i == 0 ? parser : parser.forBody()));
+            }
+            log.info("Split {} ({} bytes) into {} ranges", file.getFileName(), size, sources.size());
+            return sources;
+        }
+    }
+
+    /**
+     * @return ascending offsets {@code 0 = b0 < b1 < ... < bn = size}; every inner
+     *         boundary is just past a {@code '\n'} and no range exceeds
+     *         {@link #MAX_RANGE_BYTES}.
+     */
+    static long[] boundaries(FileChannel channel, long size, int parts) throws IOException {
+        List<Long> bounds = new ArrayList<>(parts + 1);
+        bounds.add(0L);
+        for (int i = 1; i < parts; i++) {
+            long target = size * i / parts;
+            long previous = bounds.get(bounds.size() - 1);
+            if (target <= previous) {
+                continue;
+            }
+            long next = nextLineStart(channel, target, size);
+            if (next - previous > MAX_RANGE_BYTES) {
+                throw new IOException("Line too long to split at offset " + previous);
+            }
+            if (next > previous && next < size) {
+                bounds.add(next);
+            }
+        }
+        if (size - bounds.get(bounds.size() - 1) > MAX_RANGE_BYTES) {
+            throw new IOException("Line too long to split at offset " + bounds.get(bounds.size() - 1));
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_BYTES);
+        long position = from;
+        while (position < size) {
+            buf.clear();
+            int n = channel.read(buf, position);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    private static String readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(SCAN_BYTES);
+        int n = channel.read(buf, 0);
+        if (n <= 0) {
+            return null;
+        }
+        int end = 0;
+        while (end < n && buf.get(end) != '\n') {
+            end++;
+        }
+        return new String(buf.array(), 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Per-file state shared by its ranges.
+     */
+    private static final class SplitFile {
+        private final String name;
+        private final ByteBuffer[] ranges;
+        private final long[] lineCounts;
+        private final List<List<Malformed>> malformed;
+        private final AtomicInteger remaining;
+        private final AtomicInteger skipped = new AtomicInteger();
+
+        SplitFile(String name, int ranges) {
+            this.name = name;
+            this.ranges = new ByteBuffer[ranges];
+            this.lineCounts = new long[ranges];
+            Arrays.fill(lineCounts, -1); // unknown until parsed
+            this.malformed = new ArrayList<>(ranges);
+            for (int i = 0; i < ranges; i++) {
+                malformed.add(new ArrayList<>());
+            }
+            this.remaining = new AtomicInteger(ranges);
+        }
+
+        /**
+         * A range committed by an earlier run; called before any range is
+         * parsed, so it never finishes the file.
+         */
+        void rangeSkipped() {
+            skipped.incrementAndGet();
+            remaining.decrementAndGet();
+        }
+
+        /**
+         * @return true if this was the last range of the file to finish.
+         */
+        boolean rangeDone(int index, long lines) {
+            lineCounts[index] = lines;
+            if (remaining.decrementAndGet() != 0) {
+                return false;
+            }
+            // The atomic decrement orders the other ranges' writes before this read
+            int last = lineCounts.length - 1;
+            while (last >= 0 && malformed.get(last).isEmpty()) {
+                last--;
+            }
+            long offset = 0;
+            for (int i = 0; i <= last; i++) {
+                for (Malformed row : malformed.get(i)) {
+                    DailyPriceCsvParser.logMalformedRow(row.line(), offset + row.lineNumber());
+                }
+                offset += lineCounts[i] >= 0 ? lineCounts[i] : countLines(ranges[i]);
+            }
+            log.info("Finished all {} ranges of {} ({} committed earlier)", lineCounts.length, name, skipped.get());
+            return true;
+        }
+
+        /**
+         * Lines of an inner range, which always ends just past a {@code '\n'}.
+         */
+        private static long countLines(ByteBuffer range) {
+            ByteBuffer view = range.duplicate();
+            long lines = 0;
+            for (int i = view.position(); i < view.limit(); i++) {
+                if (view.get(i) == '\n') {
+                    lines++;
+                }
+            }
+            return lines;
+        }
+    }
+
+    private record Malformed(String line, long lineNumber) {
+    }
+
+    private static final class RangeSource implements IngestPipeline.Source {
+        private final SplitFile file;
+        private final int index;
+        private final ByteBuffer range;
+        private final DailyPriceCsvParser parser;
+        private boolean lastRange;
+
+        RangeSource(SplitFile file, int index, ByteBuffer range, DailyPriceCsvParser parser) {
+            this.file = file;
+            this.index = index;
+            this.range = range;
+            this.parser = parser;
+        }
+
+        @Override
+        public String name() {
+            return file.name + "#" + (index + 1) + "/" + file.lineCounts.length;
+        }
+
+        @Override
+        public int parse(StockService stockService, Consumer<StockPrice> sink) {
+            List<Malformed> errors = file.malformed.get(index);
+            try {
+                return parser.onMalformedRow((line, number) -> errors.add(new Malformed(line, number)))
+                        .parse(range, sink);
+            } finally {
+                lastRange = file.rangeDone(index, parser.getLineCount());
+            }
+        }
+
+        @Override
+        public int filesCompleted() {
+            return lastRange ? 1 : 0;
+        }
+
+        @Override
+        public void skipped() {
+            file.rangeSkipped();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.service.StockSeriesCache;
+import com.mahe.soft.stock.db.service.SymbolSummaryService;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Ingest-path writer that bypasses JPA.
+ *
+ * {@code saveAll} on the composite-key entity issues a SELECT per row before
+ * each INSERT. This writer instead sends multi-row
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} statements through JDBC and
+ * commits every {@code stock.ingest.chunk-size} rows, so memory stays bounded
+ * by one chunk no matter how large the file is. Re-ingesting a file is
+ * idempotent: existing (symbol, trade_date) rows are overwritten.
+ *
+ * Each batch also updates {@code symbol_summary} in the same transaction and,
+ * once committed, invalidates the {@link StockSeriesCache} entries of the
+ * symbols it contains. Summaries the batch overlapped are recomputed after
+ * commit, or left marked for the caller to recompute once its concurrent
+ * writers have finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Log4j2
+public class StockPriceBulkWriter {
+
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private static final String INSERT_PREFIX = "INSERT INTO stock_prices "
+            + "(symbol, trade_date, open_price, high_price, low_price, close_price, volume) VALUES ";
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE "
+            + "open_price = VALUES(open_price), high_price = VALUES(high_price), low_price = VALUES(low_price), "
+            + "close_price = VALUES(close_price), volume = VALUES(volume)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockSeriesCache seriesCache;
+    private final SymbolSummaryService summaryService;
+
+    @Value("${stock.ingest.chunk-size:5000}")
+    private int chunkSize = 5000;
+
+    // SQL for a full statement is reused; only the trailing partial one is built ad hoc
+    private final String fullStatementSql = upsertSql(ROWS_PER_STATEMENT);
+
+    /**
+     * Starts a write session. Rows are buffered up to one chunk and committed
+     * when the chunk fills or on {@link Session#commit()}.
+     */
+    public Session openSession() {
+        return new Session();
+    }
+
+    static String upsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * 16 + UPSERT_SUFFIX.length());
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?,?,?,?,?,?,?)" : ",(?,?,?,?,?,?,?)");
+        }
+        return sql.append(UPSERT_SUFFIX).toString();
+    }
+
+    /**
+     * Upserts {@code rows} and commits them as one transaction, then invalidates
+     * the cached series of the symbols written and recomputes the summaries
+     * the batch overlapped.
+     */
+    public void write(List<StockPrice> rows) {
+        write(rows, true);
+    }
+
+    /**
+     * @param recomputeSummaries false to leave overlapped summaries marked for
+     *        {@link #recomputeStaleSummaries()}; concurrent writers use this so
+     *        no recompute reads price rows another writer's batch holds locked
+     */
+    void write(List<StockPrice> rows, boolean recomputeSummaries) {
+        Set<String> symbols = new HashSet<>();
+        List<String> overlapping = transactionTemplate.execute(status -> {
+            for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+                List<StockPrice> slice = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+                String sql = slice.size() == ROWS_PER_STATEMENT ? fullStatementSql : upsertSql(slice.size());
+                jdbcTemplate.update(sql, ps -> bind(ps, slice));
+            }
+            rows.forEach(row -> symbols.add(row.getSymbol()));
+            // Runs after commit (the template's transaction is active here)
+            seriesCache.invalidate(symbols);
+            return summaryService.record(rows);
+        });
+        if (recomputeSummaries && overlapping != null && !overlapping.isEmpty()) {
+            summaryService.recompute(overlapping);
+        }
+    }
+
+    /**
+     * Recomputes every summary left marked by {@link #write(List, boolean)}.
+     */
+    void recomputeStaleSummaries() {
+        int recomputed = summaryService.recomputeStale();
+        if (recomputed > 0) {
+            log.info("Recomputed summaries of {} symbols overlapped by this ingest", recomputed);
+        }
+    }
+
+    private static void bind(PreparedStatement ps, List<StockPrice> rows) throws SQLException {
+        int p = 1;
+        for (StockPrice row : rows) {
+            ps.setString(p++, row.getSymbol());
+            ps.setDate(p++, Date.valueOf(row.getTradeDate()));
+            ps.setBigDecimal(p++, row.getOpenPrice());
+            ps.setBigDecimal(p++, row.getHighPrice());
+            ps.setBigDecimal(p++, row.getLowPrice());
+            ps.setBigDecimal(p++, row.getClosePrice());
+            if (row.getVolume() != null) {
+                ps.setLong(p++, row.getVolume());
+            } else {
+                ps.setNull(p++, Types.BIGINT);
+            }
+        }
+    }
+
+    /**
+     * Buffered, chunk-committing writer. Not thread-safe; use one per file/thread.
+     * Closing without {@link #commit()}, e.g. after an exception, drops the
+     * partly filled chunk; full chunks are already committed.
+     */
+    public class Session implements AutoCloseable {
+
+        private final List<StockPrice> buffer = new ArrayList<>(Math.min(chunkSize, 65_536));
+        private final long startNanos = System.nanoTime();
+        private long rowsWritten;
+
+        public void add(StockPrice row) {
+            buffer.add(row);
+            if (buffer.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes and commits the rows still buffered.
+         */
+        public void commit() {
+            flush();
+        }
+
+        private void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            try {
+                write(buffer);
+                rowsWritten += buffer.size();
+                log.debug("Committed {} rows ({} total)", buffer.size(), rowsWritten);
+            } finally {
+                // A failed chunk is dropped rather than retried
+                buffer.clear();
+            }
+        }
+
+        public long getRowsWritten() {
+            return rowsWritten;
+        }
+
+        public double getRowsPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? rowsWritten / seconds : 0.0;
+        }
+
+        @Override
+        public void close() {
+            if (!buffer.isEmpty()) {
+                log.warn("Discarding {} uncommitted rows", buffer.size());
+                buffer.clear();
+            }
+        }
+    }
+}
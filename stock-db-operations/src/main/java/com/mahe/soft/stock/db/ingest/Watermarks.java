@@ -0,0 +1,46 @@
+package com.mahe.soft.stock.db.ingest;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental ingest filter: the latest stored trade date per symbol, taken at
+ * the start of a run. A row is new if it is dated after its symbol's
+ * watermark; rows of symbols without one are always new.
+ *
+ * New rows of watermarked symbols are also remembered, so the same bar found
+ * again in another file of the run (overlapping archives) is skipped as a
+ * duplicate. Symbols loaded for the first time are not tracked, which keeps
+ * memory proportional to the new bars of a refresh rather than to the
+ * archive. Thread-safe.
+ */
+final class Watermarks {
+
+    private final Map<String, LocalDate> lastTradeDates;
+    private final Map<String, Set<LocalDate>> seen = new ConcurrentHashMap<>();
+
+    Watermarks(Map<String, LocalDate> lastTradeDates) {
+        this.lastTradeDates = Map.copyOf(lastTradeDates);
+    }
+
+    /**
+     * @return true if {@code row} should be written.
+     */
+    boolean accept(StockPrice row) {
+        LocalDate watermark = lastTradeDates.get(row.getSymbol());
+        if (watermark == null) {
+            return true;
+        }
+        if (!row.getTradeDate().isAfter(watermark)) {
+            return false;
+        }
+        return seen.computeIfAbsent(row.getSymbol(), k -> ConcurrentHashMap.newKeySet()).add(row.getTradeDate());
+    }
+
+    int size() {
+        return lastTradeDates.size();
+    }
+}
@@ -0,0 +1,16 @@
+package com.mahe.soft.stock.db.repository;
+
+import com.mahe.soft.stock.db.entity.IngestCheckpoint;
+import com.mahe.soft.stock.db.entity.IngestCheckpointId;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpoint, IngestCheckpointId> {
+
+    @Query("select c.source from IngestCheckpoint c where c.jobId = :jobId")
+    List<String> findSourcesByJobId(@Param("jobId") String jobId);
+}
@@ -0,0 +1,15 @@
+package com.mahe.soft.stock.db.repository;
+
+import com.mahe.soft.stock.db.entity.IngestJob;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IngestJobRepository extends JpaRepository<IngestJob, String> {
+
+    List<IngestJob> findByStatusInOrderByCreatedAtAsc(Collection<IngestJob.Status> statuses);
+
+    List<IngestJob> findTop50ByOrderByCreatedAtDesc();
+}
@@ -2,9 +2,16 @@ package com.mahe.soft.stock.db.repository;
 
 import com.mahe.soft.stock.db.entity.StockPrice;
 import com.mahe.soft.stock.db.entity.StockPriceId;
+import jakarta.persistence.QueryHint;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -14,8 +21,36 @@ public interface StockPriceRepository extends JpaRepository<StockPrice, StockPri
 
     List<StockPrice> findBySymbolOrderByTradeDateAsc(String symbol);
 
-    void deleteBySymbol(String symbol);
+    /*
+     * Streaming reads: the constructor expression yields unmanaged instances, so
+     * nothing accumulates in the persistence context, and the fetch size makes the
+     * driver pull rows in batches instead of buffering the whole result set. The
+     * stream must be consumed and closed inside a transaction.
+     */
+    String STREAM_SELECT = "select new com.mahe.soft.stock.db.entity.StockPrice(p.symbol, p.tradeDate, "
+            + "p.openPrice, p.highPrice, p.lowPrice, p.closePrice, p.volume) from StockPrice p ";
+
+    String STREAM_FETCH_SIZE = "1000";
+
+    @Query(STREAM_SELECT + "where p.symbol = :symbol order by p.tradeDate asc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<StockPrice> streamBySymbol(@Param("symbol") String symbol);
+
+    @Query(STREAM_SELECT + "where p.symbol = :symbol and p.tradeDate between :startDate and :endDate "
+            + "order by p.tradeDate asc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<StockPrice> streamBySymbolAndTradeDateBetween(@Param("symbol") String symbol,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
-    @org.springframework.data.jpa.repository.Query(value = "SELECT DISTINCT symbol FROM stock_prices WHERE close_price > 50", nativeQuery = true)
-    List<String> findHighValueSymbols();
+    @Query(STREAM_SELECT + "where p.symbol in :symbols order by p.symbol asc, p.tradeDate asc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<StockPrice> streamBySymbolIn(@Param("symbols") Collection<String> symbols);
+
+    @Query(STREAM_SELECT + "where p.symbol in :symbols and p.tradeDate between :startDate and :endDate "
+            + "order by p.symbol asc, p.tradeDate asc")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    Stream<StockPrice> streamBySymbolInAndTradeDateBetween(@Param("symbols") Collection<String> symbols,
+            @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    void deleteBySymbol(String symbol);
 }
@@ -0,0 +1,30 @@
+package com.mahe.soft.stock.db.repository;
+
+import com.mahe.soft.stock.db.entity.SymbolSummary;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SymbolSummaryRepository extends JpaRepository<SymbolSummary, String> {
+
+    /**
+     * Universe selection; every filter is optional (null = no bound).
+     */
+    @Query("select s from SymbolSummary s where (:minClose is null or s.latestClose >= :minClose) "
+            + "and (:maxClose is null or s.latestClose <= :maxClose) "
+            + "and (:minAvgVolume is null or s.volumeSum >= :minAvgVolume * s.rowCount) "
+            + "and (:minRows is null or s.rowCount >= :minRows) "
+            + "and (:activeSince is null or s.lastTradeDate >= :activeSince) "
+            + "order by s.symbol asc")
+    List<SymbolSummary> findUniverse(@Param("minClose") BigDecimal minClose, @Param("maxClose") BigDecimal maxClose,
+            @Param("minAvgVolume") Double minAvgVolume, @Param("minRows") Long minRows,
+            @Param("activeSince") LocalDate activeSince);
+
+    @Query("select s.symbol from SymbolSummary s where s.latestClose > 50 order by s.symbol asc")
+    List<String> findHighValueSymbols();
+}
@@ -2,7 +2,7 @@ package com.mahe.soft.stock.db.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mahe.soft.stock.db.repository.StockPriceRepository;
+import com.mahe.soft.stock.db.repository.SymbolSummaryRepository;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -23,14 +23,14 @@ import org.springframework.web.reactive.function.client.WebClient;
 @Slf4j
 public class HighValueBacktestService {
 
-    private final StockPriceRepository repository;
+    private final SymbolSummaryRepository repository;
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper;
 
     public void runBatchBacktest() {
         log.info("Starting batch backtest for high value stocks...");
         List<String> symbols = repository.findHighValueSymbols();
-        log.info("Found {} symbols with close price > 100", symbols.size());
+        log.info("Found {} symbols with latest close price > 50", symbols.size());
 
         for (String symbol : symbols) {
             try {
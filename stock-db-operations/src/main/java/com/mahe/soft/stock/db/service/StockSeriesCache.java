@@ -0,0 +1,182 @@
+package com.mahe.soft.stock.db.service;
+
+import com.mahe.soft.stock.common.CandleSeries;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded LRU cache of full per-symbol price histories as {@link CandleSeries}
+ * (44 bytes per bar), sized by {@code stock.cache.max-mb}. Range requests are
+ * served by slicing the cached series.
+ *
+ * Writers call {@link #invalidate(Collection)} for the symbols they touched.
+ * Inside a transaction the entries are dropped after commit, and every
+ * invalidation bumps an epoch so a load that raced with a write is not cached.
+ * Hit, miss and eviction counts are published as {@code cache.*} metrics
+ * ({@code cache=stock-series}) under {@code /actuator/metrics}.
+ */
+@Component
+@Log4j2
+public class StockSeriesCache implements MeterBinder {
+
+    static final String CACHE_NAME = "stock-series";
+    // Object headers, array headers and the map node, roughly
+    static final long ENTRY_OVERHEAD_BYTES = 256;
+    private static final long BYTES_PER_BAR = Integer.BYTES + 5 * Double.BYTES;
+
+    @Value("${stock.cache.max-mb:256}")
+    private long maxMb = 256;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CandleSeries> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+    private long epoch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Returns the cached history of {@code symbol}, loading it with
+     * {@code loader} (outside the lock) on a miss.
+     */
+    public CandleSeries get(String symbol, Function<String, CandleSeries> loader) {
+        CandleSeries cached = getIfPresent(symbol);
+        if (cached != null) {
+            return cached;
+        }
+        long loadEpoch = epoch();
+        CandleSeries loaded = loader.apply(symbol);
+        put(symbol, loaded, loadEpoch);
+        return loaded;
+    }
+
+    /**
+     * Counts a hit or a miss but never loads.
+     */
+    public synchronized CandleSeries getIfPresent(String symbol) {
+        CandleSeries cached = entries.get(symbol);
+        (cached != null ? hits : misses).increment();
+        return cached;
+    }
+
+    /**
+     * @return a token to pass to {@link #put} for a load started now.
+     */
+    public synchronized long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Caches a full history loaded since {@code loadEpoch}. Ignored if any
+     * symbol was invalidated in the meantime or the series alone exceeds the
+     * budget.
+     */
+    public synchronized void put(String symbol, CandleSeries series, long loadEpoch) {
+        long size = sizeOf(series);
+        if (loadEpoch != epoch || size > maxBytes()) {
+            return;
+        }
+        CandleSeries previous = entries.put(symbol, series);
+        bytes += size - (previous != null ? sizeOf(previous) : 0);
+        var it = entries.entrySet().iterator();
+        while (bytes > maxBytes() && it.hasNext()) {
+            Map.Entry<String, CandleSeries> eldest = it.next();
+            if (eldest.getKey().equals(symbol)) {
+                continue;
+            }
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Drops {@code symbols}; deferred to after commit when called inside a
+     * transaction, since until then readers still see the old rows.
+     */
+    public void invalidate(Collection<String> symbols) {
+        if (symbols.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(symbols);
+                }
+            });
+        } else {
+            remove(symbols);
+        }
+    }
+
+    private synchronized void remove(Collection<String> symbols) {
+        epoch++;
+        for (String symbol : symbols) {
+            CandleSeries removed = entries.remove(symbol);
+            if (removed != null) {
+                bytes -= sizeOf(removed);
+                invalidations.increment();
+            }
+        }
+        log.debug("Invalidated {} cached series", symbols.size());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum).tag("cache", CACHE_NAME).tag("result", "hit")
+                .description("Series served from the cache").register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum).tag("cache", CACHE_NAME).tag("result", "miss")
+                .description("Series loaded from the database").register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum).tag("cache", CACHE_NAME)
+                .description("Series evicted to stay within the memory budget").register(registry);
+        FunctionCounter.builder("cache.invalidations", invalidations, LongAdder::sum).tag("cache", CACHE_NAME)
+                .description("Series dropped because their rows changed").register(registry);
+        Gauge.builder("cache.size", this, StockSeriesCache::size).tag("cache", CACHE_NAME)
+                .description("Cached series").register(registry);
+        Gauge.builder("cache.bytes", this, StockSeriesCache::getBytes).tag("cache", CACHE_NAME)
+                .baseUnit("bytes").description("Estimated heap held by cached series").register(registry);
+    }
+
+    private long maxBytes() {
+        return maxMb << 20;
+    }
+
+    private static long sizeOf(CandleSeries series) {
+        return ENTRY_OVERHEAD_BYTES + series.size() * BYTES_PER_BAR;
+    }
+}
@@ -1,15 +1,30 @@
 package com.mahe.soft.stock.db.service;
 
+import com.mahe.soft.stock.common.CandleSeries;
+import com.mahe.soft.stock.common.CandleSeriesCodec;
 import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.ingest.DailyPriceCsvParser;
+import com.mahe.soft.stock.db.ingest.StockPriceBulkWriter;
 import com.mahe.soft.stock.db.repository.StockPriceRepository;
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.csv.CSVFormat;
@@ -24,28 +39,283 @@ import org.springframework.web.multipart.MultipartFile;
 @Log4j2
 public class StockService {
 
+    static final int MAX_SYMBOLS_PER_QUERY = 1000;
+    private static final int PRICE_SCALE = 4;
+
     private final StockPriceRepository stockPriceRepository;
+    private final StockPriceBulkWriter bulkWriter;
+    private final StockSeriesCache seriesCache;
+    private final SymbolSummaryService summaryService;
 
+    /**
+     * Served from {@link StockSeriesCache}: a miss loads the symbol's full
+     * history once and later ranges are sliced from it.
+     */
     public List<StockPrice> getStockPrices(String symbol, LocalDate startDate, LocalDate endDate) {
-        if (startDate != null && endDate != null) {
-            return stockPriceRepository.findBySymbolAndTradeDateBetweenOrderByTradeDateAsc(symbol, startDate, endDate);
+        List<StockPrice> prices = new ArrayList<>();
+        forEachBar(getCandleSeries(symbol, startDate, endDate), prices::add);
+        return prices;
+    }
+
+    /**
+     * Streams prices oldest first into {@code sink} without materialising the
+     * result: rows are fetched in batches as unmanaged objects, so heap use does
+     * not grow with the history length. The sink runs inside the read-only
+     * transaction and should not block for long. A cached series is replayed
+     * instead; a miss is not loaded into the cache.
+     *
+     * @return number of rows streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamStockPrices(String symbol, LocalDate startDate, LocalDate endDate, Consumer<StockPrice> sink) {
+        CandleSeries cached = seriesCache.getIfPresent(symbol);
+        if (cached != null) {
+            return forEachBar(slice(cached, startDate, endDate), sink);
+        }
+        long count = 0;
+        try (Stream<StockPrice> rows = startDate != null && endDate != null
+                ? stockPriceRepository.streamBySymbolAndTradeDateBetween(symbol, startDate, endDate)
+                : stockPriceRepository.streamBySymbol(symbol)) {
+            Iterator<StockPrice> it = rows.iterator();
+            while (it.hasNext()) {
+                sink.accept(it.next());
+                count++;
+            }
         }
-        return stockPriceRepository.findBySymbolOrderByTradeDateAsc(symbol);
+        return count;
     }
 
-    @Transactional
+    /**
+     * Streams prices for several symbols ordered by (symbol, trade date), so each
+     * symbol's rows arrive as one contiguous, date-ordered group. Cached symbols
+     * are replayed from {@link StockSeriesCache}; the rest are de-duplicated and
+     * queried in sorted chunks of {@value #MAX_SYMBOLS_PER_QUERY}, which keeps
+     * the global order intact.
+     *
+     * @return number of rows streamed
+     */
+    @Transactional(readOnly = true)
+    public long streamStockPricesBatch(Collection<String> symbols, LocalDate startDate, LocalDate endDate,
+            Consumer<StockPrice> sink) {
+        long[] count = { 0 };
+        Consumer<StockPrice> counting = price -> {
+            sink.accept(price);
+            count[0]++;
+        };
+        Deque<CandleSeries> hits = new ArrayDeque<>();
+        List<String> misses = partition(symbols, hits);
+        String[] current = { null };
+        streamMisses(misses, startDate, endDate, price -> {
+            if (!price.getSymbol().equals(current[0])) {
+                current[0] = price.getSymbol();
+                replayHitsBefore(hits, current[0], series -> forEachBar(slice(series, startDate, endDate), counting));
+            }
+            counting.accept(price);
+        });
+        replayHitsBefore(hits, null, series -> forEachBar(slice(series, startDate, endDate), counting));
+        return count[0];
+    }
+
+    /**
+     * Batch variant of {@link #getCandleSeries}: hands one series per symbol that
+     * has data to {@code sink}, in symbol order. Symbols missing from
+     * {@link StockSeriesCache} are loaded with their full history and cached,
+     * holding only the current symbol's columns besides the cache.
+     */
+    @Transactional(readOnly = true)
+    public void streamCandleSeriesBatch(Collection<String> symbols, LocalDate startDate, LocalDate endDate,
+            Consumer<CandleSeries> sink) {
+        Consumer<CandleSeries> slicing = series -> {
+            CandleSeries sliced = slice(series, startDate, endDate);
+            if (!sliced.isEmpty()) {
+                sink.accept(sliced);
+            }
+        };
+        Deque<CandleSeries> hits = new ArrayDeque<>();
+        List<String> misses = partition(symbols, hits);
+        long loadEpoch = seriesCache.epoch();
+        CandleSeries.Builder[] current = { null };
+        Consumer<CandleSeries.Builder> finish = builder -> {
+            CandleSeries series = builder.build();
+            seriesCache.put(series.getSymbol(), series, loadEpoch);
+            replayHitsBefore(hits, series.getSymbol(), slicing);
+            slicing.accept(series);
+        };
+        streamMisses(misses, null, null, price -> {
+            if (current[0] == null || !current[0].getSymbol().equals(price.getSymbol())) {
+                if (current[0] != null) {
+                    finish.accept(current[0]);
+                }
+                current[0] = CandleSeries.builder(price.getSymbol(), 256);
+            }
+            addBar(current[0], price);
+        });
+        if (current[0] != null) {
+            finish.accept(current[0]);
+        }
+        replayHitsBefore(hits, null, slicing);
+    }
+
+    /**
+     * Columnar view for the binary {@link CandleSeriesCodec} format, served from
+     * {@link StockSeriesCache}.
+     */
+    public CandleSeries getCandleSeries(String symbol, LocalDate startDate, LocalDate endDate) {
+        return slice(seriesCache.get(symbol, this::loadCandleSeries), startDate, endDate);
+    }
+
+    private CandleSeries loadCandleSeries(String symbol) {
+        List<StockPrice> rows = stockPriceRepository.findBySymbolOrderByTradeDateAsc(symbol);
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, rows.size());
+        rows.forEach(price -> addBar(builder, price));
+        return builder.build();
+    }
+
+    private static CandleSeries slice(CandleSeries series, LocalDate startDate, LocalDate endDate) {
+        return startDate != null && endDate != null ? series.between(startDate, endDate) : series;
+    }
+
+    /**
+     * Splits sorted, distinct {@code symbols} into cached series (appended to
+     * {@code hits}) and the symbols still to be queried.
+     */
+    private List<String> partition(Collection<String> symbols, Deque<CandleSeries> hits) {
+        List<String> misses = new ArrayList<>();
+        symbols.stream().filter(Objects::nonNull).distinct().sorted().forEach(symbol -> {
+            CandleSeries cached = seriesCache.getIfPresent(symbol);
+            if (cached != null) {
+                hits.add(cached);
+            } else {
+                misses.add(symbol);
+            }
+        });
+        return misses;
+    }
+
+    /**
+     * Hands cached series ordered before {@code symbol} (all if null) to {@code sink}.
+     */
+    private static void replayHitsBefore(Deque<CandleSeries> hits, String symbol, Consumer<CandleSeries> sink) {
+        while (!hits.isEmpty() && (symbol == null || hits.peekFirst().getSymbol().compareTo(symbol) < 0)) {
+            sink.accept(hits.pollFirst());
+        }
+    }
+
+    private void streamMisses(List<String> sorted, LocalDate startDate, LocalDate endDate,
+            Consumer<StockPrice> sink) {
+        for (int from = 0; from < sorted.size(); from += MAX_SYMBOLS_PER_QUERY) {
+            List<String> chunk = sorted.subList(from, Math.min(from + MAX_SYMBOLS_PER_QUERY, sorted.size()));
+            try (Stream<StockPrice> rows = startDate != null && endDate != null
+                    ? stockPriceRepository.streamBySymbolInAndTradeDateBetween(chunk, startDate, endDate)
+                    : stockPriceRepository.streamBySymbolIn(chunk)) {
+                Iterator<StockPrice> it = rows.iterator();
+                while (it.hasNext()) {
+                    sink.accept(it.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of bars handed to {@code sink} as unmanaged rows
+     */
+    private static long forEachBar(CandleSeries series, Consumer<StockPrice> sink) {
+        int[] days = series.getEpochDays();
+        for (int i = 0; i < days.length; i++) {
+            sink.accept(new StockPrice(series.getSymbol(), LocalDate.ofEpochDay(days[i]),
+                    price(series.getOpen()[i]), price(series.getHigh()[i]), price(series.getLow()[i]),
+                    price(series.getClose()[i]), (long) series.getVolume()[i]));
+        }
+        return days.length;
+    }
+
+    // Columns are DECIMAL(19,4), so the double round-trips exactly at that scale
+    private static BigDecimal price(double value) {
+        return BigDecimal.valueOf(value).setScale(PRICE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static void addBar(CandleSeries.Builder builder, StockPrice price) {
+        builder.add(price.getTradeDate(),
+                price.getOpenPrice().doubleValue(),
+                price.getHighPrice().doubleValue(),
+                price.getLowPrice().doubleValue(),
+                price.getClosePrice().doubleValue(),
+                price.getVolume() != null ? price.getVolume() : 0);
+    }
+
+    // Not @Transactional: the bulk writer commits in chunks
     public int saveFromCsv(MultipartFile file) {
-        try (Reader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            return saveFromReader(reader);
+        try (InputStream in = file.getInputStream()) {
+            return saveFromStream(in);
         } catch (Exception e) {
             log.error("Fail to parse CSV file: " + e.getMessage());
             throw new RuntimeException("Fail to parse CSV file: " + e.getMessage());
         }
     }
 
-    @Transactional
+    /**
+     * Streams rows into {@link StockPriceBulkWriter}, which upserts and commits
+     * them in chunks. Memory use is bounded by one chunk; on failure, chunks
+     * already committed stay in place (re-running the file is idempotent).
+     */
     public int saveFromReader(Reader reader) {
-        List<StockPrice> stockPrices = new ArrayList<>();
+        try (StockPriceBulkWriter.Session session = bulkWriter.openSession()) {
+            int count = parseCsv(reader, session::add);
+            session.commit();
+            log.info("Saved {} records ({} rows/sec)", count, String.format("%.0f", session.getRowsPerSecond()));
+            return count;
+        }
+    }
+
+    /**
+     * Byte-stream variant of {@link #saveFromReader(Reader)}; takes the fast
+     * parser path when the layout allows it.
+     */
+    public int saveFromStream(InputStream in) {
+        try (StockPriceBulkWriter.Session session = bulkWriter.openSession()) {
+            int count = parseCsv(in, session::add);
+            session.commit();
+            log.info("Saved {} records ({} rows/sec)", count, String.format("%.0f", session.getRowsPerSecond()));
+            return count;
+        }
+    }
+
+    /**
+     * Parses UTF-8 CSV bytes. The standard daily price layout goes through
+     * {@link DailyPriceCsvParser}; any other header falls back to
+     * {@link #parseCsv(Reader, Consumer)}. Error handling is the same on both paths.
+     *
+     * @return number of rows passed to the sink
+     */
+    public int parseCsv(InputStream in, Consumer<StockPrice> sink) {
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        DailyPriceCsvParser fastParser;
+        try {
+            fastParser = DailyPriceCsvParser.detect(buffered);
+        } catch (IOException e) {
+            log.error("Fail to parse CSV content: " + e.getMessage());
+            throw new RuntimeException("Fail to parse CSV content: " + e.getMessage());
+        }
+        if (fastParser == null) {
+            return parseCsv(new BufferedReader(new InputStreamReader(buffered, StandardCharsets.UTF_8)), sink);
+        }
+        try {
+            return fastParser.parse(buffered, sink);
+        } catch (IOException e) {
+            log.error("Fail to parse CSV content: " + e.getMessage());
+            throw new RuntimeException("Fail to parse CSV content: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a price CSV (comma or tab separated, header required) and hands
+     * each valid row to {@code sink}. Malformed records are logged and skipped;
+     * an exception thrown by the sink aborts the file.
+     *
+     * @return number of rows passed to the sink
+     */
+    public int parseCsv(Reader reader, Consumer<StockPrice> sink) {
+        int count = 0;
         // Format: d-MMM-yyyy, d-MMM-yy, yyyy-MM-dd
         // Note: Put longer patterns first to avoid partial matching (e.g. 2012 matching
         // yy=20)
@@ -84,8 +354,8 @@ public class StockService {
 
             try (CSVParser csvParser = new CSVParser(bufferedReader, format)) {
                 for (CSVRecord csvRecord : csvParser) {
+                    StockPrice stockPrice = new StockPrice();
                     try {
-                        StockPrice stockPrice = new StockPrice();
                         // Support various header names (Case insensitive handling by parser helps, but
                         // mapping checks needed)
 
@@ -131,16 +401,15 @@ public class StockService {
                         stockPrice.setLowPrice(new BigDecimal(getVal(csvRecord, "Low", "low")));
                         stockPrice.setClosePrice(new BigDecimal(getVal(csvRecord, "Close", "close")));
                         stockPrice.setVolume(Long.parseLong(getVal(csvRecord, "Volume", "volume")));
-
-                        stockPrices.add(stockPrice);
                     } catch (Exception e) {
                         log.error("Error parsing record in bulk import: {}", csvRecord, e);
+                        continue;
                     }
+                    sink.accept(stockPrice);
+                    count++;
                 }
             }
-            stockPriceRepository.saveAll(stockPrices);
-            log.info("Saved {} records", stockPrices.size());
-            return stockPrices.size();
+            return count;
 
         } catch (Exception e) {
             log.error("Fail to parse CSV content: " + e.getMessage());
@@ -159,5 +428,7 @@ public class StockService {
     @Transactional
     public void deleteBySymbol(String symbol) {
         stockPriceRepository.deleteBySymbol(symbol);
+        summaryService.delete(symbol);
+        seriesCache.invalidate(List.of(symbol));
     }
 }
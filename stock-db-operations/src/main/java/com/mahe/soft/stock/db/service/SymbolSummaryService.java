@@ -0,0 +1,218 @@
+package com.mahe.soft.stock.db.service;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.entity.SymbolSummary;
+import com.mahe.soft.stock.db.repository.SymbolSummaryRepository;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Maintains {@code symbol_summary} incrementally as prices are written.
+ *
+ * {@link #record(List)} runs in the writer's transaction and folds each batch
+ * into the summary rows with one upsert. Appending bars after a symbol's last
+ * date (the usual daily ingest) merges exactly. A batch that overlaps
+ * existing dates (re-ingest, backfill) marks the row with
+ * {@code row_count = -1}; those symbols are recomputed from
+ * {@code stock_prices} after commit, outside any writer transaction, because
+ * the recompute reads price rows that concurrent writers may hold locked.
+ */
+@Service
+@RequiredArgsConstructor
+@Log4j2
+public class SymbolSummaryService {
+
+    private static final String COLUMNS = "symbol, first_trade_date, last_trade_date, row_count, latest_close, "
+            + "volume_sum, all_time_high, all_time_low";
+
+    // Assignments run left to right, so row_count and latest_close still see the old last_trade_date.
+    // A row marked stale (row_count < 0) stays marked until recomputed, even if later batches only append.
+    static final String MERGE_SQL = "INSERT INTO symbol_summary (" + COLUMNS + ") VALUES (?,?,?,?,?,?,?,?) "
+            + "ON DUPLICATE KEY UPDATE "
+            + "row_count = IF(row_count >= 0 AND VALUES(first_trade_date) > last_trade_date, "
+            + "row_count + VALUES(row_count), -1), "
+            + "volume_sum = volume_sum + VALUES(volume_sum), "
+            + "latest_close = IF(VALUES(last_trade_date) >= last_trade_date, VALUES(latest_close), latest_close), "
+            + "first_trade_date = LEAST(first_trade_date, VALUES(first_trade_date)), "
+            + "last_trade_date = GREATEST(last_trade_date, VALUES(last_trade_date)), "
+            + "all_time_high = GREATEST(all_time_high, VALUES(all_time_high)), "
+            + "all_time_low = LEAST(all_time_low, VALUES(all_time_low))";
+
+    private static final String AGGREGATE_SELECT = "SELECT p.symbol, MIN(p.trade_date), MAX(p.trade_date), "
+            + "COUNT(*), (SELECT l.close_price FROM stock_prices l WHERE l.symbol = p.symbol "
+            + "ORDER BY l.trade_date DESC LIMIT 1), "
+            + "COALESCE(SUM(p.volume), 0), MAX(p.high_price), MIN(p.low_price) FROM stock_prices p ";
+
+    private static final String RECOMPUTE_SUFFIX = " GROUP BY p.symbol ON DUPLICATE KEY UPDATE "
+            + "first_trade_date = VALUES(first_trade_date), last_trade_date = VALUES(last_trade_date), "
+            + "row_count = VALUES(row_count), latest_close = VALUES(latest_close), volume_sum = VALUES(volume_sum), "
+            + "all_time_high = VALUES(all_time_high), all_time_low = VALUES(all_time_low)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SymbolSummaryRepository summaryRepository;
+
+    static final int RECOMPUTE_CHUNK = 500;
+
+    /**
+     * Folds freshly upserted rows into the summary; call inside the transaction
+     * that wrote them.
+     *
+     * @return symbols the batch overlapped; pass them to {@link #recompute}
+     *         once the transaction has committed
+     */
+    public List<String> record(List<StockPrice> rows) {
+        Map<String, BatchAggregate> bySymbol = new TreeMap<>(); // sorted: consistent lock order
+        for (StockPrice row : rows) {
+            bySymbol.computeIfAbsent(row.getSymbol(), k -> new BatchAggregate()).add(row);
+        }
+        if (bySymbol.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> args = new ArrayList<>(bySymbol.size());
+        bySymbol.forEach((symbol, agg) -> args.add(new Object[] { symbol, Date.valueOf(agg.first),
+                Date.valueOf(agg.last), agg.count, agg.latestClose, agg.volumeSum, agg.high, agg.low }));
+        jdbcTemplate.batchUpdate(MERGE_SQL, args);
+
+        return jdbcTemplate.queryForList("SELECT symbol FROM symbol_summary WHERE row_count < 0 "
+                + "AND symbol IN (" + placeholders(bySymbol.size()) + ")", String.class, bySymbol.keySet().toArray());
+    }
+
+    /**
+     * Recomputes the given symbols from {@code stock_prices} (primary-key range
+     * scans, one per symbol), {@value #RECOMPUTE_CHUNK} symbols per statement.
+     * Must not run inside a price-writing transaction.
+     */
+    public void recompute(Collection<String> symbols) {
+        List<String> sorted = new ArrayList<>(new TreeSet<>(symbols));
+        for (int from = 0; from < sorted.size(); from += RECOMPUTE_CHUNK) {
+            List<String> chunk = sorted.subList(from, Math.min(from + RECOMPUTE_CHUNK, sorted.size()));
+            jdbcTemplate.update("INSERT INTO symbol_summary (" + COLUMNS + ") " + AGGREGATE_SELECT
+                    + "WHERE p.symbol IN (" + placeholders(chunk.size()) + ")" + RECOMPUTE_SUFFIX, chunk.toArray());
+        }
+        if (!sorted.isEmpty()) {
+            log.debug("Recomputed summary of {} symbols", sorted.size());
+        }
+    }
+
+    /**
+     * Recomputes every row still marked by an overlapping batch, including
+     * marks left by an earlier run that stopped before its recompute.
+     *
+     * @return number of symbols recomputed
+     */
+    public int recomputeStale() {
+        List<String> stale = jdbcTemplate.queryForList("SELECT symbol FROM symbol_summary WHERE row_count < 0",
+                String.class);
+        recompute(stale);
+        return stale.size();
+    }
+
+    /**
+     * Rebuilds the whole table with one aggregate scan of {@code stock_prices}.
+     */
+    @Transactional
+    public int rebuild() {
+        long t0 = System.nanoTime();
+        jdbcTemplate.update("DELETE FROM symbol_summary");
+        int symbols = jdbcTemplate.update("INSERT INTO symbol_summary (" + COLUMNS + ") " + AGGREGATE_SELECT
+                + RECOMPUTE_SUFFIX);
+        log.info("Rebuilt symbol summary for {} symbols in {} ms", symbols, (System.nanoTime() - t0) / 1_000_000);
+        return symbols;
+    }
+
+    /**
+     * Populates the table on first start against an existing price table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (summaryRepository.count() == 0
+                    && !jdbcTemplate.queryForList("SELECT 1 FROM stock_prices LIMIT 1").isEmpty()) {
+                log.info("Symbol summary is empty; building it from stock_prices");
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Failed to initialize symbol summary", e);
+        }
+    }
+
+    /**
+     * @return last stored trade date per symbol (incremental ingest watermarks)
+     */
+    public Map<String, LocalDate> getWatermarks() {
+        Map<String, LocalDate> watermarks = new HashMap<>();
+        jdbcTemplate.query("SELECT symbol, last_trade_date FROM symbol_summary",
+                (RowCallbackHandler) rs -> watermarks.put(rs.getString(1), rs.getDate(2).toLocalDate()));
+        return watermarks;
+    }
+
+    public void delete(String symbol) {
+        summaryRepository.deleteById(symbol);
+    }
+
+    public List<SymbolSummary> findUniverse(BigDecimal minClose, BigDecimal maxClose, Double minAvgVolume,
+            Long minRows, LocalDate activeSince) {
+        return summaryRepository.findUniverse(minClose, maxClose, minAvgVolume, minRows, activeSince);
+    }
+
+    public SymbolSummary getSummary(String symbol) {
+        return summaryRepository.findById(symbol).orElse(null);
+    }
+
+    private static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    /**
+     * Summary of one symbol's rows within a batch.
+     */
+    private static final class BatchAggregate {
+        private LocalDate first;
+        private LocalDate last;
+        private long count;
+        private BigDecimal latestClose;
+        private long volumeSum;
+        private BigDecimal high;
+        private BigDecimal low;
+
+        void add(StockPrice row) {
+            LocalDate date = row.getTradeDate();
+            if (first == null || date.isBefore(first)) {
+                first = date;
+            }
+            if (last == null || !date.isBefore(last)) {
+                last = date;
+                latestClose = row.getClosePrice();
+            }
+            count++;
+            volumeSum += row.getVolume() != null ? row.getVolume() : 0;
+            high = max(high, row.getHighPrice());
+            low = min(low, row.getLowPrice());
+        }
+
+        private static BigDecimal max(BigDecimal a, BigDecimal b) {
+            return a == null ? b : b == null ? a : a.max(b);
+        }
+
+        private static BigDecimal min(BigDecimal a, BigDecimal b) {
+            return a == null ? b : b == null ? a : a.min(b);
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package com.mahe.soft.stock.db.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import com.mahe.soft.stock.common.CandleSeries;
+import com.mahe.soft.stock.common.CandleSeriesCodec;
+import com.mahe.soft.stock.db.entity.StockPrice;
 import com.mahe.soft.stock.db.service.StockService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(StockController.class)
 class StockControllerTest {
@@ -32,6 +45,112 @@ class StockControllerTest {
                 .andExpect(content().json("[]"));
     }
 
+    @Test
+    void testStreamStockPrices() throws Exception {
+        when(stockService.streamStockPrices(eq("AAPL"), any(), any(), any())).thenAnswer(inv -> {
+            Consumer<StockPrice> sink = inv.getArgument(3);
+            sink.accept(new StockPrice("AAPL", LocalDate.of(2024, 1, 2), BigDecimal.ONE, BigDecimal.TEN,
+                    BigDecimal.ONE, BigDecimal.TEN, 100L));
+            sink.accept(new StockPrice("AAPL", LocalDate.of(2024, 1, 3), BigDecimal.TEN, BigDecimal.TEN,
+                    BigDecimal.ONE, BigDecimal.ONE, 200L));
+            return 2L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/api/stocks/AAPL/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"tradeDate\":\"2024-01-02\""));
+        assertTrue(lines[1].contains("\"volume\":200"));
+    }
+
+    @Test
+    void testGetCandleSeries() throws Exception {
+        CandleSeries series = CandleSeries.builder("AAPL", 2)
+                .add(LocalDate.of(2024, 1, 2), 1, 2, 0.5, 1.5, 100)
+                .build();
+        when(stockService.getCandleSeries(eq("AAPL"), any(), any())).thenReturn(series);
+
+        byte[] body = mockMvc.perform(get("/api/stocks/AAPL").param("gzip", "true")
+                        .accept(CandleSeriesCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CandleSeriesCodec.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        CandleSeries decoded = CandleSeriesCodec.decode(body);
+        assertEquals(1, decoded.size());
+        assertEquals(1.5, decoded.getClose()[0]);
+    }
+
+    @Test
+    void testGetStockPricesBatch() throws Exception {
+        when(stockService.streamStockPricesBatch(eq(List.of("MSFT", "AAPL")), eq(LocalDate.of(2024, 1, 1)),
+                eq(LocalDate.of(2024, 12, 31)), any())).thenAnswer(inv -> {
+                    Consumer<StockPrice> sink = inv.getArgument(3);
+                    sink.accept(new StockPrice("AAPL", LocalDate.of(2024, 1, 2), BigDecimal.ONE, BigDecimal.ONE,
+                            BigDecimal.ONE, BigDecimal.ONE, 1L));
+                    sink.accept(new StockPrice("MSFT", LocalDate.of(2024, 1, 2), BigDecimal.TEN, BigDecimal.TEN,
+                            BigDecimal.TEN, BigDecimal.TEN, 2L));
+                    return 2L;
+                });
+
+        MvcResult result = mockMvc.perform(post("/api/stocks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson")
+                        .content("""
+                                {"symbols": ["MSFT", "AAPL"], "startDate": "2024-01-01", "endDate": "2024-12-31"}
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"symbol\":\"AAPL\""));
+        assertTrue(lines[1].contains("\"symbol\":\"MSFT\""));
+    }
+
+    @Test
+    void testGetCandleSeriesBatch() throws Exception {
+        doAnswer(inv -> {
+            Consumer<CandleSeries> sink = inv.getArgument(3);
+            sink.accept(CandleSeries.builder("AAPL", 1).add(LocalDate.of(2024, 1, 2), 1, 1, 1, 1, 1).build());
+            sink.accept(CandleSeries.builder("MSFT", 1).add(LocalDate.of(2024, 1, 2), 2, 2, 2, 2, 2).build());
+            return null;
+        }).when(stockService).streamCandleSeriesBatch(eq(List.of("AAPL", "MSFT")), any(), any(), any());
+
+        MvcResult result = mockMvc.perform(post("/api/stocks/batch").param("gzip", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(CandleSeriesCodec.MEDIA_TYPE)
+                        .content("{\"symbols\": [\"AAPL\", \"MSFT\"]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        List<CandleSeries> frames = CandleSeriesCodec.readAll(new java.io.ByteArrayInputStream(body));
+        assertEquals(2, frames.size());
+        assertEquals("MSFT", frames.get(1).getSymbol());
+        assertEquals(2.0, frames.get(1).getClose()[0]);
+    }
+
+    @Test
+    void testGetStockPricesBatch_RequiresSymbols() throws Exception {
+        mockMvc.perform(post("/api/stocks/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson")
+                        .content("{\"symbols\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testUploadCsvFile() throws Exception {
         MockMultipartFile file = new MockMultipartFile("file", "test.csv", "text/csv", "Symbol,Date\nAAPL,2023-01-01".getBytes());
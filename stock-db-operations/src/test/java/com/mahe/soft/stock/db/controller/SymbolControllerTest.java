@@ -0,0 +1,58 @@
+package com.mahe.soft.stock.db.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.mahe.soft.stock.db.entity.SymbolSummary;
+import com.mahe.soft.stock.db.service.SymbolSummaryService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+@WebMvcTest(SymbolController.class)
+class SymbolControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SymbolSummaryService summaryService;
+
+    @Test
+    void testGetUniverse() throws Exception {
+        SymbolSummary summary = new SymbolSummary("AAPL", LocalDate.of(2000, 1, 3), LocalDate.of(2024, 1, 2), 4,
+                new BigDecimal("185.6400"), 400, new BigDecimal("199.6200"), new BigDecimal("0.2000"));
+        when(summaryService.findUniverse(new BigDecimal("50"), null, 1000.0, 250L, null))
+                .thenReturn(List.of(summary));
+
+        mockMvc.perform(get("/api/symbols").param("minClose", "50").param("minAvgVolume", "1000")
+                        .param("minRows", "250"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].symbol").value("AAPL"))
+                .andExpect(jsonPath("$[0].avgVolume").value(100.0))
+                .andExpect(jsonPath("$[0].volumeSum").doesNotExist());
+    }
+
+    @Test
+    void testGetSummary_NotFound() throws Exception {
+        when(summaryService.getSummary("NONE")).thenReturn(null);
+
+        mockMvc.perform(get("/api/symbols/NONE"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testRebuild() throws Exception {
+        when(summaryService.rebuild()).thenReturn(42);
+
+        mockMvc.perform(post("/api/symbols/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Rebuilt summaries for 42 symbols."));
+    }
+}
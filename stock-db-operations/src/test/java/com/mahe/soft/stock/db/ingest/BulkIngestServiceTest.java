@@ -1,21 +1,41 @@
 package com.mahe.soft.stock.db.ingest;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
+import com.mahe.soft.stock.db.entity.StockPrice;
 import com.mahe.soft.stock.db.service.StockService;
+import com.mahe.soft.stock.db.service.SymbolSummaryService;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 
 @ExtendWith(MockitoExtension.class)
 class BulkIngestServiceTest {
@@ -23,9 +43,18 @@ class BulkIngestServiceTest {
     @Mock
     private StockService stockService;
 
+    @Mock
+    private StockPriceBulkWriter bulkWriter;
+
+    @Mock
+    private SymbolSummaryService summaryService;
+
     @InjectMocks
     private BulkIngestService bulkIngestService;
 
+    @Captor
+    private ArgumentCaptor<List<StockPrice>> written;
+
     @TempDir
     Path tempDir;
 
@@ -40,13 +69,226 @@ class BulkIngestServiceTest {
             zos.closeEntry();
         }
 
-        when(stockService.saveFromReader(any())).thenReturn(1);
+        stubParser(1);
 
         String result = bulkIngestService.processBulkIngestion(tempDir.toString());
 
         assertTrue(result.contains("Processed 1 files"));
         assertTrue(result.contains("total 1 records"));
-        verify(stockService, atLeastOnce()).saveFromReader(any());
+        verify(stockService, atLeastOnce()).parseCsv(any(InputStream.class), any());
+        verify(bulkWriter).write(anyList(), anyBoolean());
+    }
+
+    @Test
+    void testProcessBulkIngestion_BatchesAcrossWorkers() throws IOException {
+        Path zipPath = tempDir.resolve("many.zip");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
+            for (int i = 0; i < 6; i++) {
+                zos.putNextEntry(new ZipEntry("data" + i + ".csv"));
+                zos.write("Symbol,Date\n".getBytes());
+                zos.closeEntry();
+            }
+        }
+        ReflectionTestUtils.setField(bulkIngestService, "parserThreads", 3);
+        ReflectionTestUtils.setField(bulkIngestService, "writerThreads", 2);
+        ReflectionTestUtils.setField(bulkIngestService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(bulkIngestService, "batchSize", 4);
+
+        // 10 rows per file -> batches of 4, 4, 2
+        stubParser(10);
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString());
+
+        assertTrue(result.contains("Processed 6 files"));
+        assertTrue(result.contains("total 60 records"));
+        assertTrue(result.contains("Written 60 rows"));
+        // Overlapped summaries are recomputed once, after both writers have finished
+        InOrder order = inOrder(bulkWriter);
+        order.verify(bulkWriter, times(18)).write(anyList(), eq(false));
+        order.verify(bulkWriter).recomputeStaleSummaries();
+    }
+
+    @Test
+    void testProcessBulkIngestion_WriteFailureIsCounted() throws IOException {
+        Path zipPath = tempDir.resolve("test.zip");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipPath.toFile()))) {
+            zos.putNextEntry(new ZipEntry("data.csv"));
+            zos.write("Symbol,Date\n".getBytes());
+            zos.closeEntry();
+        }
+        stubParser(3);
+        doThrow(new RuntimeException("db down")).when(bulkWriter).write(anyList(), anyBoolean());
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString());
+
+        assertTrue(result.contains("Written 0 rows (1 failed batches)"));
+    }
+
+    @Test
+    void testProcessBulkIngestion_StreamsWithoutExtracting() throws IOException {
+        writeZip("test.zip", "data.csv");
+        stubParser(2);
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString());
+
+        assertTrue(result.contains("total 2 records"));
+        assertFalse(Files.exists(tempDir.resolve("unzip")));
+    }
+
+    @Test
+    void testProcessBulkIngestion_ExtractToDisk() throws IOException {
+        writeZip("test.zip", "nested/data.csv");
+        ReflectionTestUtils.setField(bulkIngestService, "extractToDisk", true);
+        stubParser(2);
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString());
+
+        assertTrue(result.contains("total 2 records"));
+        assertTrue(Files.isRegularFile(tempDir.resolve("unzip").resolve("nested").resolve("data.csv")));
+    }
+
+    @Test
+    void testProcessBulkIngestion_SplitsLargeRootCsv() throws IOException {
+        StringBuilder csv = new StringBuilder("Symbol\tDate\tOpen\tHigh\tLow\tClose\tVolume\n");
+        for (int i = 0; i < 300; i++) {
+            csv.append("ACU\t2-Jan-12\t9.5\t9.5\t9.5\t9.5\t").append(i).append('\n');
+        }
+        Files.writeString(tempDir.resolve("vendor.csv"), csv);
+        ReflectionTestUtils.setField(bulkIngestService, "parserThreads", 3);
+        ReflectionTestUtils.setField(bulkIngestService, "splitThresholdMb", 0L);
+        ReflectionTestUtils.setField(bulkIngestService, "splitRangeSize", DataSize.ofBytes(2048));
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString());
+
+        assertTrue(result.contains("Processed 1 files"));
+        assertTrue(result.contains("total 300 records"));
+        assertTrue(result.contains("Written 300 rows"));
+        verify(stockService, never()).parseCsv(any(InputStream.class), any());
+    }
+
+    @Test
+    void testIngest_ResumesSplitFileWithDifferentThreadCount() throws Exception {
+        StringBuilder csv = new StringBuilder("Symbol\tDate\tOpen\tHigh\tLow\tClose\tVolume\n");
+        for (int i = 0; i < 300; i++) {
+            csv.append("ACU\t2-Jan-12\t9.5\t9.5\t9.5\t9.5\t").append(i).append('\n');
+        }
+        Files.writeString(tempDir.resolve("vendor.csv"), csv);
+        ReflectionTestUtils.setField(bulkIngestService, "parserThreads", 1);
+        ReflectionTestUtils.setField(bulkIngestService, "splitThresholdMb", 0L);
+        ReflectionTestUtils.setField(bulkIngestService, "splitRangeSize", DataSize.ofBytes(2048));
+        List<String> completed = new CopyOnWriteArrayList<>();
+
+        // The earlier run used more parser threads and committed the first range
+        IngestStats stats = bulkIngestService.ingest(tempDir, false, new IngestRun() {
+            @Override
+            public boolean isCompleted(String source) {
+                return source.startsWith("vendor.csv#1/");
+            }
+
+            @Override
+            public void sourceCompleted(String source) {
+                completed.add(source);
+            }
+        });
+
+        assertFalse(completed.isEmpty());
+        assertTrue(completed.stream().noneMatch(source -> source.startsWith("vendor.csv#1/")));
+        assertEquals(1, stats.getFilesParsed());
+        assertTrue(stats.getRowsParsed() < 300);
+    }
+
+    @Test
+    void testProcessBulkIngestion_IncrementalSkipsStoredAndDuplicateBars() throws IOException {
+        writeZip("a.zip", "data.csv");
+        writeZip("b.zip", "data.csv");
+        when(summaryService.getWatermarks()).thenReturn(Map.of("AAPL", LocalDate.of(2024, 1, 2)));
+        // Both archives hold the same bars
+        when(stockService.parseCsv(any(InputStream.class), any())).thenAnswer(inv -> {
+            Consumer<StockPrice> sink = inv.getArgument(1);
+            sink.accept(bar("AAPL", LocalDate.of(2024, 1, 1)));
+            sink.accept(bar("AAPL", LocalDate.of(2024, 1, 2)));
+            sink.accept(bar("AAPL", LocalDate.of(2024, 1, 3)));
+            sink.accept(bar("MSFT", LocalDate.of(2024, 1, 3)));
+            return 4;
+        });
+        ReflectionTestUtils.setField(bulkIngestService, "parserThreads", 1);
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString(), true);
+
+        assertTrue(result.contains("total 8 records"));
+        // AAPL 2024-01-03 once; MSFT has no watermark, so both copies are written (idempotent upsert)
+        assertTrue(result.contains("Written 3 rows"), result);
+        assertTrue(result.contains("skipped 5 already stored"), result);
+        verify(bulkWriter, atLeastOnce()).write(written.capture(), anyBoolean());
+        assertEquals(1, written.getAllValues().stream().flatMap(List::stream)
+                .filter(row -> row.getSymbol().equals("AAPL")).count());
+    }
+
+    @Test
+    void testProcessBulkIngestion_FullModeIgnoresWatermarks() throws IOException {
+        writeZip("test.zip", "data.csv");
+        stubParser(2);
+
+        String result = bulkIngestService.processBulkIngestion(tempDir.toString(), false);
+
+        assertTrue(result.contains("skipped 0 already stored"));
+        verify(summaryService, never()).getWatermarks();
+    }
+
+    @Test
+    void testIngest_SkipsCheckpointedAndReportsOnlyCommittedSources() throws Exception {
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(tempDir.resolve("t.zip").toFile()))) {
+            for (String symbol : List.of("A", "B", "C")) {
+                zos.putNextEntry(new ZipEntry(symbol.toLowerCase() + ".csv"));
+                zos.write(symbol.getBytes());
+                zos.closeEntry();
+            }
+        }
+        // Each entry holds its symbol; C's batch fails to commit
+        when(stockService.parseCsv(any(InputStream.class), any())).thenAnswer(inv -> {
+            String symbol = new String(inv.<InputStream>getArgument(0).readAllBytes());
+            inv.<Consumer<StockPrice>>getArgument(1).accept(bar(symbol, LocalDate.of(2024, 1, 2)));
+            return 1;
+        });
+        doAnswer(inv -> {
+            if (inv.<List<StockPrice>>getArgument(0).get(0).getSymbol().equals("C")) {
+                throw new RuntimeException("db down");
+            }
+            return null;
+        }).when(bulkWriter).write(anyList(), anyBoolean());
+        List<String> completed = new CopyOnWriteArrayList<>();
+        int[] counts = new int[2];
+
+        IngestStats stats = bulkIngestService.ingest(tempDir, false, new IngestRun() {
+            @Override
+            public boolean isCompleted(String source) {
+                return source.equals("t.zip!a.csv");
+            }
+
+            @Override
+            public void sourceCompleted(String source) {
+                completed.add(source);
+            }
+
+            @Override
+            public void started(IngestPipeline pipeline, int sourcesQueued, int sourcesResumed) {
+                counts[0] = sourcesQueued;
+                counts[1] = sourcesResumed;
+            }
+        });
+
+        assertEquals(List.of("t.zip!b.csv"), completed);
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(1, stats.getBatchesFailed());
+        verify(stockService, times(2)).parseCsv(any(InputStream.class), any());
+    }
+
+    @Test
+    void testPipeline_RejectsInvalidSizes() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> new IngestPipeline(stockService, bulkWriter, 0, 1, 1, 1));
+        assertEquals("Pipeline sizes must be >= 1", ex.getMessage());
     }
 
     @Test
@@ -54,4 +296,26 @@ class BulkIngestServiceTest {
         String result = bulkIngestService.processBulkIngestion("invalid_path_12345");
         assertTrue(result.contains("does not exist"));
     }
+
+    private void stubParser(int rowsPerFile) {
+        when(stockService.parseCsv(any(InputStream.class), any())).thenAnswer(inv -> {
+            Consumer<StockPrice> sink = inv.getArgument(1);
+            for (int i = 0; i < rowsPerFile; i++) {
+                sink.accept(new StockPrice());
+            }
+            return rowsPerFile;
+        });
+    }
+
+    private static StockPrice bar(String symbol, LocalDate date) {
+        return new StockPrice(symbol, date, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE, 1L);
+    }
+
+    private void writeZip(String name, String entryName) throws IOException {
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(tempDir.resolve(name).toFile()))) {
+            zos.putNextEntry(new ZipEntry(entryName));
+            zos.write("Symbol,Date\nAAPL,2023-01-01".getBytes());
+            zos.closeEntry();
+        }
+    }
 }
@@ -0,0 +1,115 @@
+package com.mahe.soft.stock.db.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DailyPriceCsvParserTest {
+
+    @Test
+    void testDetect_KnownAndUnknownLayouts() throws IOException {
+        assertNotNull(detect("Symbol\tDate\tOpen\tHigh\tLow\tClose\tVolume\n"));
+        assertNotNull(detect("﻿symbol, trade_date ,open,high,low,close,volume\r\n"));
+        assertNull(detect("Date,Symbol,Open,High,Low,Close,Volume\n"));
+        assertNull(detect("Symbol,Date,Open,High,Low,Close,Volume,OpenInterest\n"));
+        assertNull(detect("\"Symbol\",\"Date\",\"Open\",\"High\",\"Low\",\"Close\",\"Volume\"\n"));
+    }
+
+    @Test
+    void testParse_MatchesStringParsing() throws IOException {
+        String csv = "Symbol\tDate\tOpen\tHigh\tLow\tClose\tVolume\n"
+                + "ACU\t2-Jan-12\t9.5\t9.50\t-0.25\t1E+1\t0\r\n"
+                + "\n"
+                + "AGG\t2024-02-29\t110.25\t111\t109.125\t110.5\t123456789\n"
+                + "ACU\t15-DEC-2013\t.5\t1.\t0.5\t0.5\t7";
+
+        List<StockPrice> rows = parse(csv);
+
+        assertEquals(3, rows.size());
+        StockPrice first = rows.get(0);
+        assertEquals("ACU", first.getSymbol());
+        assertEquals(LocalDate.of(2012, 1, 2), first.getTradeDate());
+        assertEquals(new BigDecimal("9.5"), first.getOpenPrice());
+        assertEquals(new BigDecimal("9.50"), first.getHighPrice());
+        assertEquals(new BigDecimal("-0.25"), first.getLowPrice());
+        assertEquals(new BigDecimal("1E+1"), first.getClosePrice());
+        assertEquals(0L, first.getVolume());
+
+        assertEquals(LocalDate.of(2024, 2, 29), rows.get(1).getTradeDate());
+        assertEquals(new BigDecimal("109.125"), rows.get(1).getLowPrice());
+        assertEquals(123456789L, rows.get(1).getVolume());
+
+        assertEquals(LocalDate.of(2013, 12, 15), rows.get(2).getTradeDate());
+        assertEquals(new BigDecimal(".5"), rows.get(2).getOpenPrice());
+        assertEquals(new BigDecimal("1."), rows.get(2).getHighPrice());
+        assertSame(first.getSymbol(), rows.get(2).getSymbol());
+    }
+
+    @Test
+    void testParse_SkipsMalformedRows() throws IOException {
+        String csv = "Symbol,Date,Open,High,Low,Close,Volume\n"
+                + "BAD,2-Foo-20,1,1,1,1,1\n"
+                + "BAD,2-Jan-20,x,1,1,1,1\n"
+                + "BAD,2-Jan-20,1,1,1,1\n"
+                + "BAD,2-Jan-20,1,1,1,1,1.5\n"
+                + "OK,2-Jan-20,1,1,1,1,1\n";
+
+        List<StockPrice> rows = parse(csv);
+
+        assertEquals(1, rows.size());
+        assertEquals("OK", rows.get(0).getSymbol());
+    }
+
+    @Test
+    void testParse_LinesSpanningBufferRefills() throws IOException {
+        StringBuilder csv = new StringBuilder("Symbol,Date,Open,High,Low,Close,Volume\n");
+        for (int i = 0; i < 5000; i++) {
+            csv.append("SYM").append(i % 700).append(",2020-01-02,1.25,2.5,1,2,").append(i).append('\n');
+        }
+
+        List<StockPrice> rows = parse(csv.toString());
+
+        assertEquals(5000, rows.size());
+        assertEquals("SYM699", rows.get(4899).getSymbol());
+        assertEquals(4999L, rows.get(4999).getVolume());
+    }
+
+    @Test
+    void testParse_ByteBuffer() {
+        byte[] bytes = "Symbol,Date,Open,High,Low,Close,Volume\nAAPL,2-Jan-20,100.0,105.0,99.0,102.0,1000"
+                .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        List<StockPrice> rows = new ArrayList<>();
+
+        int count = DailyPriceCsvParser.forHeader("Symbol,Date,Open,High,Low,Close,Volume").parse(buffer, rows::add);
+
+        assertEquals(1, count);
+        assertEquals(new BigDecimal("102.0"), rows.get(0).getClosePrice());
+        assertEquals(0, buffer.position());
+    }
+
+    private static DailyPriceCsvParser detect(String content) throws IOException {
+        return DailyPriceCsvParser.detect(new BufferedInputStream(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static List<StockPrice> parse(String content) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+        DailyPriceCsvParser parser = DailyPriceCsvParser.detect(in);
+        assertNotNull(parser);
+        List<StockPrice> rows = new ArrayList<>();
+        assertEquals(parser.parse(in, rows::add), rows.size());
+        return rows;
+    }
+}
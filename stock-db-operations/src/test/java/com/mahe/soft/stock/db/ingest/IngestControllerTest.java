@@ -1,11 +1,14 @@
 package com.mahe.soft.stock.db.ingest;
 
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.mahe.soft.stock.db.entity.IngestJob;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -19,15 +22,74 @@ class IngestControllerTest {
     private MockMvc mockMvc;
 
     @MockitoBean
-    private BulkIngestService bulkIngestService;
+    private IngestJobService ingestJobService;
 
     @Test
     void testTriggerBulkUpload() throws Exception {
-        when(bulkIngestService.processBulkIngestion(anyString())).thenReturn("Success");
+        when(ingestJobService.submit("C:/test", false)).thenReturn(job("job-1", IngestJob.Status.QUEUED));
 
         mockMvc.perform(post("/api/stocks/bulk-upload")
                         .param("rootPath", "C:/test"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void testTriggerBulkUpload_Incremental() throws Exception {
+        when(ingestJobService.submit("C:/test", true)).thenReturn(job("job-2", IngestJob.Status.QUEUED));
+
+        mockMvc.perform(post("/api/stocks/bulk-upload")
+                        .param("rootPath", "C:/test")
+                        .param("incremental", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-2"));
+    }
+
+    @Test
+    void testTriggerBulkUpload_MissingRoot() throws Exception {
+        when(ingestJobService.submit(anyString(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("Root path does not exist or is not a directory: C:/none"));
+
+        mockMvc.perform(post("/api/stocks/bulk-upload")
+                        .param("rootPath", "C:/none"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetJob() throws Exception {
+        IngestJobStatus running = job("job-1", IngestJob.Status.RUNNING);
+        running.setFilesTotal(10);
+        running.setFilesDone(4);
+        running.setEtaSeconds(30L);
+        when(ingestJobService.status("job-1")).thenReturn(running);
+
+        mockMvc.perform(get("/api/stocks/ingest-jobs/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.filesDone").value(4))
+                .andExpect(jsonPath("$.etaSeconds").value(30));
+        mockMvc.perform(get("/api/stocks/ingest-jobs/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCancelJob() throws Exception {
+        when(ingestJobService.cancel("job-1")).thenReturn(job("job-1", IngestJob.Status.CANCELLED));
+
+        mockMvc.perform(post("/api/stocks/ingest-jobs/job-1/cancel"))
                 .andExpect(status().isOk())
-                .andExpect(content().string("Success"));
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
+    }
+
+    @Test
+    void testResumeJob_StillRunning() throws Exception {
+        when(ingestJobService.resume("job-1")).thenThrow(new IllegalStateException("Ingest job job-1 is RUNNING"));
+
+        mockMvc.perform(post("/api/stocks/ingest-jobs/job-1/resume"))
+                .andExpect(status().isConflict());
+    }
+
+    private static IngestJobStatus job(String id, IngestJob.Status status) {
+        return IngestJobStatus.builder().id(id).status(status).rootPath("C:/test").build();
     }
 }
@@ -0,0 +1,277 @@
+package com.mahe.soft.stock.db.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.mahe.soft.stock.db.entity.IngestCheckpoint;
+import com.mahe.soft.stock.db.entity.IngestJob;
+import com.mahe.soft.stock.db.repository.IngestCheckpointRepository;
+import com.mahe.soft.stock.db.repository.IngestJobRepository;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.BeanUtils;
+
+@ExtendWith(MockitoExtension.class)
+class IngestJobServiceTest {
+
+    @Mock
+    private BulkIngestService bulkIngestService;
+
+    @Mock
+    private IngestJobRepository jobRepository;
+
+    @Mock
+    private IngestCheckpointRepository checkpointRepository;
+
+    @InjectMocks
+    private IngestJobService jobService;
+
+    @TempDir
+    Path tempDir;
+
+    // Stands in for the ingest_jobs table; copies so readers never see a job mid-update
+    private final Map<String, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jobRepository.save(any(IngestJob.class))).thenAnswer(inv -> {
+            IngestJob job = inv.getArgument(0);
+            jobs.put(job.getId(), copy(job));
+            return job;
+        });
+        lenient().when(jobRepository.findById(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(jobs.get(inv.<String>getArgument(0))).map(this::copy));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    @Test
+    void testSubmit_RunsToCompletionAndCheckpointsSources() throws Exception {
+        when(bulkIngestService.ingest(any(), anyBoolean(), any())).thenAnswer(inv -> {
+            IngestRun run = inv.getArgument(2);
+            run.started(null, 2, 0);
+            run.sourceCompleted("a.zip!1.csv");
+            run.sourceCompleted("a.zip!2.csv");
+            return IngestStats.builder().filesParsed(2).rowsParsed(10).rowsWritten(10).elapsedMillis(500).build();
+        });
+
+        IngestJobStatus queued = jobService.submit(tempDir.toString(), true);
+        assertEquals(IngestJob.Status.QUEUED, queued.getStatus());
+
+        IngestJobStatus done = awaitFinished(queued.getId());
+        assertEquals(IngestJob.Status.COMPLETED, done.getStatus());
+        assertEquals(2, done.getFilesTotal());
+        assertEquals(2, done.getFilesDone());
+        assertEquals(10, done.getRowsWritten());
+        assertEquals(20.0, done.getRowsPerSecond(), 1e-9);
+        verify(bulkIngestService).ingest(eq(tempDir), eq(true), any());
+
+        ArgumentCaptor<IngestCheckpoint> checkpoints = ArgumentCaptor.forClass(IngestCheckpoint.class);
+        verify(checkpointRepository, times(2)).save(checkpoints.capture());
+        assertEquals(List.of("a.zip!1.csv", "a.zip!2.csv"),
+                checkpoints.getAllValues().stream().map(IngestCheckpoint::getSource).toList());
+        assertTrue(checkpoints.getAllValues().stream().allMatch(c -> c.getJobId().equals(queued.getId())));
+    }
+
+    @Test
+    void testSubmit_RejectsMissingRoot() {
+        assertThrows(IllegalArgumentException.class,
+                () -> jobService.submit(tempDir.resolve("missing").toString(), false));
+        verifyNoInteractions(bulkIngestService);
+    }
+
+    @Test
+    void testResume_SkipsCheckpointedSources() throws Exception {
+        IngestJob failed = job("job-1", IngestJob.Status.FAILED);
+        failed.setRowsWritten(7);
+        failed.setElapsedMillis(100);
+        jobs.put(failed.getId(), failed);
+        when(checkpointRepository.findSourcesByJobId("job-1")).thenReturn(List.of("a.csv"));
+        when(bulkIngestService.ingest(any(), anyBoolean(), any())).thenAnswer(inv -> {
+            IngestRun run = inv.getArgument(2);
+            assertTrue(run.isCompleted("a.csv"));
+            assertTrue(!run.isCompleted("b.csv"));
+            run.started(null, 1, 1);
+            run.sourceCompleted("b.csv");
+            return IngestStats.builder().rowsWritten(3).elapsedMillis(100).build();
+        });
+
+        jobService.resume("job-1");
+
+        IngestJobStatus done = awaitFinished("job-1");
+        assertEquals(IngestJob.Status.COMPLETED, done.getStatus());
+        assertEquals(2, done.getFilesTotal());
+        assertEquals(1, done.getFilesResumed());
+        assertEquals(2, done.getFilesDone());
+        assertEquals(10, done.getRowsWritten()); // accumulated across attempts
+        assertEquals(200, done.getElapsedMillis());
+        assertNull(done.getError());
+    }
+
+    @Test
+    void testResume_RejectsRunningJob() {
+        jobs.put("job-1", job("job-1", IngestJob.Status.RUNNING));
+
+        assertThrows(IllegalStateException.class, () -> jobService.resume("job-1"));
+        assertNull(jobService.resume("unknown"));
+    }
+
+    @Test
+    void testCancel_InterruptsRunningJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(bulkIngestService.ingest(any(), anyBoolean(), any())).thenAnswer(inv -> {
+            started.countDown();
+            new CountDownLatch(1).await(); // blocks like a pipeline until interrupted
+            return null;
+        });
+
+        IngestJobStatus queued = jobService.submit(tempDir.toString(), false);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.cancel(queued.getId());
+
+        assertEquals(IngestJob.Status.CANCELLED, awaitFinished(queued.getId()).getStatus());
+    }
+
+    @Test
+    void testCancelQueuedJob_CanBeResumed() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(bulkIngestService.ingest(any(), anyBoolean(), any())).thenAnswer(inv -> {
+            if (started.getCount() > 0) {
+                started.countDown();
+                release.await(); // keeps the single job thread busy
+            }
+            return IngestStats.builder().build();
+        });
+
+        IngestJobStatus first = jobService.submit(tempDir.toString(), false);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        IngestJobStatus second = jobService.submit(tempDir.toString(), false);
+
+        assertEquals(IngestJob.Status.CANCELLED, jobService.cancel(second.getId()).getStatus());
+        release.countDown();
+        assertEquals(IngestJob.Status.COMPLETED, awaitFinished(first.getId()).getStatus());
+
+        assertEquals(IngestJob.Status.QUEUED, jobService.resume(second.getId()).getStatus());
+        assertEquals(IngestJob.Status.COMPLETED, awaitFinished(second.getId()).getStatus());
+        verify(bulkIngestService, times(2)).ingest(any(), anyBoolean(), any());
+    }
+
+    @Test
+    void testCancel_JobStartedButStillQueuedInTableKeepsItsHandle() throws Exception {
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Holds the job thread after it has started but before RUNNING reaches the table
+        doAnswer(inv -> {
+            IngestJob job = inv.getArgument(0);
+            if (job.getStatus() == IngestJob.Status.RUNNING) {
+                saving.countDown();
+                awaitUninterruptibly(release);
+            }
+            jobs.put(job.getId(), copy(job));
+            return job;
+        }).when(jobRepository).save(any(IngestJob.class));
+        when(bulkIngestService.ingest(any(), anyBoolean(), any())).thenAnswer(inv -> {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return IngestStats.builder().build();
+        });
+
+        IngestJobStatus queued = jobService.submit(tempDir.toString(), false);
+        assertTrue(saving.await(5, TimeUnit.SECONDS));
+        jobService.cancel(queued.getId());
+
+        // Still running, so it cannot be resumed alongside itself
+        assertThrows(IllegalStateException.class, () -> jobService.resume(queued.getId()));
+        release.countDown();
+        assertEquals(IngestJob.Status.CANCELLED, awaitFinished(queued.getId()).getStatus());
+    }
+
+    @Test
+    void testIngestFailure_MarksJobFailed() throws Exception {
+        when(bulkIngestService.ingest(any(), anyBoolean(), any())).thenThrow(new IllegalStateException("disk gone"));
+
+        IngestJobStatus queued = jobService.submit(tempDir.toString(), false);
+
+        IngestJobStatus done = awaitFinished(queued.getId());
+        assertEquals(IngestJob.Status.FAILED, done.getStatus());
+        assertTrue(done.getError().contains("disk gone"));
+    }
+
+    @Test
+    void testResumeInterrupted_RequeuesUnfinishedJobs() throws Exception {
+        jobs.put("job-1", job("job-1", IngestJob.Status.RUNNING));
+        when(jobRepository.findByStatusInOrderByCreatedAtAsc(any())).thenReturn(List.of(jobs.get("job-1")));
+        when(bulkIngestService.ingest(any(), anyBoolean(), any()))
+                .thenReturn(IngestStats.builder().build());
+
+        jobService.resumeInterrupted();
+
+        assertEquals(IngestJob.Status.COMPLETED, awaitFinished("job-1").getStatus());
+    }
+
+    private IngestJobStatus awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            IngestJob job = jobs.get(id);
+            if (job != null && job.getStatus().isFinished()) {
+                return jobService.status(id);
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + id + " did not finish");
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private IngestJob job(String id, IngestJob.Status status) {
+        IngestJob job = new IngestJob();
+        job.setId(id);
+        job.setRootPath(tempDir.toString());
+        job.setStatus(status);
+        return job;
+    }
+
+    private IngestJob copy(IngestJob job) {
+        IngestJob copy = new IngestJob();
+        BeanUtils.copyProperties(job, copy);
+        return copy;
+    }
+}
@@ -0,0 +1,116 @@
+package com.mahe.soft.stock.db.ingest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedCsvSplitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSplit_MatchesSequentialParse() throws IOException {
+        StringBuilder csv = new StringBuilder("Symbol,Date,Open,High,Low,Close,Volume\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i % 97 == 0 ? "BAD,not-a-date,1,1,1,1,1" : "S" + (i % 50) + ",2020-01-02,1.5,2,1,1.75," + i);
+            csv.append('\n');
+        }
+        Path file = write(csv.toString());
+
+        List<IngestPipeline.Source> ranges = MappedCsvSplitter.split(file, rangeBytes(file, 4));
+        assertEquals(4, ranges.size());
+
+        List<StockPrice> parallel = new ArrayList<>();
+        int count = 0;
+        int filesCompleted = 0;
+        for (IngestPipeline.Source range : ranges) {
+            count += range.parse(null, parallel::add);
+            filesCompleted += range.filesCompleted();
+        }
+
+        List<StockPrice> sequential = new ArrayList<>();
+        DailyPriceCsvParser.forHeader("Symbol,Date,Open,High,Low,Close,Volume")
+                .parse(Files.newInputStream(file), sequential::add);
+
+        assertEquals(sequential.size(), count);
+        assertEquals(sequential, parallel);
+        assertEquals(1, filesCompleted);
+    }
+
+    @Test
+    void testSplit_ResumedFileFinishesWithRemainingRanges() throws IOException {
+        StringBuilder csv = new StringBuilder("Symbol,Date,Open,High,Low,Close,Volume\n");
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i == 1900 ? "BAD,not-a-date,1,1,1,1,1" : "S" + (i % 50) + ",2020-01-02,1.5,2,1,1.75," + i);
+            csv.append('\n');
+        }
+        Path file = write(csv.toString());
+        List<IngestPipeline.Source> ranges = MappedCsvSplitter.split(file, rangeBytes(file, 4));
+
+        // The first two ranges were committed by an earlier run
+        ranges.get(0).skipped();
+        ranges.get(1).skipped();
+        int filesCompleted = 0;
+        for (IngestPipeline.Source range : ranges.subList(2, 4)) {
+            range.parse(null, price -> { });
+            filesCompleted += range.filesCompleted();
+        }
+
+        assertEquals(1, filesCompleted);
+    }
+
+    @Test
+    void testSplit_RangeCountDependsOnlyOnSize() throws IOException {
+        Path file = write("Symbol,Date,Open,High,Low,Close,Volume\n" + "A,2020-01-02,1,1,1,1,1\n".repeat(400));
+
+        List<String> names = MappedCsvSplitter.split(file, 1024).stream().map(IngestPipeline.Source::name).toList();
+
+        assertEquals(names, MappedCsvSplitter.split(file, 1024).stream().map(IngestPipeline.Source::name).toList());
+        assertEquals((Files.size(file) + 1023) / 1024, names.size());
+        assertEquals("prices.csv#1/" + names.size(), names.get(0));
+    }
+
+    @Test
+    void testBoundaries_AlignToLineStarts() throws IOException {
+        Path file = write("Symbol,Date,Open,High,Low,Close,Volume\nA,2020-01-02,1,1,1,1,1\nB,2020-01-02,1,1,1,1,1\n");
+        byte[] bytes = Files.readAllBytes(file);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = MappedCsvSplitter.boundaries(channel, bytes.length, 8);
+
+            assertEquals(0L, bounds[0]);
+            assertEquals(bytes.length, bounds[bounds.length - 1]);
+            for (int i = 1; i < bounds.length - 1; i++) {
+                assertTrue(bounds[i] > bounds[i - 1]);
+                assertEquals('\n', bytes[(int) bounds[i] - 1]);
+            }
+        }
+    }
+
+    @Test
+    void testSplit_UnknownLayoutReturnsNull() throws IOException {
+        Path file = write("Date,Symbol,Close\n2020-01-02,A,1\n");
+        assertNull(MappedCsvSplitter.split(file, 1024));
+    }
+
+    private static long rangeBytes(Path file, int parts) throws IOException {
+        return (Files.size(file) + parts - 1) / parts;
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("prices.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
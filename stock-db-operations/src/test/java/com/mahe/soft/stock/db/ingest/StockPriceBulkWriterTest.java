@@ -0,0 +1,185 @@
+package com.mahe.soft.stock.db.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.service.StockSeriesCache;
+import com.mahe.soft.stock.db.service.SymbolSummaryService;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class StockPriceBulkWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private StockSeriesCache seriesCache;
+
+    @Mock
+    private SymbolSummaryService summaryService;
+
+    @InjectMocks
+    private StockPriceBulkWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "chunkSize", 3);
+    }
+
+    @Test
+    void testSession_CommitsEveryChunk() {
+        runTransactionsInline();
+
+        try (StockPriceBulkWriter.Session session = writer.openSession()) {
+            for (int i = 0; i < 7; i++) {
+                session.add(row(i));
+            }
+            // Two full chunks flushed so far, one row still buffered
+            verify(transactionTemplate, times(2)).execute(any());
+            assertEquals(6, session.getRowsWritten());
+            session.commit();
+        }
+
+        verify(transactionTemplate, times(3)).execute(any());
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(3)).update(sql.capture(), any(PreparedStatementSetter.class));
+        assertEquals(StockPriceBulkWriter.upsertSql(3), sql.getAllValues().get(0));
+        assertEquals(StockPriceBulkWriter.upsertSql(1), sql.getAllValues().get(2));
+        verify(seriesCache, times(3)).invalidate(Set.of("AAPL"));
+        verify(summaryService, times(3)).record(any());
+    }
+
+    @Test
+    void testWrite_RecomputesOverlappedSummariesAfterCommit() {
+        AtomicInteger open = runTransactionsInline();
+        when(summaryService.record(any())).thenReturn(List.of("AAPL"));
+        doAnswer(invocation -> {
+            assertEquals(0, open.get());
+            return null;
+        }).when(summaryService).recompute(List.of("AAPL"));
+
+        writer.write(List.of(row(0)));
+
+        verify(summaryService).recompute(List.of("AAPL"));
+    }
+
+    @Test
+    void testWrite_ConcurrentOverlappingBatchesDeferRecompute() throws Exception {
+        AtomicInteger open = runTransactionsInline();
+        CyclicBarrier bothInTransaction = new CyclicBarrier(2);
+        // Both batches overlap AAPL's stored history and hold their transactions open together
+        when(summaryService.record(any())).thenAnswer(invocation -> {
+            bothInTransaction.await(5, TimeUnit.SECONDS);
+            return List.of("AAPL");
+        });
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = writers.submit(() -> writer.write(List.of(row(0), row(1)), false));
+            Future<?> second = writers.submit(() -> writer.write(List.of(row(1), row(2)), false));
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            writers.shutdownNow();
+        }
+        verify(summaryService, never()).recompute(any());
+
+        doAnswer(invocation -> {
+            assertEquals(0, open.get());
+            return 1;
+        }).when(summaryService).recomputeStale();
+        writer.recomputeStaleSummaries();
+
+        verify(summaryService).recomputeStale();
+    }
+
+    @Test
+    void testSession_CloseWithoutCommitDropsPartialChunk() {
+        runTransactionsInline();
+
+        assertThrows(IllegalStateException.class, () -> {
+            try (StockPriceBulkWriter.Session session = writer.openSession()) {
+                for (int i = 0; i < 4; i++) {
+                    session.add(row(i));
+                }
+                throw new IllegalStateException("bad row");
+            }
+        });
+
+        // Only the full chunk was committed
+        verify(transactionTemplate, times(1)).execute(any());
+        verify(jdbcTemplate).update(eq(StockPriceBulkWriter.upsertSql(3)), any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void testSession_EmptyDoesNotWrite() {
+        writer.openSession().close();
+        verify(transactionTemplate, never()).execute(any());
+        verify(jdbcTemplate, never()).update(anyString(), any(PreparedStatementSetter.class));
+        verify(seriesCache, never()).invalidate(any());
+    }
+
+    @Test
+    void testUpsertSql() {
+        String sql = StockPriceBulkWriter.upsertSql(2);
+        assertTrue(sql.startsWith("INSERT INTO stock_prices (symbol, trade_date,"));
+        assertTrue(sql.contains("VALUES (?,?,?,?,?,?,?),(?,?,?,?,?,?,?) ON DUPLICATE KEY UPDATE"));
+        assertEquals(14, sql.chars().filter(c -> c == '?').count());
+    }
+
+    /**
+     * @return number of transactions currently open
+     */
+    private AtomicInteger runTransactionsInline() {
+        AtomicInteger open = new AtomicInteger();
+        doAnswer(invocation -> {
+            TransactionCallback<?> action = invocation.getArgument(0);
+            open.incrementAndGet();
+            try {
+                return action.doInTransaction(null);
+            } finally {
+                open.decrementAndGet();
+            }
+        }).when(transactionTemplate).execute(any());
+        return open;
+    }
+
+    private static StockPrice row(int i) {
+        BigDecimal price = BigDecimal.valueOf(100 + i);
+        return new StockPrice("AAPL", LocalDate.of(2024, 1, 1).plusDays(i), price, price, price, price, 1000L);
+    }
+}
@@ -0,0 +1,97 @@
+package com.mahe.soft.stock.db.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.mahe.soft.stock.common.CandleSeries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class StockSeriesCacheTest {
+
+    private StockSeriesCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new StockSeriesCache();
+        ReflectionTestUtils.setField(cache, "maxMb", 1L);
+    }
+
+    @Test
+    void testGet_LoadsOnceThenHits() {
+        int[] loads = { 0 };
+        CandleSeries first = cache.get("AAPL", symbol -> {
+            loads[0]++;
+            return series(symbol, 10);
+        });
+        CandleSeries second = cache.get("AAPL", symbol -> {
+            throw new AssertionError("should be cached");
+        });
+
+        assertSame(first, second);
+        assertEquals(1, loads[0]);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedOverBudget() {
+        // ~0.4 MiB each: two fit in 1 MiB, three do not
+        cache.put("A", series("A", 10_000), cache.epoch());
+        cache.put("B", series("B", 10_000), cache.epoch());
+        cache.getIfPresent("A");
+        cache.put("C", series("C", 10_000), cache.epoch());
+
+        assertNotNull(cache.getIfPresent("A"));
+        assertNull(cache.getIfPresent("B"));
+        assertNotNull(cache.getIfPresent("C"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testPut_IgnoresSeriesOverBudget() {
+        cache.put("HUGE", series("HUGE", 30_000), cache.epoch());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testInvalidate_DropsEntryAndStaleLoads() {
+        cache.put("AAPL", series("AAPL", 5), cache.epoch());
+        long loadEpoch = cache.epoch();
+
+        cache.invalidate(List.of("AAPL"));
+        // A load that started before the write must not repopulate the entry
+        cache.put("AAPL", series("AAPL", 5), loadEpoch);
+
+        assertNull(cache.getIfPresent("AAPL"));
+        assertEquals(0, cache.getBytes());
+    }
+
+    @Test
+    void testBindTo_PublishesCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.get("AAPL", symbol -> series(symbol, 1));
+        cache.get("AAPL", symbol -> series(symbol, 1));
+
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.size").gauge().value());
+    }
+
+    private static CandleSeries series(String symbol, int bars) {
+        CandleSeries.Builder builder = CandleSeries.builder(symbol, bars);
+        LocalDate day = LocalDate.of(2000, 1, 3);
+        for (int i = 0; i < bars; i++) {
+            builder.add(day.plusDays(i), 1, 1, 1, 1, 1);
+        }
+        return builder.build();
+    }
+}
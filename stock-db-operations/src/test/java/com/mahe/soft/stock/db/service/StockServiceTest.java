@@ -2,19 +2,33 @@ package com.mahe.soft.stock.db.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.mahe.soft.stock.common.CandleSeries;
 import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.ingest.StockPriceBulkWriter;
 import com.mahe.soft.stock.db.repository.StockPriceRepository;
+import java.io.ByteArrayInputStream;
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
@@ -23,33 +37,167 @@ class StockServiceTest {
     @Mock
     private StockPriceRepository repository;
 
+    @Mock
+    private StockPriceBulkWriter bulkWriter;
+
+    @Mock
+    private StockPriceBulkWriter.Session session;
+
+    @Mock
+    private SymbolSummaryService summaryService;
+
+    @Spy
+    private StockSeriesCache seriesCache = new StockSeriesCache();
+
+    @Captor
+    private ArgumentCaptor<List<String>> chunks;
+
     @InjectMocks
     private StockService stockService;
 
     @Test
-    void testGetStockPrices() {
-        String symbol = "AAPL";
+    void testGetStockPrices_SlicesCachedHistory() {
+        when(repository.findBySymbolOrderByTradeDateAsc("AAPL")).thenReturn(List.of(
+                price("AAPL", LocalDate.of(2023, 1, 3), "101.25"),
+                price("AAPL", LocalDate.of(2023, 1, 4), "102.5"),
+                price("AAPL", LocalDate.of(2023, 2, 1), "99")));
+
+        List<StockPrice> january = stockService.getStockPrices("AAPL", LocalDate.of(2023, 1, 1),
+                LocalDate.of(2023, 1, 31));
+        List<StockPrice> all = stockService.getStockPrices("AAPL", null, null);
+
+        assertEquals(2, january.size());
+        assertEquals(new BigDecimal("101.2500"), january.get(0).getClosePrice());
+        assertEquals(1000L, january.get(0).getVolume());
+        assertEquals(3, all.size());
+        // One load for both ranges
+        verify(repository, times(1)).findBySymbolOrderByTradeDateAsc("AAPL");
+        assertEquals(1, seriesCache.getHits());
+        assertEquals(1, seriesCache.getMisses());
+    }
+
+    @Test
+    void testDeleteBySymbol_InvalidatesCache() {
+        when(repository.findBySymbolOrderByTradeDateAsc("AAPL"))
+                .thenReturn(List.of(price("AAPL", LocalDate.of(2023, 1, 3), "1")))
+                .thenReturn(Collections.emptyList());
+        assertEquals(1, stockService.getStockPrices("AAPL", null, null).size());
+
+        stockService.deleteBySymbol("AAPL");
+
+        assertTrue(stockService.getStockPrices("AAPL", null, null).isEmpty());
+        verify(repository, times(2)).findBySymbolOrderByTradeDateAsc("AAPL");
+        verify(summaryService).delete("AAPL");
+    }
+
+    @Test
+    void testStreamStockPrices_ReplaysCachedSeries() {
+        when(repository.findBySymbolOrderByTradeDateAsc("AAPL")).thenReturn(List.of(
+                price("AAPL", LocalDate.of(2023, 1, 3), "1"), price("AAPL", LocalDate.of(2023, 1, 4), "2")));
+        stockService.getCandleSeries("AAPL", null, null);
+        List<StockPrice> received = new ArrayList<>();
+
+        long count = stockService.streamStockPrices("AAPL", LocalDate.of(2023, 1, 4), LocalDate.of(2023, 1, 4),
+                received::add);
+
+        assertEquals(1, count);
+        assertEquals(LocalDate.of(2023, 1, 4), received.get(0).getTradeDate());
+        verify(repository, never()).streamBySymbolAndTradeDateBetween(any(), any(), any());
+    }
+
+    @Test
+    void testStreamStockPrices() {
         LocalDate start = LocalDate.of(2023, 1, 1);
         LocalDate end = LocalDate.of(2023, 1, 31);
+        StockPrice row = new StockPrice();
+        when(repository.streamBySymbolAndTradeDateBetween("AAPL", start, end))
+                .thenReturn(Stream.of(row, row, row));
+        List<StockPrice> received = new ArrayList<>();
 
-        when(repository.findBySymbolAndTradeDateBetweenOrderByTradeDateAsc(symbol, start, end))
-                .thenReturn(Collections.emptyList());
+        long count = stockService.streamStockPrices("AAPL", start, end, received::add);
+
+        assertEquals(3, count);
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    void testGetCandleSeries() {
+        StockPrice row = new StockPrice("AAPL", LocalDate.of(2024, 1, 2), new BigDecimal("1.25"),
+                new BigDecimal("2"), new BigDecimal("1"), new BigDecimal("1.5"), null);
+        when(repository.findBySymbolOrderByTradeDateAsc("AAPL")).thenReturn(List.of(row));
 
-        List<StockPrice> result = stockService.getStockPrices(symbol, start, end);
+        CandleSeries series = stockService.getCandleSeries("AAPL", null, null);
 
-        assertNotNull(result);
-        verify(repository).findBySymbolAndTradeDateBetweenOrderByTradeDateAsc(symbol, start, end);
+        assertEquals(1, series.size());
+        assertEquals(LocalDate.of(2024, 1, 2), series.getDate(0));
+        assertEquals(1.25, series.getOpen()[0]);
+        assertEquals(0.0, series.getVolume()[0]);
     }
 
     @Test
-    void testGetStockPrices_NoDates() {
-        String symbol = "AAPL";
-        when(repository.findBySymbolOrderByTradeDateAsc(symbol)).thenReturn(Collections.emptyList());
+    void testStreamStockPricesBatch_SortedChunks() {
+        List<String> symbols = new ArrayList<>();
+        for (int i = StockService.MAX_SYMBOLS_PER_QUERY + 10; i > 0; i--) {
+            symbols.add(String.format("S%05d", i));
+        }
+        symbols.add("S00001"); // duplicate
+        when(repository.streamBySymbolIn(chunks.capture()))
+                .thenAnswer(inv -> Stream.of(price("S00001", LocalDate.of(2024, 1, 2), "1")));
+
+        long count = stockService.streamStockPricesBatch(symbols, null, null, row -> {
+        });
+
+        assertEquals(2, count);
+        assertEquals(StockService.MAX_SYMBOLS_PER_QUERY, chunks.getAllValues().get(0).size());
+        assertEquals("S00001", chunks.getAllValues().get(0).get(0));
+        assertEquals(List.of("S01001", "S01002", "S01003", "S01004", "S01005", "S01006", "S01007", "S01008",
+                "S01009", "S01010"), chunks.getAllValues().get(1));
+    }
 
-        List<StockPrice> result = stockService.getStockPrices(symbol, null, null);
+    @Test
+    void testStreamCandleSeriesBatch_GroupsBySymbol() {
+        BigDecimal one = BigDecimal.ONE;
+        // Misses load the full history (cached), then the range is sliced from it
+        when(repository.streamBySymbolIn(any())).thenReturn(Stream.of(
+                new StockPrice("AAPL", LocalDate.of(2023, 12, 29), one, one, one, one, 1L),
+                new StockPrice("AAPL", LocalDate.of(2024, 1, 2), one, one, one, one, 1L),
+                new StockPrice("AAPL", LocalDate.of(2024, 1, 3), one, one, one, one, 1L),
+                new StockPrice("MSFT", LocalDate.of(2024, 1, 2), one, one, one, one, 1L)));
+        List<CandleSeries> series = new ArrayList<>();
+
+        stockService.streamCandleSeriesBatch(List.of("MSFT", "AAPL"), LocalDate.of(2024, 1, 1),
+                LocalDate.of(2024, 1, 31), series::add);
+
+        assertEquals(2, series.size());
+        assertEquals("AAPL", series.get(0).getSymbol());
+        assertEquals(2, series.get(0).size());
+        assertEquals("MSFT", series.get(1).getSymbol());
+    }
+
+    @Test
+    void testStreamCandleSeriesBatch_MergesCachedAndLoaded() {
+        when(repository.findBySymbolOrderByTradeDateAsc("MSFT"))
+                .thenReturn(List.of(price("MSFT", LocalDate.of(2024, 1, 2), "3")));
+        stockService.getCandleSeries("MSFT", null, null);
+        when(repository.streamBySymbolIn(List.of("AAPL", "NVDA"))).thenReturn(Stream.of(
+                price("AAPL", LocalDate.of(2024, 1, 2), "1"), price("NVDA", LocalDate.of(2024, 1, 2), "2")));
+        List<CandleSeries> series = new ArrayList<>();
+
+        stockService.streamCandleSeriesBatch(List.of("NVDA", "MSFT", "AAPL"), null, null, series::add);
+
+        assertEquals(List.of("AAPL", "MSFT", "NVDA"),
+                series.stream().map(CandleSeries::getSymbol).toList());
+        // Loaded symbols are now cached too
+        assertNotNull(seriesCache.getIfPresent("NVDA"));
+    }
+
+    @Test
+    void testStreamStockPrices_NoDates() {
+        when(repository.streamBySymbol("AAPL")).thenReturn(Stream.empty());
 
-        assertNotNull(result);
-        verify(repository).findBySymbolOrderByTradeDateAsc(symbol);
+        assertEquals(0, stockService.streamStockPrices("AAPL", null, LocalDate.now(), row -> {
+        }));
+        verify(repository).streamBySymbol("AAPL");
     }
 
     @Test
@@ -58,21 +206,21 @@ class StockServiceTest {
                 "AAPL,2-Jan-20,100.0,105.0,99.0,102.0,1000";
         StringReader reader = new StringReader(csvContent);
 
-        // Capture the argument passed to saveAll
-        org.mockito.ArgumentCaptor<List<StockPrice>> captor = org.mockito.ArgumentCaptor.forClass(List.class);
-
-        // Mock saveAll to return the list passed to it
-        when(repository.saveAll(captor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+        // Capture the rows streamed to the bulk writer
+        ArgumentCaptor<StockPrice> captor = ArgumentCaptor.forClass(StockPrice.class);
+        when(bulkWriter.openSession()).thenReturn(session);
 
         // Fix: Method returns int count, not List
         int count = stockService.saveFromReader(reader);
 
         assertEquals(1, count);
 
-        List<StockPrice> captured = captor.getValue();
-        StockPrice price = captured.get(0);
+        verify(session).add(captor.capture());
+        verify(session).commit();
+        verify(session).close();
+        StockPrice price = captor.getValue();
         assertEquals("AAPL", price.getSymbol());
-        assertEquals(new java.math.BigDecimal("102.0"), price.getClosePrice()); // BigDecimal check
+        assertEquals(new BigDecimal("102.0"), price.getClosePrice()); // BigDecimal check
         assertEquals(LocalDate.of(2020, 1, 2), price.getTradeDate());
     }
 
@@ -83,13 +231,46 @@ class StockServiceTest {
                 "GOOG\t2-Jan-20\t500.0\t505.0\t499.0\t502.0\t2000";
         StringReader reader = new StringReader(csvContent);
 
-        org.mockito.ArgumentCaptor<List<StockPrice>> captor = org.mockito.ArgumentCaptor.forClass(List.class);
-        when(repository.saveAll(captor.capture())).thenReturn(Collections.emptyList());
+        ArgumentCaptor<StockPrice> captor = ArgumentCaptor.forClass(StockPrice.class);
+        when(bulkWriter.openSession()).thenReturn(session);
 
         int count = stockService.saveFromReader(reader);
 
         assertEquals(1, count);
-        assertEquals("GOOG", captor.getValue().get(0).getSymbol());
+        verify(session, times(1)).add(captor.capture());
+        assertEquals("GOOG", captor.getValue().getSymbol());
+    }
+
+    @Test
+    void testParseCsv_StreamFallsBackForOtherLayouts() {
+        // Reordered columns are not the fast layout; commons-csv maps them by header name
+        String csvContent = "Date,Symbol,Close,Open,High,Low,Volume\n" +
+                "2-Jan-20,MSFT,102.0,100.0,105.0,99.0,1000";
+        List<StockPrice> rows = new ArrayList<>();
+
+        int count = stockService.parseCsv(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)),
+                rows::add);
+
+        assertEquals(1, count);
+        assertEquals("MSFT", rows.get(0).getSymbol());
+        assertEquals(new BigDecimal("102.0"), rows.get(0).getClosePrice());
+    }
+
+    @Test
+    void testParseCsv_StreamMatchesReader() {
+        String csvContent = "Symbol,Date,Open,High,Low,Close,Volume\n" +
+                "AAPL,2-Jan-20,100.0,105.0,99.0,102.0,1000\n" +
+                "AAPL,2020-01-03,101.5,106.25,100,103,1100\n";
+        List<StockPrice> fromStream = new ArrayList<>();
+        List<StockPrice> fromReader = new ArrayList<>();
+
+        stockService.parseCsv(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)),
+                fromStream::add);
+        stockService.parseCsv(new StringReader(csvContent), fromReader::add);
+
+        assertEquals(fromReader, fromStream);
     }
 
     @Test
@@ -98,4 +279,9 @@ class StockServiceTest {
         stockService.deleteBySymbol(symbol);
         verify(repository).deleteBySymbol(symbol);
     }
+
+    private static StockPrice price(String symbol, LocalDate date, String close) {
+        BigDecimal value = new BigDecimal(close);
+        return new StockPrice(symbol, date, value, value, value, value, 1000L);
+    }
 }
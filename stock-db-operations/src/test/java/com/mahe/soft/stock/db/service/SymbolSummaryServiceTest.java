@@ -0,0 +1,134 @@
+package com.mahe.soft.stock.db.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mahe.soft.stock.db.entity.StockPrice;
+import com.mahe.soft.stock.db.repository.SymbolSummaryRepository;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class SymbolSummaryServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SymbolSummaryRepository summaryRepository;
+
+    @InjectMocks
+    private SymbolSummaryService summaryService;
+
+    @Captor
+    private ArgumentCaptor<List<Object[]>> mergeArgs;
+
+    @Test
+    void testRecord_AggregatesBatchPerSymbol() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of());
+
+        summaryService.record(List.of(
+                row("MSFT", LocalDate.of(2024, 1, 3), "10", "12", "9", 100L),
+                row("AAPL", LocalDate.of(2024, 1, 2), "5", "6", "4", 50L),
+                row("MSFT", LocalDate.of(2024, 1, 2), "11", "15", "8", null)));
+
+        verify(jdbcTemplate).batchUpdate(eq(SymbolSummaryService.MERGE_SQL), mergeArgs.capture());
+        // Sorted by symbol: rows are locked in a consistent order
+        assertArrayEquals(new Object[] { "AAPL", Date.valueOf("2024-01-02"), Date.valueOf("2024-01-02"), 1L,
+                new BigDecimal("5"), 50L, new BigDecimal("6"), new BigDecimal("4") }, mergeArgs.getValue().get(0));
+        assertArrayEquals(new Object[] { "MSFT", Date.valueOf("2024-01-02"), Date.valueOf("2024-01-03"), 2L,
+                new BigDecimal("10"), 100L, new BigDecimal("15"), new BigDecimal("8") }, mergeArgs.getValue().get(1));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void testRecord_ReturnsOverlappingSymbolsWithoutRecompute() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("AAPL"));
+
+        List<String> overlapping = summaryService.record(
+                List.of(row("AAPL", LocalDate.of(2020, 1, 2), "5", "6", "4", 50L)));
+
+        // Recomputed by the caller after commit, never inside the price-writing transaction
+        assertEquals(List.of("AAPL"), overlapping);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @Test
+    void testRecompute_SortedChunks() {
+        List<String> symbols = new ArrayList<>();
+        for (int i = SymbolSummaryService.RECOMPUTE_CHUNK; i >= 0; i--) {
+            symbols.add(String.format("S%04d", i));
+        }
+
+        summaryService.recompute(symbols);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(sql.capture(), args.capture());
+        assertTrue(sql.getAllValues().get(0).startsWith("INSERT INTO symbol_summary"));
+        assertTrue(sql.getAllValues().get(1).contains("FROM stock_prices p WHERE p.symbol IN (?) GROUP BY p.symbol"));
+        assertEquals(SymbolSummaryService.RECOMPUTE_CHUNK, args.getAllValues().get(0).length);
+        assertEquals("S0000", args.getAllValues().get(0)[0]);
+        assertArrayEquals(new Object[] { "S0500" }, args.getAllValues().get(1));
+    }
+
+    @Test
+    void testRecomputeStale_RecomputesMarkedRows() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("AAPL"));
+
+        assertEquals(1, summaryService.recomputeStale());
+
+        verify(jdbcTemplate).update(anyString(), eq("AAPL"));
+    }
+
+    @Test
+    void testRecord_EmptyBatchDoesNothing() {
+        summaryService.record(List.of());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void testMergeSql_OverlapMarksRowForRecompute() {
+        String sql = SymbolSummaryService.MERGE_SQL;
+        // row_count and latest_close must be assigned before last_trade_date is overwritten
+        assertTrue(sql.indexOf("row_count = IF(") < sql.indexOf("last_trade_date = GREATEST"));
+        assertTrue(sql.indexOf("latest_close = IF(") < sql.indexOf("last_trade_date = GREATEST"));
+        assertEquals(8, sql.chars().filter(c -> c == '?').count());
+    }
+
+    @Test
+    void testMergeSql_OverlapThenAppendKeepsRowStale() {
+        String sql = SymbolSummaryService.MERGE_SQL;
+        String rowCount = sql.substring(sql.indexOf("row_count = IF("), sql.indexOf("volume_sum ="));
+        // Without the guard, -1 + an appended batch's count turns non-negative and recomputeStale() skips it
+        assertTrue(rowCount.startsWith("row_count = IF(row_count >= 0 AND VALUES(first_trade_date) > last_trade_date,"),
+                rowCount);
+        assertTrue(rowCount.contains("row_count + VALUES(row_count), -1)"), rowCount);
+    }
+
+    private static StockPrice row(String symbol, LocalDate date, String close, String high, String low, Long volume) {
+        return new StockPrice(symbol, date, new BigDecimal(close), new BigDecimal(high), new BigDecimal(low),
+                new BigDecimal(close), volume);
+    }
+}